@@ -0,0 +1,315 @@
+package benchmarks;
+
+import com.crawljax.plugins.cret.cssmodel.MCssFile;
+import com.crawljax.plugins.cret.cssmodel.MCssRule;
+import com.crawljax.plugins.cret.cssmodel.MSelector;
+import com.crawljax.plugins.cret.cssmodel.declarations.MDeclaration;
+import com.crawljax.plugins.cret.parser.CssParser;
+import com.crawljax.plugins.cret.sass.clonedetection.ClonedDeclaration;
+import com.crawljax.plugins.cret.sass.clonedetection.items.Item;
+import com.crawljax.plugins.cret.transformation.NormalizeAndSplitPlugin;
+import com.crawljax.plugins.cret.transformation.matcher.MatchedElements;
+import com.crawljax.plugins.cret.transformation.merge.NormalizeAndMergePlugin;
+import com.crawljax.util.DomUtils;
+import org.apache.log4j.Level;
+import org.apache.log4j.LogManager;
+import org.apache.log4j.xml.DOMConfigurator;
+import org.w3c.dom.Document;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.*;
+
+/**
+ * Fixtures for the benchmarks, either the existing test resources or synthetic stylesheets and DOMs of configurable size
+ * A fixture is given as 'resources' or 'synthetic-N', where N is the number of rules and elements to generate
+ * Synthetic fixtures are generated with a fixed seed, so every run measures the same input
+ */
+public class BenchmarkFixtures
+{
+	public static final String RESOURCES = "resources";
+	private static final String SYNTHETIC = "synthetic-";
+	private static final String RESOURCE_DIR = "./src/test/resources/";
+	private static final long SEED = 42;
+
+	private static final String[] TAGS = { "div", "span", "p", "a", "ul", "li", "section", "header", "footer", "img" };
+
+	private static final String[] DECLARATIONS = {
+			"color: #336699", "color: red", "color: rgb(12, 34, 56)", "background-color: #ffffff", "background-color: rgba(0, 0, 0, 0.5)",
+			"margin: 0", "margin: 10px 5px", "margin-left: 20px", "padding: 4px", "padding: 2px 4px 6px 8px", "padding-top: 20px",
+			"border: 1px solid black", "border-width: 2px", "border-style: solid", "border-color: grey", "border-radius: 4px",
+			"font-size: 12px", "font-size: 1.4em", "font-weight: bold", "font-family: \"Open Sans\", Helvetica, sans-serif",
+			"line-height: 1.5", "text-decoration: none", "text-align: center", "display: block", "display: inline-block", "display: none",
+			"position: relative", "position: absolute", "top: 40%", "left: 0", "width: 100%", "width: 50px", "height: 100px",
+			"float: left", "overflow: hidden", "z-index: 999", "opacity: 0.8", "outline: 0",
+			"background: url(/images/bg.png) no-repeat", "background-position: center center", "list-style: none"
+	};
+
+	public static void configureLogging()
+	{
+		DOMConfigurator.configure("log4j.xml");
+		LogManager.getLogger("css.suite.logger").setLevel(Level.WARN);
+	}
+
+
+	/**
+	 * @return the CSS code for the given fixture, the given test resource is used for the 'resources' fixture
+	 */
+	public static String css(String fixture, String resource)
+	{
+		if (RESOURCES.equals(fixture))
+		{
+			return readResource(resource);
+		}
+		return generateCss(size(fixture), SEED);
+	}
+
+
+	/**
+	 * @return the HTML code for the given fixture, the given test resource is used for the 'resources' fixture
+	 */
+	public static String html(String fixture, String resource)
+	{
+		if (RESOURCES.equals(fixture))
+		{
+			return readResource(resource);
+		}
+		return generateHtml(size(fixture), SEED);
+	}
+
+
+	public static MCssFile parse(String url, String css)
+	{
+		return new CssParser(false).parseCssIntoMCssRules(url, css);
+	}
+
+
+	/**
+	 * Parse the given CSS and run it through the normalize, split and merge plug-ins, as CRET does before SASS generation
+	 */
+	public static MCssFile normalize(String url, String css)
+	{
+		Map<String, MCssFile> files = new HashMap<>();
+		files.put(url, parse(url, css));
+		files = new NormalizeAndSplitPlugin().transform(files, new MatchedElements());
+		files = new NormalizeAndMergePlugin().transform(files, new MatchedElements());
+		return files.get(url);
+	}
+
+
+	public static Document document(String html)
+	{
+		try
+		{
+			return DomUtils.asDocument(html);
+		}
+		catch (IOException e)
+		{
+			throw new IllegalStateException("Could not build DOM for benchmark fixture", e);
+		}
+	}
+
+
+	/**
+	 * @return copies of all selectors in the given file, like SassBuilder uses them
+	 */
+	public static List<MSelector> copySelectors(MCssFile file)
+	{
+		List<MSelector> selectors = new ArrayList<>();
+		for (MCssRule rule : file.getRules())
+		{
+			for (MSelector mSelector : rule.getSelectors())
+			{
+				selectors.add(new MSelector(mSelector));
+			}
+		}
+		return selectors;
+	}
+
+
+	/**
+	 * Group equal declarations into items, one transaction per selector, like CloneDetector does before mining
+	 */
+	public static List<TreeSet<Item>> transactions(List<MSelector> selectors)
+	{
+		Map<String, Item> items = new HashMap<>();
+		List<List<Item>> selectorItems = new ArrayList<>();
+		for (MSelector selector : selectors)
+		{
+			List<Item> current = new ArrayList<>();
+			for (MDeclaration declaration : selector.getDeclarations())
+			{
+				Item item = items.computeIfAbsent(declaration.toString(), k -> new Item());
+				item.add(new ClonedDeclaration(declaration, selector));
+				current.add(item);
+			}
+			selectorItems.add(current);
+		}
+
+		List<TreeSet<Item>> transactions = new ArrayList<>();
+		for (List<Item> current : selectorItems)
+		{
+			TreeSet<Item> transaction = new TreeSet<>();
+			current.stream().filter(i -> i.getSupportSize() >= 2).forEach(transaction::add);
+			if (!transaction.isEmpty())
+			{
+				transactions.add(transaction);
+			}
+		}
+		return transactions;
+	}
+
+
+	/**
+	 * Generate a stylesheet with the given number of rules
+	 * Selectors use the same tags, classes and ids as generateHtml, declarations are drawn from a fixed pool,
+	 * so that rules match, override each other and contain clones, every tenth rule is placed in a media query
+	 */
+	public static String generateCss(int rules, long seed)
+	{
+		Random random = new Random(seed);
+		int classes = Math.max(10, rules / 10);
+
+		StringBuilder builder = new StringBuilder();
+		for (int i = 0; i < rules; i++)
+		{
+			boolean media = i % 10 == 9;
+			if (media)
+			{
+				builder.append("@media screen and (max-width: 600px) {\n");
+			}
+
+			builder.append(generateSelector(random, classes, rules));
+			if (random.nextInt(4) == 0)
+			{
+				builder.append(", ").append(generateSelector(random, classes, rules));
+			}
+			builder.append(" {\n");
+
+			int declarations = 2 + random.nextInt(7);
+			for (int j = 0; j < declarations; j++)
+			{
+				builder.append("\t").append(DECLARATIONS[random.nextInt(DECLARATIONS.length)]).append(";\n");
+			}
+			builder.append("}\n");
+
+			if (media)
+			{
+				builder.append("}\n");
+			}
+		}
+
+		return builder.toString();
+	}
+
+
+	private static String generateSelector(Random random, int classes, int ids)
+	{
+		String tag = TAGS[random.nextInt(TAGS.length)];
+		String cls = "c" + random.nextInt(classes);
+		switch (random.nextInt(8))
+		{
+			case 0:
+				return "." + cls;
+			case 1:
+				return tag + "." + cls;
+			case 2:
+				return "#e" + random.nextInt(ids);
+			case 3:
+				return "." + cls + " ." + "c" + random.nextInt(classes);
+			case 4:
+				return "." + cls + " > " + tag;
+			case 5:
+				return tag + ":hover";
+			case 6:
+				return "ul li a";
+			default:
+				return tag + " + " + TAGS[random.nextInt(TAGS.length)];
+		}
+	}
+
+
+	/**
+	 * Generate a document with the given number of elements, nested up to 6 levels deep
+	 * Elements have classes and ids from the same vocabulary as generateCss
+	 */
+	public static String generateHtml(int elements, long seed)
+	{
+		Random random = new Random(seed);
+		int classes = Math.max(10, elements / 10);
+
+		StringBuilder builder = new StringBuilder("<html><head><title>benchmark</title></head><body>\n");
+		Deque<String> open = new ArrayDeque<>();
+
+		for (int i = 0; i < elements; i++)
+		{
+			// close some elements, so that the tree gets both width and depth
+			while (!open.isEmpty() && (open.size() >= 6 || random.nextInt(3) == 0))
+			{
+				builder.append("</").append(open.pop()).append(">\n");
+			}
+
+			String tag = TAGS[random.nextInt(TAGS.length)];
+			builder.append("<").append(tag);
+			if (random.nextInt(5) == 0)
+			{
+				builder.append(" id=\"e").append(i).append("\"");
+			}
+			if (random.nextInt(2) == 0)
+			{
+				builder.append(" class=\"c").append(random.nextInt(classes));
+				if (random.nextInt(3) == 0)
+				{
+					builder.append(" c").append(random.nextInt(classes));
+				}
+				builder.append("\"");
+			}
+			if (tag.equals("a"))
+			{
+				builder.append(" href=\"/page").append(i).append(".html\"");
+			}
+
+			if (tag.equals("img"))
+			{
+				builder.append(" src=\"/images/").append(i).append(".png\"/>\n");
+			}
+			else
+			{
+				builder.append(">text ").append(i);
+				open.push(tag);
+			}
+		}
+
+		while (!open.isEmpty())
+		{
+			builder.append("</").append(open.pop()).append(">\n");
+		}
+
+		return builder.append("</body></html>").toString();
+	}
+
+
+	private static int size(String fixture)
+	{
+		if (!fixture.startsWith(SYNTHETIC))
+		{
+			throw new IllegalArgumentException(String.format("Unknown benchmark fixture '%s', expected '%s' or '%sN'", fixture, RESOURCES, SYNTHETIC));
+		}
+		return Integer.parseInt(fixture.substring(SYNTHETIC.length()));
+	}
+
+
+	private static String readResource(String resource)
+	{
+		try
+		{
+			return new String(Files.readAllBytes(Paths.get(RESOURCE_DIR + resource)), StandardCharsets.UTF_8);
+		}
+		catch (IOException e)
+		{
+			throw new IllegalStateException(String.format("Could not read benchmark resource '%s'", resource), e);
+		}
+	}
+}
@@ -0,0 +1,55 @@
+package benchmarks;
+
+import com.crawljax.plugins.cret.cssmodel.MCssFile;
+import com.crawljax.plugins.cret.cssmodel.MSelector;
+import com.crawljax.plugins.cret.sass.clonedetection.CloneDetector;
+import com.crawljax.plugins.cret.sass.mixins.SassCloneMixin;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Detection of cloned declarations and generation of mixins, with and without incremental clone detection
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CloneDetectorBenchmark
+{
+	@Param({ BenchmarkFixtures.RESOURCES, "synthetic-200", "synthetic-2000" })
+	public String fixture;
+
+	@Param({ "true", "false" })
+	public boolean incremental;
+
+	private MCssFile _file;
+	private List<MSelector> _selectors;
+
+	@Setup(Level.Trial)
+	public void setupTrial()
+	{
+		BenchmarkFixtures.configureLogging();
+		_file = BenchmarkFixtures.parse("benchmark.css", BenchmarkFixtures.css(fixture, "clonedetector_3_test.css"));
+	}
+
+
+	/**
+	 * Mixin extraction removes declarations from the selectors, so every invocation works on fresh copies
+	 */
+	@Setup(Level.Invocation)
+	public void setupInvocation()
+	{
+		_selectors = BenchmarkFixtures.copySelectors(_file);
+	}
+
+
+	@Benchmark
+	public List<SassCloneMixin> generateMixinsFromClones()
+	{
+		return new CloneDetector(true, incremental).generateMixinsFromClones(_selectors);
+	}
+}
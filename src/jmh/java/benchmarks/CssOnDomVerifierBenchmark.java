@@ -0,0 +1,69 @@
+package benchmarks;
+
+import com.crawljax.plugins.cret.cssmodel.MCssFile;
+import com.crawljax.plugins.cret.dommodel.DomState;
+import com.crawljax.plugins.cret.verification.CssOnDomVerifier;
+import com.crawljax.util.DomUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Verification of the generated styles against the original styles on the DOM
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CssOnDomVerifierBenchmark
+{
+	@Param({ BenchmarkFixtures.RESOURCES, "synthetic-200", "synthetic-2000" })
+	public String fixture;
+
+	private String _css;
+	private Map<DomState, LinkedHashMap<String, Integer>> _states;
+	private Map<String, MCssFile> _original;
+	private Map<String, MCssFile> _generated;
+
+	@Setup(Level.Trial)
+	public void setupTrial() throws IOException
+	{
+		BenchmarkFixtures.configureLogging();
+		_css = BenchmarkFixtures.css(fixture, "cssanalyzer_test_styles.css");
+
+		String html = BenchmarkFixtures.html(fixture, "cssanalyzer_test_index.html");
+		LinkedHashMap<String, Integer> order = new LinkedHashMap<>();
+		order.put("benchmark.css", 0);
+
+		_states = new HashMap<>();
+		_states.put(new DomState("index", "http://benchmark/index.html", DomUtils.asDocument(html)), order);
+	}
+
+
+	/**
+	 * Verification normalizes and matches both sets of styles, so every invocation starts from freshly parsed files
+	 */
+	@Setup(Level.Invocation)
+	public void setupInvocation()
+	{
+		_original = new HashMap<>();
+		_original.put("benchmark.css", BenchmarkFixtures.parse("benchmark.css", _css));
+		_generated = new HashMap<>();
+		_generated.put("benchmark.css", BenchmarkFixtures.parse("benchmark.css", _css));
+	}
+
+
+	@Benchmark
+	public CssOnDomVerifier verify() throws IOException
+	{
+		CssOnDomVerifier verifier = new CssOnDomVerifier();
+		verifier.verify(_states, _original, _generated);
+		return verifier;
+	}
+}
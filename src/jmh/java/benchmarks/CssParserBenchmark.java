@@ -0,0 +1,38 @@
+package benchmarks;
+
+import com.crawljax.plugins.cret.cssmodel.MCssFile;
+import com.crawljax.plugins.cret.parser.CssParser;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing of CSS code into the MCssFile model
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CssParserBenchmark
+{
+	@Param({ BenchmarkFixtures.RESOURCES, "synthetic-200", "synthetic-2000" })
+	public String fixture;
+
+	private String _css;
+
+	@Setup
+	public void setup()
+	{
+		BenchmarkFixtures.configureLogging();
+		_css = BenchmarkFixtures.css(fixture, "clonedetector_3_test.css");
+	}
+
+
+	@Benchmark
+	public MCssFile parseCssIntoMCssRules()
+	{
+		return new CssParser(false).parseCssIntoMCssRules("benchmark.css", _css);
+	}
+}
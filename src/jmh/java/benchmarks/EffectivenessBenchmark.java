@@ -0,0 +1,77 @@
+package benchmarks;
+
+import com.crawljax.plugins.cret.cssmodel.MCssFile;
+import com.crawljax.plugins.cret.cssmodel.MSelector;
+import com.crawljax.plugins.cret.transformation.effectiveness.EffectivenessAnalysis;
+import com.crawljax.plugins.cret.transformation.matcher.ElementSelectorMatcher;
+import com.crawljax.plugins.cret.transformation.matcher.MatchedElements;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Effectiveness analysis of matched selectors, with and without the element index
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EffectivenessBenchmark
+{
+	@Param({ BenchmarkFixtures.RESOURCES, "synthetic-200", "synthetic-2000" })
+	public String fixture;
+
+	// false runs the pairwise reference implementation
+	@Param({ "true", "false" })
+	public boolean indexed;
+
+	private List<List<MSelector>> _elementSelectors;
+	private int _run;
+
+	@Setup
+	public void setup()
+	{
+		BenchmarkFixtures.configureLogging();
+
+		Map<String, MCssFile> files = new HashMap<>();
+		files.put("benchmark.css", BenchmarkFixtures.parse("benchmark.css", BenchmarkFixtures.css(fixture, "cssanalyzer_test_styles.css")));
+
+		LinkedHashMap<String, Integer> order = new LinkedHashMap<>();
+		order.put("benchmark.css", 0);
+
+		MatchedElements matchedElements = new MatchedElements();
+		ElementSelectorMatcher.matchElementsToDocument("index", BenchmarkFixtures.document(BenchmarkFixtures.html(fixture, "cssanalyzer_test_index.html")),
+				files, order, matchedElements);
+
+		_elementSelectors = new ArrayList<>();
+		for (long element : matchedElements.getMatchedElements())
+		{
+			_elementSelectors.add(matchedElements.sortSelectorsForMatchedElem(element));
+		}
+	}
+
+
+	/**
+	 * Every run uses a new 'overridden' marker, so no declaration is skipped because of a previous run
+	 */
+	@Benchmark
+	public int computeEffectiveness()
+	{
+		String overridden = "overridden-" + _run++;
+		for (List<MSelector> selectors : _elementSelectors)
+		{
+			if (indexed)
+			{
+				EffectivenessAnalysis.computeEffectiveness(selectors, overridden);
+			}
+			else
+			{
+				EffectivenessAnalysis.computeEffectivenessPairwise(selectors, overridden);
+			}
+		}
+		return _elementSelectors.size();
+	}
+}
@@ -0,0 +1,66 @@
+package benchmarks;
+
+import com.crawljax.plugins.cret.cssmodel.MCssFile;
+import com.crawljax.plugins.cret.transformation.matcher.ElementSelectorMatcher;
+import com.crawljax.plugins.cret.transformation.matcher.MatchedElements;
+import org.openjdk.jmh.annotations.*;
+import org.w3c.dom.Document;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Matching of all selectors to the DOM of a state, with and without the element index
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ElementSelectorMatcherBenchmark
+{
+	@Param({ BenchmarkFixtures.RESOURCES, "synthetic-200", "synthetic-2000" })
+	public String fixture;
+
+	@Param({ "true", "false" })
+	public boolean indexed;
+
+	private String _css;
+	private Document _dom;
+	private Map<String, MCssFile> _files;
+	private LinkedHashMap<String, Integer> _order;
+
+	@Setup(Level.Trial)
+	public void setupTrial()
+	{
+		BenchmarkFixtures.configureLogging();
+		_css = BenchmarkFixtures.css(fixture, "cssanalyzer_test_styles.css");
+		_dom = BenchmarkFixtures.document(BenchmarkFixtures.html(fixture, "cssanalyzer_test_index.html"));
+
+		_order = new LinkedHashMap<>();
+		_order.put("benchmark.css", 0);
+	}
+
+
+	/**
+	 * Matching records the matched elements on the selectors, so every invocation starts from a freshly parsed file
+	 */
+	@Setup(Level.Invocation)
+	public void setupInvocation()
+	{
+		_files = new HashMap<>();
+		_files.put("benchmark.css", BenchmarkFixtures.parse("benchmark.css", _css));
+	}
+
+
+	@Benchmark
+	public MatchedElements matchElementsToDocument()
+	{
+		MatchedElements matchedElements = new MatchedElements();
+		ElementSelectorMatcher.matchElementsToDocument("index", _dom, _files, _order, matchedElements, indexed);
+		return matchedElements;
+	}
+}
@@ -0,0 +1,50 @@
+package benchmarks;
+
+import com.crawljax.plugins.cret.sass.clonedetection.fpgrowth.FPGrowth;
+import com.crawljax.plugins.cret.sass.clonedetection.fpgrowth.PrimitiveFPGrowth;
+import com.crawljax.plugins.cret.sass.clonedetection.items.Item;
+import com.crawljax.plugins.cret.sass.clonedetection.items.ItemSetList;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mining of frequent declaration sets, with the primitive and with the original FP-growth implementation
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FPGrowthBenchmark
+{
+	@Param({ BenchmarkFixtures.RESOURCES, "synthetic-200", "synthetic-2000" })
+	public String fixture;
+
+	@Param({ "true", "false" })
+	public boolean primitive;
+
+	private List<TreeSet<Item>> _transactions;
+
+	@Setup
+	public void setup()
+	{
+		BenchmarkFixtures.configureLogging();
+		_transactions = BenchmarkFixtures.transactions(BenchmarkFixtures.copySelectors(
+				BenchmarkFixtures.parse("benchmark.css", BenchmarkFixtures.css(fixture, "clonedetector_3_test.css"))));
+	}
+
+
+	@Benchmark
+	public List<ItemSetList> mine()
+	{
+		if (primitive)
+		{
+			return new PrimitiveFPGrowth(false).mine(_transactions, 2);
+		}
+		return new FPGrowth(false).mine(_transactions, 2);
+	}
+}
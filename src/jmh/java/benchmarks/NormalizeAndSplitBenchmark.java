@@ -0,0 +1,53 @@
+package benchmarks;
+
+import com.crawljax.plugins.cret.cssmodel.MCssFile;
+import com.crawljax.plugins.cret.transformation.NormalizeAndSplitPlugin;
+import com.crawljax.plugins.cret.transformation.matcher.MatchedElements;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Normalization and splitting of the declarations in all selectors
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class NormalizeAndSplitBenchmark
+{
+	@Param({ BenchmarkFixtures.RESOURCES, "synthetic-200", "synthetic-2000" })
+	public String fixture;
+
+	private String _css;
+	private Map<String, MCssFile> _files;
+
+	@Setup(Level.Trial)
+	public void setupTrial()
+	{
+		BenchmarkFixtures.configureLogging();
+		_css = BenchmarkFixtures.css(fixture, "cssnormalizer_test_styles.css");
+	}
+
+
+	/**
+	 * The plug-in normalizes the declarations in place, so every invocation starts from a freshly parsed file
+	 */
+	@Setup(Level.Invocation)
+	public void setupInvocation()
+	{
+		_files = new HashMap<>();
+		_files.put("benchmark.css", BenchmarkFixtures.parse("benchmark.css", _css));
+	}
+
+
+	@Benchmark
+	public Map<String, MCssFile> transform()
+	{
+		return new NormalizeAndSplitPlugin().transform(_files, new MatchedElements());
+	}
+}
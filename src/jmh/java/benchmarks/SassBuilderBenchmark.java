@@ -0,0 +1,42 @@
+package benchmarks;
+
+import com.crawljax.plugins.cret.cssmodel.MCssFile;
+import com.crawljax.plugins.cret.sass.SassBuilder;
+import com.crawljax.plugins.cret.sass.SassFile;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generation of a SASS file from a transformed CSS file
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SassBuilderBenchmark
+{
+	@Param({ BenchmarkFixtures.RESOURCES, "synthetic-200", "synthetic-2000" })
+	public String fixture;
+
+	private MCssFile _file;
+
+	/**
+	 * SassBuilder works on copies of the selectors, so the normalized file can be shared by all invocations
+	 */
+	@Setup
+	public void setup()
+	{
+		BenchmarkFixtures.configureLogging();
+		_file = BenchmarkFixtures.normalize("benchmark.css", BenchmarkFixtures.css(fixture, "sass_mixin_test.css"));
+	}
+
+
+	@Benchmark
+	public SassFile generateSass()
+	{
+		return new SassBuilder(_file).generateSass();
+	}
+}
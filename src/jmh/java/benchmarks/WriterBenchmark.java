@@ -0,0 +1,67 @@
+package benchmarks;
+
+import com.crawljax.plugins.cret.cssmodel.MCssFile;
+import com.crawljax.plugins.cret.generation.CssWriter;
+import com.crawljax.plugins.cret.generation.SassWriter;
+import com.crawljax.plugins.cret.sass.SassBuilder;
+import com.crawljax.plugins.cret.sass.SassFile;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writing of the generated CSS and SCSS files
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WriterBenchmark
+{
+	@Param({ BenchmarkFixtures.RESOURCES, "synthetic-200", "synthetic-2000" })
+	public String fixture;
+
+	private MCssFile _file;
+	private SassFile _sassFile;
+	private File _cssTarget;
+	private File _sassTarget;
+
+	@Setup
+	public void setup() throws IOException
+	{
+		BenchmarkFixtures.configureLogging();
+		_file = BenchmarkFixtures.normalize("benchmark.css", BenchmarkFixtures.css(fixture, "sass_mixin_test.css"));
+		_sassFile = new SassBuilder(_file).generateSass();
+
+		_cssTarget = File.createTempFile("cret-benchmark", ".css");
+		_sassTarget = File.createTempFile("cret-benchmark", ".scss");
+	}
+
+
+	@TearDown
+	public void tearDown()
+	{
+		_cssTarget.delete();
+		_sassTarget.delete();
+	}
+
+
+	@Benchmark
+	public File cssWriter() throws IOException, URISyntaxException
+	{
+		new CssWriter().generateCssCode(_cssTarget, _file);
+		return _cssTarget;
+	}
+
+
+	@Benchmark
+	public File sassWriter() throws IOException, URISyntaxException
+	{
+		return new SassWriter().generateSassCode(_sassTarget, _sassFile);
+	}
+}
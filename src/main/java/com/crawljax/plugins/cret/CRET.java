@@ -2,32 +2,45 @@ package com.crawljax.plugins.cret;
 
 import java.io.*;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.function.Function;
 
 import com.cathive.sass.SassContext;
 import com.cathive.sass.SassFileContext;
 import com.cathive.sass.SassOutputStyle;
+import com.cathive.sass.SassStringContext;
 import com.crawljax.plugins.cret.cssmodel.*;
+import com.crawljax.plugins.cret.dommodel.DomFingerprint;
+import com.crawljax.plugins.cret.dommodel.DomState;
 import com.crawljax.plugins.cret.generation.CssWriter;
 import com.crawljax.plugins.cret.generation.SassWriter;
 import com.crawljax.plugins.cret.interfaces.ICssTransformer;
+import com.crawljax.plugins.cret.metrics.CretMetrics;
+import com.crawljax.plugins.cret.metrics.PhaseMetrics;
 import com.crawljax.plugins.cret.parser.ParserErrorHandler;
 import com.crawljax.plugins.cret.transformation.*;
 import com.crawljax.plugins.cret.transformation.effectiveness.EffectivenessPlugin;
 import com.crawljax.plugins.cret.transformation.matcher.ElementSelectorMatcher;
+import com.crawljax.plugins.cret.transformation.matcher.MatchReuseCache;
 import com.crawljax.plugins.cret.transformation.matcher.MatchedElements;
 import com.crawljax.plugins.cret.transformation.merge.NormalizeAndMergePlugin;
 import com.crawljax.plugins.cret.sass.SassBuilder;
 import com.crawljax.plugins.cret.sass.SassStatistics;
+import com.crawljax.plugins.cret.util.BoundedTaskQueue;
+import com.crawljax.plugins.cret.util.CssResourceCache;
+import com.crawljax.plugins.cret.util.CssResourceFetcher;
 import com.crawljax.plugins.cret.util.FileHelper;
 import com.crawljax.plugins.cret.util.CretStringBuilder;
 import com.crawljax.plugins.cret.verification.CssOnDomVerifier;
 
 import org.apache.log4j.Level;
 import org.apache.log4j.LogManager;
-import org.w3c.dom.Document;
 
 import com.crawljax.core.CrawlSession;
 import com.crawljax.core.CrawlerContext;
@@ -37,12 +50,14 @@ import com.crawljax.core.plugin.PostCrawlingPlugin;
 import com.crawljax.core.state.StateVertex;
 import com.crawljax.plugins.cret.util.CSSDOMHelper;
 import com.crawljax.plugins.cret.parser.CssParser;
+import com.crawljax.plugins.cret.parser.CssParseCache;
 
 /**
  * Created by axel on 5/17/2015.
  *
  * CSS Re-Engineering Tool main class
- * Crawljax plug-in
+ * Crawljax plug-in, the Crawljax callbacks only translate crawled states for processState and finish,
+ * which can also be fed with stored states (see OfflineRunner)
  */
 public class CRET implements OnNewStatePlugin, PostCrawlingPlugin
 {
@@ -53,13 +68,33 @@ public class CRET implements OnNewStatePlugin, PostCrawlingPlugin
 	public boolean _enableVerification = false;
 	public boolean _enableStatistics = false;
 	public int _clonePropsUpperLimit = 999;
+	public boolean _enableIndexedMatching = true;
+	public int _transformationThreads = Runtime.getRuntime().availableProcessors();
+	public boolean _enablePrimitiveFPGrowth = true;
+	public boolean _enableIncrementalCloneDetection = true;
+	public boolean _enableCssMinification = false;
+	public boolean _enableInMemorySassCompilation = true;
+	public boolean _writeScssFiles = true;
+	public int _sassCompilationThreads = Runtime.getRuntime().availableProcessors();
+	public int _cssFetchThreads = 8;
+	public int _cssFetchTimeout = 30000;
+	public String _cssCacheRoot = null; // persistent cache of fetched stylesheets, disabled when NULL
+	public String _cssParseCacheRoot = null; // persistent cache of parsed stylesheets, disabled when NULL
+	public long _cssParseCacheSize = 256L * 1024 * 1024;
+	public String _verificationFile = "./output/verification/verification_summary.xml";
+	public String _statisticsFile = "./output/statistics/statistics_summary.xml";
+	public boolean _enableAsyncMatching = false;
+	public int _asyncQueueSize = 16;
+	public boolean _enableStateDeduplication = true;
+	public boolean _enableMatchReuse = true;
+	public int _matchReuseMaxContexts = 500000;
 
 	/* fields */
 	private final String _siteName;
 	private final String _siteIndex;
 
 	// files that apply per discovered DOM state
-	private final Map<StateVertex, LinkedHashMap<String, Integer>> _stateCssFiles;
+	private final Map<DomState, LinkedHashMap<String, Integer>> _stateCssFiles;
 
 	// originally discovered CSS files
 	private final Map<String, MCssFile> _origMcssFiles;
@@ -84,10 +119,31 @@ public class CRET implements OnNewStatePlugin, PostCrawlingPlugin
 	private final Map<String, File> _targetSassFiles;
 	private final Map<String, File> _targetCssFromSassFiles;
 
+	// first state per structural fingerprint and CSS file order, states with an equal key reuse the matches of the first state
+	private final Map<String, String> _stateFingerprints;
+
+	// names of attributes used in attribute selectors, per CSS file
+	private final Map<String, Set<String>> _selectorAttributes;
+
 	// statistics
 	private int _originalCssLOC;
 	private int _domstates;
+	private int _deduplicatedStates;
 	private final List<SassStatistics> _sassStatistics;
+	private final CretMetrics _metrics;
+
+	// downloads stylesheets of crawled states, created on first use
+	private CssResourceFetcher _fetcher;
+
+	// parsed stylesheets from earlier runs, created on first use
+	private CssParseCache _parseCache;
+	private boolean _parseCacheCreated;
+
+	// match results per element context, reused across states, created on first use
+	private MatchReuseCache _matchReuseCache;
+
+	// crawled states waiting to be parsed and matched in the background, created on first use in async mode
+	private BoundedTaskQueue _stateQueue;
 
 	public CRET(String siteName, String siteIndex)
 	{
@@ -102,8 +158,11 @@ public class CRET implements OnNewStatePlugin, PostCrawlingPlugin
 
 		_originalCssLOC = 0;
 		_domstates = 0;
+		_deduplicatedStates = 0;
 
-		_stateCssFiles = new HashMap<>();
+		_stateCssFiles = new LinkedHashMap<>();
+		_stateFingerprints = new HashMap<>();
+		_selectorAttributes = new HashMap<>();
 		_origMcssFiles = new HashMap<>();
 		_parserErrors = new HashMap<>();
 		_newMcssFiles = new HashMap<>();
@@ -124,6 +183,7 @@ public class CRET implements OnNewStatePlugin, PostCrawlingPlugin
 		_targetSassFiles = new HashMap<>();
 		_targetCssFromSassFiles = new HashMap<>();
 		_sassStatistics = new ArrayList<>();
+		_metrics = new CretMetrics();
 	}
 
 
@@ -136,43 +196,219 @@ public class CRET implements OnNewStatePlugin, PostCrawlingPlugin
 	}
 
 
+	/**
+	 * @return the number of states that were not matched, since a structurally equal state with the same CSS files was matched before
+	 */
+	public int getDeduplicatedStates()
+	{
+		return _deduplicatedStates;
+	}
+
+
+	/**
+	 * @return the cache of match results per element context, or NULL if match reuse is disabled
+	 */
+	public MatchReuseCache getMatchReuseCache()
+	{
+		if(_enableMatchReuse && _matchReuseCache == null)
+		{
+			_matchReuseCache = new MatchReuseCache(_matchReuseMaxContexts);
+		}
+		return _enableMatchReuse ? _matchReuseCache : null;
+	}
+
+
+	/**
+	 * @return the timing, CPU, allocation and item count metrics for every phase of this run
+	 */
+	public CretMetrics getMetrics()
+	{
+		return _metrics;
+	}
+
+
 	/**
 	 * Function called on detection of new DOM state by Crawljax
-	 * Parse CSS from DOM tree and use the CSS selectors to match elements in that tree
+	 * Capture the DOM and the order of its CSS files, then fetch the CSS files concurrently and process the state
+	 * In async mode, fetching and processing happen on a background worker and the crawler only waits while the queue is full
 	 */
 	@Override
 	public void onNewState(CrawlerContext context, StateVertex newState)
 	{
 		LogHandler.info("[CRET] [NEW STATE] %s", newState.getUrl());
+
+		try
+		{
+			final String url = context.getBrowser().getCurrentUrl();
+			DomState state = new DomState(newState.getName(), url, newState.getDocument());
+
+			List<String> cssUrls = resolveCssFileNames(state);
+
+			if(_enableAsyncMatching)
+			{
+				getStateQueue().submit(() -> processCrawledState(state, cssUrls));
+			}
+			else
+			{
+				processCrawledState(state, cssUrls);
+			}
+		}
+		catch (InterruptedException ex)
+		{
+			Thread.currentThread().interrupt();
+			LogHandler.error(ex, "[CRET] [NEW STATE] Interrupted while queueing state %s", newState.getName());
+		}
+		catch (Exception ex)
+		{
+			LogHandler.error(ex, "[CRET] [NEW STATE] Error occurred while processing state %s", newState.getName());
+		}
+	}
+
+
+	/**
+	 * Fetch the CSS files of a crawled state that are not parsed yet and process the state
+	 */
+	private void processCrawledState(DomState state, List<String> cssUrls)
+	{
+		List<String> newCssUrls = new ArrayList<>();
+		for (String cssUrl : cssUrls)
+		{
+			if (!_newMcssFiles.containsKey(cssUrl))
+			{
+				newCssUrls.add(cssUrl);
+			}
+		}
+
+		processState(state, cssUrls, getFetcher().fetchAll(newCssUrls));
+	}
+
+
+	/**
+	 * Parse the CSS of a DOM state and use the CSS selectors to match elements in that state
+	 * Browser-independent entry point, used for crawled states and for stored states
+	 * @param cssUrls the external CSS files referenced by the state, in the order in which they are used in a browser
+	 * @param cssCode the CSS code per external CSS file, only required for files that were not parsed for an earlier state
+	 */
+	public void processState(DomState state, List<String> cssUrls, Map<String, String> cssCode)
+	{
 		_domstates++;
 
-		// if the external CSS files are not parsed yet, do so
 		LogHandler.info("[CRET] [NEW STATE] Parse CSS rules...");
-		LinkedHashMap<String, Integer> stateFileOrder = parseCssRulesForState(context, newState);
+		LinkedHashMap<String, Integer> stateFileOrder = parseCssRulesForState(state, cssUrls, cssCode);
 
 		try
 		{
-			ElementSelectorMatcher.matchElementsToDocument(newState.getName(), newState.getDocument(), _newMcssFiles, stateFileOrder, _matchedElements);
-			_stateCssFiles.put(newState, stateFileOrder);
+			if(_enableStateDeduplication)
+			{
+				String firstState = _stateFingerprints.putIfAbsent(getStateKey(state, stateFileOrder), state.getName());
+				if(firstState != null)
+				{
+					// the same selectors match the same elements, the matches of the first state already represent this state
+					LogHandler.info("[CRET] [NEW STATE] State %s is structurally equal to state %s, reuse its matches", state.getName(), firstState);
+					_deduplicatedStates++;
+					_stateCssFiles.put(state, stateFileOrder);
+					return;
+				}
+			}
+
+			CretMetrics.Measurement measurement = _metrics.start(CretMetrics.MATCH);
+			ElementSelectorMatcher.matchElementsToDocument(state.getName(), state.getDocument(), _newMcssFiles, stateFileOrder, _matchedElements, _enableIndexedMatching, getMatchReuseCache());
+			measurement.stop(stateFileOrder.keySet().stream().mapToInt(fileName -> getStatistics(_newMcssFiles.get(fileName), this::countRuleSelectors)).sum());
+
+			_stateCssFiles.put(state, stateFileOrder);
 		}
 		catch (Exception ex)
 		{
-			LogHandler.error(ex, "[CRET] [NEW STATE] Error occurred while matching selectors for state %s", newState.getName());
+			LogHandler.error(ex, "[CRET] [NEW STATE] Error occurred while matching selectors for state %s", state.getName());
+		}
+	}
+
+
+	/**
+	 * @return key of the structural fingerprint of the given state and the order of its CSS files
+	 */
+	private String getStateKey(DomState state, LinkedHashMap<String, Integer> stateFileOrder)
+	{
+		Set<String> selectorAttributes = new HashSet<>();
+		StringBuilder key = new StringBuilder();
+
+		for(String fileName : stateFileOrder.keySet())
+		{
+			// files without rules do not match anything, e.g. the embedded styles of pages without <style> elements
+			if(_newMcssFiles.get(fileName).getRules().isEmpty())
+			{
+				continue;
+			}
+
+			key.append(fileName).append('\u0000').append(stateFileOrder.get(fileName)).append('\u0000');
+			selectorAttributes.addAll(_selectorAttributes.computeIfAbsent(fileName, this::findSelectorAttributes));
+		}
+
+		return key.append(DomFingerprint.compute(state.getDocument(), selectorAttributes)).toString();
+	}
+
+
+	/**
+	 * @return the names of all attributes used in attribute selectors in the given CSS file
+	 */
+	private Set<String> findSelectorAttributes(String fileName)
+	{
+		Set<String> result = new HashSet<>();
+		for(MCssRule mCssRule : _newMcssFiles.get(fileName).getRules())
+		{
+			for(MSelector mSelector : mCssRule.getSelectors())
+			{
+				result.addAll(DomFingerprint.getSelectorAttributes(mSelector.getSelectorText()));
+			}
 		}
+		return result;
 	}
 
 
 	/**
-	 * Process discovered CSS files after crawling is complete
+	 * Function called by Crawljax after crawling is complete
+	 */
+	@Override
+	public void postCrawling(CrawlSession session, ExitStatus exitReason)
+	{
+		finish();
+	}
+
+
+	/**
+	 * Process discovered CSS files after all states are processed
 	 * Execute defined transformations
 	 * Optionally print CSS parse errors
 	 * Generate transformed SASS and CSS code
 	 * Optionally verify behavior similarity of transformed CSS code
 	 * Optionally print statistics on transformations
 	 */
-	@Override
-	public void postCrawling(CrawlSession session, ExitStatus exitReason)
+	public void finish()
 	{
+		// all crawled states must be matched before transformations start
+		if(_stateQueue != null)
+		{
+			LogHandler.info("[CRET] Wait for %d queued states to be processed...", _stateQueue.getPending());
+			try
+			{
+				// fails when matching a state failed with an error, transformations would work on incomplete matches
+				_stateQueue.drain();
+			}
+			catch (InterruptedException ex)
+			{
+				Thread.currentThread().interrupt();
+				LogHandler.error(ex, "[CRET] Interrupted while waiting for queued states, no transformations or output are generated");
+				closeFetcher();
+				return;
+			}
+			finally
+			{
+				closeStateQueue();
+			}
+		}
+
+		closeFetcher();
+
 		Map<String, MCssFile> rules = executePostTransformations();
 		_newMcssFiles = rules;
 
@@ -198,51 +434,170 @@ public class CRET implements OnNewStatePlugin, PostCrawlingPlugin
 				}
 			}
 		}
+
+		for(PhaseMetrics phase : _metrics.getPhases())
+		{
+			LogHandler.info("[CRET] [METRICS] %s", phase);
+		}
 	}
 
 
 	/**
-	 * Extract external and embedded CSS 'files' from DOM state and parse the CSS into MCssRules
-	 * @return a mapping relating a discovered CSS file to the order in which it is used in a browser
+	 * Release the connections of the CSS fetcher
 	 */
-	private LinkedHashMap<String, Integer> parseCssRulesForState(CrawlerContext context, StateVertex state)
+	private void closeFetcher()
 	{
-		final String url = context.getBrowser().getCurrentUrl();
-		final LinkedHashMap<String, Integer> stateFileOrder = new LinkedHashMap<>();
+		if(_fetcher != null)
+		{
+			_fetcher.close();
+			_fetcher = null;
+		}
+	}
+
 
+	/**
+	 * Stop the worker of the state queue, also after a failed drain
+	 */
+	private void closeStateQueue()
+	{
 		try
 		{
-			final Document dom = state.getDocument();
+			_stateQueue.close();
+		}
+		catch (InterruptedException ex)
+		{
+			Thread.currentThread().interrupt();
+			LogHandler.error(ex, "[CRET] Interrupted while stopping the state queue");
+		}
+		_stateQueue = null;
+	}
 
-			int order = 0;
-			for (String relPath : CSSDOMHelper.extractCssFileNames(dom))
+
+	/**
+	 * @return the queue for crawled states, processed in crawl order by a single worker,
+	 * since matching updates the shared MatchedElements and MSelectors
+	 */
+	private BoundedTaskQueue getStateQueue()
+	{
+		if(_stateQueue == null)
+		{
+			_stateQueue = new BoundedTaskQueue("cret-state-matcher", _asyncQueueSize);
+		}
+
+		return _stateQueue;
+	}
+
+
+	/**
+	 * @return the fetcher for CSS files, with an on-disk cache if a cache root is configured
+	 */
+	private CssResourceFetcher getFetcher()
+	{
+		if(_fetcher == null)
+		{
+			CssResourceCache cache = null;
+			if(_cssCacheRoot != null)
 			{
-				String cssUrl = relPath;
+				try
+				{
+					cache = new CssResourceCache(_cssCacheRoot);
+				}
+				catch (IOException e)
+				{
+					LogHandler.error(e, "[CRET] Cannot create CSS cache at '%s', fetch without cache", _cssCacheRoot);
+				}
+			}
+
+			_fetcher = new CssResourceFetcher(_cssFetchThreads, _cssFetchTimeout, cache);
+		}
+
+		return _fetcher;
+	}
+
 
-				if(relPath.startsWith("//"))
+	/**
+	 * @return the cache for parsed stylesheets, or NULL if no cache root is configured or the cache cannot be created
+	 */
+	private CssParseCache getParseCache()
+	{
+		if(!_parseCacheCreated)
+		{
+			_parseCacheCreated = true;
+			if(_cssParseCacheRoot != null)
+			{
+				try
 				{
-					URI uri = new URI(url);
-					cssUrl = String.format("%s:%s", uri.getScheme(), cssUrl);
+					_parseCache = new CssParseCache(_cssParseCacheRoot, _cssParseCacheSize);
 				}
-				else
+				catch (IOException e)
 				{
-					cssUrl = CSSDOMHelper.getAbsPath(url, relPath);
+					LogHandler.error(e, "[CRET] Cannot create CSS parse cache at '%s', parse without cache", _cssParseCacheRoot);
 				}
+			}
+		}
+
+		return _parseCache;
+	}
+
+
+	/**
+	 * @return the absolute URLs of the external CSS files referenced in the DOM of the given state, in order
+	 */
+	private List<String> resolveCssFileNames(DomState state) throws Exception
+	{
+		final String url = state.getUrl();
+		List<String> cssUrls = new ArrayList<>();
 
+		for (String relPath : CSSDOMHelper.extractCssFileNames(state.getDocument()))
+		{
+			if(relPath.startsWith("//"))
+			{
+				URI uri = new URI(url);
+				cssUrls.add(String.format("%s:%s", uri.getScheme(), relPath));
+			}
+			else
+			{
+				cssUrls.add(CSSDOMHelper.getAbsPath(url, relPath));
+			}
+		}
+
+		return cssUrls;
+	}
+
+
+	/**
+	 * Parse the external and embedded CSS 'files' of a DOM state into MCssRules, if not parsed before
+	 * @return a mapping relating a discovered CSS file to the order in which it is used in a browser
+	 */
+	private LinkedHashMap<String, Integer> parseCssRulesForState(DomState state, List<String> cssUrls, Map<String, String> cssCode)
+	{
+		final String url = state.getUrl();
+		final LinkedHashMap<String, Integer> stateFileOrder = new LinkedHashMap<>();
+
+		try
+		{
+			int order = 0;
+			for (String cssUrl : cssUrls)
+			{
 				if (!_newMcssFiles.containsKey(cssUrl))
 				{
 					LogHandler.info("[CRET] FOUND NEW CSS FILE " + cssUrl);
 
-					String cssCode = CSSDOMHelper.getUrlContent(cssUrl);
+					String code = cssCode.get(cssUrl);
+					if (code == null)
+					{
+						LogHandler.warn("[CRET] No CSS code available for '%s'", cssUrl);
+						code = "";
+					}
 
-					_originalCssLOC += countLOC(cssCode);
+					_originalCssLOC += countLOC(code);
 
 					if(_enableVerification || _enableStatistics)
 					{
-						_origMcssFiles.put(cssUrl, parseCssRules(cssUrl, cssCode));
+						_origMcssFiles.put(cssUrl, parseCssRules(cssUrl, code));
 					}
 
-					_newMcssFiles.put(cssUrl, parseCssRules(cssUrl, cssCode));
+					_newMcssFiles.put(cssUrl, parseCssRules(cssUrl, code));
 				}
 
 				//retain order of css files referenced in DOM
@@ -253,7 +608,7 @@ public class CRET implements OnNewStatePlugin, PostCrawlingPlugin
 			// get all the embedded <STYLE> rules, save per HTML page
 			if (!_newMcssFiles.containsKey(url))
 			{
-				String embeddedCode = CSSDOMHelper.parseEmbeddedStyles(dom);
+				String embeddedCode = CSSDOMHelper.parseEmbeddedStyles(state.getDocument());
 
 				if(!embeddedCode.isEmpty())
 				{
@@ -288,10 +643,12 @@ public class CRET implements OnNewStatePlugin, PostCrawlingPlugin
 	 */
 	private MCssFile parseCssRules(String url, String code)
 	{
-		CssParser parser = new CssParser(false);
+		CretMetrics.Measurement measurement = _metrics.start(CretMetrics.PARSE);
+		CssParser parser = new CssParser(false, getParseCache());
 
 		MCssFile file = parser.parseCssIntoMCssRules(url, code);
 		_parserErrors.put(url, parser.getParseErrors());
+		measurement.stop(file.getRules().size());
 
 		LogHandler.info("[CRET] Parsed '%s' -> CSS rules parsed into McssRules: %d", url, file.getRules().size());
 
@@ -337,13 +694,8 @@ public class CRET implements OnNewStatePlugin, PostCrawlingPlugin
 	{
 		LogHandler.info("[CRET] Execute POST crawl-time transformations...");
 
-		Map<String, MCssFile> rules = _newMcssFiles;
-		for(ICssTransformer plugin : _postPlugins)
-		{
-			rules = plugin.transform(rules, _matchedElements);
-		}
-
-		return rules;
+		TransformationPipeline pipeline = new TransformationPipeline(_postPlugins, _transformationThreads, _metrics);
+		return pipeline.execute(_newMcssFiles, _matchedElements);
 	}
 
 
@@ -448,7 +800,15 @@ public class CRET implements OnNewStatePlugin, PostCrawlingPlugin
 
 			try
 			{
-				_targetSassFiles.put(fileName, FileHelper.createFileAndDirs(sassRootDir.concat(sassFile)));
+				// SCSS files are only created on disk if they will be written
+				if(_writeScssFiles || !_enableInMemorySassCompilation)
+				{
+					_targetSassFiles.put(fileName, FileHelper.createFileAndDirs(sassRootDir.concat(sassFile)));
+				}
+				else
+				{
+					_targetSassFiles.put(fileName, new File(sassRootDir.concat(sassFile)));
+				}
 			}
 			catch (Exception e)
 			{
@@ -537,7 +897,7 @@ public class CRET implements OnNewStatePlugin, PostCrawlingPlugin
 		boolean sassToCssInError = false;
 
 		// CSS before SASS transformation
-		CssWriter writer = new CssWriter();
+		CssWriter writer = new CssWriter(_enableCssMinification);
 		for(String fileName : mcssFiles.keySet())
 		{
 			try
@@ -553,8 +913,8 @@ public class CRET implements OnNewStatePlugin, PostCrawlingPlugin
 
 		if(generateSass)
 		{
-			// store generated SCSS files
-			Map<String, File> scssFiles = new HashMap<>();
+			// store generated SCSS code
+			Map<String, String> scssCode = new LinkedHashMap<>();
 
 			// generate SCSS code from SCSS objects
 			SassWriter sassWriter = new SassWriter();
@@ -564,8 +924,18 @@ public class CRET implements OnNewStatePlugin, PostCrawlingPlugin
 				{
 					LogHandler.info("[CRET] [SASS] Building SASS code for file %s...", _targetSassFiles.get(fileName));
 
-					SassBuilder sassBuilder = new SassBuilder(mcssFiles.get(fileName), _clonePropsUpperLimit);
-					scssFiles.put(fileName, sassWriter.generateSassCode(_targetSassFiles.get(fileName), sassBuilder.generateSass()));
+					CretMetrics.Measurement measurement = _metrics.start(CretMetrics.SASS);
+					SassBuilder sassBuilder = new SassBuilder(mcssFiles.get(fileName), _clonePropsUpperLimit, _enablePrimitiveFPGrowth, _enableIncrementalCloneDetection);
+					String code = sassWriter.generateSassCode(sassBuilder.generateSass());
+					measurement.stop(mcssFiles.get(fileName).getRules().size());
+
+					// compiling from disk requires the SCSS file
+					if(_writeScssFiles || !_enableInMemorySassCompilation)
+					{
+						Files.write(_targetSassFiles.get(fileName).toPath(), code.getBytes(StandardCharsets.UTF_8));
+					}
+
+					scssCode.put(fileName, code);
 
 					//gather statistics for this file
 					_sassStatistics.add(sassBuilder.getStatistics());
@@ -579,31 +949,112 @@ public class CRET implements OnNewStatePlugin, PostCrawlingPlugin
 
 			if(!sassInError)
 			{
-				// generate CSS from SCSS files
-				for (String fileName : scssFiles.keySet())
+				// generate CSS from SCSS code
+				if(_enableInMemorySassCompilation)
 				{
-					LogHandler.info("[CRET] [SASStoCSS] Start compiling SASS code for file %s...", _targetCssFromSassFiles.get(fileName));
-					try
+					sassToCssInError = !compileSassInMemory(scssCode, _targetCssFromSassFiles).isEmpty();
+				}
+				else
+				{
+					for (String fileName : scssCode.keySet())
 					{
-						SassContext ctx = SassFileContext.create(scssFiles.get(fileName).toPath());
-						ctx.getOptions().setOutputStyle(SassOutputStyle.NESTED);
+						LogHandler.info("[CRET] [SASStoCSS] Start compiling SASS code for file %s...", _targetCssFromSassFiles.get(fileName));
+						try
+						{
+							compileSass(SassFileContext.create(_targetSassFiles.get(fileName).toPath()), _targetCssFromSassFiles.get(fileName));
+						}
+						catch (Exception e)
+						{
+							sassToCssInError = true;
+							LogHandler.error(e, "[CRET] [SASStoCSS] Error while compiling SASS to CSS via java-sass for source '%s' to target '%s'", _targetSassFiles.get(fileName),_targetCssFromSassFiles.get(fileName));
+						}
+					}
+				}
+			}
+		}
+
+		return cssInError || sassInError || sassToCssInError;
+	}
+
+
+	/**
+	 * Compile the given SCSS code from memory into the given target files, files are compiled concurrently on a bounded pool
+	 * @return the names of the files whose compilation failed, in the original order
+	 */
+	public Set<String> compileSassInMemory(Map<String, String> scssCode, Map<String, File> targets)
+	{
+		Set<String> inError = new LinkedHashSet<>();
+
+		ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, Math.min(_sassCompilationThreads, scssCode.size())));
+		try
+		{
+			Map<String, Future<?>> tasks = new LinkedHashMap<>();
+			for (String fileName : scssCode.keySet())
+			{
+				LogHandler.info("[CRET] [SASStoCSS] Start compiling SASS code for file %s...", targets.get(fileName));
+
+				final String code = scssCode.get(fileName);
+				tasks.put(fileName, pool.submit(() ->
+				{
+					compileSass(SassStringContext.create(code), targets.get(fileName));
+					return null;
+				}));
+			}
 
-						FileOutputStream outputStream = new FileOutputStream(_targetCssFromSassFiles.get(fileName));
-						ctx.compile(outputStream);
+			// report failures per file, in the original order
+			for (String fileName : tasks.keySet())
+			{
+				try
+				{
+					tasks.get(fileName).get();
+				}
+				catch (Exception e)
+				{
+					inError.add(fileName);
 
-						outputStream.flush();
-						outputStream.close();
+					Exception cause = e;
+					if(e instanceof ExecutionException && e.getCause() instanceof Exception)
+					{
+						cause = (Exception)e.getCause();
 					}
-					catch (Exception e)
+					else if(e instanceof InterruptedException)
 					{
-						sassToCssInError = true;
-						LogHandler.error(e, "[CRET] [SASStoCSS] Error while compiling SASS to CSS via java-sass for source '%s' to target '%s'", _targetSassFiles.get(fileName),_targetCssFromSassFiles.get(fileName));
+						Thread.currentThread().interrupt();
 					}
+
+					LogHandler.error(cause, "[CRET] [SASStoCSS] Error while compiling SASS to CSS via java-sass for source '%s' to target '%s'", fileName, targets.get(fileName));
 				}
 			}
 		}
+		finally
+		{
+			pool.shutdown();
+		}
 
-		return cssInError || sassInError || sassToCssInError;
+		return inError;
+	}
+
+
+	/**
+	 * Compile the SCSS code in the given context with libsass and write the resulting CSS code to the target file
+	 */
+	private void compileSass(SassContext ctx, File target) throws Exception
+	{
+		CretMetrics.Measurement measurement = _metrics.start(CretMetrics.LIBSASS);
+		ctx.getOptions().setOutputStyle(SassOutputStyle.NESTED);
+
+		FileOutputStream outputStream = new FileOutputStream(target);
+		try
+		{
+			ctx.compile(outputStream);
+			outputStream.flush();
+		}
+		finally
+		{
+			outputStream.close();
+		}
+
+		measurement.stop(1);
 	}
 
 
@@ -617,7 +1068,9 @@ public class CRET implements OnNewStatePlugin, PostCrawlingPlugin
 
 		try
 		{
+			CretMetrics.Measurement measurement = _metrics.start(CretMetrics.VERIFICATION);
 			verifier.verify(_stateCssFiles, _origMcssFiles, parseGeneratedCss());
+			measurement.stop(_stateCssFiles.size());
 
 			CretStringBuilder builder = new CretStringBuilder();
 			builder.append("<site>");
@@ -625,7 +1078,7 @@ public class CRET implements OnNewStatePlugin, PostCrawlingPlugin
 			verifier.generateXml(builder, "\t");
 			builder.appendLine("</site>");
 
-			File verificationOutput = FileHelper.createFileAndDirs("./output/verification/verification_summary.xml");
+			File verificationOutput = FileHelper.createFileAndDirs(_verificationFile);
 			FileWriter writer = new FileWriter(verificationOutput, true);
 			writer.append(builder.toString());
 			writer.flush();
@@ -688,9 +1141,11 @@ public class CRET implements OnNewStatePlugin, PostCrawlingPlugin
 
 			generateSassStatistics(builder, "\t");
 
+			_metrics.generateXml(builder, "\t");
+
 			builder.appendLine("</site>");
 
-			File verificationOutput = FileHelper.createFileAndDirs("./output/statistics/statistics_summary.xml");
+			File verificationOutput = FileHelper.createFileAndDirs(_statisticsFile);
 			FileWriter writer = new FileWriter(verificationOutput, true);
 			writer.append(builder.toString());
 			writer.flush();
@@ -728,6 +1183,9 @@ public class CRET implements OnNewStatePlugin, PostCrawlingPlugin
 
 		builder.appendLine("%s<LOC>%d</LOC>", prefix, _originalCssLOC);
 		builder.appendLine("%s<DOM_states>%d</DOM_states>", prefix, _domstates);
+		builder.appendLine("%s<deduplicated_states>%d</deduplicated_states>", prefix, _deduplicatedStates);
+		builder.appendLine("%s<reused_elements>%d</reused_elements>", prefix, _matchReuseCache == null ? 0 : _matchReuseCache.getReusedElements());
+		builder.appendLine("%s<evaluated_elements>%d</evaluated_elements>", prefix, _matchReuseCache == null ? 0 : _matchReuseCache.getEvaluatedElements());
 
 		builder.appendLine("%s<OrS>%d</OrS>", prefix, OrS);
 		builder.appendLine("%s<OpS>%d</OpS>", prefix, OpS);
@@ -32,10 +32,10 @@ public class FindNotSelectorsPlugin implements OnNewStatePlugin, PostCrawlingPlu
 	private final Map<String, MCssFile> _cssFiles;
 	private final Map<String, MCssFile> _embeddedStyles;
 
-	private final FileWriter _outputWriter;
-	private final FileWriter _detailWriter;
+	private final Writer _outputWriter;
+	private final Writer _detailWriter;
 
-	public FindNotSelectorsPlugin(String siteName, String siteIndex, FileWriter outputWriter, FileWriter outputDetails)
+	public FindNotSelectorsPlugin(String siteName, String siteIndex, Writer outputWriter, Writer outputDetails)
 	{
 		_siteName = siteName;
 		_siteIndex = siteIndex;
@@ -2,11 +2,9 @@ package com.crawljax.plugins.cret.colors;
 
 import com.crawljax.plugins.cret.LogHandler;
 
-import java.io.File;
 import java.io.IOException;
-import java.nio.file.Files;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 /**
@@ -14,46 +12,60 @@ import java.util.Map;
  *
  * Transforms browser color names (X11 color scheme) into its hexadecimal representation.
  * Uses a table of X11 colors mapped to hexadecimal colors from https://developer.mozilla.org/en-US/docs/Web/CSS/color_value
- *
+ * The table is read once from the classpath, all users share a single immutable instance
  */
 public class BrowserColorParser
 {
+    private static class Holder
+    {
+        private static final BrowserColorParser INSTANCE = new BrowserColorParser();
+    }
+
     private final Map<String, String> _colorHexMap;
 
-    public BrowserColorParser()
+    private BrowserColorParser()
     {
-        _colorHexMap = new HashMap<>();
+        Map<String, String> colorHexMap = new HashMap<>();
 
         try
         {
-            List<String> lines = Files.readAllLines(new File("./src/main/java/com/crawljax/plugins/cret/colors/color_names_browser.txt").toPath());
-
-            for(String line : lines)
+            for(String line : ColorResources.readLines("color_names_browser.txt"))
             {
                 String[] parts = line.split(":");
-                _colorHexMap.put(parts[0].trim(), parts[1].trim());
+                colorHexMap.put(parts[0].trim(), parts[1].trim());
             }
         }
         catch (IOException e)
         {
             LogHandler.error(e, "[BrowserColorParser] Error while reading color_names_browser.txt");
-            _colorHexMap.clear();
+            colorHexMap.clear();
         }
+
+        _colorHexMap = Collections.unmodifiableMap(colorHexMap);
     }
 
+
+    /**
+     * @return the shared parser instance
+     */
+    public static BrowserColorParser getInstance()
+    {
+        return Holder.INSTANCE;
+    }
+
+
     /**
      * @param browserColor the browser color (X11)
      * @return an hexadecimal representation for the given browserColor, if it is a valid X11 browser color
      */
     public String tryParseColorToHex(String browserColor)
     {
-        if(_colorHexMap.containsKey(browserColor))
+        String hex = _colorHexMap.get(browserColor);
+        if(hex != null)
         {
-            return _colorHexMap.get(browserColor);
+            return hex;
         }
 
         return browserColor;
     }
 }
-
-
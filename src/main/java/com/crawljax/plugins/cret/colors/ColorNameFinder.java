@@ -3,8 +3,9 @@ package com.crawljax.plugins.cret.colors;
 import com.crawljax.plugins.cret.CssSuiteException;
 import com.crawljax.plugins.cret.LogHandler;
 
-import java.io.*;
+import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Created by axel on 6/9/2015.
@@ -15,9 +16,17 @@ import java.util.*;
  * Tries to find a name for a given color using a table with over 1500 colors
  * If the table does not contain the given color, the nearest color to the given color
  * is located and that name is used.
+ * The nearest color is found with a k-d tree over the rgb and hsl features of all colors,
+ * names are cached per rgb color
+ * The table is read once from the classpath, all users share a single instance and its name cache
  */
 public class ColorNameFinder
 {
+    private static class Holder
+    {
+        private static final ColorNameFinder INSTANCE = new ColorNameFinder();
+    }
+
     private class Color
     {
         public final String name;
@@ -63,28 +72,43 @@ public class ColorNameFinder
     private final Map<String, Color> _hexColorMap;
     private final Map<String, String> _hexNameMap;
 
-    public ColorNameFinder()
+    // colors in table order, with their features for the nearest color search
+    private Color[] _colors;
+    private int[][] _features;
+    private ColorTree _tree;
+
+    // name per packed rgb color
+    private final Map<Integer, String> _nameCache;
+
+    private ColorNameFinder()
     {
         _hexColorMap = new LinkedHashMap<>();
         _hexNameMap = new LinkedHashMap<>();
+        _nameCache = new ConcurrentHashMap<>();
 
         init();
         buildColors();
     }
 
 
+    /**
+     * @return the shared finder instance
+     */
+    public static ColorNameFinder getInstance()
+    {
+        return Holder.INSTANCE;
+    }
+
+
     /**
      *
      * @return
      */
     private void init()
     {
-        File file = new File("./src/main/java/com/crawljax/plugins/cret/colors/color_names_hex.txt");
-
-        try (BufferedReader br = new BufferedReader(new FileReader(file)))
+        try
         {
-            String line;
-            while ((line = br.readLine()) != null)
+            for(String line : ColorResources.readLines("color_names_hex.txt"))
             {
                 String[] parts = line.split(":");
                 _hexNameMap.put(parts[0], parts[1].replace(" ","_").toLowerCase());
@@ -110,6 +134,20 @@ public class ColorNameFinder
             Hsl hsl = rgbToHsl(rgb);
             _hexColorMap.put(hex, new Color(_hexNameMap.get(hex), rgb, hsl));
         }
+
+        _colors = _hexColorMap.values().toArray(new Color[0]);
+        _features = new int[_colors.length][];
+        for(int i = 0; i < _colors.length; i++)
+        {
+            _features[i] = toFeature(_colors[i].rgb, _colors[i].hsl);
+        }
+        _tree = new ColorTree(_features);
+    }
+
+
+    private static int[] toFeature(Rgb rgb, Hsl hsl)
+    {
+        return new int[] { rgb.r, rgb.g, rgb.b, hsl.h, hsl.s, hsl.l };
     }
 
 
@@ -128,12 +166,6 @@ public class ColorNameFinder
     }
 
 
-    private Hsl hexToHsl(String hex)
-    {
-        return rgbToHsl(hexToRgb(hex));
-    }
-
-
     private Hsl rgbToHsl(Rgb rgb)
     {
         final double r = (double)rgb.r/(double)255;
@@ -190,57 +222,66 @@ public class ColorNameFinder
      */
     public String tryGetNameForRgb(int r, int g, int b) throws CssSuiteException
     {
-        String color = rgbToHex(r, g, b);
-        color = color.toUpperCase();
-
-        if(color.length() < 3 || color.length() > 7)
+        if(r < 0 || r > 255 || g < 0 || g > 255 || b < 0 || b > 255)
         {
-            throw new CssSuiteException("Invalid color: rgb '(%s, %s, %s)' hex '%s'", r, g, b, color);
+            throw new CssSuiteException("Invalid color: rgb '(%s, %s, %s)' hex '%s'", r, g, b, rgbToHex(r, g, b).toUpperCase());
         }
 
-        if(color.length() % 3 == 0)
+        final int key = (r << 16) | (g << 8) | b;
+        String name = _nameCache.get(key);
+        if(name == null)
         {
-            color = "#" + color;
+            name = findName(r, g, b);
+            if(name == null)
+            {
+                throw new CssSuiteException("Invalid color: rgb '(%s, %s, %s)' hex '%s'", r, g, b, rgbToHex(r, g, b).toUpperCase());
+            }
+
+            _nameCache.put(key, name);
         }
 
-        if(color.length() == 4)
+        return name;
+    }
+
+
+    /**
+     * @return the name of the color in the table that is equal or nearest to the given color, or null if the table is empty
+     */
+    private String findName(int r, int g, int b)
+    {
+        Color exact = _hexColorMap.get(rgbToHex(r, g, b).substring(1).toUpperCase());
+        if(exact != null)
         {
-            color = "#" + color.substring(1, 1) + color.substring(1, 1) + color.substring(2, 1) + color.substring(2, 1) + color.substring(3, 1) + color.substring(3, 1);
+            return exact.name;
         }
 
-        String key = color.replaceFirst("#","");
-        if(_hexColorMap.containsKey(key))
-            return _hexColorMap.get(key).name;
+        Rgb rgb = new Rgb(r, g, b);
+        int nearest = _tree.nearest(toFeature(rgb, rgbToHsl(rgb)));
+        return nearest < 0 ? null : _colors[nearest].name;
+    }
 
-        Hsl hsl = hexToHsl(color);
 
-        double ndf1;
-        double ndf2;
-        double ndf;
-        double df = -1;
+    /**
+     * Reference implementation for the k-d tree search, compares the given color to every color in the table
+     * @return the name of the nearest color in the table, or an empty string if the table is empty
+     */
+    public String findNearestNameLinear(int r, int g, int b)
+    {
+        Rgb rgb = new Rgb(r, g, b);
+        int[] query = toFeature(rgb, rgbToHsl(rgb));
 
+        long df = -1;
         String nearest = "";
-        for(String hex : _hexColorMap.keySet())
+        for(int i = 0; i < _colors.length; i++)
         {
-            Color option = _hexColorMap.get(hex);
-
-            ndf1 = Math.pow(r - option.rgb.r, 2) + Math.pow(g - option.rgb.g, 2) + Math.pow(b - option.rgb.b, 2);
-            ndf2 = Math.pow(hsl.h - option.hsl.h, 2) + Math.pow(hsl.s - option.hsl.s, 2) + Math.pow(hsl.l - option.hsl.l, 2);
-            ndf = ndf1 + ndf2 * 2;
+            long ndf = ColorTree.distance(query, _features[i]);
             if(df < 0 || df > ndf)
             {
                 df = ndf;
-                nearest = hex;
+                nearest = _colors[i].name;
             }
         }
 
-        if(nearest.isEmpty())
-        {
-            throw new CssSuiteException("Invalid color: rgb '(%s, %s, %s)' hex '%s'", r, g, b, color);
-        }
-
-        return _hexColorMap.get(nearest).name;
+        return nearest;
     }
 }
-
-
@@ -0,0 +1,45 @@
+package com.crawljax.plugins.cret.colors;
+
+import java.io.BufferedReader;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads the color tables that are shipped as classpath resources next to this package,
+ * so that they are also found when CRET runs from a packaged jar
+ */
+class ColorResources
+{
+    /**
+     * @param name file name of the resource, relative to this package
+     * @return all non-empty lines in the given resource
+     * @throws IOException if the resource does not exist or cannot be read
+     */
+    static List<String> readLines(String name) throws IOException
+    {
+        InputStream stream = ColorResources.class.getResourceAsStream(name);
+        if (stream == null)
+        {
+            throw new FileNotFoundException(String.format("Classpath resource '%s' not found", name));
+        }
+
+        List<String> lines = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8)))
+        {
+            String line;
+            while ((line = reader.readLine()) != null)
+            {
+                if (!line.trim().isEmpty())
+                {
+                    lines.add(line);
+                }
+            }
+        }
+        return lines;
+    }
+}
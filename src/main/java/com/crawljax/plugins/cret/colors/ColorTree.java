@@ -0,0 +1,182 @@
+package com.crawljax.plugins.cret.colors;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * k-d tree over the (r, g, b, h, s, l) features of the named colors, laid out implicitly in an array
+ * Finds the color with the smallest weighted distance r² + g² + b² + 2 * (h² + s² + l²) to a given color,
+ * on equal distance the color that comes first in the table, just like a linear scan over the table
+ */
+class ColorTree
+{
+    private static final int DIMENSIONS = 6;
+    private static final int[] WEIGHTS = { 1, 1, 1, 2, 2, 2 };
+
+    private final int[][] _features;
+
+    // node at the median of every range [lo, hi), left subtree in [lo, median), right subtree in (median, hi)
+    private final int[] _nodes;
+    private final int[] _splitDimensions;
+
+    public ColorTree(int[][] features)
+    {
+        _features = features;
+        _nodes = new int[features.length];
+        _splitDimensions = new int[features.length];
+
+        for (int i = 0; i < _nodes.length; i++)
+        {
+            _nodes[i] = i;
+        }
+
+        build(0, _nodes.length);
+    }
+
+
+    /**
+     * @return the weighted distance between the two features, as used by the original Name that Color implementation
+     */
+    public static long distance(int[] a, int[] b)
+    {
+        long result = 0;
+        for (int d = 0; d < DIMENSIONS; d++)
+        {
+            long diff = a[d] - b[d];
+            result += WEIGHTS[d] * diff * diff;
+        }
+        return result;
+    }
+
+
+    /**
+     * @return the index of the color nearest to the given feature, or -1 if the tree is empty
+     */
+    public int nearest(int[] query)
+    {
+        Search search = new Search(query);
+        search(search, 0, _nodes.length);
+        return search.best;
+    }
+
+
+    private void build(int lo, int hi)
+    {
+        if (hi - lo <= 1)
+        {
+            return;
+        }
+
+        final int dimension = widestDimension(lo, hi);
+
+        Integer[] range = new Integer[hi - lo];
+        for (int i = lo; i < hi; i++)
+        {
+            range[i - lo] = _nodes[i];
+        }
+        Arrays.sort(range, Comparator.comparingInt(index -> _features[index][dimension]));
+        for (int i = lo; i < hi; i++)
+        {
+            _nodes[i] = range[i - lo];
+        }
+
+        int median = (lo + hi) >>> 1;
+        _splitDimensions[median] = dimension;
+
+        build(lo, median);
+        build(median + 1, hi);
+    }
+
+
+    /**
+     * @return the dimension with the largest weighted spread in the given range
+     */
+    private int widestDimension(int lo, int hi)
+    {
+        int result = 0;
+        long widest = -1;
+        for (int d = 0; d < DIMENSIONS; d++)
+        {
+            int min = Integer.MAX_VALUE;
+            int max = Integer.MIN_VALUE;
+            for (int i = lo; i < hi; i++)
+            {
+                int value = _features[_nodes[i]][d];
+                min = Math.min(min, value);
+                max = Math.max(max, value);
+            }
+
+            long spread = (long) WEIGHTS[d] * (max - min) * (max - min);
+            if (spread > widest)
+            {
+                widest = spread;
+                result = d;
+            }
+        }
+        return result;
+    }
+
+
+    private void search(Search search, int lo, int hi)
+    {
+        if (lo >= hi)
+        {
+            return;
+        }
+
+        int median = (lo + hi) >>> 1;
+        int index = _nodes[median];
+        search.consider(index, distance(search.query, _features[index]));
+
+        if (hi - lo == 1)
+        {
+            return;
+        }
+
+        int dimension = _splitDimensions[median];
+        long diff = search.query[dimension] - _features[index][dimension];
+
+        if (diff < 0)
+        {
+            search(search, lo, median);
+            // equal distances are visited as well, a color earlier in the table may be found on the other side
+            if (WEIGHTS[dimension] * diff * diff <= search.bestDistance)
+            {
+                search(search, median + 1, hi);
+            }
+        }
+        else
+        {
+            search(search, median + 1, hi);
+            if (WEIGHTS[dimension] * diff * diff <= search.bestDistance)
+            {
+                search(search, lo, median);
+            }
+        }
+    }
+
+
+    /**
+     * State of a single nearest-neighbour search
+     */
+    private static class Search
+    {
+        private final int[] query;
+        private int best = -1;
+        private long bestDistance = Long.MAX_VALUE;
+
+        private Search(int[] query)
+        {
+            this.query = query;
+        }
+
+        private void consider(int index, long distance)
+        {
+            if (distance < bestDistance || (distance == bestDistance && index < best))
+            {
+                best = index;
+                bestDistance = distance;
+            }
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.crawljax.plugins.cret.cssmodel;
+
+import com.crawljax.plugins.cret.cssmodel.declarations.MDeclaration;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Copy-on-write block of declarations, shared by all MSelectors that hold equal declarations
+ * (the selectors of a single rule, or working copies of a selector) until one of them changes its declarations
+ * A block is never changed while it may be shared, a selector that did not create its block itself takes a private copy
+ * on its first change via MSelector.getMutableDeclarations
+ */
+public class DeclarationBlock
+{
+	private final List<MDeclaration> _declarations;
+	private final List<MDeclaration> _view;
+
+	public DeclarationBlock(List<MDeclaration> declarations)
+	{
+		_declarations = declarations;
+		_view = Collections.unmodifiableList(declarations);
+	}
+
+
+	/**
+	 * @return a new block with a deep copy of the declarations in this block
+	 */
+	public DeclarationBlock copy()
+	{
+		List<MDeclaration> declarations = new ArrayList<>(_declarations.size());
+		for(MDeclaration declaration : _declarations)
+		{
+			declarations.add(declaration.copy());
+		}
+		return new DeclarationBlock(declarations);
+	}
+
+
+	/**
+	 * @return read-only view of the declarations in this block
+	 */
+	public List<MDeclaration> getDeclarations()
+	{
+		return _view;
+	}
+
+
+	/**
+	 * @return the modifiable list of declarations, only to be used by the selector that owns this block
+	 */
+	List<MDeclaration> getMutableDeclarations()
+	{
+		return _declarations;
+	}
+}
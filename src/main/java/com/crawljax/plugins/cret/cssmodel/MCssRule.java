@@ -2,6 +2,7 @@ package com.crawljax.plugins.cret.cssmodel;
 
 import com.crawljax.plugins.cret.cssmodel.declarations.MDeclaration;
 import com.crawljax.plugins.cret.util.CretStringBuilder;
+import com.crawljax.plugins.cret.util.CssSink;
 import com.jcabi.w3c.Defect;
 import com.steadystate.css.dom.Property;
 import com.steadystate.css.parser.LocatableImpl;
@@ -14,6 +15,7 @@ import com.steadystate.css.dom.CSSStyleDeclarationImpl;
 import com.steadystate.css.parser.SelectorListImpl;
 import org.w3c.css.sac.Selector;
 
+import java.io.IOException;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -58,25 +60,48 @@ public class MCssRule extends MCssRuleBase
 	 */
 	private void setSelectors(Set<Defect> w3cErrors, List<MediaQuery> mediaQueries)
 	{
-		_selectors.addAll(((SelectorListImpl) _styleRule.getSelectors())
-				.getSelectors().stream()
-				.map(selector -> new MSelector(selector, parseDeclarations(_styleRule, w3cErrors), getLineNumber(), getColumnNumber(),
-						mediaQueries, this, tryFindW3CErrorForSelector(selector, w3cErrors)))
+		List<Property> properties = ((CSSStyleDeclarationImpl)_styleRule.getStyle()).getProperties();
+
+		// the value text and order of every property are only generated once, for all selectors in this rule
+		List<String> values = new ArrayList<>(properties.size());
+		int[] orders = new int[properties.size()];
+		for(int i = 0; i < properties.size(); i++)
+		{
+			values.add(properties.get(i).getValue().getCssText());
+			orders[i] = properties.indexOf(properties.get(i)) + 1;
+		}
+
+		List<Selector> selectors = ((SelectorListImpl) _styleRule.getSelectors()).getSelectors();
+
+		// all selectors in this rule share the same declarations, until one of them changes its declarations
+		// a W3C error is only attributed to the declarations of the first selector it matches, so with W3C errors every selector gets its own declarations
+		DeclarationBlock block = selectors.size() > 1 && w3cErrors.isEmpty() ? new DeclarationBlock(parseDeclarations(properties, values, orders, w3cErrors)) : null;
+
+		_selectors.addAll(selectors.stream()
+				.map(selector -> block != null
+						? new MSelector(selector, block, getLineNumber(), getColumnNumber(),
+							mediaQueries, this, tryFindW3CErrorForSelector(selector, w3cErrors))
+						: new MSelector(selector, parseDeclarations(properties, values, orders, w3cErrors), getLineNumber(), getColumnNumber(),
+							mediaQueries, this, tryFindW3CErrorForSelector(selector, w3cErrors)))
 				.collect(Collectors.toList()));
 	}
 
 
 	/**
-	 * Parse all declarations contained in this rule once, and pass them to each selector that this rule is composed of
+	 * Create the declarations of one or all selectors in this rule from the properties contained in this rule
 	 */
-	private static List<MDeclaration> parseDeclarations(CSSStyleRuleImpl styleRule, Set<Defect> w3cErrors)
+	private static List<MDeclaration> parseDeclarations(List<Property> properties, List<String> values, int[] orders, Set<Defect> w3cErrors)
 	{
-		CSSStyleDeclarationImpl styleDeclaration = (CSSStyleDeclarationImpl)styleRule.getStyle();
-		List<Property> declarations = styleDeclaration.getProperties();
-		return declarations.stream()
-				.map(declaration -> new MDeclaration(declaration.getName(), declaration.getValue().getCssText(), declaration.isImportant(),
-						TryFindW3cErrorForProperty(declaration, w3cErrors), declarations.indexOf(declaration) + 1))
-				.collect(Collectors.toList());
+		List<MDeclaration> result = new ArrayList<>(properties.size());
+		for(int i = 0; i < properties.size(); i++)
+		{
+			Property property = properties.get(i);
+			String value = values.get(i);
+			String w3cError = w3cErrors.isEmpty() ? "" : TryFindW3cErrorForProperty(property, value, w3cErrors);
+
+			result.add(new MDeclaration(property.getName(), value, property.isImportant(), w3cError, orders[i]));
+		}
+		return result;
 	}
 
 
@@ -85,14 +110,14 @@ public class MCssRule extends MCssRuleBase
 	 * Find out if the given property is related to a W3C validation error
 	 * @return W3C error, if present for given property
 	 */
-	private static String TryFindW3cErrorForProperty(Property property, Set<Defect> w3cErrors)
+	private static String TryFindW3cErrorForProperty(Property property, String value, Set<Defect> w3cErrors)
 	{
 		int lineNumber = ((Locator)property.getUserData(UserDataConstants.KEY_LOCATOR)).getLineNumber();
 
 		Optional<Defect> match = w3cErrors.stream().filter(error -> error.line() == lineNumber
 															&& !error.message().contains("Parse Error")
 															&& (error.message().contains(property.getName())
-															|| error.message().contains(property.getValue().getCssText())))
+															|| error.message().contains(value)))
 													.findFirst();
 
 		if(match.isPresent())
@@ -238,28 +263,9 @@ public class MCssRule extends MCssRuleBase
 	@Override
 	public String print()
 	{
-		Map<String, PrintRule> combinations = new HashMap<>();
-		for(MSelector mSelector : _selectors)
-		{
-			List<MDeclaration> mProps = mSelector.getDeclarations();
-
-			final String[] key = {""};
-			mProps.forEach(mProp -> key[0] += "|" + mProp.asKey());
-
-			if(combinations.containsKey(key[0]))
-			{
-				combinations.get(key[0]).addSelector(mSelector);
-			}
-			else
-			{
-				combinations.put(key[0], new PrintRule(mSelector, mProps));
-			}
-		}
-
 		CretStringBuilder builder = new CretStringBuilder();
-		for(String key : combinations.keySet())
+		for(PrintRule mTuple : groupSelectors())
 		{
-			PrintRule mTuple = combinations.get(key);
 			List<MSelector> mSelectors = mTuple.getSelectors();
 
 			int size = mSelectors.size();
@@ -282,6 +288,82 @@ public class MCssRule extends MCssRuleBase
 	}
 
 
+	/**
+	 * Stream the current rule into the given sink, in the same format as print()
+	 * @param minify true to omit all optional whitespace and the last semicolon of each declaration block
+	 */
+	@Override
+	public void print(CssSink sink, boolean minify) throws IOException
+	{
+		for(PrintRule mTuple : groupSelectors())
+		{
+			List<MSelector> mSelectors = mTuple.getSelectors();
+
+			int size = mSelectors.size();
+			for(int i = 0; i < size; i++)
+			{
+				sink.append(mSelectors.get(i).getSelectorText());
+				if(i < size - 1)
+					sink.append(minify ? "," : ", ");
+			}
+
+			sink.append(minify ? "{" : " {");
+
+			List<MDeclaration> mProps = mTuple.getDeclarations();
+			for(int i = 0; i < mProps.size(); i++)
+			{
+				MDeclaration mProp = mProps.get(i);
+				if(minify)
+				{
+					sink.append(mProp.getName()).append(':').append(mProp.getFullValue());
+					if(i < mProps.size() - 1)
+						sink.append(';');
+				}
+				else
+				{
+					sink.append("\n\t").append(mProp.getName()).append(": ").append(mProp.getFullValue()).append(';');
+				}
+			}
+
+			sink.append(minify ? "}" : "\n}\n\n");
+		}
+	}
+
+
+	/**
+	 * Group the selectors of this rule that have equal declarations
+	 */
+	private Collection<PrintRule> groupSelectors()
+	{
+		Map<String, PrintRule> combinations = new HashMap<>();
+		StringBuilder key = new StringBuilder();
+
+		for(MSelector mSelector : _selectors)
+		{
+			List<MDeclaration> mProps = mSelector.getDeclarations();
+
+			key.setLength(0);
+			for(MDeclaration mProp : mProps)
+			{
+				key.append('|').append(mProp.getName()).append('-').append(mProp.getFullValue());
+			}
+
+			String keyString = key.toString();
+			PrintRule printRule = combinations.get(keyString);
+			if(printRule != null)
+			{
+				printRule.addSelector(mSelector);
+			}
+			else
+			{
+				combinations.put(keyString, new PrintRule(mSelector, mProps));
+			}
+		}
+
+		return combinations.values();
+	}
+
+
 	private class PrintRule
 	{
 		private final List<MSelector> _selectors;
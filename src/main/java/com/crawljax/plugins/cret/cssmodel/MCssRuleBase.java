@@ -1,10 +1,12 @@
 package com.crawljax.plugins.cret.cssmodel;
 
+import com.crawljax.plugins.cret.util.CssSink;
 import com.steadystate.css.dom.AbstractCSSRuleImpl;
 import com.steadystate.css.parser.media.MediaQuery;
 import com.steadystate.css.userdata.UserDataConstants;
 import org.w3c.css.sac.Locator;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -64,4 +66,17 @@ public class MCssRuleBase
     {
         return _rule.toString() + "\n\n";
     }
+
+    /**
+     * Stream this rule into the given sink, in the same format as print()
+     * @param minify true to omit the blank lines after the rule
+     */
+    public void print(CssSink sink, boolean minify) throws IOException
+    {
+        sink.append(_rule.toString());
+        if(!minify)
+        {
+            sink.append("\n\n");
+        }
+    }
 }
@@ -1,6 +1,7 @@
 package com.crawljax.plugins.cret.cssmodel;
 
 import java.util.*;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 import com.crawljax.plugins.cret.LogHandler;
@@ -29,7 +30,8 @@ import org.w3c.dom.Node;
 public class MSelector
 {
 	private final Selector _selector;
-	private final List<MDeclaration> _declarations;
+	private DeclarationBlock _block; // shared with other selectors until changed, see getMutableDeclarations
+	private boolean _ownsBlock; // false as long as _block may be shared with other selectors
 	private final List<MediaQuery> _mediaQueries;
 	private final MCssRuleBase _parent;
 	private final String _w3cError;
@@ -55,9 +57,28 @@ public class MSelector
 
 
 	public MSelector(Selector w3cSelector, List<MDeclaration> declarations, int ruleNumber, int order, List<MediaQuery> queries, MCssRuleBase parent, String w3cError)
+	{
+		this(w3cSelector, new DeclarationBlock(declarations), true, ruleNumber, order, queries, parent, w3cError);
+	}
+
+
+	/**
+	 * Constructor for a selector that shares its declarations with other selectors, e.g. the other selectors in the same rule
+	 */
+	public MSelector(Selector w3cSelector, DeclarationBlock block, int ruleNumber, int order, List<MediaQuery> queries, MCssRuleBase parent, String w3cError)
+	{
+		this(w3cSelector, block, false, ruleNumber, order, queries, parent, w3cError);
+	}
+
+
+	/**
+	 * Ownership of the block is known before init, so that init does not copy a block this selector already owns
+	 */
+	private MSelector(Selector w3cSelector, DeclarationBlock block, boolean ownsBlock, int ruleNumber, int order, List<MediaQuery> queries, MCssRuleBase parent, String w3cError)
 	{
 		_selector = w3cSelector;
-		_declarations = declarations;
+		_block = block;
+		_ownsBlock = ownsBlock;
 		_lineNumber = ruleNumber;
 		_order = order;
 		_selectorText = w3cSelector.toString().trim();
@@ -74,7 +95,8 @@ public class MSelector
 	 */
 	public MSelector(Selector w3cSelector, MSelector mSel)
 	{
-		this(w3cSelector, mSel.getDeclarations(), mSel.getLineNumber(), mSel.getOrder(), mSel.getMediaQueries(), mSel.getParent(), "");
+		this(w3cSelector, mSel._block, false, mSel.getLineNumber(), mSel.getOrder(), mSel.getMediaQueries(), mSel.getParent(), "");
+		mSel._ownsBlock = false;
 
 		// set additional declarations, left empty by default constructor
 		_isMatched = mSel.isMatched();
@@ -96,8 +118,10 @@ public class MSelector
 		_parent = mSel.getParent();
 		_w3cError = mSel.getW3CError();
 
-		//copy construct declarations
-		_declarations = mSel.getDeclarations().stream().map(MDeclaration::new).collect(Collectors.toList());
+		//share declarations, they are copied as soon as one of both selectors changes them
+		_block = mSel._block;
+		_ownsBlock = false;
+		mSel._ownsBlock = false;
 
 		init();
 
@@ -122,7 +146,10 @@ public class MSelector
 		if(_isIgnored)
 		{
 			_isMatched = true;
-			_declarations.forEach(p -> p.setEffective(true));
+			if(getDeclarations().stream().anyMatch(p -> !p.isEffective()))
+			{
+				getMutableDeclarations().forEach(p -> p.setEffective(true));
+			}
 			_selectorText = _selectorText.replace("*","");
 		}
 		else
@@ -147,9 +174,7 @@ public class MSelector
 			}
 		}
 
-		_specificity = new SpecificityCalculator().computeSpecificity(_selectorText,
-				(_nonStructuralPseudoClasses.size() + _structuralPseudoClasses.size()),
-				_hasPseudoElement);
+		_specificity = SpecificityCalculator.computeSpecificity(_selector);
 	}
 
 
@@ -307,8 +332,8 @@ public class MSelector
 	/** Getter */
 	public String getSelectorText() { return _selectorText;	}
 
-	/** Getter */
-	public List<MDeclaration> getDeclarations() { return _declarations; }
+	/** Getter, read-only */
+	public List<MDeclaration> getDeclarations() { return _block.getDeclarations(); }
 
 	/** Getter */
 	public int getLineNumber() { return _lineNumber; }
@@ -536,12 +561,47 @@ public class MSelector
 
 
 
+	/**
+	 * Takes a private copy of the declarations when they are still shared with other selectors
+	 * Must be used for any change to the list of declarations or to the declarations themselves
+	 * @return the modifiable declarations of this selector
+	 */
+	public List<MDeclaration> getMutableDeclarations()
+	{
+		if(!_ownsBlock)
+		{
+			_block = _block.copy();
+			_ownsBlock = true;
+		}
+
+		return _block.getMutableDeclarations();
+	}
+
+
+	/**
+	 * Sort the declarations of this selector by their order
+	 * Only takes a private copy of shared declarations if they are not sorted yet
+	 */
+	public void sortDeclarations()
+	{
+		List<MDeclaration> declarations = getDeclarations();
+		for(int i = 1; i < declarations.size(); i++)
+		{
+			if(declarations.get(i - 1).getOrder() > declarations.get(i).getOrder())
+			{
+				getMutableDeclarations().sort((p1, p2) -> Integer.compare(p1.getOrder(), p2.getOrder()));
+				return;
+			}
+		}
+	}
+
+
 	/**
 	 * @return true if any declaration contained in this selector is effective
 	 */
 	public boolean hasEffectiveDeclarations()
 	{
-		return _declarations.stream().anyMatch((declaration) -> declaration.isEffective());
+		return getDeclarations().stream().anyMatch((declaration) -> declaration.isEffective());
 	}
 
 
@@ -550,7 +610,7 @@ public class MSelector
 	 */
 	public void restoreDeclaration(MDeclaration mDeclaration)
 	{
-		_declarations.add(mDeclaration);
+		getMutableDeclarations().add(mDeclaration);
 	}
 
 
@@ -559,8 +619,15 @@ public class MSelector
 	 */
 	public void setNewDeclarations(List<MDeclaration> newProps)
 	{
-		_declarations.clear();
-		_declarations.addAll(newProps);
+		// new set may contain declarations from the shared block, which must not end up in two blocks
+		List<MDeclaration> shared = !_ownsBlock ? getDeclarations() : Collections.emptyList();
+
+		List<MDeclaration> declarations = getMutableDeclarations();
+		declarations.clear();
+		for(MDeclaration mDeclaration : newProps)
+		{
+			declarations.add(shared.stream().anyMatch(d -> d == mDeclaration) ? mDeclaration.copy() : mDeclaration);
+		}
 	}
 
 
@@ -569,7 +636,7 @@ public class MSelector
 	 */
 	public void removeIneffectiveDeclarations()
 	{
-		_declarations.removeIf((p) -> !p.isIgnored() && !p.isEffective());
+		removeDeclarationsIf((p) -> !p.isIgnored() && !p.isEffective());
 	}
 
 
@@ -578,7 +645,7 @@ public class MSelector
 	 */
 	public void removeInvalidUndoDeclarations()
 	{
-		_declarations.removeIf((p) -> !p.isIgnored() && p.isInvalidUndo());
+		removeDeclarationsIf((p) -> !p.isIgnored() && p.isInvalidUndo());
 	}
 
 
@@ -587,7 +654,7 @@ public class MSelector
 	 */
 	public void removeDeclarations(List<MDeclaration> declarations)
 	{
-		_declarations.removeAll(declarations);
+		removeDeclarationsIf(declarations::contains);
 	}
 
 
@@ -596,19 +663,37 @@ public class MSelector
 	 */
 	public void removeDeclarationsByText(List<MDeclaration> declarations)
 	{
-		List<MDeclaration> toRemove = new ArrayList<>();
-		for(MDeclaration mDeclaration : declarations)
+		Set<String> toRemove = declarations.stream().map(MDeclaration::toString).collect(Collectors.toSet());
+		removeDeclarationsIf(p -> toRemove.contains(p.toString()));
+	}
+
+
+	/**
+	 * Remove all declarations that satisfy the filter, only takes a private copy of shared declarations if any are removed
+	 */
+	private void removeDeclarationsIf(Predicate<MDeclaration> filter)
+	{
+		List<MDeclaration> declarations = getDeclarations();
+
+		BitSet removed = new BitSet(declarations.size());
+		for(int i = 0; i < declarations.size(); i++)
 		{
-			for(MDeclaration thisProperty : _declarations)
+			if(filter.test(declarations.get(i)))
 			{
-				if(mDeclaration.toString().equals(thisProperty.toString()))
-				{
-					toRemove.add(thisProperty);
-				}
+				removed.set(i);
 			}
 		}
 
-		_declarations.removeAll(toRemove);
+		if(removed.isEmpty())
+		{
+			return;
+		}
+
+		List<MDeclaration> mutable = getMutableDeclarations();
+		for(int i = removed.length() - 1; i >= 0; i = removed.previousSetBit(i - 1))
+		{
+			mutable.remove(i);
+		}
 	}
 
 	@Override
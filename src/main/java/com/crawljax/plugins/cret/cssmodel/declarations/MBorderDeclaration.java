@@ -17,14 +17,29 @@ public class MBorderDeclaration extends MDeclaration
 		_allowedWith = allowedWith;
 	}
 
+
+	/**
+	 * Full copy constructor
+	 */
+	public MBorderDeclaration(MBorderDeclaration declaration)
+	{
+		super(declaration);
+		_allowedWith = declaration._allowedWith;
+	}
+
+
 	@Override
-	public boolean allowCoexistence(MDeclaration otherDeclaration)
+	public MDeclaration copy()
 	{
-		String name = otherDeclaration.getName();
+		return new MBorderDeclaration(this);
+	}
 
-		if(_name.equals(name) || _allowedWith.contains(name))
+	@Override
+	public boolean allowCoexistence(MDeclaration otherDeclaration)
+	{
+		if(getNameId() == otherDeclaration.getNameId() || _allowedWith.contains(otherDeclaration.getName()))
 		{
-			if(!_normalizedValue.equals(otherDeclaration.getValue()))
+			if(getValueId() != otherDeclaration.getValueId())
 			{
 				return true;
 			}
@@ -1,14 +1,20 @@
 package com.crawljax.plugins.cret.cssmodel.declarations;
 
+import com.crawljax.plugins.cret.util.CssValue;
+import com.crawljax.plugins.cret.util.StringPool;
+
 /**
  * Created by axel on 6/9/2015.
  *
  * Represents a style declaration that is contained inside a CSS selector
  * A declaration has a name, value and may be important
+ * Names and original values are interned in the StringPools, equal names and values share one instance and id,
+ * normalized values are only interned once their id is needed
  */
 public class MDeclaration
 {
 	protected final String _name;
+	private final StringPool.Entry _nameEntry;
 	private final String _originalValue;
 	private final String _w3cError;
 	private final boolean _isIgnored;
@@ -19,6 +25,8 @@ public class MDeclaration
 	private final int _order;
 
 	protected String _normalizedValue;
+	private StringPool.Entry _valueEntry; // entry of the normalized value, interned on first use
+	private CssValue _parsedValue; // parsed on first use, reset when the value changes
 	private String _status;
 	private boolean _isEffective;
 	private boolean _isInvalidUndo;
@@ -26,9 +34,13 @@ public class MDeclaration
 
 	public MDeclaration(String name, String value, boolean isImportant, String w3cError, int order)
 	{
-		_name = name;
-		_originalValue = value.trim();
-		_normalizedValue = value.trim();
+		StringPool.Entry valueEntry = StringPool.VALUES.intern(value.trim());
+
+		_nameEntry = StringPool.PROPERTY_NAMES.intern(name);
+		_name = _nameEntry.getString();
+		_originalValue = valueEntry.getString();
+		_normalizedValue = valueEntry.getString();
+		_valueEntry = valueEntry;
 		_status = "notset";
 		_isImportant = isImportant;
 		_w3cError = w3cError;
@@ -38,7 +50,7 @@ public class MDeclaration
 
 		if(name.contains("-moz-") || name.contains("-webkit-") || name.contains("-ms-") || name.contains("-o-") || name.contains("-khtml-"))
 		{
-			_nameVendorPrefix = "-" + name.split("-")[1] + "-";
+			_nameVendorPrefix = StringPool.PROPERTY_NAMES.intern("-" + name.split("-")[1] + "-").getString();
 		}
 		else
 		{
@@ -107,13 +119,17 @@ public class MDeclaration
 	public MDeclaration(MDeclaration declaration)
 	{
 		_name = declaration.getName();
+		_nameEntry = declaration._nameEntry;
 		_originalValue = declaration.getOriginalValue();
 		_normalizedValue = declaration.getValue();
+		_valueEntry = declaration._valueEntry;
+		_parsedValue = declaration._parsedValue;
 		_status = declaration.getStatus();
 		_isEffective = declaration.isEffective();
 		_isImportant = declaration.isImportant();
 		_isIgnored = declaration.isIgnored();
 		_isInvalidUndo = declaration.isInvalidUndo();
+		_invalidUndoSet = declaration._invalidUndoSet;
 		_w3cError = declaration.getW3CError();
 		_nameVendorPrefix = declaration.getNameVendor();
 		_valueVendorPrefix = declaration.getValueVendor();
@@ -122,12 +138,31 @@ public class MDeclaration
 	}
 
 
+	/**
+	 * @return a full copy of this declaration, of the same type
+	 */
+	public MDeclaration copy()
+	{
+		return new MDeclaration(this);
+	}
+
+
 	/** Getter */
 	public String getName()
 	{
 		return _name;
 	}
 
+	/**
+	 * @return the interned id of the name, equal for equal names
+	 */
+	public int getNameId() { return _nameEntry.getId(); }
+
+	/**
+	 * @return the interned id of the lower-case name, equal for names that are equal ignoring case
+	 */
+	public int getFoldedNameId() { return _nameEntry.getFoldedId(); }
+
 	/** Getter */
 	public String getOriginalValue()
 	{
@@ -164,6 +199,18 @@ public class MDeclaration
 	/** Getter */
 	public String getValue() { return _normalizedValue;	}
 
+	/**
+	 * @return the interned id of the (normalized) value, equal for equal values
+	 */
+	public int getValueId()
+	{
+		if(_valueEntry == null)
+		{
+			_valueEntry = StringPool.VALUES.intern(_normalizedValue);
+		}
+		return _valueEntry.getId();
+	}
+
 	/** Getter */
 	public String getStatus()
 	{
@@ -191,6 +238,21 @@ public class MDeclaration
 	public void setNormalizedValue(String value)
 	{
 		_normalizedValue = value;
+		_valueEntry = null;
+		_parsedValue = null;
+	}
+
+
+	/**
+	 * @return the parsed (tokenized) representation of the current value, parsed only once until the value changes
+	 */
+	public CssValue getParsedValue()
+	{
+		if(_parsedValue == null)
+		{
+			_parsedValue = CssValue.parse(_normalizedValue);
+		}
+		return _parsedValue;
 	}
 
 
@@ -212,6 +274,16 @@ public class MDeclaration
 	}
 
 
+	/**
+	 * @return true if setInvalidUndo with the given value would change this declaration,
+	 *         i.e. the flag was not set yet, or it is changed from invalid to valid, which is final
+	 */
+	public boolean changesInvalidUndo(boolean invalid)
+	{
+		return !_invalidUndoSet || (_isInvalidUndo && !invalid);
+	}
+
+
 	/**
 	 *
 	 */
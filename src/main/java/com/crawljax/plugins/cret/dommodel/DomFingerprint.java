@@ -0,0 +1,164 @@
+package com.crawljax.plugins.cret.dommodel;
+
+import com.crawljax.plugins.cret.util.Hashing;
+import org.w3c.dom.Attr;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.*;
+
+/**
+ * Structural fingerprint of a DOM tree: a SHA-256 hash over the tag, depth and attributes of every element, in document order
+ * Text is ignored, except for whether an element contains (whitespace) text (which decides :empty), so that states built
+ * from the same template get the same fingerprint
+ * Attribute values are only included for id, class, lang and dir, for type (which decides the compatibility of an input with
+ * :checked, :focus and :active, see MSelector.checkPseudoCompatibility) and for the attributes that are used in attribute selectors,
+ * for all other attributes only their presence is included, since neither selectors nor pseudo-class checks use their value
+ */
+public class DomFingerprint
+{
+	private static final Set<String> VALUE_ATTRIBUTES = new HashSet<>(Arrays.asList("id", "class", "lang", "dir", "type"));
+
+	private static final int FLUSH_SIZE = 8192;
+
+
+	/**
+	 * @param selectorAttributes (lower-case) names of attributes that are used in attribute selectors
+	 * @return the fingerprint of the given DOM tree
+	 */
+	public static String compute(Document dom, Set<String> selectorAttributes)
+	{
+		MessageDigest digest = Hashing.newSha256();
+		StringBuilder buffer = new StringBuilder();
+
+		Node node = dom.getFirstChild();
+		int depth = 0;
+		while (node != null)
+		{
+			if (node.getNodeType() == Node.ELEMENT_NODE)
+			{
+				append(buffer, depth, (Element) node, selectorAttributes);
+				if (buffer.length() > FLUSH_SIZE)
+				{
+					flush(digest, buffer);
+				}
+			}
+
+			// pre-order successor, tracking the depth
+			if (node.getFirstChild() != null)
+			{
+				node = node.getFirstChild();
+				depth++;
+				continue;
+			}
+
+			while (node != null && node != dom && node.getNextSibling() == null)
+			{
+				node = node.getParentNode();
+				depth--;
+			}
+			node = node == null || node == dom ? null : node.getNextSibling();
+		}
+
+		flush(digest, buffer);
+		return Hashing.toHex(digest.digest());
+	}
+
+
+	/**
+	 * @return the (lower-case) names of all attributes used in attribute selectors ([name], [name=value], ...) in the given selector
+	 */
+	public static Set<String> getSelectorAttributes(String selectorText)
+	{
+		Set<String> result = new HashSet<>();
+
+		int index = selectorText.indexOf('[');
+		while (index >= 0)
+		{
+			int start = index + 1;
+			while (start < selectorText.length() && Character.isWhitespace(selectorText.charAt(start)))
+			{
+				start++;
+			}
+
+			int end = start;
+			while (end < selectorText.length() && "]=~|^$*".indexOf(selectorText.charAt(end)) < 0 && !Character.isWhitespace(selectorText.charAt(end)))
+			{
+				end++;
+			}
+
+			if (end > start)
+			{
+				result.add(selectorText.substring(start, end).toLowerCase(Locale.ROOT));
+			}
+
+			index = selectorText.indexOf('[', end);
+		}
+
+		return result;
+	}
+
+
+	private static void append(StringBuilder buffer, int depth, Element element, Set<String> selectorAttributes)
+	{
+		buffer.append(depth).append('<').append(element.getNodeName().toLowerCase(Locale.ROOT));
+
+		// attributes in a fixed order, the DOM does not guarantee one
+		NamedNodeMap attributes = element.getAttributes();
+		List<String> names = new ArrayList<>(attributes.getLength());
+		Map<String, String> values = new HashMap<>();
+		for (int i = 0; i < attributes.getLength(); i++)
+		{
+			Attr attribute = (Attr) attributes.item(i);
+			String name = attribute.getName().toLowerCase(Locale.ROOT);
+			names.add(name);
+			values.put(name, attribute.getValue());
+		}
+		Collections.sort(names);
+
+		for (String name : names)
+		{
+			buffer.append(' ').append(name);
+			if (VALUE_ATTRIBUTES.contains(name) || selectorAttributes.contains(name))
+			{
+				// length-prefixed, so that no value can be mistaken for other attributes
+				String value = values.get(name);
+				buffer.append('=').append(value.length()).append(':').append(value);
+			}
+		}
+
+		buffer.append('/').append(getTextKind(element)).append('>').append('\n');
+	}
+
+
+	/**
+	 * @return 0 if the given element has no direct text children, 1 if it only has whitespace text, 2 if it has other text
+	 */
+	private static int getTextKind(Element element)
+	{
+		int result = 0;
+		for (Node child = element.getFirstChild(); child != null; child = child.getNextSibling())
+		{
+			if (child.getNodeType() == Node.TEXT_NODE || child.getNodeType() == Node.CDATA_SECTION_NODE)
+			{
+				if (!child.getNodeValue().trim().isEmpty())
+				{
+					return 2;
+				}
+				result = 1;
+			}
+		}
+		return result;
+	}
+
+
+	private static void flush(MessageDigest digest, StringBuilder buffer)
+	{
+		digest.update(buffer.toString().getBytes(StandardCharsets.UTF_8));
+		buffer.setLength(0);
+	}
+}
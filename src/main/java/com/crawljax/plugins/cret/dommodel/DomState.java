@@ -0,0 +1,36 @@
+package com.crawljax.plugins.cret.dommodel;
+
+import org.w3c.dom.Document;
+
+/**
+ * A single DOM state as processed by CRET: its name, the URL at which it was found and its DOM tree
+ * Decouples the engine from Crawljax' StateVertex, so that states can also be read from stored HTML
+ */
+public class DomState
+{
+	private final String _name;
+	private final String _url;
+	private final Document _document;
+
+	public DomState(String name, String url, Document document)
+	{
+		_name = name;
+		_url = url;
+		_document = document;
+	}
+
+	/** Getter */
+	public String getName() { return _name; }
+
+	/** Getter */
+	public String getUrl() { return _url; }
+
+	/** Getter */
+	public Document getDocument() { return _document; }
+
+	@Override
+	public String toString()
+	{
+		return String.format("%s (%s)", _name, _url);
+	}
+}
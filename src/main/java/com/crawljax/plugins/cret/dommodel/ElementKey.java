@@ -0,0 +1,77 @@
+package com.crawljax.plugins.cret.dommodel;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compact identity of a DOM element: the id of the state it was found in and its pre-order index in that state's DOM,
+ * packed into a single long
+ * State ids are assigned per distinct state name by a StateRegistry, so that the same element in a re-parsed DOM of the same state gets the same key
+ * Keys are only comparable when created with the same registry, which lives as long as the matches of a single run
+ */
+public class ElementKey
+{
+	/**
+	 * @return the key for the element at the given pre-order index in the DOM of the given state
+	 */
+	public static long create(int stateId, int index)
+	{
+		return ((long) stateId << 32) | (index & 0xFFFFFFFFL);
+	}
+
+
+	/** Getter */
+	public static int getStateId(long key)
+	{
+		return (int) (key >>> 32);
+	}
+
+	/** Getter */
+	public static int getIndex(long key)
+	{
+		return (int) key;
+	}
+
+
+	/**
+	 * Assigns ids to state names, in order of first use
+	 */
+	public static class StateRegistry
+	{
+		private final Map<String, Integer> _stateIds = new ConcurrentHashMap<>();
+		private final List<String> _stateNames = new ArrayList<>();
+
+		/**
+		 * @return the id of the given state, assigned on first use
+		 */
+		public int getStateId(String stateName)
+		{
+			Integer id = _stateIds.get(stateName);
+			if (id == null)
+			{
+				synchronized (_stateNames)
+				{
+					id = _stateIds.get(stateName);
+					if (id == null)
+					{
+						id = _stateNames.size();
+						_stateNames.add(stateName);
+						_stateIds.put(stateName, id);
+					}
+				}
+			}
+			return id;
+		}
+
+		/** Getter */
+		public String getStateName(long key)
+		{
+			synchronized (_stateNames)
+			{
+				return _stateNames.get(ElementKey.getStateId(key));
+			}
+		}
+	}
+}
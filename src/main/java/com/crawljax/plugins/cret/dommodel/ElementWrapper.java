@@ -10,18 +10,23 @@ import com.crawljax.util.DomUtils;
  * Created by axel on 6/9/2015.
  *
  * Wraps the org.w3c.dom.Element class, and combines a given Element with the state Crawljax discovered it in
+ * The element is identified by a compact ElementKey, its XPath is only built on demand
  */
 public class ElementWrapper 
 {
 	private final String _stateName;
 	private final Element _element;
-	private final String _key;
+	private final long _key;
 
-	public ElementWrapper(String stateName, Element element)
+	/**
+	 * @param states registry that assigns the id of the given state
+	 * @param index the pre-order index of the element in the DOM of the given state
+	 */
+	public ElementWrapper(ElementKey.StateRegistry states, String stateName, Element element, int index)
 	{
 		_stateName = stateName;
 		_element = element;
-		_key = stateName+ XPathHelper.getXPathExpression(element);
+		_key = ElementKey.create(states.getStateId(stateName), index);
 	}
 
 	/** Getter */
@@ -31,7 +36,15 @@ public class ElementWrapper
 	}
 
 	/** Getter */
-	public String getKey() { return _key; }
+	public long getKey() { return _key; }
+
+	/**
+	 * @return the state name followed by the XPath expression of the element, for logging and verification output
+	 */
+	public String getXPath()
+	{
+		return _stateName + XPathHelper.getXPathExpression(_element);
+	}
 
 
 	@Override
@@ -50,4 +63,4 @@ public class ElementWrapper
 		buffer.append("\n");
 		return buffer.toString();
 	}
-}
\ No newline at end of file
+}
@@ -3,20 +3,45 @@ package com.crawljax.plugins.cret.generation;
 import com.crawljax.plugins.cret.LogHandler;
 import com.crawljax.plugins.cret.cssmodel.MCssFile;
 import com.crawljax.plugins.cret.cssmodel.MCssRuleBase;
+import com.crawljax.plugins.cret.util.CssSink;
 import com.steadystate.css.parser.media.MediaQuery;
 
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.Writer;
 import java.net.URISyntaxException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
 import java.util.stream.Collectors;
 
 /**
  * Created by axel on 5/17/2015.
+ *
+ * Streams the rules of a MCssFile as CSS code into a buffered sink, without building a string per rule
+ * The sink is re-used for every file written by this instance, so a CssWriter should not be shared between threads
  */
 public class CssWriter
 {
+    private final boolean _minify;
+    private final CssSink _sink;
+
+    public CssWriter()
+    {
+        this(false);
+    }
+
+    /**
+     * @param minify true to omit all optional whitespace from the generated CSS code
+     */
+    public CssWriter(boolean minify)
+    {
+        _minify = minify;
+        _sink = new CssSink();
+    }
+
+
     /**
      * Generate valid CSS code and write it to a given File
      */
@@ -24,6 +49,48 @@ public class CssWriter
     {
         LogHandler.info("[CssWriter] Generating CSS code for file '%s'...", file.getPath().replace("%", "-PERC-"));
 
+        generateCssCode(FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING), mCssFile);
+
+        LogHandler.info("[CssWriter] CSS code generation successful!");
+    }
+
+
+    /**
+     * Generate valid CSS code and write it UTF-8 encoded to the given channel, the channel is closed afterwards
+     */
+    public void generateCssCode(WritableByteChannel channel, MCssFile mCssFile) throws IOException
+    {
+        try
+        {
+            _sink.open(channel);
+            writeRules(mCssFile);
+        }
+        finally
+        {
+            _sink.close();
+        }
+    }
+
+
+    /**
+     * Generate valid CSS code and write it to the given Writer, the writer is closed afterwards
+     */
+    public void generateCssCode(Writer writer, MCssFile mCssFile) throws IOException
+    {
+        try
+        {
+            _sink.open(writer);
+            writeRules(mCssFile);
+        }
+        finally
+        {
+            _sink.close();
+        }
+    }
+
+
+    private void writeRules(MCssFile mCssFile) throws IOException
+    {
         List<MCssRuleBase> rules = mCssFile.getAllRules().stream().filter(r -> !r.isEmpty()).collect(Collectors.toList());
 
         Collections.sort(rules, new Comparator<MCssRuleBase>() {
@@ -37,56 +104,44 @@ public class CssWriter
             }
         });
 
-
-        FileWriter writer = new FileWriter(file);
-        List<MediaQuery> currentMedia = new ArrayList<>();
+        List<MediaQuery> currentMedia = Collections.emptyList();
 
         for (MCssRuleBase rule : rules)
         {
-            if(rule.getMediaQueries().size() > 0)
-            {
-                List<MediaQuery> media = rule.getMediaQueries();
+            List<MediaQuery> media = rule.getMediaQueries();
 
-                if(currentMedia.containsAll(media) && media.containsAll(currentMedia))
+            if(!(currentMedia.containsAll(media) && media.containsAll(currentMedia)))
+            {
+                if(!currentMedia.isEmpty())
                 {
-                    writer.write(rule.print());
+                    closeMedia();
                 }
-                else
-                {
-                    if(!currentMedia.isEmpty())
-                        writer.write("\n}\n");
-
-                    currentMedia = new ArrayList<>(media);
 
-                    String mediaQueryText = "@media";
+                currentMedia = media;
 
+                if(!media.isEmpty())
+                {
+                    _sink.append("@media");
                     for(MediaQuery mq : media)
                     {
-                        mediaQueryText += " " + mq.toString();
+                        _sink.append(' ').append(mq.toString());
                     }
-
-                    mediaQueryText += "{\n";
-
-                    writer.write(mediaQueryText);
-
-                    writer.write(rule.print());
+                    _sink.append(_minify ? "{" : "{\n");
                 }
             }
-            else
-            {
-                if(!currentMedia.isEmpty())
-                {
-                    writer.write("\n}\n");
-                    currentMedia = new ArrayList<>();
-                }
 
-                writer.write(rule.print());
-            }
+            rule.print(_sink, _minify);
         }
 
-        LogHandler.info("[CssWriter] CSS code generation successful!");
+        if(!currentMedia.isEmpty())
+        {
+            closeMedia();
+        }
+    }
+
 
-        writer.flush();
-        writer.close();
+    private void closeMedia() throws IOException
+    {
+        _sink.append(_minify ? "}" : "\n}\n");
     }
-}
\ No newline at end of file
+}
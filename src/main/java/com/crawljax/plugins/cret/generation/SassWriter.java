@@ -28,7 +28,23 @@ public class SassWriter
         LogHandler.info("[SassWriter] Generating SASS code for file '%s'...", file.getPath().replace("%", "-PERC-"));
 
         FileWriter writer = new FileWriter(file);
+        writer.write(generateSassCode(sassFile));
 
+        LogHandler.info("[SassWriter] SCSS code generation successful!");
+
+        writer.flush();
+        writer.close();
+
+        return file;
+    }
+
+
+    /**
+     * Generate valid SCSS code
+     * @return the SCSS code, which can be compiled from memory
+     */
+    public String generateSassCode(SassFile sassFile)
+    {
         List<SassVariable> colors = new ArrayList<>();
         List<SassVariable> alphaColors = new ArrayList<>();
         List<SassVariable> urls = new ArrayList<>();
@@ -145,13 +161,6 @@ public class SassWriter
                 builder.append("\n\n");
         }
 
-        writer.write(builder.toString());
-
-        LogHandler.info("[SassWriter] SCSS code generation successful!");
-
-        writer.flush();
-        writer.close();
-
-        return file;
+        return builder.toString();
     }
 }
\ No newline at end of file
@@ -15,4 +15,12 @@ public interface ICssTransformer
 {
     public Map<String, MCssFile> transform(Map<String, MCssFile> cssRules, MatchedElements matchedElements);
     public void getStatistics(CretStringBuilder builder, String prefix);
+
+    /**
+     * @return the scope of this transformer, PER_FILE transformers must be safe to run on multiple files concurrently
+     */
+    public default TransformerScope getScope()
+    {
+        return TransformerScope.GLOBAL;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,16 @@
+package com.crawljax.plugins.cret.interfaces;
+
+/**
+ * Scope of the work performed by an ICssTransformer, used to schedule transformers in the post-crawl pipeline
+ */
+public enum TransformerScope
+{
+    /** Transforms every CSS file on its own, files may be processed in parallel */
+    PER_FILE,
+
+    /** Analyzes the selectors matched per DOM element, crossing file boundaries */
+    PER_ELEMENT,
+
+    /** Operates on all CSS files at once */
+    GLOBAL
+}
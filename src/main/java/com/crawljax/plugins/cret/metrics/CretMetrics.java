@@ -0,0 +1,140 @@
+package com.crawljax.plugins.cret.metrics;
+
+import com.crawljax.plugins.cret.util.CretStringBuilder;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.*;
+
+/**
+ * Collects wall time, CPU time, allocated bytes and item counts for every phase of a CRET run
+ * CPU time and allocated bytes are read from the ThreadMXBean for the thread that executes the phase,
+ * they are reported as 0 if the JVM does not support measuring them
+ *
+ * A measurement is started with start(phase) and completed with Measurement.stop(items), on the same thread
+ */
+public class CretMetrics
+{
+	public static final String PARSE = "parse";
+	public static final String MATCH = "match";
+	public static final String TRANSFORM = "transform";
+	public static final String SASS = "sass";
+	public static final String LIBSASS = "libsass";
+	public static final String VERIFICATION = "verification";
+
+	private static final ThreadMXBean THREAD_BEAN = ManagementFactory.getThreadMXBean();
+
+	private final Map<String, PhaseMetrics> _phases;
+
+	public CretMetrics()
+	{
+		_phases = new LinkedHashMap<>();
+	}
+
+
+	/**
+	 * Start measuring the given phase on the current thread
+	 */
+	public Measurement start(String phase)
+	{
+		return new Measurement(getPhase(phase));
+	}
+
+
+	/**
+	 * @return the metrics of the given phase, created if the phase was not measured before
+	 */
+	public synchronized PhaseMetrics getPhase(String phase)
+	{
+		PhaseMetrics metrics = _phases.get(phase);
+		if(metrics == null)
+		{
+			metrics = new PhaseMetrics(phase);
+			_phases.put(phase, metrics);
+		}
+		return metrics;
+	}
+
+
+	/**
+	 * @return all phases measured so far, in the order in which they were first measured
+	 */
+	public synchronized List<PhaseMetrics> getPhases()
+	{
+		return new ArrayList<>(_phases.values());
+	}
+
+
+	/**
+	 * Write all measured phases as XML
+	 */
+	public void generateXml(CretStringBuilder builder, String prefix)
+	{
+		builder.appendLine("%s<metrics>", prefix);
+		for(PhaseMetrics phase : getPhases())
+		{
+			builder.appendLine("%s\t<phase name=\"%s\">", prefix, phase.getName());
+			builder.appendLine("%s\t\t<invocations>%d</invocations>", prefix, phase.getInvocations());
+			builder.appendLine("%s\t\t<wall_ms>%d</wall_ms>", prefix, phase.getWallNanos() / 1000000);
+			builder.appendLine("%s\t\t<cpu_ms>%d</cpu_ms>", prefix, phase.getCpuNanos() / 1000000);
+			builder.appendLine("%s\t\t<allocated_bytes>%d</allocated_bytes>", prefix, phase.getAllocatedBytes());
+			builder.appendLine("%s\t\t<items>%d</items>", prefix, phase.getItems());
+			builder.appendLine("%s\t</phase>", prefix);
+		}
+		builder.appendLine("%s</metrics>", prefix);
+	}
+
+
+	private static long currentThreadCpuTime()
+	{
+		if(THREAD_BEAN.isCurrentThreadCpuTimeSupported() && THREAD_BEAN.isThreadCpuTimeEnabled())
+		{
+			return THREAD_BEAN.getCurrentThreadCpuTime();
+		}
+		return 0;
+	}
+
+
+	private static long currentThreadAllocatedBytes()
+	{
+		if(THREAD_BEAN instanceof com.sun.management.ThreadMXBean)
+		{
+			com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) THREAD_BEAN;
+			if(bean.isThreadAllocatedMemorySupported() && bean.isThreadAllocatedMemoryEnabled())
+			{
+				return bean.getThreadAllocatedBytes(Thread.currentThread().getId());
+			}
+		}
+		return 0;
+	}
+
+
+	/**
+	 * A single running measurement of a phase
+	 */
+	public static class Measurement
+	{
+		private final PhaseMetrics _phase;
+		private final long _wallStart;
+		private final long _cpuStart;
+		private final long _allocatedStart;
+
+		private Measurement(PhaseMetrics phase)
+		{
+			_phase = phase;
+			_wallStart = System.nanoTime();
+			_cpuStart = currentThreadCpuTime();
+			_allocatedStart = currentThreadAllocatedBytes();
+		}
+
+
+		/**
+		 * Stop this measurement and add it to its phase
+		 * @param items the number of items (rules, selectors, files, states...) processed in this measurement
+		 */
+		public void stop(long items)
+		{
+			_phase.add(System.nanoTime() - _wallStart, currentThreadCpuTime() - _cpuStart, currentThreadAllocatedBytes() - _allocatedStart, items);
+		}
+	}
+}
@@ -0,0 +1,80 @@
+package com.crawljax.plugins.cret.metrics;
+
+/**
+ * Accumulated metrics for a single phase of a CRET run
+ * A phase may be measured multiple times (for example once per DOM state or once per file), every measurement adds up
+ * Wall time is summed over all measurements, so phases that run on multiple threads may exceed the elapsed time
+ */
+public class PhaseMetrics
+{
+	private final String _name;
+
+	private int _invocations;
+	private long _wallNanos;
+	private long _cpuNanos;
+	private long _allocatedBytes;
+	private long _items;
+
+	public PhaseMetrics(String name)
+	{
+		_name = name;
+	}
+
+
+	/**
+	 * Add a single measurement of this phase
+	 */
+	synchronized void add(long wallNanos, long cpuNanos, long allocatedBytes, long items)
+	{
+		_invocations++;
+		_wallNanos += wallNanos;
+		_cpuNanos += cpuNanos;
+		_allocatedBytes += allocatedBytes;
+		_items += items;
+	}
+
+
+	/** Getter */
+	public String getName()
+	{
+		return _name;
+	}
+
+	/** Getter */
+	public synchronized int getInvocations()
+	{
+		return _invocations;
+	}
+
+	/** Getter */
+	public synchronized long getWallNanos()
+	{
+		return _wallNanos;
+	}
+
+	/** Getter */
+	public synchronized long getCpuNanos()
+	{
+		return _cpuNanos;
+	}
+
+	/** Getter */
+	public synchronized long getAllocatedBytes()
+	{
+		return _allocatedBytes;
+	}
+
+	/** Getter */
+	public synchronized long getItems()
+	{
+		return _items;
+	}
+
+
+	@Override
+	public synchronized String toString()
+	{
+		return String.format("%s: invocations=%d, wall=%dms, cpu=%dms, allocated=%dKB, items=%d",
+				_name, _invocations, _wallNanos / 1000000, _cpuNanos / 1000000, _allocatedBytes / 1024, _items);
+	}
+}
@@ -0,0 +1,378 @@
+package com.crawljax.plugins.cret.parser;
+
+import com.crawljax.plugins.cret.LogHandler;
+import com.crawljax.plugins.cret.util.FileHelper;
+import com.crawljax.plugins.cret.util.Hashing;
+import com.steadystate.css.parser.Locatable;
+import com.steadystate.css.parser.LocatorImpl;
+import org.w3c.css.sac.Locator;
+import org.w3c.dom.css.CSSStyleSheet;
+
+import java.io.*;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Content-addressed on-disk cache for parsed stylesheets, shared by runs and sites
+ * Every entry holds the parsed CSSOM stylesheet and the parser errors for a stylesheet, stored under the SHA-256 hash of its
+ * CSS code as a compressed serialized object stream, so that a stylesheet that was parsed before is only deserialized
+ * The MCssFile model is built from the cached stylesheet by the CssParser, every load yields a new, independent object graph
+ *
+ * The total size of all entries is bounded, least recently used entries are evicted first (by file modification time,
+ * which is refreshed on every hit)
+ * The total size is tracked in memory, the cache directory is only listed on creation and whenever the bound is exceeded
+ * Files are written to a temporary file first and then moved into place, so that concurrent runs never read half-written entries,
+ * an entry that cannot be read (e.g. written by another version) is deleted and treated as a miss
+ * Entries are only deserialized into the classes of a parsed stylesheet and its parser errors, any other class fails the read
+ *
+ * Selectors and media queries keep their source position in a superclass that is not serializable, these locators are stored
+ * after the stylesheet and restored on load, so that line numbers of rules and selectors survive the cache
+ */
+public class CssParseCache
+{
+	private static final int VERSION = 1;
+	private static final String EXTENSION = ".cssom";
+
+	private static final Set<String> ALLOWED_PACKAGES = new HashSet<>(Arrays.asList("com.steadystate.css.", "org.w3c.css.sac."));
+	private static final Set<String> ALLOWED_CLASSES = new HashSet<>(Arrays.asList(
+			ParserErrorHandler.class.getName(),
+			"java.lang.Throwable", "java.lang.Exception", "java.lang.RuntimeException", "java.lang.StackTraceElement",
+			"java.lang.Enum", "java.lang.Number", "java.lang.Boolean", "java.lang.Character", "java.lang.Byte", "java.lang.Short",
+			"java.lang.Integer", "java.lang.Long", "java.lang.Float", "java.lang.Double",
+			"java.util.ArrayList", "java.util.LinkedList", "java.util.HashMap", "java.util.LinkedHashMap", "java.util.Hashtable",
+			"java.util.Collections$EmptyList", "java.util.Collections$EmptyMap", "java.util.Collections$UnmodifiableCollection",
+			"java.util.Collections$UnmodifiableList", "java.util.Collections$UnmodifiableRandomAccessList"));
+
+	private final Path _root;
+	private final long _maxBytes;
+	private long _totalBytes; // tracked total size of all entries, guarded by 'this'
+
+	private int _hits;
+	private int _misses;
+
+	/**
+	 * @param maxBytes maximum total size of all entries in bytes
+	 */
+	public CssParseCache(String root, long maxBytes) throws IOException
+	{
+		_root = Paths.get(root);
+		_maxBytes = maxBytes;
+
+		Files.createDirectories(_root);
+		evict(null);
+	}
+
+
+	/** Getter */
+	public synchronized int getHits() { return _hits; }
+
+	/** Getter */
+	public synchronized int getMisses() { return _misses; }
+
+
+	/**
+	 * @return the cached parse result for the given CSS code, or NULL if it was not parsed before
+	 */
+	public Entry get(String cssCode)
+	{
+		Path file = _root.resolve(Hashing.sha256Hex(cssCode) + EXTENSION);
+		if (!Files.exists(file))
+		{
+			countLookup(false);
+			return null;
+		}
+
+		try (ObjectInputStream stream = new AllowedClassesInputStream(new BufferedInputStream(new GZIPInputStream(Files.newInputStream(file)))))
+		{
+			if (stream.readInt() != VERSION)
+			{
+				throw new InvalidObjectException("Unsupported cache entry version");
+			}
+
+			ParserErrorHandler errors = (ParserErrorHandler) stream.readObject();
+			CSSStyleSheet styleSheet = (CSSStyleSheet) stream.readObject();
+
+			// objects were written before, so that they are read as references to the objects in the stylesheet
+			int locatables = stream.readInt();
+			for (int i = 0; i < locatables; i++)
+			{
+				Locatable locatable = (Locatable) stream.readObject();
+				locatable.setLocator(new LocatorImpl((String) stream.readObject(), stream.readInt(), stream.readInt()));
+			}
+
+			// refresh the entry for LRU eviction
+			Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+
+			countLookup(true);
+			return new Entry(styleSheet, errors);
+		}
+		catch (IOException | ClassNotFoundException | RuntimeException e)
+		{
+			LogHandler.warn(e, "[CssParseCache] Cannot read cache entry '%s', delete it", file);
+			delete(file);
+			countLookup(false);
+			return null;
+		}
+	}
+
+
+	/**
+	 * Store the parse result for the given CSS code, then evict least recently used entries while the cache is too large
+	 */
+	public void put(String cssCode, CSSStyleSheet styleSheet, ParserErrorHandler errors)
+	{
+		Path file = _root.resolve(Hashing.sha256Hex(cssCode) + EXTENSION);
+
+		try
+		{
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			try (LocatableOutputStream stream = new LocatableOutputStream(new GZIPOutputStream(bytes)))
+			{
+				stream.writeInt(VERSION);
+				stream.writeObject(errors);
+				stream.writeObject(styleSheet);
+
+				List<Locatable> locatables = stream.getLocatables();
+				stream.writeInt(locatables.size());
+				for (Locatable locatable : locatables)
+				{
+					Locator locator = locatable.getLocator();
+					stream.writeObject(locatable);
+					stream.writeObject(locator.getURI());
+					stream.writeInt(locator.getLineNumber());
+					stream.writeInt(locator.getColumnNumber());
+				}
+			}
+
+			// the size of the replaced entry, the write and the tracked total are kept consistent with deletes and evictions
+			synchronized (this)
+			{
+				long replaced = Files.exists(file) ? Files.size(file) : 0;
+				FileHelper.writeAtomically(file, bytes.toByteArray());
+				_totalBytes += bytes.size() - replaced;
+
+				if (_totalBytes > _maxBytes)
+				{
+					evict(file);
+				}
+			}
+		}
+		catch (IOException e)
+		{
+			LogHandler.warn(e, "[CssParseCache] Error while writing cache entry '%s'", file);
+		}
+	}
+
+
+	/**
+	 * Delete least recently used entries, except the given one, until the total size is within bounds
+	 * Lists all entries, so that the tracked total size also covers entries written or deleted by concurrent runs
+	 */
+	private synchronized void evict(Path keep)
+	{
+		List<CachedFile> files = new ArrayList<>();
+		long total = 0;
+
+		try (Stream<Path> paths = Files.list(_root))
+		{
+			for (Path path : paths.filter(path -> path.getFileName().toString().endsWith(EXTENSION)).collect(Collectors.toList()))
+			{
+				try
+				{
+					CachedFile cachedFile = new CachedFile(path, Files.size(path), Files.getLastModifiedTime(path).toMillis());
+					files.add(cachedFile);
+					total += cachedFile.size;
+				}
+				catch (NoSuchFileException e)
+				{
+					// evicted by a concurrent run
+				}
+			}
+		}
+		catch (IOException e)
+		{
+			LogHandler.warn(e, "[CssParseCache] Error while listing cache entries in '%s'", _root);
+			return;
+		}
+
+		// resynchronize with the listing, the total is only changed under the lock, so no concurrent update is lost
+		_totalBytes = total;
+
+		files.sort(Comparator.comparingLong((CachedFile cachedFile) -> cachedFile.lastUsed).thenComparing(cachedFile -> cachedFile.path));
+		for (CachedFile cachedFile : files)
+		{
+			if (_totalBytes <= _maxBytes)
+			{
+				break;
+			}
+
+			if (!cachedFile.path.equals(keep))
+			{
+				LogHandler.debug("[CssParseCache] Evict '%s'", cachedFile.path);
+				try
+				{
+					// also counts an entry that a concurrent run deleted after the listing
+					Files.deleteIfExists(cachedFile.path);
+					_totalBytes -= cachedFile.size;
+				}
+				catch (IOException e)
+				{
+					LogHandler.warn(e, "[CssParseCache] Cannot delete cache entry '%s'", cachedFile.path);
+				}
+			}
+		}
+	}
+
+
+	private synchronized void countLookup(boolean hit)
+	{
+		if (hit)
+		{
+			_hits++;
+		}
+		else
+		{
+			_misses++;
+		}
+	}
+
+
+	private synchronized void delete(Path file)
+	{
+		try
+		{
+			long size = Files.exists(file) ? Files.size(file) : 0;
+			if (Files.deleteIfExists(file))
+			{
+				_totalBytes -= size;
+			}
+		}
+		catch (IOException e)
+		{
+			LogHandler.warn(e, "[CssParseCache] Cannot delete cache entry '%s'", file);
+		}
+	}
+
+
+	/**
+	 * A cached parse result
+	 */
+	public static class Entry
+	{
+		private final CSSStyleSheet _styleSheet;
+		private final ParserErrorHandler _errors;
+
+		private Entry(CSSStyleSheet styleSheet, ParserErrorHandler errors)
+		{
+			_styleSheet = styleSheet;
+			_errors = errors;
+		}
+
+		/** Getter */
+		public CSSStyleSheet getStyleSheet() { return _styleSheet; }
+
+		/** Getter */
+		public ParserErrorHandler getErrors() { return _errors; }
+	}
+
+
+	/**
+	 * Object stream that collects all written objects that have a locator
+	 */
+	private static class LocatableOutputStream extends ObjectOutputStream
+	{
+		private final Set<Locatable> _seen = Collections.newSetFromMap(new IdentityHashMap<>());
+		private final List<Locatable> _locatables = new ArrayList<>();
+
+		private LocatableOutputStream(OutputStream stream) throws IOException
+		{
+			super(stream);
+			enableReplaceObject(true);
+		}
+
+		@Override
+		protected Object replaceObject(Object object)
+		{
+			if (object instanceof Locatable && ((Locatable) object).getLocator() != null && _seen.add((Locatable) object))
+			{
+				_locatables.add((Locatable) object);
+			}
+			return object;
+		}
+
+		/** Getter */
+		private List<Locatable> getLocatables() { return new ArrayList<>(_locatables); }
+	}
+
+
+	/**
+	 * Object stream that only resolves the classes of a parsed stylesheet and its parser errors
+	 */
+	private static class AllowedClassesInputStream extends ObjectInputStream
+	{
+		private AllowedClassesInputStream(InputStream stream) throws IOException
+		{
+			super(stream);
+		}
+
+		@Override
+		protected Class<?> resolveClass(ObjectStreamClass description) throws IOException, ClassNotFoundException
+		{
+			if (!isAllowed(description.getName()))
+			{
+				throw new InvalidClassException(description.getName(), "Class is not allowed in a cache entry");
+			}
+			return super.resolveClass(description);
+		}
+
+		@Override
+		protected Class<?> resolveProxyClass(String[] interfaces) throws IOException
+		{
+			throw new InvalidClassException("Proxy classes are not allowed in a cache entry");
+		}
+
+		private static boolean isAllowed(String name)
+		{
+			String component = name;
+			if (name.startsWith("["))
+			{
+				// arrays of primitives, or of allowed classes
+				component = name.replaceFirst("^\\[+", "");
+				if (!component.startsWith("L"))
+				{
+					return true;
+				}
+				component = component.substring(1, component.length() - 1);
+			}
+
+			return ALLOWED_CLASSES.contains(component) || ALLOWED_PACKAGES.stream().anyMatch(component::startsWith);
+		}
+	}
+
+
+	private static class CachedFile
+	{
+		private final Path path;
+		private final long size;
+		private final long lastUsed;
+
+		private CachedFile(Path path, long size, long lastUsed)
+		{
+			this.path = path;
+			this.size = size;
+			this.lastUsed = lastUsed;
+		}
+	}
+}
@@ -35,11 +35,21 @@ public class CssParser
 {
 	private final ParserErrorHandler _errorHandler;
 	private final boolean _doW3cValidation;
+	private final CssParseCache _cache;
 
 	public CssParser(boolean doW3cValidation)
+	{
+		this(doW3cValidation, null);
+	}
+
+	/**
+	 * @param cache cache of parsed stylesheets to load from and store into, or NULL to always parse
+	 */
+	public CssParser(boolean doW3cValidation, CssParseCache cache)
 	{
 		_errorHandler = new ParserErrorHandler();
 		_doW3cValidation = doW3cValidation;
+		_cache = cache;
 	}
 
 
@@ -56,21 +66,41 @@ public class CssParser
 	 */
 	private CSSRuleList parseCssCode(String cssCode)
 	{
+		if(_cache != null)
+		{
+			CssParseCache.Entry cached = _cache.get(cssCode);
+			if(cached != null)
+			{
+				_errorHandler.addAll(cached.getErrors());
+				return cached.getStyleSheet().getCssRules();
+			}
+		}
+
 		InputSource source = new InputSource(new StringReader(cssCode));
 		CSSOMParser cssomParser = new CSSOMParser(new SACParserCSS3());
-		cssomParser.setErrorHandler(_errorHandler);
+
+		// errors of this stylesheet only, to store them in the cache
+		ParserErrorHandler errorHandler = new ParserErrorHandler();
+		cssomParser.setErrorHandler(errorHandler);
 
 		CSSRuleList rules = null;
 		try
 		{
 			CSSStyleSheet css = cssomParser.parseStyleSheet(source, null, null);
 			rules = css.getCssRules();
+
+			// store before the CSSOM is wrapped into MCssRules, which may modify it
+			if(_cache != null)
+			{
+				_cache.put(cssCode, css, errorHandler);
+			}
 		}
 		catch (IOException ex)
 		{
 			LogHandler.error(ex);
 		}
 
+		_errorHandler.addAll(errorHandler);
 		return rules;
 	}
 
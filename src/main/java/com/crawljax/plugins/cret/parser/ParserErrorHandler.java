@@ -5,6 +5,7 @@ import org.w3c.css.sac.CSSException;
 import org.w3c.css.sac.CSSParseException;
 import org.w3c.css.sac.ErrorHandler;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -14,9 +15,12 @@ import java.util.stream.Collectors;
  *
  * Wrapper that implements SAC parser error handling
  * Used in CssParser
+ * Serializable, so that the errors of a stylesheet can be stored in the CssParseCache together with the parsed stylesheet
  */
-public class ParserErrorHandler implements ErrorHandler
+public class ParserErrorHandler implements ErrorHandler, Serializable
 {
+    private static final long serialVersionUID = 1L;
+
     private List<CSSParseException> _warnings;
     private List<CSSParseException> _errors;
     private List<CSSParseException> _fatalErrors;
@@ -81,4 +85,14 @@ public class ParserErrorHandler implements ErrorHandler
     {
         _fatalErrors.add(e);
     }
+
+    /**
+     * Add all warnings and errors collected by the given handler to this handler
+     */
+    void addAll(ParserErrorHandler other)
+    {
+        _warnings.addAll(other._warnings);
+        _errors.addAll(other._errors);
+        _fatalErrors.addAll(other._fatalErrors);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,202 @@
+package com.crawljax.plugins.cret.runners;
+
+import com.crawljax.plugins.cret.LogHandler;
+import com.crawljax.plugins.cret.util.FileHelper;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Processes a batch of sites concurrently on a fixed pool of workers
+ * Every site is processed by its own task, which must only use its own plugin instance and write to its own output files,
+ * a failing site is logged and does not affect other sites
+ * Per-site XML parts are merged into a single file in the order of the given sites, regardless of the order in which sites complete,
+ * after the content already in that file
+ */
+public class BatchRunner
+{
+    /**
+     * Work to do for a single site
+     */
+    public interface SiteTask
+    {
+        void run(Site site) throws Exception;
+    }
+
+    private final int _workers;
+
+    public BatchRunner(int workers)
+    {
+        _workers = Math.max(1, workers);
+    }
+
+
+    /**
+     * Create sites for the given urls, in order, site names are the host names of the urls
+     */
+    public static List<Site> createSites(List<String> urls)
+    {
+        List<Site> sites = new ArrayList<>();
+        for (int i = 0; i < urls.size(); i++)
+        {
+            sites.add(new Site(i, getNameForUrl(urls.get(i)), urls.get(i)));
+        }
+        return sites;
+    }
+
+
+    /**
+     * Run the given task for every site, at most 'workers' sites at the same time
+     * @return the sites that completed without error, in the given order
+     */
+    public List<Site> run(List<Site> sites, SiteTask task)
+    {
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(_workers, Math.max(1, sites.size())));
+        List<Site> completed = new ArrayList<>();
+
+        try
+        {
+            List<Future<?>> futures = new ArrayList<>();
+            for (Site site : sites)
+            {
+                futures.add(pool.submit(() ->
+                {
+                    LogHandler.info("[BatchRunner] Start site %d '%s' at URL %s", site.getIndex(), site.getName(), site.getUrl());
+                    task.run(site);
+                    LogHandler.info("[BatchRunner] Completed site %d '%s'", site.getIndex(), site.getName());
+                    return null;
+                }));
+            }
+
+            for (int i = 0; i < sites.size(); i++)
+            {
+                try
+                {
+                    futures.get(i).get();
+                    completed.add(sites.get(i));
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                    LogHandler.warn(e, "[BatchRunner] Interrupted while waiting for site '%s'", sites.get(i).getUrl());
+                    break;
+                }
+                catch (ExecutionException e)
+                {
+                    Exception cause = e.getCause() instanceof Exception ? (Exception)e.getCause() : e;
+                    LogHandler.error(cause, "Error occurred while crawling for site '%s'", sites.get(i).getUrl());
+                }
+            }
+        }
+        finally
+        {
+            pool.shutdownNow();
+        }
+
+        return completed;
+    }
+
+
+    /**
+     * Merge the given per-site XML parts into the given file, within the given root element and in the given order
+     * Content already in the file is kept: parts are added before the closing root element of an earlier merge,
+     * other existing content (e.g. summaries appended by a single CRET run) is wrapped into the root element first
+     * Missing parts are skipped
+     */
+    public static void mergeXml(List<File> parts, File target, String rootElement) throws IOException
+    {
+        String openTag = String.format("<%s>", rootElement);
+        String closeTag = String.format("</%s>", rootElement);
+
+        String existing = target.exists() ? new String(Files.readAllBytes(target.toPath()), StandardCharsets.UTF_8).trim() : "";
+        if (existing.endsWith(closeTag))
+        {
+            existing = existing.substring(0, existing.length() - closeTag.length()).trim();
+        }
+        if (!existing.startsWith(openTag))
+        {
+            existing = existing.isEmpty() ? openTag : openTag + "\n" + existing;
+        }
+
+        FileHelper.createFileAndDirs(target.getPath());
+
+        try (Writer writer = Files.newBufferedWriter(target.toPath(), StandardCharsets.UTF_8))
+        {
+            writer.write(existing);
+            writer.write("\n");
+            for (File part : parts)
+            {
+                if (part.exists())
+                {
+                    writer.write(new String(Files.readAllBytes(part.toPath()), StandardCharsets.UTF_8));
+                }
+            }
+            writer.write("\n" + closeTag);
+        }
+    }
+
+
+    private static String getNameForUrl(String url)
+    {
+        try
+        {
+            String host = new URI(url).getHost();
+            if (host != null)
+            {
+                return host;
+            }
+        }
+        catch (URISyntaxException e)
+        {
+            LogHandler.warn(e, "[BatchRunner] Invalid URL '%s'", url);
+        }
+
+        return url;
+    }
+
+
+    /**
+     * A single site in a batch
+     */
+    public static class Site
+    {
+        private final int _index;
+        private final String _name;
+        private final String _url;
+
+        public Site(int index, String name, String url)
+        {
+            _index = index;
+            _name = name;
+            _url = url;
+        }
+
+        /** Getter */
+        public int getIndex() { return _index; }
+
+        /** Getter */
+        public String getName() { return _name; }
+
+        /** Getter */
+        public String getUrl() { return _url; }
+
+        /**
+         * @return a file for output of this site in the given directory, unique within the batch
+         */
+        public File getOutputFile(String directory, String suffix)
+        {
+            return new File(directory, String.format("%03d_%s%s", _index, _name.replaceAll("[^A-Za-z0-9.\\-]", "_"), suffix));
+        }
+    }
+}
@@ -5,23 +5,30 @@ import com.crawljax.core.configuration.CrawljaxConfiguration;
 import com.crawljax.plugins.cret.FindNotSelectorsPlugin;
 import com.crawljax.plugins.cret.LogHandler;
 import com.crawljax.plugins.cret.util.CrawljaxHelper;
+import com.crawljax.plugins.cret.util.FileHelper;
 import org.apache.log4j.xml.DOMConfigurator;
 
+import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.net.URI;
-import java.net.URISyntaxException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.Collections;
 import java.util.List;
+import java.util.stream.Collectors;
 
 /**
  * Created by axel on 6/17/2015.
+ *
+ * Analyzes :not selectors for a batch of sites concurrently
+ * Usage: NotSelectorsRunner [workers] [site index], by default all sites are processed on one worker per processor
+ * Results are merged into the existing summary files, delete those to start a new summary
  */
 public class NotSelectorsRunner
 {
     private final static String outputFile = "./output/notselectors/not_selectors_analysis.xml";
     private final static String outputFileDetails = "./output/notselectors/not_selectors_details.xml";
+    private final static String siteDirectory = "./output/notselectors/sites/";
 
     public static void main(String[] args)
     {
@@ -29,67 +36,37 @@ public class NotSelectorsRunner
 
         try
         {
-            FileWriter writer = new FileWriter(outputFile);
-            writer.write("<sites>");
-            writer.flush();
-
-            FileWriter detailWriter = new FileWriter(outputFileDetails);
-            detailWriter.write("<sites>");
-            detailWriter.flush();
-
             List<String> lines = Files.readAllLines(Paths.get("./src/main/resources/random-50.txt"));
+            List<BatchRunner.Site> sites = BatchRunner.createSites(lines);
 
-            for(int i = 0; i < lines.size(); i++)
+            int workers = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+            if (args.length > 1)
             {
+                sites = Collections.singletonList(sites.get(Integer.parseInt(args[1])));
+            }
 
-                if(i !=49)
-                    continue;
-
-                CrawljaxConfiguration.CrawljaxConfigurationBuilder builder = CrawljaxConfiguration.builderFor(lines.get(i));
+            List<BatchRunner.Site> completed = new BatchRunner(workers).run(sites, site ->
+            {
+                CrawljaxConfiguration.CrawljaxConfigurationBuilder builder = CrawljaxConfiguration.builderFor(site.getUrl());
                 CrawljaxHelper.configureCrawljax(builder, 1);
 
-                FindNotSelectorsPlugin notSelectorsPlugin = new FindNotSelectorsPlugin(getNameForUrl(lines.get(i)), lines.get(i), writer, detailWriter);
-
-                builder.addPlugin(notSelectorsPlugin);
-
-                CrawljaxRunner crawljax = new CrawljaxRunner(builder.build());
-
-                try
+                // every site writes its own analysis, merged after all sites are done
+                try (FileWriter writer = new FileWriter(FileHelper.createFileAndDirs(site.getOutputFile(siteDirectory, "_analysis.xml").getPath()));
+                     FileWriter detailWriter = new FileWriter(FileHelper.createFileAndDirs(site.getOutputFile(siteDirectory, "_details.xml").getPath())))
                 {
-                    crawljax.call();
-                }
-                catch(Exception ex)
-                {
-                    LogHandler.error(ex, "Error occurred while crawling for site '%s'", lines.get(i));
-                }
-            }
+                    FindNotSelectorsPlugin notSelectorsPlugin = new FindNotSelectorsPlugin(site.getName(), site.getUrl(), writer, detailWriter);
+                    builder.addPlugin(notSelectorsPlugin);
 
-            writer.append("</sites>");
-            writer.flush();
-            writer.close();
+                    new CrawljaxRunner(builder.build()).call();
+                }
+            });
 
-            detailWriter.append("</sites>");
-            detailWriter.flush();
-            detailWriter.close();
+            BatchRunner.mergeXml(completed.stream().map(site -> site.getOutputFile(siteDirectory, "_analysis.xml")).collect(Collectors.toList()), new File(outputFile), "sites");
+            BatchRunner.mergeXml(completed.stream().map(site -> site.getOutputFile(siteDirectory, "_details.xml")).collect(Collectors.toList()), new File(outputFileDetails), "sites");
         }
         catch(IOException e)
         {
-            e.printStackTrace();
+            LogHandler.error(e, "Error occurred while running :not selectors batch");
         }
     }
-
-    private static String getNameForUrl(String url)
-    {
-        try
-        {
-            URI uri = new URI(url);
-            return uri.getHost();
-        }
-        catch (URISyntaxException e)
-        {
-            e.printStackTrace();
-        }
-
-        return url;
-    }
 }
@@ -0,0 +1,245 @@
+package com.crawljax.plugins.cret.runners;
+
+import com.crawljax.plugins.cret.CRET;
+import com.crawljax.plugins.cret.LogHandler;
+import com.crawljax.plugins.cret.dommodel.DomState;
+import com.crawljax.plugins.cret.util.CSSDOMHelper;
+import com.crawljax.util.DomUtils;
+import org.apache.log4j.xml.DOMConfigurator;
+import org.w3c.dom.Document;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Runs CRET on stored DOM states and CSS files, without a browser
+ * A site directory contains:
+ *  states/[state name].html         the DOM of every state
+ *  states/[state name].stylesheets  (optional) the external CSS files of that state in browser order, one path relative to
+ *                                   the site directory per line, by default the stylesheet links in the DOM are used
+ *  any CSS file referenced by a state, relative to the site directory
+ *
+ * States are read and parsed into DOM trees concurrently, CRET processes them in order of their file names
+ */
+public class OfflineRunner
+{
+    private static final String STATES = "states";
+    private static final String HTML = ".html";
+    private static final String STYLESHEETS = ".stylesheets";
+
+    public static void main(String[] args)
+    {
+        DOMConfigurator.configure("log4j.xml");
+
+        if (args.length < 1)
+        {
+            System.err.println("Usage: OfflineRunner <site directory> [site name]");
+            return;
+        }
+
+        Path siteDirectory = Paths.get(args[0]);
+        String siteName = args.length > 1 ? args[1] : siteDirectory.getFileName().toString();
+
+        CRET cret = new CRET(siteName, siteDirectory.toUri().toString());
+        try
+        {
+            run(cret, siteDirectory, Runtime.getRuntime().availableProcessors());
+        }
+        catch (IOException e)
+        {
+            LogHandler.error(e, "[OfflineRunner] Error while reading stored states from '%s'", siteDirectory);
+        }
+    }
+
+
+    /**
+     * Process all stored states in the given site directory with the given CRET instance, then finish the CRET run
+     * @param threads number of threads that read and parse stored states ahead of processing
+     */
+    public static void run(CRET cret, Path siteDirectory, int threads) throws IOException
+    {
+        processStates(cret, siteDirectory, threads);
+        cret.finish();
+    }
+
+
+    /**
+     * Process all stored states in the given site directory with the given CRET instance
+     * @return the number of processed states
+     */
+    public static int processStates(CRET cret, Path siteDirectory, int threads) throws IOException
+    {
+        final Path root = siteDirectory.toAbsolutePath().normalize();
+
+        List<Path> stateFiles;
+        try (Stream<Path> files = Files.list(root.resolve(STATES)))
+        {
+            stateFiles = files.filter(file -> file.getFileName().toString().endsWith(HTML)).sorted().collect(Collectors.toList());
+        }
+
+        LogHandler.info("[OfflineRunner] Found %d stored states in '%s'", stateFiles.size(), siteDirectory);
+
+        // CSS code per path, every CSS file is read at most once
+        Map<String, String> cssCode = new HashMap<>();
+
+        int processed = 0;
+
+        threads = Math.max(1, threads);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try
+        {
+            // read a bounded number of states ahead, so that the DOM trees of all states are never in memory at once
+            Deque<Future<StoredState>> pending = new ArrayDeque<>();
+            Iterator<Path> stateIterator = stateFiles.iterator();
+
+            while (stateIterator.hasNext() || !pending.isEmpty())
+            {
+                while (stateIterator.hasNext() && pending.size() < threads * 2)
+                {
+                    Path stateFile = stateIterator.next();
+                    pending.add(pool.submit(() -> readState(root, stateFile)));
+                }
+
+                StoredState storedState;
+                try
+                {
+                    storedState = pending.poll().get();
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while reading stored states", e);
+                }
+                catch (ExecutionException e)
+                {
+                    LogHandler.error(e, "[OfflineRunner] Error while reading stored state, skip state");
+                    continue;
+                }
+
+                for (String cssPath : storedState.cssPaths)
+                {
+                    if (!cssCode.containsKey(cssPath))
+                    {
+                        cssCode.put(cssPath, readCss(root, cssPath));
+                    }
+                }
+
+                cret.processState(storedState.state, storedState.cssPaths, cssCode);
+                processed++;
+            }
+        }
+        finally
+        {
+            pool.shutdownNow();
+        }
+
+        return processed;
+    }
+
+
+    /**
+     * Read and parse a stored state and determine its CSS files
+     */
+    private static StoredState readState(Path siteDirectory, Path stateFile) throws IOException
+    {
+        String fileName = stateFile.getFileName().toString();
+        String stateName = fileName.substring(0, fileName.length() - HTML.length());
+
+        String html = new String(Files.readAllBytes(stateFile), StandardCharsets.UTF_8);
+        Document document = DomUtils.asDocument(html);
+
+        String statePath = relativePath(siteDirectory, stateFile);
+
+        List<String> cssPaths = new ArrayList<>();
+        Path stylesheetsFile = stateFile.resolveSibling(stateName + STYLESHEETS);
+        if (Files.exists(stylesheetsFile))
+        {
+            for (String line : Files.readAllLines(stylesheetsFile, StandardCharsets.UTF_8))
+            {
+                if (!line.trim().isEmpty())
+                {
+                    cssPaths.add(relativePath(siteDirectory, siteDirectory.resolve(line.trim())));
+                }
+            }
+        }
+        else
+        {
+            for (String href : CSSDOMHelper.extractCssFileNames(document))
+            {
+                cssPaths.add(resolveHref(siteDirectory, stateFile, href));
+            }
+        }
+
+        return new StoredState(new DomState(stateName, statePath, document), cssPaths);
+    }
+
+
+    /**
+     * @return the path, relative to the site directory, of a stylesheet link in a stored state
+     */
+    private static String resolveHref(Path siteDirectory, Path stateFile, String href)
+    {
+        // ignore query and fragment
+        int end = href.length();
+        for (char c : new char[] { '?', '#' })
+        {
+            int index = href.indexOf(c);
+            if (index >= 0)
+            {
+                end = Math.min(end, index);
+            }
+        }
+        href = href.substring(0, end);
+
+        // absolute paths are relative to the site directory
+        Path file = href.startsWith("/") ? siteDirectory.resolve(href.substring(1)) : stateFile.resolveSibling(href);
+        return relativePath(siteDirectory, file);
+    }
+
+
+    private static String relativePath(Path siteDirectory, Path file)
+    {
+        return siteDirectory.relativize(file.normalize()).toString().replace('\\', '/');
+    }
+
+
+    private static String readCss(Path siteDirectory, String cssPath)
+    {
+        Path file = siteDirectory.resolve(cssPath);
+        try
+        {
+            return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+        }
+        catch (IOException e)
+        {
+            LogHandler.warn(e, "[OfflineRunner] Cannot read CSS file '%s'", file);
+            return "";
+        }
+    }
+
+
+    /**
+     * A stored state with its CSS files, relative to the site directory
+     */
+    private static class StoredState
+    {
+        private final DomState state;
+        private final List<String> cssPaths;
+
+        private StoredState(DomState state, List<String> cssPaths)
+        {
+            this.state = state;
+            this.cssPaths = cssPaths;
+        }
+    }
+}
@@ -5,23 +5,28 @@ import com.crawljax.core.configuration.CrawljaxConfiguration;
 import com.crawljax.plugins.cret.CRET;
 import com.crawljax.plugins.cret.LogHandler;
 import com.crawljax.plugins.cret.util.CrawljaxHelper;
-import com.crawljax.plugins.cret.util.FileHelper;
 import org.apache.log4j.xml.DOMConfigurator;
 
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.net.URI;
-import java.net.URISyntaxException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.Collections;
 import java.util.List;
+import java.util.stream.Collectors;
 
 /**
  * Created by axel on 6/17/2015.
+ *
+ * Crawls and verifies a batch of sites concurrently
+ * Usage: VerificationRunner [workers] [site index], by default all sites are processed on one worker per processor
+ * Results are merged into the existing summary files, delete those to start a new summary
  */
 public class VerificationRunner
 {
+    private final static String outputDirectory = "./output/verification/";
+    private final static String siteDirectory = "./output/verification/sites/";
+
     public static void main(String[] args)
     {
         DOMConfigurator.configure("log4verification.xml");
@@ -29,64 +34,54 @@ public class VerificationRunner
         try
         {
             List<String> lines = Files.readAllLines(Paths.get("./src/main/resources/random-50.txt"));
+            List<BatchRunner.Site> sites = BatchRunner.createSites(lines);
 
-            File verificationOutput = FileHelper.createFileAndDirs("./output/verification/verification_summary.xml");
-            FileWriter writer = new FileWriter(verificationOutput);
-            writer.write("<sites>\n");
-            writer.flush();
-            writer.close();
+            int workers = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+            if (args.length > 1)
+            {
+                sites = Collections.singletonList(sites.get(Integer.parseInt(args[1])));
+            }
 
-            for(int i = 0; i < lines.size(); i++)
+            List<BatchRunner.Site> completed = new BatchRunner(workers).run(sites, site ->
             {
-                if (i != 49)
-                    continue;
+                // CRET appends to its summaries, remove those of an earlier run
+                Files.deleteIfExists(site.getOutputFile(siteDirectory, "_verification.xml").toPath());
+                Files.deleteIfExists(site.getOutputFile(siteDirectory, "_statistics.xml").toPath());
 
-                CrawljaxConfiguration.CrawljaxConfigurationBuilder builder = CrawljaxConfiguration.builderFor(lines.get(i));
+                CrawljaxConfiguration.CrawljaxConfigurationBuilder builder = CrawljaxConfiguration.builderFor(site.getUrl());
                 CrawljaxHelper.configureCrawljax(builder, 1);
 
-                CRET cretPlugin = new CRET(getNameForUrl(lines.get(i)), lines.get(i));
+                CRET cretPlugin = new CRET(site.getName(), site.getUrl());
                 cretPlugin._enableSassGeneration = true;
                 cretPlugin._enableVerification = true;
                 //cssSuitePlugin._enableStatistics = true;
                //cssSuitePlugin._enableW3cValidation = true;
                 cretPlugin._clonePropsUpperLimit = 20;
 
+                // sites of a batch share many stylesheets, keep fetched and parsed stylesheets for all sites and later batches
+                cretPlugin._cssCacheRoot = "./output/cache/css/";
+                cretPlugin._cssParseCacheRoot = "./output/cache/cssom/";
+
+                // every site writes its own summaries, merged after all sites are done
+                cretPlugin._verificationFile = site.getOutputFile(siteDirectory, "_verification.xml").getPath();
+                cretPlugin._statisticsFile = site.getOutputFile(siteDirectory, "_statistics.xml").getPath();
+
                 builder.addPlugin(cretPlugin);
-                CrawljaxRunner crawljax = new CrawljaxRunner(builder.build());
+                new CrawljaxRunner(builder.build()).call();
+            });
 
-                try
-                {
-                    crawljax.call();
-                }
-                catch(Exception ex)
-                {
-                    LogHandler.error(ex, "Error occurred while crawling for site '%s'", lines.get(i));
-                }
-            }
+            BatchRunner.mergeXml(completed.stream().map(site -> site.getOutputFile(siteDirectory, "_verification.xml")).collect(Collectors.toList()),
+                    new File(outputDirectory, "verification_summary.xml"), "sites");
 
-            writer = new FileWriter(verificationOutput, true);
-            writer.append("\n</sites>");
-            writer.flush();
-            writer.close();
+            List<File> statistics = completed.stream().map(site -> site.getOutputFile(siteDirectory, "_statistics.xml")).collect(Collectors.toList());
+            if (statistics.stream().anyMatch(File::exists))
+            {
+                BatchRunner.mergeXml(statistics, new File("./output/statistics/statistics_summary.xml"), "sites");
+            }
         }
         catch(IOException e)
         {
-            e.printStackTrace();
+            LogHandler.error(e, "Error occurred while running verification batch");
         }
     }
-
-    private static String getNameForUrl(String url)
-    {
-        try
-        {
-            URI uri = new URI(url);
-            return uri.getHost();
-        }
-        catch (URISyntaxException e)
-        {
-            e.printStackTrace();
-        }
-
-        return url;
-    }
 }
@@ -22,14 +22,27 @@ public class SassBuilder
 {
     private final int _propUpperLimit;
     private final int _mixinMinPropCount;
+    private final boolean _primitiveFPGrowth;
+    private final boolean _incrementalCloneDetection;
     private final MCssFile _mcssFile;
     private final List<SassVariable> _sassVariables;
     private final Map<String, String> _alreadyDefinedVars;
     private final SassStatistics _statistics;
 
     public SassBuilder(MCssFile mCssFile, int propUpperLimit)
+    {
+        this(mCssFile, propUpperLimit, true, true);
+    }
+
+    /**
+     * @param primitiveFPGrowth true to detect clones with the PrimitiveFPGrowth engine, false to use the original FPGrowth engine
+     * @param incrementalCloneDetection true to update detected clones after every extracted mixin, false to re-detect them
+     */
+    public SassBuilder(MCssFile mCssFile, int propUpperLimit, boolean primitiveFPGrowth, boolean incrementalCloneDetection)
     {
         _mixinMinPropCount = 0;
+        _primitiveFPGrowth = primitiveFPGrowth;
+        _incrementalCloneDetection = incrementalCloneDetection;
         _propUpperLimit = propUpperLimit;
         _mcssFile = mCssFile;
         _sassVariables = new ArrayList<>();
@@ -62,7 +75,7 @@ public class SassBuilder
      */
     public SassFile generateSass()
     {
-        CloneDetector cd = new CloneDetector();
+        CloneDetector cd = new CloneDetector(_primitiveFPGrowth, _incrementalCloneDetection);
 
         List<MCssRule> cssRules = _mcssFile.getRules();
 
@@ -113,12 +126,14 @@ public class SassBuilder
      */
     private void generateVariables(List<MSelector> selectors)
     {
-        ColorNameFinder ctn = new ColorNameFinder();
+        ColorNameFinder ctn = ColorNameFinder.getInstance();
 
         for(MSelector mSelector : selectors)
         {
-            for(MDeclaration mDeclaration : mSelector.getDeclarations())
+            List<MDeclaration> declarations = mSelector.getDeclarations();
+            for(int d = 0; d < declarations.size(); d++)
             {
+                MDeclaration mDeclaration = declarations.get(d);
                 if (mDeclaration.isIgnored())
                 {
                     continue;
@@ -225,7 +240,11 @@ public class SassBuilder
                         }
                     }
 
-                    mDeclaration.setNormalizedValue(origValue);
+                    // only take a private copy of the declarations (shared with the original selector) if a variable was inserted
+                    if (!origValue.equals(mDeclaration.getValue()))
+                    {
+                        mSelector.getMutableDeclarations().get(d).setNormalizedValue(origValue);
+                    }
                 }
                 catch (Exception e)
                 {
@@ -467,7 +486,7 @@ public class SassBuilder
 
         for(MSelector mSelector : selectors)
         {
-            mSelector.getDeclarations().sort((p1, p2) -> Integer.compare(p1.getOrder(), p2.getOrder()));
+            mSelector.sortDeclarations();
             SassSelector ss = new SassSelector(mSelector);
 
             for(SassCloneMixin st : extensions)
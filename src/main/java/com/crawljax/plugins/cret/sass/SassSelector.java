@@ -16,9 +16,8 @@ import java.util.stream.Collectors;
 public class SassSelector
 {
     private String _selectorText;
-    private MSelector _original;
+    private MSelector _original; // holds the declarations, shared with other selectors until changed
 
-    private List<MDeclaration> _declarations;
     private List<SassCloneMixin> _cloneIncludes;
     private List<String> _otherIncludes;
 
@@ -27,7 +26,6 @@ public class SassSelector
         _original = original;
 
         _selectorText = original.getSelectorText();
-        _declarations = original.getDeclarations();
 
         _cloneIncludes = new ArrayList<>();
         _otherIncludes = new ArrayList<>();
@@ -52,7 +50,7 @@ public class SassSelector
 
     public void printContents(CretStringBuilder builder, String prefix)
     {
-        _declarations.sort((p1, p2) -> Integer.compare(p1.getOrder(), p2.getOrder()));
+        _original.sortDeclarations();
 
         for(SassCloneMixin cloneMixin : _cloneIncludes)
         {
@@ -64,7 +62,7 @@ public class SassSelector
             builder.appendLine("%s\t@include %s;", prefix, otherMixin);
         }
 
-        for(MDeclaration mDeclaration : _declarations)
+        for(MDeclaration mDeclaration : getDeclarations())
         {
             if(!mDeclaration.isFaulty())
             {
@@ -115,10 +113,10 @@ public class SassSelector
         return _original.getParent();
     }
 
-    /** Getter */
+    /** Getter, read-only */
     public List<MDeclaration> getDeclarations()
     {
-        return _declarations;
+        return _original.getDeclarations();
     }
 
 
@@ -155,7 +153,7 @@ public class SassSelector
     {
         List<String> result = _cloneIncludes.stream().sorted((e1, e2) -> Integer.compare(e1.getNumber(), e2.getNumber())).map(e -> e.toString()).collect(Collectors.toList());
         result.addAll(_otherIncludes);
-        result.addAll(_declarations.stream().sorted((p1, p2) -> p1.toString().compareTo(p2.toString())).map(p -> p.toString()).collect(Collectors.toList()));
+        result.addAll(getDeclarations().stream().sorted((p1, p2) -> p1.toString().compareTo(p2.toString())).map(p -> p.toString()).collect(Collectors.toList()));
         return result;
     }
 
@@ -165,6 +163,6 @@ public class SassSelector
      */
     public void removeDeclarations(List<MDeclaration> declarations)
     {
-        _declarations.removeAll(declarations);
+        _original.removeDeclarations(declarations);
     }
 }
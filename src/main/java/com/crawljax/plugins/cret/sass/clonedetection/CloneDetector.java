@@ -4,12 +4,15 @@ import java.util.*;
 import java.util.stream.Collectors;
 
 import com.crawljax.plugins.cret.cssmodel.MSelector;
+import com.crawljax.plugins.cret.cssmodel.declarations.MDeclaration;
 
 import com.crawljax.plugins.cret.sass.mixins.SassCloneMixin;
 import com.crawljax.plugins.cret.sass.clonedetection.fpgrowth.FPGrowth;
+import com.crawljax.plugins.cret.sass.clonedetection.fpgrowth.PrimitiveFPGrowth;
 import com.crawljax.plugins.cret.sass.clonedetection.items.Item;
 import com.crawljax.plugins.cret.sass.clonedetection.items.ItemSet;
 import com.crawljax.plugins.cret.sass.clonedetection.items.ItemSetList;
+import com.crawljax.plugins.cret.util.LongHashMap;
 
 /**
  * Created by axel on 5/5/2015.
@@ -19,6 +22,26 @@ import com.crawljax.plugins.cret.sass.clonedetection.items.ItemSetList;
  */
 public class CloneDetector
 {
+    private final boolean _primitiveFPGrowth;
+    private final boolean _incremental;
+
+    public CloneDetector()
+    {
+        this(true, true);
+    }
+
+    /**
+     * @param primitiveFPGrowth true to mine itemsets with PrimitiveFPGrowth (int ids), false to use the object based FPGrowth
+     * @param incremental true to update the mined itemsets after every extracted mixin, false to re-mine all selectors
+     *                    Both modes extract the same set of mixins, but itemsets with an equal number of lines are not
+     *                    ordered deterministically, so the order of the mixins (and their numbering) may differ between modes
+     */
+    public CloneDetector(boolean primitiveFPGrowth, boolean incremental)
+    {
+        _primitiveFPGrowth = primitiveFPGrowth;
+        _incremental = incremental;
+    }
+
     /**
      * Implementation taken from https://github.com/dmazinanian/css-analyser
      * and adapted to generate SASS mixins from groups of cloned declarations
@@ -60,7 +83,9 @@ public class CloneDetector
                 }
 
                 // remove the one we process now
-                if(todo != null)
+                // (in incremental mode the results are kept, so an intermediate largest itemset may not be lost here,
+                // the processed itemset is removed afterwards by removeItemSets)
+                if(todo != null && !_incremental)
                     isl.remove(todo);
             }
 
@@ -122,7 +147,14 @@ public class CloneDetector
                     }
                 }
 
-                results = findDuplicationsAndFpGrowth(allSelectors);
+                if (_incremental)
+                {
+                    removeItemSets(results, todo);
+                }
+                else
+                {
+                    results = findDuplicationsAndFpGrowth(allSelectors);
+                }
             }
             else
             {
@@ -134,82 +166,130 @@ public class CloneDetector
     }
 
 
+    /**
+     * Update the mined itemsets after the declarations of the given (processed) itemset were removed from their selectors
+     *
+     * Every item of a processed itemset is removed from all selectors it occurs in, so it drops out of every transaction,
+     * while all other items and transactions stay untouched.
+     * The support of an itemset without removed items is therefore unchanged and re-mining would yield exactly
+     * the remaining itemsets, which makes removing every itemset that contains a removed item sufficient
+     *
+     * The remaining items still hold the declaration instances from the time they were mined, a selector may have copied
+     * its declarations since. These instances are equal by text, and mixins are built and removed by text, so the
+     * extracted mixins are the same as in a full re-mine; only their order may differ, see the constructor
+     */
+    private static void removeItemSets(List<ItemSetList> results, ItemSet processed)
+    {
+        for (ItemSetList isl : results)
+        {
+            List<ItemSet> affected = new ArrayList<>();
+            for (ItemSet is : isl)
+            {
+                if (!Collections.disjoint(is, processed))
+                {
+                    affected.add(is);
+                }
+            }
+
+            if (!affected.isEmpty())
+            {
+                isl.removeAll(affected);
+            }
+        }
+    }
+
+
+    /**
+     * @return a key that is equal for declarations with an equal name, value and !important, i.e. with an equal text
+     *         Ids are masked, so that the sign of one id never spills into the bits of another part
+     */
+    private static long declarationKey(MDeclaration declaration)
+    {
+        return ((declaration.getValueId() & 0xFFFFFFFFL) << 32) | ((declaration.getNameId() & 0x7FFFFFFFL) << 1) | (declaration.isImportant() ? 1 : 0);
+    }
+
+
     /**
      * Implementation taken from https://github.com/dmazinanian/css-analyser
      * and adapted to be applied on MSelectors and MDeclarations
      */
     private List<ItemSetList> findDuplicationsAndFpGrowth(List<MSelector> selectors)
     {
-        Map<ClonedDeclaration, Item> declarationItemMap = new HashMap<>();
-
-        List<ClonedDeclaration> declarations = new ArrayList<>();
+        List<TreeSet<Item>> itemSets = new ArrayList<>(selectors.size());
+        findTypeOneDuplications(selectors, itemSets);
 
-        selectors.stream().forEach(s -> s.getDeclarations().forEach(p -> declarations.add(new ClonedDeclaration(p, s))));
+        if (_primitiveFPGrowth)
+        {
+            return new PrimitiveFPGrowth(false).mine(itemSets, 2);
+        }
 
-        Set<Integer> visitedDeclarations = new HashSet<>();
+        FPGrowth fpGrowth = new FPGrowth(false);
+        return fpGrowth.mine(itemSets, 2);
+    }
 
-        int currentDeclarationIndex = -1;
 
-        TypeOneDuplicationInstance typeOneDuplication = new TypeOneDuplicationInstance();
-        List<TypeOneDuplicationInstance> duplicationInstanceList = new ArrayList<>();
+    /**
+     * Find all type-I duplications in the given selectors, i.e. declarations with an equal name, value and !important
+     * @param itemSets receives, for every selector with a declaration that occurs in another selector, the items of those declarations
+     * @return type-I duplication instances, in order of the first occurrence of their declarations
+     */
+    public static List<TypeOneDuplicationInstance> findTypeOneDuplications(List<MSelector> selectors, List<TreeSet<Item>> itemSets)
+    {
+        /*
+         * Group all declarations on their interned name, value and !important in a single pass, instead of comparing every declaration
+         * with every later one. Groups are kept in order of first occurrence, which is the order in which
+         * the pairwise comparison found them
+         */
+        LongHashMap<List<ClonedDeclaration>> typeOneGroups = new LongHashMap<>();
+        List<List<ClonedDeclaration>> selectorDeclarations = new ArrayList<>(selectors.size());
 
-        while (++currentDeclarationIndex < declarations.size())
+        for (MSelector s : selectors)
         {
-            ClonedDeclaration currentDeclaration = declarations.get(currentDeclarationIndex);
-
-            int checkingDecIndex = currentDeclarationIndex;
-
-            /*
-             * We want to keep all current identical declarations together, and
-             * then add them to the duplications list when we found all
-             * identical declarations of current declaration.
-             */
-            List<ClonedDeclaration> currentTypeIDuplicatedDeclarations = new ArrayList<>();
-
-            /*
-             * So we add current declaration to this list and add all identical
-             * declarations to this list
-             */
-            currentTypeIDuplicatedDeclarations.add(currentDeclaration);
-
-            /*
-             * Only when add the current duplication to the duplications list
-             * that we have really found a duplication
-             */
-            boolean mustAddCurrentTypeIDuplication = false;
-
-            Item newItem = declarationItemMap.get(currentDeclaration);
-            if (newItem == null)
+            List<ClonedDeclaration> currentDeclarations = new ArrayList<>(s.getDeclarations().size());
+            for (MDeclaration p : s.getDeclarations())
             {
-                newItem = new Item(currentDeclaration);
-                declarationItemMap.put(currentDeclaration, newItem);
+                ClonedDeclaration declaration = new ClonedDeclaration(p, s);
+                currentDeclarations.add(declaration);
+                long key = declarationKey(p);
+                List<ClonedDeclaration> group = typeOneGroups.get(key);
+                if (group == null)
+                {
+                    group = new ArrayList<>();
+                    typeOneGroups.put(key, group);
+                }
+                group.add(declaration);
             }
+            selectorDeclarations.add(currentDeclarations);
+        }
 
-            while (++checkingDecIndex < declarations.size())
-            {
-                ClonedDeclaration checkingDeclaration = declarations.get(checkingDecIndex);
+        Map<ClonedDeclaration, Item> declarationItemMap = new HashMap<>();
 
-                boolean equals = currentDeclaration.getProperty().toString().equals(checkingDeclaration.getProperty().toString());
+        TypeOneDuplicationInstance typeOneDuplication = new TypeOneDuplicationInstance();
+        List<TypeOneDuplicationInstance> duplicationInstanceList = new ArrayList<>();
 
-                if (equals && !visitedDeclarations.contains(currentDeclarationIndex))
-                {
-                    // We have found type I duplication
-                    // We add the checkingDeclaration, it will add the Selector
-                    // itself.
-                    currentTypeIDuplicatedDeclarations.add(checkingDeclaration);
-                    visitedDeclarations.add(checkingDecIndex);
-                    mustAddCurrentTypeIDuplication = true;
-
-                    // This only used in apriori and fpgrowth
-                    newItem.add(checkingDeclaration);
-                    declarationItemMap.put(checkingDeclaration, newItem);
-                    newItem.addDuplicationType(1);
-                }
+        for (long key : typeOneGroups.keys())
+        {
+            List<ClonedDeclaration> currentTypeIDuplicatedDeclarations = typeOneGroups.get(key);
+            ClonedDeclaration currentDeclaration = currentTypeIDuplicatedDeclarations.get(0);
+
+            Item newItem = new Item(currentDeclaration);
+            declarationItemMap.put(currentDeclaration, newItem);
+
+            for (int i = 1; i < currentTypeIDuplicatedDeclarations.size(); i++)
+            {
+                // We have found type I duplication
+                // We add the checkingDeclaration, it will add the Selector itself.
+                ClonedDeclaration checkingDeclaration = currentTypeIDuplicatedDeclarations.get(i);
+
+                // This only used in apriori and fpgrowth
+                newItem.add(checkingDeclaration);
+                declarationItemMap.put(checkingDeclaration, newItem);
+                newItem.addDuplicationType(1);
             }
 
             // Only if we have at least one declaration in the list (at list one
             // duplication)
-            if (mustAddCurrentTypeIDuplication)
+            if (currentTypeIDuplicatedDeclarations.size() > 1)
             {
                 if (typeOneDuplication.hasAllSelectorsForADuplication(currentTypeIDuplicatedDeclarations))
                 {
@@ -225,11 +305,10 @@ public class CloneDetector
         }
 
         // Create a treeset of items for each selector with declarations found that occur in at least one other selector
-        List<TreeSet<Item>> itemSets = new ArrayList<>(selectors.size());
-        for (MSelector s : selectors)
+        for (List<ClonedDeclaration> currentDeclarations : selectorDeclarations)
         {
             TreeSet<Item> currentItems = new TreeSet<>();
-            for (ClonedDeclaration decl : declarations.stream().filter(d -> d.getSelector() == s).collect(Collectors.toList()))
+            for (ClonedDeclaration decl : currentDeclarations)
             {
                 Item item = declarationItemMap.get(decl);
                 if (item.getSupportSize() >= 2)
@@ -241,7 +320,6 @@ public class CloneDetector
                 itemSets.add(currentItems);
         }
 
-        FPGrowth fpGrowth = new FPGrowth(false);
-        return fpGrowth.mine(itemSets, 2);
+        return duplicationInstanceList;
     }
 }
\ No newline at end of file
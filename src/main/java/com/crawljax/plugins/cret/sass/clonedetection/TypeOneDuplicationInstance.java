@@ -61,6 +61,15 @@ public class TypeOneDuplicationInstance
         return forSelectors;
     }
 
+    /**
+     * Returns the lists of same declarations,
+     * one list for every distinct declaration
+     * @return Lists of same declarations
+     */
+    public List<List<ClonedDeclaration>> getDeclarations() {
+        return forDeclarations;
+    }
+
     /**
      * Add a new but distinct selector to the set
      * of selectors.
@@ -13,9 +13,7 @@ public class FPGrowth
 {
     //private static Logger LOGGER = FileLogger.getLogger(FPGrowth.class);
 
-    private final Map<Integer, ItemSetList> resultItemSetLists;
-    private final boolean removeSubsets;
-    private final ItemSetList returningDummyObject;
+    private final ItemSetCollector collector;
 
     public FPGrowth(boolean removeSubSets) {
         this(removeSubSets, new ItemSetList());
@@ -34,12 +32,9 @@ public class FPGrowth
      * have the same type if this given dummy object.
      */
     public FPGrowth(boolean removeSubSets, ItemSetList dummyObject) {
-        this.resultItemSetLists = new HashMap<>();
-        this.removeSubsets = removeSubSets;
-        this.returningDummyObject = dummyObject;
+        this.collector = new ItemSetCollector(removeSubSets, dummyObject);
     }
 
-    @SuppressWarnings("unchecked")
     public <T  extends ItemSetList> List<T> mine(Collection<TreeSet<Item>> dataSet, int minSupport) {
 
         FPTree tree = generateFPTree(dataSet);
@@ -48,15 +43,7 @@ public class FPGrowth
 
         tree = null;
 
-        // Deliver results in order. Could we use TreeMap?!
-        List<T> results = new ArrayList<>();
-        for (int i = 1; i <= resultItemSetLists.size(); i++) {
-            if (resultItemSetLists.get(i) != null) {
-                results.add((T)resultItemSetLists.get(i));
-            }
-        }
-
-        return results;
+        return collector.getResults();
     }
 
     private FPTree generateFPTree(Collection<TreeSet<Item>> itemSet) {
@@ -205,45 +192,7 @@ public class FPGrowth
         }
     }
 
-    /*
-     * Add itemset to the result.
-     * Check if the new itemset has a better suprtset, or
-     * delete all subsets
-     */
     private void addItemSet(Set<Item> is) {
-        addItemSet(is, removeSubsets);
-    }
-
-    private void addItemSet(Set<Item> is, boolean removeSubsets) {
-        ItemSet newItemSet = new ItemSet();
-        newItemSet.addAll(is);
-        if (removeSubsets) {
-            // Remove super sets
-            for (int i = newItemSet.size() + 1; i <= resultItemSetLists.keySet().size(); i++) {
-                ItemSetList isl = resultItemSetLists.get(i);
-                if (isl != null && isl.containsSuperSet(newItemSet)) {
-                    return;
-                }
-            }
-        }
-        ItemSetList correspondingItemSetList = resultItemSetLists.get(newItemSet.size());
-        if (correspondingItemSetList == null) {
-            try {
-                correspondingItemSetList = returningDummyObject.getClass().newInstance();
-            } catch (InstantiationException | IllegalAccessException e) {
-                e.printStackTrace();
-                throw new RuntimeException(e);
-            }
-            resultItemSetLists.put(newItemSet.size(), correspondingItemSetList);
-        }
-        correspondingItemSetList.add(newItemSet);
-        if (removeSubsets) {
-            // Remove sub sets
-            for (int i = 1; i < newItemSet.size(); i++) {
-                ItemSetList isl = resultItemSetLists.get(i);
-                if (isl != null)
-                    isl.removeSubset(newItemSet);
-            }
-        }
+        collector.addItemSet(is);
     }
 }
@@ -0,0 +1,174 @@
+package com.crawljax.plugins.cret.sass.clonedetection.fpgrowth;
+
+import java.util.Arrays;
+
+/**
+ * FP-tree on primitive arrays, used by {@link PrimitiveFPGrowth}
+ * Items are int ids, every node is an index into the node arrays, node 0 is the root
+ * Paths are inserted with descending ids, so that a conditional tree for item i only holds ids above i
+ */
+class IntFPTree
+{
+    private static final int NONE = -1;
+
+    // lowest item id that can occur in this tree, header arrays are offset by it
+    private final int base;
+    private final int[] headerNode;
+    private final int[] headerSupport;
+
+    private int[] nodeItem;
+    private int[] nodeCount;
+    private int[] nodeParent;
+    private int[] nodeFirstChild;
+    private int[] nodeNextSibling;
+    private int[] nodeLink;
+    private int size;
+
+    IntFPTree(int base, int itemCount) {
+        this.base = base;
+        this.headerNode = new int[Math.max(0, itemCount - base)];
+        this.headerSupport = new int[headerNode.length];
+        Arrays.fill(headerNode, NONE);
+
+        int capacity = 16;
+        nodeItem = new int[capacity];
+        nodeCount = new int[capacity];
+        nodeParent = new int[capacity];
+        nodeFirstChild = new int[capacity];
+        nodeNextSibling = new int[capacity];
+        nodeLink = new int[capacity];
+
+        // root
+        nodeItem[0] = NONE;
+        nodeParent[0] = NONE;
+        nodeFirstChild[0] = NONE;
+        nodeNextSibling[0] = NONE;
+        nodeLink[0] = NONE;
+        size = 1;
+    }
+
+    int getBase() {
+        return base;
+    }
+
+    int getItemCount() {
+        return base + headerNode.length;
+    }
+
+    /**
+     * Inserts the first <code>length</code> ids of the given path, which must be ordered descending
+     */
+    void insert(int[] path, int length, int count) {
+        int node = 0;
+        for (int i = 0; i < length; i++) {
+            int item = path[i];
+            int child = nodeFirstChild[node];
+            while (child != NONE && nodeItem[child] != item)
+                child = nodeNextSibling[child];
+            if (child == NONE)
+                child = addNode(node, item);
+            nodeCount[child] += count;
+            headerSupport[item - base] += count;
+            node = child;
+        }
+    }
+
+    private int addNode(int parent, int item) {
+        if (size == nodeItem.length) {
+            int capacity = size * 2;
+            nodeItem = Arrays.copyOf(nodeItem, capacity);
+            nodeCount = Arrays.copyOf(nodeCount, capacity);
+            nodeParent = Arrays.copyOf(nodeParent, capacity);
+            nodeFirstChild = Arrays.copyOf(nodeFirstChild, capacity);
+            nodeNextSibling = Arrays.copyOf(nodeNextSibling, capacity);
+            nodeLink = Arrays.copyOf(nodeLink, capacity);
+        }
+        int node = size++;
+        nodeItem[node] = item;
+        nodeCount[node] = 0;
+        nodeParent[node] = parent;
+        nodeFirstChild[node] = NONE;
+        nodeNextSibling[node] = nodeFirstChild[parent];
+        nodeFirstChild[parent] = node;
+        nodeLink[node] = headerNode[item - base];
+        headerNode[item - base] = node;
+        return node;
+    }
+
+    boolean contains(int item) {
+        return headerNode[item - base] != NONE;
+    }
+
+    int getTotalSupport(int item) {
+        return headerSupport[item - base];
+    }
+
+    boolean isEmpty() {
+        return nodeFirstChild[0] == NONE;
+    }
+
+    boolean hasASinglePath() {
+        int node = nodeFirstChild[0];
+        while (node != NONE) {
+            if (nodeNextSibling[node] != NONE)
+                return false;
+            node = nodeFirstChild[node];
+        }
+        return true;
+    }
+
+    /**
+     * @return the item ids along the single path of this tree, from the root down
+     */
+    int[] getSinglePath() {
+        int length = 0;
+        for (int node = nodeFirstChild[0]; node != NONE; node = nodeFirstChild[node])
+            length++;
+        int[] path = new int[length];
+        int i = 0;
+        for (int node = nodeFirstChild[0]; node != NONE; node = nodeFirstChild[node])
+            path[i++] = nodeItem[node];
+        return path;
+    }
+
+    /**
+     * Builds the conditional tree of the given item, only containing items that are frequent in its pattern base
+     * @param counts pooled array of at least {@link #getItemCount()} zeroes, left zeroed on return
+     * @param path pooled array of at least {@link #getItemCount()} entries
+     */
+    IntFPTree buildConditionalTree(int item, int minSupport, int[] counts, int[] path) {
+        // first pass, count items in the conditional pattern base
+        for (int node = headerNode[item - base]; node != NONE; node = nodeLink[node]) {
+            int pathSupport = nodeCount[node];
+            for (int parent = nodeParent[node]; parent != 0; parent = nodeParent[parent])
+                counts[nodeItem[parent]] += pathSupport;
+        }
+
+        // second pass, insert the frequent part of every prefix path
+        IntFPTree conditional = new IntFPTree(item + 1, getItemCount());
+        for (int node = headerNode[item - base]; node != NONE; node = nodeLink[node]) {
+            int length = 0;
+            for (int parent = nodeParent[node]; parent != 0; parent = nodeParent[parent]) {
+                if (counts[nodeItem[parent]] >= minSupport)
+                    path[length++] = nodeItem[parent];
+            }
+            if (length > 0) {
+                // collected bottom-up (ascending), the tree expects descending
+                for (int i = 0, j = length - 1; i < j; i++, j--) {
+                    int tmp = path[i];
+                    path[i] = path[j];
+                    path[j] = tmp;
+                }
+                conditional.insert(path, length, nodeCount[node]);
+            }
+        }
+
+        // reset the pooled counts for the next conditional tree
+        for (int node = headerNode[item - base]; node != NONE; node = nodeLink[node]) {
+            for (int parent = nodeParent[node]; parent != 0; parent = nodeParent[parent])
+                counts[nodeItem[parent]] = 0;
+        }
+
+        return conditional;
+    }
+}
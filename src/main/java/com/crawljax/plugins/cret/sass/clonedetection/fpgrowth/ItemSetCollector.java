@@ -0,0 +1,79 @@
+package com.crawljax.plugins.cret.sass.clonedetection.fpgrowth;
+
+import com.crawljax.plugins.cret.sass.clonedetection.items.Item;
+import com.crawljax.plugins.cret.sass.clonedetection.items.ItemSet;
+import com.crawljax.plugins.cret.sass.clonedetection.items.ItemSetList;
+
+import java.util.*;
+
+/**
+ * Collects the frequent itemsets found by a miner into ItemSetLists, one list per itemset size
+ * Shared by {@link FPGrowth} and {@link PrimitiveFPGrowth}, so that both engines deliver the same results
+ */
+class ItemSetCollector
+{
+    private final Map<Integer, ItemSetList> resultItemSetLists;
+    private final boolean removeSubsets;
+    private final ItemSetList returningDummyObject;
+
+    ItemSetCollector(boolean removeSubSets, ItemSetList dummyObject) {
+        this.resultItemSetLists = new HashMap<>();
+        this.removeSubsets = removeSubSets;
+        this.returningDummyObject = dummyObject;
+    }
+
+    @SuppressWarnings("unchecked")
+    <T extends ItemSetList> List<T> getResults() {
+        // Deliver results in order. Could we use TreeMap?!
+        List<T> results = new ArrayList<>();
+        for (int i = 1; i <= resultItemSetLists.size(); i++) {
+            if (resultItemSetLists.get(i) != null) {
+                results.add((T)resultItemSetLists.get(i));
+            }
+        }
+
+        return results;
+    }
+
+    /*
+     * Add itemset to the result.
+     * Check if the new itemset has a better suprtset, or
+     * delete all subsets
+     */
+    void addItemSet(Set<Item> is) {
+        ItemSet newItemSet = new ItemSet();
+        newItemSet.addAll(is);
+        addItemSet(newItemSet);
+    }
+
+    void addItemSet(ItemSet newItemSet) {
+        if (removeSubsets) {
+            // Remove super sets
+            for (int i = newItemSet.size() + 1; i <= resultItemSetLists.keySet().size(); i++) {
+                ItemSetList isl = resultItemSetLists.get(i);
+                if (isl != null && isl.containsSuperSet(newItemSet)) {
+                    return;
+                }
+            }
+        }
+        ItemSetList correspondingItemSetList = resultItemSetLists.get(newItemSet.size());
+        if (correspondingItemSetList == null) {
+            try {
+                correspondingItemSetList = returningDummyObject.getClass().newInstance();
+            } catch (InstantiationException | IllegalAccessException e) {
+                e.printStackTrace();
+                throw new RuntimeException(e);
+            }
+            resultItemSetLists.put(newItemSet.size(), correspondingItemSetList);
+        }
+        correspondingItemSetList.add(newItemSet);
+        if (removeSubsets) {
+            // Remove sub sets
+            for (int i = 1; i < newItemSet.size(); i++) {
+                ItemSetList isl = resultItemSetLists.get(i);
+                if (isl != null)
+                    isl.removeSubset(newItemSet);
+            }
+        }
+    }
+}
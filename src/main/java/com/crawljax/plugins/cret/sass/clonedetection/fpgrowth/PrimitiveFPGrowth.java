@@ -0,0 +1,111 @@
+package com.crawljax.plugins.cret.sass.clonedetection.fpgrowth;
+
+import com.crawljax.plugins.cret.sass.clonedetection.items.Item;
+import com.crawljax.plugins.cret.sass.clonedetection.items.ItemSet;
+import com.crawljax.plugins.cret.sass.clonedetection.items.ItemSetList;
+
+import java.util.*;
+
+/**
+ * Alternative to {@link FPGrowth} which mines on int ids instead of Item objects
+ * Items are numbered by their natural order, transactions are stored as int arrays in an {@link IntFPTree},
+ * conditional trees are built from pooled int arrays and single paths are enumerated without any string or set work
+ * Only the resulting itemsets are converted back to ItemSets, the results are the same as those of {@link FPGrowth}
+ */
+public class PrimitiveFPGrowth
+{
+    private final ItemSetCollector collector;
+
+    private Item[] items;
+    private int minSupport;
+    private int[] prefix;
+    private int[] counts;
+    private int[] path;
+
+    public PrimitiveFPGrowth(boolean removeSubSets) {
+        this(removeSubSets, new ItemSetList());
+    }
+
+    /**
+     * Creates a new object of PrimitiveFPGrowth class
+     * @param removeSubSets see {@link FPGrowth#FPGrowth(boolean, ItemSetList)}
+     * @param dummyObject a dummy object of type ItemSetList (or any subclass),
+     * the resulting ItemSetLists will have the same type
+     */
+    public PrimitiveFPGrowth(boolean removeSubSets, ItemSetList dummyObject) {
+        this.collector = new ItemSetCollector(removeSubSets, dummyObject);
+    }
+
+    public <T extends ItemSetList> List<T> mine(Collection<TreeSet<Item>> dataSet, int minSupport) {
+        // number items ascending by their natural order (support count), so a descending transaction has descending ids
+        TreeSet<Item> allItems = new TreeSet<>();
+        for (TreeSet<Item> transaction : dataSet)
+            allItems.addAll(transaction);
+
+        this.items = allItems.toArray(new Item[allItems.size()]);
+        this.minSupport = minSupport;
+        this.prefix = new int[items.length];
+        this.counts = new int[items.length];
+        this.path = new int[items.length];
+
+        Map<Item, Integer> ids = new HashMap<>();
+        for (int i = 0; i < items.length; i++)
+            ids.put(items[i], i);
+
+        IntFPTree tree = new IntFPTree(0, items.length);
+        int[] transaction = new int[items.length];
+        for (TreeSet<Item> orderedItems : dataSet) {
+            int length = 0;
+            for (Item item : orderedItems.descendingSet())
+                transaction[length++] = ids.get(item);
+            if (length > 0)
+                tree.insert(transaction, length, 1);
+        }
+
+        // like FPGrowth, the top level tree is not pruned, a single path is taken as a whole
+        if (tree.hasASinglePath())
+            addSinglePath(tree.getSinglePath(), 0, 0);
+        else
+            fpGrowth(tree, 0);
+
+        return collector.getResults();
+    }
+
+    private void fpGrowth(IntFPTree tree, int depth) {
+        // iterate the header table ascending, like FPTree does
+        for (int item = tree.getBase(); item < tree.getItemCount(); item++) {
+            if (!tree.contains(item) || tree.getTotalSupport(item) < minSupport)
+                continue;
+
+            prefix[depth] = item;
+            addItemSet(depth + 1);
+
+            IntFPTree conditional = tree.buildConditionalTree(item, minSupport, counts, path);
+            if (conditional.isEmpty())
+                continue;
+
+            if (conditional.hasASinglePath())
+                addSinglePath(conditional.getSinglePath(), 0, depth + 1);
+            else
+                fpGrowth(conditional, depth + 1);
+        }
+    }
+
+    /**
+     * Adds every non-empty combination of the items on a single path, combined with the current prefix
+     */
+    private void addSinglePath(int[] singlePath, int from, int depth) {
+        for (int i = from; i < singlePath.length; i++) {
+            prefix[depth] = singlePath[i];
+            addItemSet(depth + 1);
+            addSinglePath(singlePath, i + 1, depth + 1);
+        }
+    }
+
+    private void addItemSet(int length) {
+        ItemSet itemSet = new ItemSet();
+        for (int i = 0; i < length; i++)
+            itemSet.add(items[prefix[i]]);
+        collector.addItemSet(itemSet);
+    }
+}
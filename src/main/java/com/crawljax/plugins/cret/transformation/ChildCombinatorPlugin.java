@@ -6,6 +6,7 @@ import com.crawljax.plugins.cret.cssmodel.MCssFile;
 import com.crawljax.plugins.cret.cssmodel.MCssRule;
 import com.crawljax.plugins.cret.cssmodel.MSelector;
 import com.crawljax.plugins.cret.interfaces.ICssTransformer;
+import com.crawljax.plugins.cret.interfaces.TransformerScope;
 import com.crawljax.plugins.cret.transformation.matcher.MatchedElements;
 import com.crawljax.plugins.cret.util.CretStringBuilder;
 
@@ -19,6 +20,7 @@ import org.w3c.dom.Node;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Created by axel on 6/2/2015.
@@ -29,14 +31,23 @@ import java.util.Map;
  */
 public class ChildCombinatorPlugin implements ICssTransformer
 {
-    private final Map<DescendantSelectorImpl, Boolean> _descendants = new HashMap<>();
-    private int _selectorsTransformed = 0;
+    private final AtomicInteger _selectorsTransformed = new AtomicInteger();
 
 
     @Override
     public void getStatistics(CretStringBuilder builder, String prefix)
     {
-        builder.appendLine("%s<DCS>%d</DCS>", prefix, _selectorsTransformed);
+        builder.appendLine("%s<DCS>%d</DCS>", prefix, _selectorsTransformed.get());
+    }
+
+    /**
+     * Walks the parents and attributes of matched elements in the shared DOM trees of all states,
+     * Xerces DOM is not safe for concurrent reads, so this transformer must never run on several files at the same time
+     */
+    @Override
+    public TransformerScope getScope()
+    {
+        return TransformerScope.GLOBAL;
     }
 
     @Override
@@ -64,29 +75,30 @@ public class ChildCombinatorPlugin implements ICssTransformer
                     Selector w3cSelector = mSelector.getW3CSelector();
                     List<ElementWrapper> selectorElements = mSelector.getMatchedElements();
 
-                    _descendants.clear();
+                    // descendant-combinators in this selector, mapped to whether they may be replaced
+                    Map<DescendantSelectorImpl, Boolean> descendants = new HashMap<>();
 
                     // verify whether ALL elements selected by given selector allow for child-combinators instead of descendant-combinators
                     for (ElementWrapper ew : selectorElements)
                     {
-                        recursiveFindDescendants(tryFilterPseudoElement(w3cSelector), ew.getElement(), mSelector);
+                        recursiveFindDescendants(tryFilterPseudoElement(w3cSelector), ew.getElement(), mSelector, descendants);
                     }
 
                     // are there any descendant selectors in given selector, which could be transformable?
-                    if(_descendants.values().contains(true))
+                    if(descendants.values().contains(true))
                     {
-                        long size = _descendants.values().stream().filter(d -> d).count();
+                        long size = descendants.values().stream().filter(d -> d).count();
                         count += size;
 
                         LogHandler.debug("[ChildCombinator] [%s] Selector contains '%d' descendant-combinators that can be replaced by child-combinators", mSelector, size);
-                        Selector newW3cSelector = recursiveUpdateSelector(w3cSelector);
+                        Selector newW3cSelector = recursiveUpdateSelector(w3cSelector, descendants);
 
                         // call copy constructor to create MSelector replacement
                         MSelector newSelector = new MSelector(newW3cSelector, mSelector);
                         newSelectors.put(mSelector, newSelector);
                         LogHandler.debug("[ChildCombinator] [%s] New MSelector created: '%s', will replace old", mSelector, newSelector);
 
-                        _selectorsTransformed++;
+                        _selectorsTransformed.incrementAndGet();
                     }
                 }
 
@@ -134,11 +146,11 @@ public class ChildCombinatorPlugin implements ICssTransformer
      * of the given node, with the ancestor or sibling declaration of the given selector.
      * We then need to find the right node (either parent or previous sibling), before proceeding with further analysis of the remaining selector parts
      */
-    private void recursiveFindDescendants(Selector selector, Node node, MSelector mSelector)
+    private void recursiveFindDescendants(Selector selector, Node node, MSelector mSelector, Map<DescendantSelectorImpl, Boolean> descendants)
     {
         if(selector instanceof ChildSelectorImpl)
         {
-            recursiveFindDescendants(((ChildSelectorImpl) selector).getAncestorSelector(), node.getParentNode(), mSelector);
+            recursiveFindDescendants(((ChildSelectorImpl) selector).getAncestorSelector(), node.getParentNode(), mSelector, descendants);
         }
         else if (selector instanceof SiblingSelector)
         {
@@ -158,7 +170,7 @@ public class ChildCombinatorPlugin implements ICssTransformer
                 while(!found);
             }
 
-            recursiveFindDescendants(previousSelector, previousNode, mSelector);
+            recursiveFindDescendants(previousSelector, previousNode, mSelector, descendants);
         }
         else if (selector instanceof DescendantSelector)
         {
@@ -172,15 +184,15 @@ public class ChildCombinatorPlugin implements ICssTransformer
 
             if (trySelectNodeWithCss(ancestor, parent, mSelector))
             {
-                if(!_descendants.containsKey(dSel))
+                if(!descendants.containsKey(dSel))
                 {
-                    _descendants.put(dSel, true);
+                    descendants.put(dSel, true);
                     LogHandler.debug("[ChildCombinator] [%s] Direct parent node '%s' is selectable by ancestor-part '%s' of descendant-selector '%s', child-combinator MAY be allowed", mSelector, parent, ancestor, selector);
                 }
             }
             else
             {
-                _descendants.put(dSel, false);
+                descendants.put(dSel, false);
                 LogHandler.debug("[ChildCombinator] [%s] Direct parent node '%s' is NOT selectable by ancestor-part '%s' of descendant-selector '%s', child-combinator NOT allowed", mSelector, parent, ancestor, selector);
 
                 // direct parent node is not selectable by ancestor-part of descendant-selector,
@@ -204,7 +216,7 @@ public class ChildCombinatorPlugin implements ICssTransformer
 
             if(!atDocumentRoot)
             {
-                recursiveFindDescendants(ancestor, parent, mSelector);
+                recursiveFindDescendants(ancestor, parent, mSelector, descendants);
             }
         }
     }
@@ -457,33 +469,33 @@ public class ChildCombinatorPlugin implements ICssTransformer
      * Update starting with the first selector, by seeking up using sibling and ancestor operators
      * @return selector with one or more descendants replaced by childs
      */
-    private Selector recursiveUpdateSelector(Selector selector)
+    private Selector recursiveUpdateSelector(Selector selector, Map<DescendantSelectorImpl, Boolean> descendants)
     {
         if(selector instanceof ChildSelectorImpl)
         {
             ChildSelectorImpl cSel = (ChildSelectorImpl) selector;
-            cSel.setAncestorSelector(recursiveUpdateSelector(cSel.getAncestorSelector()));
+            cSel.setAncestorSelector(recursiveUpdateSelector(cSel.getAncestorSelector(), descendants));
         }
         else if(selector instanceof SiblingSelector)
         {
             if(selector instanceof DirectAdjacentSelectorImpl)
             {
                 DirectAdjacentSelectorImpl sSel = (DirectAdjacentSelectorImpl) selector;
-                sSel.setSelector(recursiveUpdateSelector(sSel.getSelector()));
+                sSel.setSelector(recursiveUpdateSelector(sSel.getSelector(), descendants));
             }
             else
             {
                 GeneralAdjacentSelectorImpl sSel = (GeneralAdjacentSelectorImpl) selector;
-                sSel.setSelector(recursiveUpdateSelector(sSel.getSelector()));
+                sSel.setSelector(recursiveUpdateSelector(sSel.getSelector(), descendants));
             }
         }
         else if (selector instanceof DescendantSelectorImpl)
         {
             DescendantSelectorImpl dSel = (DescendantSelectorImpl)selector;
-            dSel.setAncestorSelector(recursiveUpdateSelector(dSel.getAncestorSelector()));
+            dSel.setAncestorSelector(recursiveUpdateSelector(dSel.getAncestorSelector(), descendants));
 
             // here we actually replace a given descendant-combinator with a child-combinator
-            if(_descendants.containsKey(dSel) && _descendants.get(dSel))
+            if(descendants.containsKey(dSel) && descendants.get(dSel))
             {
                 return new ChildSelectorImpl(dSel.getAncestorSelector(), dSel.getSimpleSelector());
             }
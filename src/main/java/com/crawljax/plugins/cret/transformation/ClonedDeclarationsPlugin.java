@@ -6,12 +6,14 @@ import com.crawljax.plugins.cret.cssmodel.MCssRule;
 import com.crawljax.plugins.cret.cssmodel.MSelector;
 import com.crawljax.plugins.cret.cssmodel.declarations.MDeclaration;
 import com.crawljax.plugins.cret.interfaces.ICssTransformer;
+import com.crawljax.plugins.cret.interfaces.TransformerScope;
 import com.crawljax.plugins.cret.transformation.matcher.MatchedElements;
 import com.crawljax.plugins.cret.util.CretStringBuilder;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Created by axel on 6/12/2015.
@@ -20,12 +22,18 @@ import java.util.Map;
  */
 public class ClonedDeclarationsPlugin implements ICssTransformer
 {
-    private int _clonedDeclarationsRemoved = 0;
+    private final AtomicInteger _clonedDeclarationsRemoved = new AtomicInteger();
 
     @Override
     public void getStatistics(CretStringBuilder builder, String prefix)
     {
-        builder.appendLine("%s<CD>%d</CD>", prefix, _clonedDeclarationsRemoved);
+        builder.appendLine("%s<CD>%d</CD>", prefix, _clonedDeclarationsRemoved.get());
+    }
+
+    @Override
+    public TransformerScope getScope()
+    {
+        return TransformerScope.PER_FILE;
     }
 
     @Override
@@ -48,18 +56,18 @@ public class ClonedDeclarationsPlugin implements ICssTransformer
                         {
                             final MDeclaration other = declarations.get(j);
 
-                            if(current.getName().equals(other.getName()))
+                            if(current.getNameId() == other.getNameId())
                             {
                                 if((!current.isImportant() || other.isImportant()) && current.getValueVendor().isEmpty())
                                 {
                                     clonedProps.add(current);
-                                    _clonedDeclarationsRemoved++;
+                                    _clonedDeclarationsRemoved.incrementAndGet();
                                     LogHandler.debug("[ClonedDeclarations] Declaration with '%s' in selector '%s' of file '%s' is a clone of a LATER declared declaration, and considered ineffective, will be removed", current, mSelector, fileName);
                                 }
                                 else if (current.isImportant() && !other.isImportant())
                                 {
                                     clonedProps.add(other);
-                                    _clonedDeclarationsRemoved++;
+                                    _clonedDeclarationsRemoved.incrementAndGet();
                                     LogHandler.debug("[ClonedDeclarations] Declaration with '%s' in selector '%s' of file '%s' is a clone of a PREVIOUS declared declaration, and considered ineffective, will be removed", current, mSelector, fileName);
                                 }
                             }
@@ -6,6 +6,8 @@ import com.crawljax.plugins.cret.cssmodel.MCssRule;
 import com.crawljax.plugins.cret.cssmodel.declarations.MDeclaration;
 import com.crawljax.plugins.cret.cssmodel.MSelector;
 import com.crawljax.plugins.cret.interfaces.ICssTransformer;
+import com.crawljax.plugins.cret.interfaces.TransformerScope;
+import com.crawljax.plugins.cret.transformation.matcher.CascadeSignature;
 import com.crawljax.plugins.cret.transformation.matcher.MatchedElements;
 import com.crawljax.plugins.cret.util.DefaultStylesHelper;
 import com.crawljax.plugins.cret.util.CretStringBuilder;
@@ -33,6 +35,12 @@ public class DefaultStylesPlugin implements ICssTransformer
         builder.appendLine("%s<DS>%d</DS>", prefix, _emptySelectorsRemoved);
     }
 
+    @Override
+    public TransformerScope getScope()
+    {
+        return TransformerScope.PER_ELEMENT;
+    }
+
     @Override
     public Map<String, MCssFile> transform(Map<String, MCssFile> cssRules, MatchedElements matchedElements)
     {
@@ -40,28 +48,31 @@ public class DefaultStylesPlugin implements ICssTransformer
 
         Map<String, String> defaultStyles = DefaultStylesHelper.createDefaultStyles();
 
-        // performance
-        Set<Set<MSelector>> processedSets = new HashSet<>();
+        // performance, effective selectors of a signature keep the cascade order of the signature,
+        // so equal sets of effective selectors give equal lists
+        Set<List<MSelector>> processedCascades = new HashSet<>();
 
-        for (String keyElement : matchedElements.getMatchedElements())
+        // iterate distinct cascades instead of elements, distinct cascades may still share the same set of effective selectors
+        for (CascadeSignature signature : matchedElements.getCascadeSignatures())
         {
-            List<MSelector> matchedSelectors = matchedElements.sortSelectorsForMatchedElem(keyElement);
-            List<MSelector> effectiveSelectors = matchedSelectors.stream().filter(s -> s.hasEffectiveDeclarations()).collect(Collectors.toList());
+            List<MSelector> effectiveSelectors = signature.getSelectors().stream().filter(s -> s.hasEffectiveDeclarations()).collect(Collectors.toList());
 
             // performance
-            if(processedSets.contains(new HashSet<>(effectiveSelectors)))
+            if(!processedCascades.add(effectiveSelectors))
             {
-                LogHandler.debug("Set of effective selectors for element '%s' already processed", keyElement);
+                LogHandler.debug("[DefaultStyles] Set of effective selectors for %d elements already processed", signature.getElementCount());
                 continue;
             }
 
             for (int i = 0; i < effectiveSelectors.size(); i++)
             {
                 MSelector selector = effectiveSelectors.get(i);
+                // read-only, possibly shared with other selectors, only copied once the flag of a declaration changes below
                 List<MDeclaration> declarations = selector.getDeclarations();
 
-                for (MDeclaration declaration : declarations)
+                for (int d = 0; d < declarations.size(); d++)
                 {
+                    final MDeclaration declaration = declarations.get(d);
                     final String name = declaration.getName();
                     final String value = declaration.getValue();
                     final boolean important = declaration.isImportant();
@@ -163,13 +174,14 @@ public class DefaultStylesPlugin implements ICssTransformer
                             }
                         }
 
-                        declaration.setInvalidUndo(!validUndo);
+                        // only copy a shared block when the flag actually changes
+                        if(declaration.changesInvalidUndo(!validUndo))
+                        {
+                            selector.getMutableDeclarations().get(d).setInvalidUndo(!validUndo);
+                        }
                     }
                 }
             }
-
-            // performance
-            processedSets.add(new HashSet<>(effectiveSelectors));
         }
 
         for(MCssFile file : cssRules.values())
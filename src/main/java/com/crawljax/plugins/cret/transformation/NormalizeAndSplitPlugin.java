@@ -7,10 +7,16 @@ import com.crawljax.plugins.cret.cssmodel.*;
 import com.crawljax.plugins.cret.cssmodel.declarations.MBorderDeclaration;
 import com.crawljax.plugins.cret.cssmodel.declarations.MDeclaration;
 import com.crawljax.plugins.cret.interfaces.ICssTransformer;
+import com.crawljax.plugins.cret.interfaces.TransformerScope;
 import com.crawljax.plugins.cret.transformation.matcher.MatchedElements;
 import com.crawljax.plugins.cret.util.CretStringBuilder;
+import com.crawljax.plugins.cret.util.CssValue;
+import com.crawljax.plugins.cret.util.CssValueTokenizer;
+import com.crawljax.plugins.cret.util.CssValueTokenizer.Token;
+import com.crawljax.plugins.cret.util.CssValueTokenizer.TokenType;
 
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Created by axel on 5/27/2015.
@@ -23,17 +29,23 @@ import java.util.*;
  */
 public class NormalizeAndSplitPlugin implements ICssTransformer
 {
-    private BrowserColorParser _browserColorParser = new BrowserColorParser();
-    private int _normalizedColors = 0;
-    private int _normalizedUrls = 0;
-    private int _normalizedZeroes = 0;
+    private final BrowserColorParser _browserColorParser = BrowserColorParser.getInstance();
+    private final AtomicInteger _normalizedColors = new AtomicInteger();
+    private final AtomicInteger _normalizedUrls = new AtomicInteger();
+    private final AtomicInteger _normalizedZeroes = new AtomicInteger();
 
     @Override
     public void getStatistics(CretStringBuilder builder, String prefix)
     {
-        builder.appendLine("%s<NC>%d</NC>", prefix, _normalizedColors);
-        builder.appendLine("%s<NU>%d</NU>", prefix, _normalizedUrls);
-        builder.appendLine("%s<NZ>%d</NZ>", prefix, _normalizedZeroes);
+        builder.appendLine("%s<NC>%d</NC>", prefix, _normalizedColors.get());
+        builder.appendLine("%s<NU>%d</NU>", prefix, _normalizedUrls.get());
+        builder.appendLine("%s<NZ>%d</NZ>", prefix, _normalizedZeroes.get());
+    }
+
+    @Override
+    public TransformerScope getScope()
+    {
+        return TransformerScope.PER_FILE;
     }
 
 
@@ -55,7 +67,7 @@ public class NormalizeAndSplitPlugin implements ICssTransformer
                     normalizeUrls(mSelector);
 
                     //sort declarations again
-                    mSelector.getDeclarations().sort((p1, p2) -> Integer.compare(p1.getOrder(), p2.getOrder()));
+                    mSelector.sortDeclarations();
                 }
             }
         }
@@ -67,184 +79,259 @@ public class NormalizeAndSplitPlugin implements ICssTransformer
     /**
      * Normalize any rgb color to it's hexadecimal representation
      * Normalize any rbga color by filtering whitespace between it's color parts
+     * Normalize any browser color name to it's hexadecimal representation
      */
     private void normalizeColors(MSelector mSelector)
     {
-        for(MDeclaration mDeclaration : mSelector.getDeclarations())
+        List<MDeclaration> declarations = mSelector.getDeclarations();
+        for(int i = 0; i < declarations.size(); i++)
         {
+            MDeclaration mDeclaration = declarations.get(i);
             if(mDeclaration.isIgnored())
             {
                 continue;
             }
 
-            final String origValue = mDeclaration.getValue();
-            String newValue = origValue;
+            CssValue value = mDeclaration.getParsedValue();
+            setNormalizedValue(mSelector, i, normalizeColors(value.getText(), value.getTokens(), true));
+        }
+    }
+
 
-            if(origValue.contains("rgb"))
+    /**
+     * Normalize colors in a value, or in the arguments of a function
+     * @param topLevel browser color names are only normalized in whitespace-separated words of the value itself
+     */
+    private String normalizeColors(String value, List<Token> tokens, boolean topLevel)
+    {
+        StringBuilder newValue = new StringBuilder(value.length());
+
+        for(int i = 0; i < tokens.size(); i++)
+        {
+            Token token = tokens.get(i);
+            String text = token.getText();
+
+            if(token.getType() == TokenType.FUNCTION && token.getName().equals("rgb"))
             {
                 // transform any rgb(...) value into it's hexadecimal representation
-                while (newValue.contains("rgb("))
-                {
-                    _normalizedColors++;
-
-                    String rgbValue = tryFindRgb(newValue);
-                    String rgbReplace = rgbValue.replace("(", "\\(").replace(")", "\\)");
+                _normalizedColors.incrementAndGet();
+                text = tryRgbToHex(token, text);
+            }
+            else if(token.getType() == TokenType.FUNCTION && token.getName().equals("rgba"))
+            {
+                // transform an opaque rbga(...) value into it's hexadecimal representation, filter whitespace in any other
+                _normalizedColors.incrementAndGet();
 
-                    String[] rgbParts = rgbValue.replaceFirst("rgb\\(", "").replaceFirst("\\)", "").split(",");
-                    String hexValue = rgbToHex(Integer.parseInt(rgbParts[0].trim()), Integer.parseInt(rgbParts[1].trim()), Integer.parseInt(rgbParts[2].trim()));
-                    newValue = newValue.replaceFirst(rgbReplace, hexValue);
+                List<String> rgbaParts = CssValueTokenizer.split(token.getArguments(), ',');
+                if(rgbaParts.size() == 3 || (rgbaParts.size() == 4 && (rgbaParts.get(3).trim().equals("1") || rgbaParts.get(3).trim().equals("100"))))
+                {
+                    text = tryRgbToHex(token, removeWhitespace(text));
                 }
-
-                // filter any whitespace in a rbga(...) value
-                if(newValue.contains("rgba("))
+                else
                 {
-                    String text = newValue;
-
-                    while (text.contains("rgba("))
-                    {
-                        _normalizedColors++;
-
-                        String rgbaOrig = tryFindRgba(text);
-                        String rgbaReplace = rgbaOrig.replace("(", "\\(").replace(")", "\\)");
-                        text = text.replaceFirst(rgbaReplace, "");
-
-                        String[] rgbaParts = rgbaOrig.replaceFirst("rgba\\(", "").replaceFirst("\\)", "").split(",");
-                        if(rgbaParts.length == 3 || (rgbaParts.length == 4 && (rgbaParts[3].trim().equals("1") || rgbaParts[3].trim().equals("100"))))
-                        {
-                            String hexValue = rgbToHex(Integer.parseInt(rgbaParts[0].trim()), Integer.parseInt(rgbaParts[1].trim()), Integer.parseInt(rgbaParts[2].trim()));
-                            newValue = newValue.replaceFirst(rgbaReplace, hexValue);
-                        }
-                        else
-                        {
-                            String rgbaNew = rgbaOrig.replaceAll("\\s", "");
-                            newValue = newValue.replaceFirst(rgbaReplace, rgbaNew);
-                        }
-                    }
+                    text = removeWhitespace(text);
                 }
             }
-
-            String[] parts = newValue.split("\\s");
-
-            for(String part : parts)
+            else if(token.getType() == TokenType.FUNCTION)
             {
-                String newPart = _browserColorParser.tryParseColorToHex(part);
-                if(!part.equals(newPart))
+                // e.g. gradients
+                String arguments = token.getArguments();
+                text = replaceArguments(token, normalizeColors(arguments, CssValueTokenizer.tokenize(arguments), false));
+            }
+            else if(topLevel && token.getType() == TokenType.IDENT && isWord(tokens, i))
+            {
+                String hexValue = _browserColorParser.tryParseColorToHex(text);
+                if(!text.equals(hexValue))
                 {
-                    _normalizedColors++;
-                    newValue = newValue.replace(part, newPart);
+                    _normalizedColors.incrementAndGet();
+                    text = hexValue;
                 }
-                else if(part.equals("transparent"))
+                else if(text.equals("transparent"))
                 {
-                    newValue = newValue.replace("transparent", "rgba(0,0,0,0)");
+                    text = "rgba(0,0,0,0)";
                 }
             }
 
-            mDeclaration.setNormalizedValue(newValue);
+            newValue.append(text);
         }
+
+        return newValue.toString();
     }
 
 
     /**
-     * Normalize zero values and url values
+     * Normalize zero values
      */
     private void normalizeZeroes(MSelector mSelector)
     {
-        for(MDeclaration mDeclaration : mSelector.getDeclarations())
+        List<MDeclaration> declarations = mSelector.getDeclarations();
+        for(int i = 0; i < declarations.size(); i++)
         {
+            MDeclaration mDeclaration = declarations.get(i);
             if(mDeclaration.isIgnored())
                 continue;
 
-            final String origValue = mDeclaration.getValue();
-            final String value = mDeclaration.getValue().replaceAll("\\s", "");
+            final CssValue value = mDeclaration.getParsedValue();
 
-            if (value.equals("0px") || value.equals("0pt") || value.equals("0%") || value.equals("0pc") || value.equals("0in") || value.equals("0mm") || value.equals("0cm") || //absolute
-                    value.equals("0em") || value.equals("0rem") || value.equals("0ex") || value.equals("0ch") || value.equals("0vw") || value.equals("0vh") || value.equals("0vmin") || value.equals("0vmax")) //relative
+            Token single = value.getSingleToken();
+            if (single != null && (single.getType() == TokenType.PERCENTAGE || (single.getType() == TokenType.DIMENSION && single.isLength()))
+                    && single.getNumber().equals("0"))
             {
-                _normalizedZeroes++;
-                mDeclaration.setNormalizedValue("0");
-                LogHandler.debug("[NormalizeAndSplit] Normalized zeroes in '%s' -> original: '%s', new: '%s'", mSelector, mDeclaration.getOriginalValue(), mDeclaration.getValue());
+                _normalizedZeroes.incrementAndGet();
+                setNormalizedValue(mSelector, i, "0");
+                LogHandler.debug("[NormalizeAndSplit] Normalized zeroes in '%s' -> original: '%s', new: '%s'", mSelector, mDeclaration.getOriginalValue(), "0");
             }
             else if (mDeclaration.getOriginalValue().contains("0."))
             {
-                _normalizedZeroes++;
-                mDeclaration.setNormalizedValue(origValue.replaceAll("0\\.", "\\."));
+                _normalizedZeroes.incrementAndGet();
+
+                setNormalizedValue(mSelector, i, stripLeadingZeroes(value.getTokens()));
+            }
+        }
+    }
+
+
+    /**
+     * Strip the leading zero of any fractional number in the given tokens, including the arguments of functions
+     */
+    private static String stripLeadingZeroes(List<Token> tokens)
+    {
+        StringBuilder newValue = new StringBuilder();
+        for(Token token : tokens)
+        {
+            String text = token.getText();
+            if(token.getType() == TokenType.NUMBER || token.getType() == TokenType.PERCENTAGE || token.getType() == TokenType.DIMENSION)
+            {
+                int sign = text.charAt(0) == '-' || text.charAt(0) == '+' ? 1 : 0;
+                if(text.startsWith("0.", sign))
+                {
+                    text = text.substring(0, sign) + text.substring(sign + 1);
+                }
             }
+            else if(token.getType() == TokenType.FUNCTION)
+            {
+                text = replaceArguments(token, stripLeadingZeroes(CssValueTokenizer.tokenize(token.getArguments())));
+            }
+            newValue.append(text);
         }
+        return newValue.toString();
     }
 
 
     /**
-     * Normalize zero values and url values
+     * Normalize url values, by removing the http:// or https:// scheme
      */
     private void normalizeUrls(MSelector mSelector)
     {
-        for(MDeclaration mDeclaration : mSelector.getDeclarations())
+        List<MDeclaration> declarations = mSelector.getDeclarations();
+        for(int i = 0; i < declarations.size(); i++)
         {
+            MDeclaration mDeclaration = declarations.get(i);
             if(mDeclaration.isIgnored())
                 continue;
 
-            final String origValue = mDeclaration.getValue();
+            final CssValue value = mDeclaration.getParsedValue();
+            if(!value.getText().contains("http"))
+                continue;
 
-            if(origValue.contains("http://"))
+            StringBuilder newValue = new StringBuilder(value.getText().length());
+            for(Token token : value.getTokens())
             {
-                _normalizedUrls++;
-                mDeclaration.setNormalizedValue(origValue.replaceAll("http://", ""));
+                String text = token.getText();
+                if(token.getType() == TokenType.URL || token.getType() == TokenType.STRING || token.getType() == TokenType.FUNCTION)
+                {
+                    text = CssValueTokenizer.removeAll(CssValueTokenizer.removeAll(text, "http://"), "https://");
+                }
+                newValue.append(text);
             }
-            else if(origValue.contains("https://"))
+
+            if(setNormalizedValue(mSelector, i, newValue.toString()))
             {
-                _normalizedUrls++;
-                mDeclaration.setNormalizedValue(origValue.replaceAll("https://", ""));
+                _normalizedUrls.incrementAndGet();
             }
         }
     }
 
 
     /**
-     *
-     * @param r
-     * @param g
-     * @param b
-     * @return
+     * Only set (and intern) the normalized value of the declaration at the given index if it changed,
+     * so declarations shared with other selectors are only copied when a value really changes
+     * @return true if the value changed
      */
-    private static String rgbToHex(int r, int g, int b)
+    private static boolean setNormalizedValue(MSelector mSelector, int index, String newValue)
     {
-        return String.format("#%02x%02x%02x", r, g, b);
+        if(newValue.equals(mSelector.getDeclarations().get(index).getValue()))
+        {
+            return false;
+        }
+
+        mSelector.getMutableDeclarations().get(index).setNormalizedValue(newValue);
+        return true;
     }
 
 
     /**
-     *
-     * @param value
-     * @return
+     * @return the hexadecimal representation of the given rgb(...) or rgba(...) token,
+     * or the given text if the color parts are not plain numbers
      */
-    private static String tryFindRgb(String value)
+    private static String tryRgbToHex(Token token, String text)
     {
-        if (value.contains("rgb("))
+        List<String> rgbParts = CssValueTokenizer.split(token.getArguments(), ',');
+        if(rgbParts.size() < 3)
         {
-            int s =  value.indexOf("rgb(");
-            int e = value.indexOf(")", s);
-            return value.substring(s, e+1);
+            return text;
         }
 
-        return "";
+        try
+        {
+            return rgbToHex(Integer.parseInt(rgbParts.get(0).trim()), Integer.parseInt(rgbParts.get(1).trim()), Integer.parseInt(rgbParts.get(2).trim()));
+        }
+        catch (NumberFormatException e)
+        {
+            LogHandler.debug("[NormalizeAndSplit] Cannot transform color '%s' into hexadecimal", token.getText());
+            return text;
+        }
     }
 
 
     /**
-     *
-     * @param value
-     * @return
+     * @return the text of the given function token, with its arguments replaced
      */
-    private static String tryFindRgba(String value)
+    private static String replaceArguments(Token token, String arguments)
+    {
+        String text = token.getText();
+        int start = token.getName().length() + 1;
+        return text.substring(0, start) + arguments + text.substring(start + token.getArguments().length());
+    }
+
+
+    private static String rgbToHex(int r, int g, int b)
+    {
+        return String.format("#%02x%02x%02x", r, g, b);
+    }
+
+
+    private static String removeWhitespace(String text)
     {
-        if(value.contains("rgba("))
+        StringBuilder builder = new StringBuilder(text.length());
+        for(int i = 0; i < text.length(); i++)
         {
-            int s =  value.indexOf("rgba(");
-            int e = value.indexOf(")", s);
-            return value.substring(s, e+1);
+            if(!Character.isWhitespace(text.charAt(i)))
+            {
+                builder.append(text.charAt(i));
+            }
         }
+        return builder.toString();
+    }
+
 
-        return "";
+    /**
+     * @return true if the token at index i is a complete whitespace-separated word
+     */
+    private static boolean isWord(List<Token> tokens, int i)
+    {
+        return (i == 0 || tokens.get(i - 1).getType() == TokenType.WHITESPACE)
+                && (i == tokens.size() - 1 || tokens.get(i + 1).getType() == TokenType.WHITESPACE);
     }
 
 
@@ -264,7 +351,7 @@ public class NormalizeAndSplitPlugin implements ICssTransformer
             }
 
             final String name = mDeclaration.getName();
-            final String value = mDeclaration.getValue();
+            final CssValue value = mDeclaration.getParsedValue();
             final boolean isImportant = mDeclaration.isImportant();
             final int order = mDeclaration.getOrder();
 
@@ -278,7 +365,7 @@ public class NormalizeAndSplitPlugin implements ICssTransformer
                 }
                 else if(name.equals("border-width") || name.equals("border-style") || name.equals("border-color"))
                 {
-                    String spec = name.replace("border-","");
+                    String spec = name.substring("border-".length());
                     newDeclarations.addAll(boxToDeclarations(value, isImportant, order, "border-%s-" + spec));
                     LogHandler.debug("[NormalizeAndSplit] Transformed shorthand '%s' declaration value into parts: '%s', important=%s", name, value, isImportant);
                 }
@@ -312,7 +399,7 @@ public class NormalizeAndSplitPlugin implements ICssTransformer
                     newDeclarations.addAll(borderToDeclarations(name, value, isImportant, order));
                     LogHandler.debug("[NormalizeAndSplit] Transformed shorthand outline declaration into parts: '%s' : '%s', important=%s", name, value, isImportant);
                 }
-                else if (name.equals("background") && !value.contains(",")) // do not support multiple backgrounds
+                else if (name.equals("background") && !value.getText().contains(",")) // do not support multiple backgrounds
                 {
                     newDeclarations.addAll(backgroundToDeclarations(value, isImportant, order));
                     LogHandler.debug("[NormalizeAndSplit] Transformed shorthand background declaration into parts: '%s' : '%s', important=%s", name, value, isImportant);
@@ -334,7 +421,32 @@ public class NormalizeAndSplitPlugin implements ICssTransformer
             }
         }
 
-        mSelector.setNewDeclarations(newDeclarations);
+        // only replace the declarations if any shorthand was split, to keep declarations shared with other selectors
+        if(!containsSameDeclarations(mSelector.getDeclarations(), newDeclarations))
+        {
+            mSelector.setNewDeclarations(newDeclarations);
+        }
+    }
+
+
+    /**
+     * @return true if both lists hold the same declaration instances in the same order
+     */
+    private static boolean containsSameDeclarations(List<MDeclaration> declarations, List<MDeclaration> otherDeclarations)
+    {
+        if(declarations.size() != otherDeclarations.size())
+        {
+            return false;
+        }
+
+        for(int i = 0; i < declarations.size(); i++)
+        {
+            if(declarations.get(i) != otherDeclarations.get(i))
+            {
+                return false;
+            }
+        }
+        return true;
     }
 
 
@@ -343,9 +455,9 @@ public class NormalizeAndSplitPlugin implements ICssTransformer
      * Split a box declaration into four parts: top, right, bottom, left
      * @throws CssSuiteException
      */
-    private static List<MDeclaration> boxToDeclarations(String value, boolean isImportant, int order, String formatter) throws CssSuiteException
+    private static List<MDeclaration> boxToDeclarations(CssValue value, boolean isImportant, int order, String formatter) throws CssSuiteException
     {
-        String[] parts = value.split("\\s");
+        String[] parts = value.getWords().toArray(new String[0]);
 
         String top;
         String right;
@@ -391,25 +503,26 @@ public class NormalizeAndSplitPlugin implements ICssTransformer
     /**
      * Split a shorthand border declaration into separate declarations
      */
-    private static List<MDeclaration> borderToDeclarations(String name, String value, boolean isImportant, int order)
+    private static List<MDeclaration> borderToDeclarations(String name, CssValue value, boolean isImportant, int order)
     {
         List<MDeclaration> props = new ArrayList<>();
 
         // either 'outline' or 'border'
         String base = name.split("-")[0];
 
-        String[] parts = value.split("\\s");
+        List<String> parts = value.getWords();
+        List<Token> partTokens = value.getWordTokens();
 
-        for(int i = 0; i < parts.length; i++)
+        for(int i = 0; i < parts.size(); i++)
         {
-            String part = parts[i];
+            String part = parts.get(i);
+            Token token = partTokens.get(i);
 
-            if(part.equals("none") || part.equals("solid") || part.equals("dotted")  || part.equals("dashed") ||  part.equals("double")
-                    || part.equals("groove") || part.equals("ridge") || part.equals("inset") || part.equals("outset"))
+            if(isKeyword(token, "none", "solid", "dotted", "dashed", "double", "groove", "ridge", "inset", "outset"))
             {
                 props.add(new MBorderDeclaration(String.format("%s-style", name), part, isImportant, order, String.format("%s-style", base)));
             }
-            else if (containsUnitLength(part) || part.equals("0"))
+            else if (isLength(token) || isKeyword(token, "thin", "medium", "thick"))
             {
                 props.add(new MBorderDeclaration(String.format("%s-width", name), part, isImportant, order, String.format("%s-width", base)));
             }
@@ -426,19 +539,19 @@ public class NormalizeAndSplitPlugin implements ICssTransformer
     /**
      * Split a given border radius into separate declarations
      */
-    private static List<MDeclaration> borderRadiusToDeclarations(String value, String vendor, boolean isImportant, int order) throws CssSuiteException
+    private static List<MDeclaration> borderRadiusToDeclarations(CssValue value, String vendor, boolean isImportant, int order) throws CssSuiteException
     {
-        String[] parts = value.split("/");
+        List<String> parts = value.split('/');
 
-        List<String> radii = parseRadiiParts(parts[0]);
+        List<String> radii = parseRadiiParts(parts.get(0));
         String topLeft = radii.get(0);
         String topRight = radii.get(1);
         String bottomRight = radii.get(2);
         String bottomLeft = radii.get(3);
 
-        if(parts.length == 2)
+        if(parts.size() == 2)
         {
-            radii = parseRadiiParts(parts[1]);
+            radii = parseRadiiParts(parts.get(1));
             topLeft += " " + radii.get(0);
             topRight += " " + radii.get(1);
             bottomRight += " " + radii.get(2);
@@ -463,7 +576,7 @@ public class NormalizeAndSplitPlugin implements ICssTransformer
     private static List<String> parseRadiiParts(String value) throws CssSuiteException
     {
         String topLeft, topRight, bottomRight, bottomLeft;
-        String[] parts = value.split("\\s");
+        String[] parts = CssValueTokenizer.splitWords(value).toArray(new String[0]);
 
         switch (parts.length)
         {
@@ -499,11 +612,12 @@ public class NormalizeAndSplitPlugin implements ICssTransformer
      * Split a shorthand background declaration into separate declarations
      * @throws CssSuiteException
      */
-    private static List<MDeclaration> backgroundToDeclarations(String value, boolean isImportant, int order) throws CssSuiteException
+    private static List<MDeclaration> backgroundToDeclarations(CssValue value, boolean isImportant, int order) throws CssSuiteException
     {
         List<MDeclaration> props = new ArrayList<>();
 
-        String[] parts = value.split("\\s");
+        String[] parts = value.getWords().toArray(new String[0]);
+        List<Token> partTokens = value.getWordTokens();
 
         boolean originSet = false;
         boolean positionSet = false;
@@ -511,20 +625,21 @@ public class NormalizeAndSplitPlugin implements ICssTransformer
         for(int i = 0; i < parts.length; i++)
         {
             String part = parts[i];
+            Token token = partTokens.get(i);
             if(part.isEmpty())
             {
                 continue;
             }
 
-            if(part.contains("repeat"))
+            if(isKeyword(token) && part.contains("repeat"))
             {
                 props.add(new MDeclaration("background-repeat", part, isImportant, order));
             }
-            else if (part.equals("scroll") || part.equals("fixed") || part.equals("local"))
+            else if (isKeyword(token, "scroll", "fixed", "local"))
             {
                 props.add(new MDeclaration("background-attachment", part, isImportant, order));
             }
-            else if(part.equals("padding-box") || part.equals("border-box") || part.equals("content-box"))
+            else if(isKeyword(token, "padding-box", "border-box", "content-box"))
             {
                 if(!originSet)
                 {
@@ -536,12 +651,11 @@ public class NormalizeAndSplitPlugin implements ICssTransformer
                     props.add(new MDeclaration("background-clip", part, isImportant, order));
                 }
             }
-            else if (part.contains("url") || part.equals("none"))
+            else if (isImage(token) || isKeyword(token, "none"))
             {
                 props.add(new MDeclaration("background-image", part, isImportant, order));
             }
-            else if (part.equals("left") || part.equals("right") || part.equals("center") || part.equals("bottom") || part.equals("top") ||
-                        containsUnitLength(part) || part.contains("%") || part.equals("0") || part.equals("auto") || !part.contains("url") && part.contains("/"))
+            else if (isPosition(token) || isKeyword(token, "auto") || containsSlash(token, part))
             {
                 String position = "";
                 String size = "";
@@ -552,19 +666,20 @@ public class NormalizeAndSplitPlugin implements ICssTransformer
                 for(j = i; j < parts.length; j++)
                 {
                     String part2 = parts[j];
+                    Token token2 = partTokens.get(j);
 
-                    if(part2.equals("/"))
+                    if(isDelimiter(token2, "/"))
                     {
                         sizeProp = true;
                     }
-                    else if (!part2.contains("url") && part2.contains("/"))
+                    else if (containsSlash(token2, part2))
                     {
-                        position += " " + part2.replace("/", "");
+                        position += " " + CssValueTokenizer.removeAll(part2, "/");
                         sizeProp = true;
                     }
                     else if(sizeProp)
                     {
-                        if(containsUnitLength(part2) || part2.contains("%") || part2.equals("0") || part2.equals("auto"))
+                        if(isLength(token2) || isPercentage(token2) || isKeyword(token2, "auto", "contain", "cover"))
                         {
                             size += " " + part2;
                         }
@@ -574,8 +689,7 @@ public class NormalizeAndSplitPlugin implements ICssTransformer
                             break;
                         }
                     }
-                    else if (part2.equals("left") || part2.equals("right") || part2.equals("center") || part2.equals("bottom") || part2.equals("top") ||
-                            containsUnitLength(part2) || part2.contains("%") || part2.equals("0"))
+                    else if (isPosition(token2))
                     {
                         if(!position.isEmpty())
                         {
@@ -615,11 +729,82 @@ public class NormalizeAndSplitPlugin implements ICssTransformer
 
 
     /**
-     * @return trie if given string contains a length unit
+     * @return true if the given word token is a length, or a unitless zero
+     */
+    private static boolean isLength(Token token)
+    {
+        return token != null && token.isLength();
+    }
+
+
+    /**
+     * @return true if the given word token is a percentage
+     */
+    private static boolean isPercentage(Token token)
+    {
+        return token != null && token.getType() == TokenType.PERCENTAGE;
+    }
+
+
+    /**
+     * @return true if the given word token is a keyword, equal to any of the given keywords if they are given
+     */
+    private static boolean isKeyword(Token token, String... keywords)
+    {
+        if(token == null || !token.isKeyword())
+        {
+            return false;
+        }
+
+        if(keywords.length == 0)
+        {
+            return true;
+        }
+
+        String text = token.getText();
+        for(String keyword : keywords)
+        {
+            if(text.equals(keyword))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+
+    /**
+     * @return true if the given word token is a url() or a function that is no color, e.g. a gradient
+     */
+    private static boolean isImage(Token token)
+    {
+        return token != null && token.isFunction() && !token.isColor();
+    }
+
+
+    /**
+     * @return true if the given word token is a background position: a keyword, length or percentage
+     */
+    private static boolean isPosition(Token token)
+    {
+        return isKeyword(token, "left", "right", "center", "bottom", "top") || isLength(token) || isPercentage(token);
+    }
+
+
+    /**
+     * @return true if the given word token is the given delimiter
+     */
+    private static boolean isDelimiter(Token token, String delimiter)
+    {
+        return token != null && token.getType() == TokenType.DELIM && token.getText().equals(delimiter);
+    }
+
+
+    /**
+     * @return true if the given word is a slash, or consists of multiple tokens including a slash, e.g. 'top/100px'
      */
-    private static boolean containsUnitLength(String value)
+    private static boolean containsSlash(Token token, String part)
     {
-        return value.contains("px") || value.contains("pt") || value.contains("pc") || value.contains("in") || value.contains("mm") || value.contains("cm") || //absolute
-                value.contains("em") || value.contains("rem") || value.contains("ex") || value.contains("ch") || value.contains("vw") || value.contains("vh") || value.contains("vmin") || value.contains("vmax"); //relative
+        return token == null ? part.contains("/") : isDelimiter(token, "/");
     }
 }
\ No newline at end of file
@@ -0,0 +1,144 @@
+package com.crawljax.plugins.cret.transformation;
+
+import com.crawljax.plugins.cret.LogHandler;
+import com.crawljax.plugins.cret.cssmodel.MCssFile;
+import com.crawljax.plugins.cret.interfaces.ICssTransformer;
+import com.crawljax.plugins.cret.interfaces.TransformerScope;
+import com.crawljax.plugins.cret.metrics.CretMetrics;
+import com.crawljax.plugins.cret.transformation.matcher.MatchedElements;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Schedules a chain of ICssTransformers over a set of CSS files
+ * Consecutive PER_FILE transformers form a stage in which every file runs through the whole stage on its own,
+ * files are processed in parallel on a ForkJoinPool
+ * PER_ELEMENT and GLOBAL transformers cross file boundaries and act as barriers between such stages
+ *
+ * The result is identical to executing the transformers one after another, files keep their original iteration order
+ * Every transformer is measured as phase 'transform.<TransformerName>', with the resulting number of rules as items
+ */
+public class TransformationPipeline
+{
+	private final List<ICssTransformer> _transformers;
+	private final int _threads;
+	private final CretMetrics _metrics;
+
+	public TransformationPipeline(List<ICssTransformer> transformers, int threads)
+	{
+		this(transformers, threads, new CretMetrics());
+	}
+
+
+	public TransformationPipeline(List<ICssTransformer> transformers, int threads, CretMetrics metrics)
+	{
+		_transformers = transformers;
+		_threads = threads;
+		_metrics = metrics;
+	}
+
+
+	/**
+	 * Execute all transformers on the given CSS files
+	 * @return the set of transformed MCssFiles
+	 */
+	public Map<String, MCssFile> execute(Map<String, MCssFile> cssFiles, MatchedElements matchedElements)
+	{
+		if(_threads <= 1)
+		{
+			Map<String, MCssFile> rules = cssFiles;
+			for(ICssTransformer transformer : _transformers)
+			{
+				rules = transform(transformer, rules, matchedElements);
+			}
+			return rules;
+		}
+
+		ForkJoinPool pool = new ForkJoinPool(_threads);
+		try
+		{
+			Map<String, MCssFile> rules = cssFiles;
+			List<ICssTransformer> stage = new ArrayList<>();
+
+			for(ICssTransformer transformer : _transformers)
+			{
+				if(transformer.getScope() == TransformerScope.PER_FILE)
+				{
+					stage.add(transformer);
+					continue;
+				}
+
+				rules = executeStage(pool, stage, rules, matchedElements);
+				stage.clear();
+
+				LogHandler.debug("[TransformationPipeline] Barrier, executing %s transformer '%s'", transformer.getScope(), transformer.getClass().getSimpleName());
+				rules = transform(transformer, rules, matchedElements);
+			}
+
+			return executeStage(pool, stage, rules, matchedElements);
+		}
+		finally
+		{
+			pool.shutdown();
+		}
+	}
+
+
+	/**
+	 * Run every file through the given PER_FILE transformers, one task per file
+	 */
+	private Map<String, MCssFile> executeStage(ForkJoinPool pool, List<ICssTransformer> stage, Map<String, MCssFile> cssFiles, MatchedElements matchedElements)
+	{
+		if(stage.isEmpty())
+		{
+			return cssFiles;
+		}
+
+		LogHandler.debug("[TransformationPipeline] Executing %d PER_FILE transformers on %d files in parallel", stage.size(), cssFiles.size());
+
+		List<String> fileNames = new ArrayList<>(cssFiles.keySet());
+		List<ForkJoinTask<Map<String, MCssFile>>> tasks = new ArrayList<>();
+
+		for(String fileName : fileNames)
+		{
+			final MCssFile file = cssFiles.get(fileName);
+			tasks.add(pool.submit(() ->
+			{
+				Map<String, MCssFile> single = new HashMap<>();
+				single.put(fileName, file);
+
+				for(ICssTransformer transformer : stage)
+				{
+					single = transform(transformer, single, matchedElements);
+				}
+
+				return single;
+			}));
+		}
+
+		// join in original order, so that the result is deterministic
+		Map<String, MCssFile> result = new LinkedHashMap<>();
+		for(int i = 0; i < fileNames.size(); i++)
+		{
+			result.putAll(tasks.get(i).join());
+		}
+
+		return result;
+	}
+
+
+	/**
+	 * Execute a single transformer and measure it
+	 */
+	private Map<String, MCssFile> transform(ICssTransformer transformer, Map<String, MCssFile> cssFiles, MatchedElements matchedElements)
+	{
+		CretMetrics.Measurement measurement = _metrics.start(CretMetrics.TRANSFORM + "." + transformer.getClass().getSimpleName());
+
+		Map<String, MCssFile> result = transformer.transform(cssFiles, matchedElements);
+
+		measurement.stop(result.values().stream().mapToInt(file -> file.getRules().size()).sum());
+		return result;
+	}
+}
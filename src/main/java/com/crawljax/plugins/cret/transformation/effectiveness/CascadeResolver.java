@@ -0,0 +1,364 @@
+package com.crawljax.plugins.cret.transformation.effectiveness;
+
+import com.crawljax.plugins.cret.cssmodel.MSelector;
+import com.crawljax.plugins.cret.cssmodel.declarations.MDeclaration;
+import com.steadystate.css.dom.Property;
+import com.steadystate.css.parser.media.MediaQuery;
+
+import java.util.*;
+
+/**
+ * Resolves the effectiveness of declarations in a single cascade (selectors sorted by specificity and location)
+ * Declarations are grouped by their interned (case-insensitive) property name id first, so that a declaration is only compared
+ * to later declarations with the same name instead of to every declaration of every later selector
+ * Media-query and pseudo conditions are turned into keys once per selector, media-query equality is computed
+ * at most once per pair of distinct media-query keys
+ *
+ * Gives exactly the same result as the pairwise EffectivenessAnalysis.computeEffectivenessPairwise,
+ * since declarations with different names never affect each other
+ * Declarations are read through the shared declaration blocks, a selector only takes a private copy of its block
+ * when the effectiveness or status of one of its declarations actually changes
+ */
+public class CascadeResolver
+{
+    private final List<MSelector> _selectors;
+
+    // condition keys per selector, a media key of 0 means 'no media-queries'
+    private final int[] _mediaKeys;
+    private final List<List<MediaQuery>> _mediaQueries;
+    private final Map<Long, Boolean> _equalMedia;
+
+    // declarations grouped by property id, in order of their first occurrence in the cascade
+    private final List<PropertyGroup> _groups;
+
+    public CascadeResolver(List<MSelector> selectors)
+    {
+        _selectors = selectors;
+        _mediaKeys = new int[selectors.size()];
+        _mediaQueries = new ArrayList<>();
+        _mediaQueries.add(Collections.emptyList());
+        _equalMedia = new HashMap<>();
+        _groups = new ArrayList<>();
+
+        Map<String, Integer> mediaKeys = new HashMap<>();
+        Map<Integer, PropertyGroup> groups = new HashMap<>();
+
+        for (int i = 0; i < selectors.size(); i++)
+        {
+            MSelector selector = selectors.get(i);
+
+            List<MediaQuery> queries = selector.getMediaQueries();
+            if (!queries.isEmpty())
+            {
+                String key = mediaKey(queries);
+                Integer mediaKey = mediaKeys.get(key);
+                if (mediaKey == null)
+                {
+                    mediaKey = _mediaQueries.size();
+                    _mediaQueries.add(queries);
+                    mediaKeys.put(key, mediaKey);
+                }
+                _mediaKeys[i] = mediaKey;
+            }
+
+            List<MDeclaration> declarations = selector.getDeclarations();
+            for (int d = 0; d < declarations.size(); d++)
+            {
+                int propertyId = declarations.get(d).getFoldedNameId();
+
+                PropertyGroup group = groups.get(propertyId);
+                if (group == null)
+                {
+                    group = new PropertyGroup();
+                    groups.put(propertyId, group);
+                    _groups.add(group);
+                }
+                group.add(i, d);
+            }
+        }
+    }
+
+
+    /**
+     * Compute effectiveness for all declarations in this cascade
+     * @param overridden A random string that is used to indicate the specific element on which this computation take place
+     *                   If a declaration was previously marked ineffective on a certain element, is not analyzed again
+     */
+    public void resolve(String overridden)
+    {
+        for (PropertyGroup group : _groups)
+        {
+            for (int a = 0; a < group.size(); a++)
+            {
+                MDeclaration declaration = getDeclaration(group, a);
+
+                // find out if declaration was already deemed effective previously
+                boolean alreadyEffective = declaration.isEffective();
+
+                if (declaration.getStatus().equals(overridden))
+                {
+                    continue;
+                }
+
+                if (!alreadyEffective)
+                {
+                    getMutableDeclaration(group, a).setEffective(true);
+                }
+
+                int i = group.getSelector(a);
+                for (int b = a + 1; b < group.size(); b++)
+                {
+                    int j = group.getSelector(b);
+
+                    // declarations in the same selector never override each other
+                    if (j == i)
+                    {
+                        continue;
+                    }
+
+                    Condition condition = compareConditions(i, j);
+                    if (condition == Condition.NONE)
+                    {
+                        continue;
+                    }
+
+                    MDeclaration nextDeclaration = getDeclaration(group, b);
+
+                    if (condition == Condition.PSEUDO)
+                    {
+                        // different pseudo-classes, only the same declaration (name and value) may be overridden
+                        if (declaration.getValue().equalsIgnoreCase(nextDeclaration.getValue()))
+                        {
+                            override(group, a, b, overridden, alreadyEffective);
+                        }
+                    }
+                    else if (condition == Condition.MEDIA)
+                    {
+                        // a less specific media-query declaration is only overridden when it is not !important
+                        if (!nextDeclaration.isImportant() || declaration.isImportant())
+                        {
+                            setStatus(group, b, overridden);
+                        }
+                    }
+                    else
+                    {
+                        override(group, a, b, overridden, alreadyEffective);
+                    }
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Override the (less specific) next declaration b, or 'this' declaration a due to !important
+     */
+    private void override(PropertyGroup group, int a, int b, String overridden, boolean alreadyEffective)
+    {
+        // it is possible, due to specificity ordering, that 'this' declaration was already deemed effective,
+        // but a less specific ('next') selector contained an !important declaration
+        // this declaration should not be !important or not previously deemed effective
+        if (!alreadyEffective && getDeclaration(group, b).isImportant() && !getDeclaration(group, a).isImportant())
+        {
+            MDeclaration declaration = getMutableDeclaration(group, a);
+            declaration.setStatus(overridden);
+            declaration.setEffective(false);
+        }
+        else
+        {
+            setStatus(group, b, overridden);
+        }
+    }
+
+
+    /**
+     * Mark the i-th declaration in the group as overridden, unless it already is
+     */
+    private void setStatus(PropertyGroup group, int i, String overridden)
+    {
+        if (!getDeclaration(group, i).getStatus().equals(overridden))
+        {
+            getMutableDeclaration(group, i).setStatus(overridden);
+        }
+    }
+
+
+    /**
+     * @return the i-th declaration in the group, possibly shared with other selectors, only to be read
+     */
+    private MDeclaration getDeclaration(PropertyGroup group, int i)
+    {
+        return _selectors.get(group.getSelector(i)).getDeclarations().get(group.getDeclarationIndex(i));
+    }
+
+
+    /**
+     * @return the i-th declaration in the group, from a private copy of the declarations of its selector
+     */
+    private MDeclaration getMutableDeclaration(PropertyGroup group, int i)
+    {
+        return _selectors.get(group.getSelector(i)).getMutableDeclarations().get(group.getDeclarationIndex(i));
+    }
+
+
+    /**
+     * @return under which condition declarations of the (less specific) selector j are compared to declarations of selector i
+     */
+    private Condition compareConditions(int i, int j)
+    {
+        MSelector selector = _selectors.get(i);
+        MSelector nextSelector = _selectors.get(j);
+
+        int media = _mediaKeys[i];
+        int nextMedia = _mediaKeys[j];
+
+        // a regular selector is less-specific, but will still apply
+        if (media > 0 && nextMedia == 0)
+        {
+            return Condition.NONE;
+        }
+
+        // both selectors have different media-queries
+        if (media > 0 && nextMedia > 0 && !hasEqualMediaQueries(media, nextMedia))
+        {
+            return Condition.NONE;
+        }
+
+        if (selector.hasPseudoElement() || nextSelector.hasPseudoElement())
+        {
+            if (!selector.hasEqualPseudoElement(nextSelector))
+            {
+                return Condition.NONE;
+            }
+        }
+
+        if (selector.isNonStructuralPseudo() || nextSelector.isNonStructuralPseudo())
+        {
+            if (!selector.hasEqualPseudoClass(nextSelector))
+            {
+                return Condition.PSEUDO;
+            }
+        }
+
+        // a regular selector is more specific, but the media-query selector may contain !important statements
+        if (media == 0 && nextMedia > 0)
+        {
+            return Condition.MEDIA;
+        }
+
+        return Condition.DEFAULT;
+    }
+
+
+    /**
+     * Same semantics as MSelector.hasEqualMediaQueries, computed once per pair of media keys
+     */
+    private boolean hasEqualMediaQueries(int media, int nextMedia)
+    {
+        long key = ((long) media << 32) | nextMedia;
+        Boolean equal = _equalMedia.get(key);
+        if (equal == null)
+        {
+            equal = _mediaQueries.get(media).stream().allMatch(query -> _mediaQueries.get(nextMedia).stream().anyMatch(other -> isEquivalent(query, other)));
+            _equalMedia.put(key, equal);
+        }
+        return equal;
+    }
+
+
+    /**
+     * @return true if both queries apply to the same media type with the same properties
+     */
+    private static boolean isEquivalent(MediaQuery query, MediaQuery otherQuery)
+    {
+        if (!query.getMedia().equals(otherQuery.getMedia()) || query.getProperties().size() != otherQuery.getProperties().size())
+        {
+            return false;
+        }
+
+        Map<String, String> propertiesToMatch = new HashMap<>();
+        for (Property prop : query.getProperties())
+        {
+            propertiesToMatch.put(prop.getName(), prop.getValue().getCssText());
+        }
+
+        for (Property otherProp : otherQuery.getProperties())
+        {
+            if (!otherProp.getValue().getCssText().equals(propertiesToMatch.get(otherProp.getName())))
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+
+    /**
+     * @return a key that is equal for media-query lists with equal media types and properties, in the same order
+     */
+    private static String mediaKey(List<MediaQuery> queries)
+    {
+        StringBuilder builder = new StringBuilder();
+        for (MediaQuery query : queries)
+        {
+            builder.append(query.getMedia()).append('\u0000');
+            for (Property prop : query.getProperties())
+            {
+                builder.append(prop.getName()).append('\u0001').append(prop.getValue() == null ? "" : prop.getValue().getCssText()).append('\u0000');
+            }
+            builder.append('\u0002');
+        }
+        return builder.toString();
+    }
+
+
+    /**
+     * Under which condition a declaration is compared to a declaration with the same name in a less specific selector
+     */
+    private enum Condition
+    {
+        // the less specific selector does not apply under the same condition
+        NONE,
+        // both apply under the same condition, the less specific declaration is overridden
+        DEFAULT,
+        // the less specific selector has media-queries, it is only overridden when it is not !important
+        MEDIA,
+        // both have different pseudo-classes, only equal values are overridden
+        PSEUDO
+    }
+
+
+    /**
+     * All declarations in the cascade with the same property name, in cascade order
+     * Declarations are kept by their index in their selector, since a selector may replace its shared declarations by a copy
+     */
+    private static class PropertyGroup
+    {
+        private int[] _selectorIndices = new int[2];
+        private int[] _declarationIndices = new int[2];
+        private int _size;
+
+        public void add(int selector, int declaration)
+        {
+            if (_size == _declarationIndices.length)
+            {
+                _selectorIndices = Arrays.copyOf(_selectorIndices, _size * 2);
+                _declarationIndices = Arrays.copyOf(_declarationIndices, _size * 2);
+            }
+
+            _selectorIndices[_size] = selector;
+            _declarationIndices[_size] = declaration;
+            _size++;
+        }
+
+        /** Getter */
+        public int size() { return _size; }
+
+        /** Getter */
+        public int getSelector(int i) { return _selectorIndices[i]; }
+
+        /** Getter */
+        public int getDeclarationIndex(int i) { return _declarationIndices[i]; }
+    }
+}
@@ -18,6 +18,22 @@ public class EffectivenessAnalysis
      */
     public static void computeEffectiveness(List<MSelector> selectors, String randomString)
     {
+        new CascadeResolver(selectors).resolve(randomString);
+    }
+
+
+    /**
+     * Compute effectiveness for given selectors and their declarations, by comparing every declaration to every declaration of every less specific selector
+     * Reference implementation for the CascadeResolver, which gives the same result
+     * @param selectors A list sorted by specificity and location
+     * @param randomString A random string that is used to indicate the specific element on which this computation take place
+     *                     If a declaration was previously marked ineffective on a certain element, is not analyzed again
+     */
+    public static void computeEffectivenessPairwise(List<MSelector> selectors, String randomString)
+    {
+        // declarations are changed below, take private copies of declarations shared with other selectors
+        selectors.forEach(MSelector::getMutableDeclarations);
+
         for (int i = 0; i < selectors.size(); i++)
         {
             MSelector selector = selectors.get(i);
@@ -5,6 +5,8 @@ import com.crawljax.plugins.cret.cssmodel.MCssFile;
 import com.crawljax.plugins.cret.cssmodel.MCssRule;
 import com.crawljax.plugins.cret.cssmodel.MSelector;
 import com.crawljax.plugins.cret.interfaces.ICssTransformer;
+import com.crawljax.plugins.cret.interfaces.TransformerScope;
+import com.crawljax.plugins.cret.transformation.matcher.CascadeSignature;
 import com.crawljax.plugins.cret.transformation.matcher.MatchedElements;
 import com.crawljax.plugins.cret.util.CretStringBuilder;
 
@@ -24,6 +26,12 @@ public class EffectivenessPlugin implements ICssTransformer
 		builder.appendLine("%s<ID>%d</ID>", prefix, _ineffectiveDeclarations);
 	}
 
+	@Override
+	public TransformerScope getScope()
+	{
+		return TransformerScope.PER_ELEMENT;
+	}
+
 
 	@Override
 	public Map<String, MCssFile> transform(Map<String, MCssFile> cssRules, MatchedElements matchedElements)
@@ -32,26 +40,15 @@ public class EffectivenessPlugin implements ICssTransformer
 
 		LogHandler.info("[Effectiveness] Performing effectiveness analysis on matched CSS selectors...");
 
-		// performance
-		Set<Set<MSelector>> processedSets = new HashSet<>();
+		// every distinct set of matched selectors only needs to be analysed once
+		List<CascadeSignature> signatures = matchedElements.getCascadeSignatures();
+		LogHandler.debug("[Effectiveness] Analysing %d distinct cascades for %d matched elements", signatures.size(), matchedElements.getMatchedElementCount());
 
-		for (String keyElement : matchedElements.getMatchedElements())
+		for (CascadeSignature signature : signatures)
 		{
-			List<MSelector> matchedSelectors = matchedElements.sortSelectorsForMatchedElem(keyElement);
-
-			// performance
-			if(processedSets.contains(new HashSet<>(matchedSelectors)))
-			{
-				LogHandler.debug("[Effectiveness] Set of matched selectors for element '%s' already processed", keyElement);
-				continue;
-			}
-
 			String overridden = "overridden-" + random.nextInt();
 
-			EffectivenessAnalysis.computeEffectiveness(matchedSelectors, overridden);
-
-			// performance
-			processedSets.add(new HashSet<>(matchedSelectors));
+			EffectivenessAnalysis.computeEffectiveness(signature.getSelectors(), overridden);
 		}
 
 
@@ -0,0 +1,77 @@
+package com.crawljax.plugins.cret.transformation.matcher;
+
+import com.crawljax.plugins.cret.cssmodel.MSelector;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A distinct set of selectors matched to one or more DOM elements
+ * All elements sharing a signature share the same cascade, so effectiveness only has to be analysed once per signature
+ */
+public class CascadeSignature
+{
+	private final int[] _selectorIds;
+	private final long _element;
+	private final List<MSelector> _selectors;
+	private int _elementCount;
+
+	// next signature with the same hash
+	private CascadeSignature _next;
+
+	CascadeSignature(int[] selectorIds, long element, List<MSelector> selectors)
+	{
+		_selectorIds = selectorIds;
+		_element = element;
+		_selectors = selectors;
+		_elementCount = 1;
+	}
+
+
+	/**
+	 * @return a 64-bit hash over the given sorted selector ids
+	 */
+	static long hash(int[] selectorIds)
+	{
+		long hash = 0xcbf29ce484222325L;
+		for(int id : selectorIds)
+		{
+			hash = (hash ^ id) * 0x100000001b3L;
+		}
+		return hash;
+	}
+
+
+	boolean hasSelectorIds(int[] selectorIds)
+	{
+		return Arrays.equals(_selectorIds, selectorIds);
+	}
+
+
+	void addElement()
+	{
+		_elementCount++;
+	}
+
+
+	/** Getter */
+	CascadeSignature getNext() { return _next; }
+
+	/** Setter */
+	void setNext(CascadeSignature next) { _next = next; }
+
+	/**
+	 * @return the selectors of this signature, sorted by their specificity and cascading rules
+	 */
+	public List<MSelector> getSelectors() { return _selectors; }
+
+	/**
+	 * @return the key of the first element matched by this signature
+	 */
+	public long getElement() { return _element; }
+
+	/**
+	 * @return the number of elements matched by exactly this set of selectors
+	 */
+	public int getElementCount() { return _elementCount; }
+}
@@ -0,0 +1,388 @@
+package com.crawljax.plugins.cret.transformation.matcher;
+
+import org.w3c.dom.Attr;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+import se.fishtank.css.selectors.dom.W3CNode;
+import se.fishtank.css.selectors.matching.SelectorMatcher;
+import se.fishtank.css.selectors.selector.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A single CSS selector, parsed once by the fishtank selector parser and compiled into a chain of compound selectors,
+ * ordered from the key (right-most) compound selector to the left-most compound selector
+ * Elements are matched right-to-left, just like browsers do, and the key compound selector decides which
+ * bucket of a DomElementIndex holds all candidate elements
+ *
+ * Tag names, ids, classes and attributes are matched natively, with the exact semantics of the fishtank SelectorMatcher,
+ * any other simple selector (pseudo-classes, nth-selectors, negations) is delegated to fishtank
+ */
+public class CompiledSelector
+{
+	private enum KeyType { ID, CLASS, TAG, ATTRIBUTE, ALL, NONE }
+
+	private static final SelectorMatcher<W3CNode> FALLBACK_MATCHER = new SelectorMatcher<>();
+
+	private final Compound[] _compounds;
+	private final KeyType _keyType;
+	private final String _key;
+
+	public CompiledSelector(Selector selector)
+	{
+		List<Compound> compounds = new ArrayList<>();
+
+		Combinator combinator = null;
+		CompoundSelector current = selector.compoundSelector;
+		while (current != null)
+		{
+			Compound compound = new Compound(current.simpleSelectors);
+			if (!compounds.isEmpty())
+			{
+				compounds.get(compounds.size() - 1)._combinator = combinator;
+			}
+			compounds.add(compound);
+
+			if (current.previous == null)
+			{
+				current = null;
+			}
+			else
+			{
+				combinator = current.previous.first;
+				current = current.previous.second;
+			}
+		}
+
+		_compounds = compounds.toArray(new Compound[compounds.size()]);
+
+		// fishtank never matches a selector that contains a pseudo-element
+		if (selector.pseudoElement != null)
+		{
+			_keyType = KeyType.NONE;
+			_key = null;
+		}
+		else
+		{
+			Compound keyCompound = _compounds[0];
+			if (keyCompound._id != null)
+			{
+				_keyType = KeyType.ID;
+				_key = keyCompound._id;
+			}
+			else if (keyCompound._classes.length > 0)
+			{
+				_keyType = KeyType.CLASS;
+				_key = keyCompound._classes[0];
+			}
+			else if (keyCompound._localName != null)
+			{
+				_keyType = KeyType.TAG;
+				_key = keyCompound._localName;
+			}
+			else if (keyCompound._attributes.length > 0)
+			{
+				_keyType = KeyType.ATTRIBUTE;
+				_key = keyCompound._attributes[0].name;
+			}
+			else
+			{
+				_keyType = KeyType.ALL;
+				_key = null;
+			}
+		}
+	}
+
+
+	/**
+	 * @return the indices of all candidate elements in the given index, in document order, or NULL if every element is a candidate
+	 */
+	public int[] getCandidates(DomElementIndex index)
+	{
+		switch (_keyType)
+		{
+			case ID:
+				return index.getById(_key);
+			case CLASS:
+				return index.getByClass(_key);
+			case TAG:
+				return index.getByTag(_key);
+			case ATTRIBUTE:
+				return index.getByAttribute(_key);
+			case NONE:
+				return new int[0];
+			default:
+				return null;
+		}
+	}
+
+
+	/**
+	 * @return true if the given element is matched by this selector
+	 */
+	public boolean matches(Element element)
+	{
+		return _keyType != KeyType.NONE && matches(element, 0);
+	}
+
+
+	/**
+	 * Match the compound selector at the given position in the chain against the given element,
+	 * then walk the DOM tree according to the combinator that relates it to its left-hand neighbour
+	 */
+	private boolean matches(Element element, int position)
+	{
+		Compound compound = _compounds[position];
+		if (!compound.matches(element))
+		{
+			return false;
+		}
+
+		if (position == _compounds.length - 1)
+		{
+			return true;
+		}
+
+		switch (compound._combinator)
+		{
+			case CHILD:
+				Element parent = parentElement(element);
+				return parent != null && matches(parent, position + 1);
+
+			case DESCENDANT:
+				for (Element ancestor = parentElement(element); ancestor != null; ancestor = parentElement(ancestor))
+				{
+					if (matches(ancestor, position + 1))
+					{
+						return true;
+					}
+				}
+				return false;
+
+			case NEXT_SIBLING:
+				Element sibling = previousElementSibling(element);
+				return sibling != null && matches(sibling, position + 1);
+
+			case LATER_SIBLING:
+				for (Element previous = previousElementSibling(element); previous != null; previous = previousElementSibling(previous))
+				{
+					if (matches(previous, position + 1))
+					{
+						return true;
+					}
+				}
+				return false;
+
+			default:
+				return false;
+		}
+	}
+
+
+	private static Element parentElement(Element element)
+	{
+		Node parent = element.getParentNode();
+		return parent != null && parent.getNodeType() == Node.ELEMENT_NODE ? (Element) parent : null;
+	}
+
+
+	private static Element previousElementSibling(Element element)
+	{
+		Node sibling = element.getPreviousSibling();
+		while (sibling != null && sibling.getNodeType() != Node.ELEMENT_NODE)
+		{
+			sibling = sibling.getPreviousSibling();
+		}
+		return (Element) sibling;
+	}
+
+
+	/**
+	 * @return the value of the attribute with the given (case-sensitive) name, or NULL
+	 */
+	private static String getAttributeValue(Element element, String name)
+	{
+		NamedNodeMap attributes = element.getAttributes();
+		for (int i = 0; i < attributes.getLength(); i++)
+		{
+			Attr attribute = (Attr) attributes.item(i);
+			if (attribute.getName().equals(name))
+			{
+				return attribute.getValue();
+			}
+		}
+		return null;
+	}
+
+
+	/**
+	 * One compound selector (sequence of simple selectors without combinators), split by type of simple selector
+	 */
+	private static class Compound
+	{
+		private final String _localName;
+		private final String _id;
+		private final String[] _classes;
+		private final AttributeSelector[] _attributes;
+		private final SimpleSelector[] _others;
+
+		private Combinator _combinator; // relation to the compound selector on the left-hand side
+
+		Compound(List<SimpleSelector> simpleSelectors)
+		{
+			String localName = null;
+			String id = null;
+			List<String> classes = new ArrayList<>();
+			List<AttributeSelector> attributes = new ArrayList<>();
+			List<SimpleSelector> others = new ArrayList<>();
+
+			for (SimpleSelector simpleSelector : simpleSelectors)
+			{
+				if (simpleSelector instanceof LocalNameSelector && localName == null)
+				{
+					localName = ((LocalNameSelector) simpleSelector).name;
+				}
+				else if (simpleSelector instanceof AttributeSelector)
+				{
+					AttributeSelector attributeSelector = (AttributeSelector) simpleSelector;
+					if (id == null && attributeSelector.match == AttributeSelector.Match.EQUALS && attributeSelector.name.equals("id"))
+					{
+						id = attributeSelector.value;
+					}
+					else if (attributeSelector.match == AttributeSelector.Match.INCLUDES && attributeSelector.name.equals("class"))
+					{
+						classes.add(attributeSelector.value);
+					}
+					else
+					{
+						attributes.add(attributeSelector);
+					}
+				}
+				else
+				{
+					others.add(simpleSelector);
+				}
+			}
+
+			_localName = localName;
+			_id = id;
+			_classes = classes.toArray(new String[classes.size()]);
+			_attributes = attributes.toArray(new AttributeSelector[attributes.size()]);
+			_others = others.toArray(new SimpleSelector[others.size()]);
+		}
+
+
+		boolean matches(Element element)
+		{
+			if (_localName != null && !element.getNodeName().equalsIgnoreCase(_localName))
+			{
+				return false;
+			}
+
+			if (_id != null && !_id.equals(getAttributeValue(element, "id")))
+			{
+				return false;
+			}
+
+			if (_classes.length > 0)
+			{
+				String classValue = getAttributeValue(element, "class");
+				if (classValue == null)
+				{
+					return false;
+				}
+
+				for (String className : _classes)
+				{
+					if (!includes(classValue, className))
+					{
+						return false;
+					}
+				}
+			}
+
+			for (AttributeSelector attributeSelector : _attributes)
+			{
+				if (!matchesAttribute(attributeSelector, element))
+				{
+					return false;
+				}
+			}
+
+			if (_others.length > 0)
+			{
+				W3CNode node = new W3CNode(element);
+				for (SimpleSelector simpleSelector : _others)
+				{
+					if (!FALLBACK_MATCHER.matchesSimpleSelector(simpleSelector, node))
+					{
+						return false;
+					}
+				}
+			}
+
+			return true;
+		}
+
+
+		private static boolean matchesAttribute(AttributeSelector selector, Element element)
+		{
+			String value = getAttributeValue(element, selector.name);
+			if (value == null)
+			{
+				return false;
+			}
+
+			switch (selector.match)
+			{
+				case EXISTS:
+					return true;
+				case EQUALS:
+					return value.equals(selector.value);
+				case INCLUDES:
+					return includes(value, selector.value);
+				case BEGINS:
+					return value.startsWith(selector.value);
+				case ENDS:
+					return value.endsWith(selector.value);
+				case CONTAINS:
+					return value.contains(selector.value);
+				case HYPHENS:
+					return value.equals(selector.value) || value.startsWith(selector.value + "-");
+				default:
+					return false;
+			}
+		}
+
+
+		/**
+		 * @return true if the given white-space separated list contains the given word
+		 */
+		private static boolean includes(String list, String word)
+		{
+			// splitting on white-space yields a leading empty word for an empty list or a list starting with white-space
+			if (word.isEmpty())
+			{
+				return list.isEmpty() || DomElementIndex.isWhiteSpace(list.charAt(0));
+			}
+
+			int length = word.length();
+			int from = 0;
+			while ((from = list.indexOf(word, from)) >= 0)
+			{
+				int end = from + length;
+				boolean startBoundary = from == 0 || DomElementIndex.isWhiteSpace(list.charAt(from - 1));
+				boolean endBoundary = end == list.length() || DomElementIndex.isWhiteSpace(list.charAt(end));
+				if (startBoundary && endBoundary)
+				{
+					return true;
+				}
+				from++;
+			}
+			return false;
+		}
+	}
+}
@@ -0,0 +1,241 @@
+package com.crawljax.plugins.cret.transformation.matcher;
+
+import org.w3c.dom.Attr;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+import java.util.*;
+
+/**
+ * Index over all elements in a DOM tree, built by walking the tree once (in document order)
+ * Elements are bucketed by tag name, id, class and attribute name, so that a compiled selector
+ * only has to verify the elements that can possibly match its key (right-most) compound selector
+ * Every bucket holds the element indices in ascending document order
+ */
+public class DomElementIndex
+{
+	private static final int[] EMPTY = new int[0];
+
+	private final List<Element> _elements;
+	private final Map<String, int[]> _byTag;
+	private final Map<String, int[]> _byId;
+	private final Map<String, int[]> _byClass;
+	private final Map<String, int[]> _byAttribute;
+	private Map<Element, Integer> _indices;
+
+	public DomElementIndex(Document dom)
+	{
+		_elements = new ArrayList<>();
+
+		Map<String, IntList> byTag = new HashMap<>();
+		Map<String, IntList> byId = new HashMap<>();
+		Map<String, IntList> byClass = new HashMap<>();
+		Map<String, IntList> byAttribute = new HashMap<>();
+
+		Node node = dom.getFirstChild();
+		while (node != null)
+		{
+			if (node.getNodeType() == Node.ELEMENT_NODE)
+			{
+				Element element = (Element) node;
+				int index = _elements.size();
+				_elements.add(element);
+
+				put(byTag, element.getNodeName().toLowerCase(Locale.ROOT), index);
+
+				NamedNodeMap attributes = element.getAttributes();
+				for (int i = 0; i < attributes.getLength(); i++)
+				{
+					Attr attribute = (Attr) attributes.item(i);
+					String name = attribute.getName();
+					put(byAttribute, name, index);
+
+					if (name.equals("id"))
+					{
+						put(byId, attribute.getValue(), index);
+					}
+					else if (name.equals("class"))
+					{
+						for (String className : splitClassValue(attribute.getValue()))
+						{
+							put(byClass, className, index);
+						}
+					}
+				}
+			}
+
+			node = nextInDocumentOrder(node, dom);
+		}
+
+		_byTag = toArrays(byTag);
+		_byId = toArrays(byId);
+		_byClass = toArrays(byClass);
+		_byAttribute = toArrays(byAttribute);
+	}
+
+
+	/**
+	 * Pre-order successor of the given node, without leaving the given root
+	 */
+	private static Node nextInDocumentOrder(Node node, Node root)
+	{
+		if (node.getFirstChild() != null)
+		{
+			return node.getFirstChild();
+		}
+
+		while (node != null && node != root)
+		{
+			if (node.getNextSibling() != null)
+			{
+				return node.getNextSibling();
+			}
+			node = node.getParentNode();
+		}
+
+		return null;
+	}
+
+
+	/**
+	 * Split a class attribute value on whitespace, as done by the fishtank matcher for the '~=' operator
+	 */
+	static Set<String> splitClassValue(String value)
+	{
+		Set<String> result = new LinkedHashSet<>();
+
+		int start = -1;
+		for (int i = 0; i <= value.length(); i++)
+		{
+			boolean whiteSpace = i == value.length() || isWhiteSpace(value.charAt(i));
+			if (whiteSpace && start >= 0)
+			{
+				result.add(value.substring(start, i));
+				start = -1;
+			}
+			else if (!whiteSpace && start < 0)
+			{
+				start = i;
+			}
+		}
+
+		return result;
+	}
+
+
+	/**
+	 * White-space as defined by CSS (and the fishtank SPACE_REGEX)
+	 */
+	static boolean isWhiteSpace(char c)
+	{
+		return c == ' ' || c == '\t' || c == '\r' || c == '\n' || c == '\f';
+	}
+
+
+	private static void put(Map<String, IntList> map, String key, int index)
+	{
+		IntList list = map.get(key);
+		if (list == null)
+		{
+			list = new IntList();
+			map.put(key, list);
+		}
+
+		// an element may carry the same class twice, keep the buckets free of duplicates
+		list.addIfLast(index);
+	}
+
+
+	private static Map<String, int[]> toArrays(Map<String, IntList> map)
+	{
+		Map<String, int[]> result = new HashMap<>(map.size() * 2);
+		for (Map.Entry<String, IntList> entry : map.entrySet())
+		{
+			result.put(entry.getKey(), entry.getValue().toArray());
+		}
+		return result;
+	}
+
+
+	/** Getter */
+	public int size() { return _elements.size(); }
+
+	/** Getter */
+	public Element getElement(int index) { return _elements.get(index); }
+
+	/**
+	 * @return the pre-order index of the given element in this DOM, or -1 if it is not part of it
+	 */
+	public int indexOf(Element element)
+	{
+		if (_indices == null)
+		{
+			_indices = new IdentityHashMap<>(_elements.size() * 2);
+			for (int i = 0; i < _elements.size(); i++)
+			{
+				_indices.put(_elements.get(i), i);
+			}
+		}
+
+		Integer index = _indices.get(element);
+		return index == null ? -1 : index;
+	}
+
+	/**
+	 * @return indices of elements with the given tag name (case-insensitive), in document order
+	 */
+	public int[] getByTag(String tagName) { return getOrEmpty(_byTag, tagName.toLowerCase(Locale.ROOT)); }
+
+	/**
+	 * @return indices of elements with the given id, in document order
+	 */
+	public int[] getById(String id) { return getOrEmpty(_byId, id); }
+
+	/**
+	 * @return indices of elements that carry the given class, in document order
+	 */
+	public int[] getByClass(String className) { return getOrEmpty(_byClass, className); }
+
+	/**
+	 * @return indices of elements that have the given attribute, in document order
+	 */
+	public int[] getByAttribute(String attributeName) { return getOrEmpty(_byAttribute, attributeName); }
+
+
+	private static int[] getOrEmpty(Map<String, int[]> map, String key)
+	{
+		int[] result = map.get(key);
+		return result == null ? EMPTY : result;
+	}
+
+
+	/**
+	 * Minimal growable int array, to avoid boxing of element indices while building the index
+	 */
+	static class IntList
+	{
+		private int[] _values = new int[4];
+		private int _size;
+
+		void addIfLast(int value)
+		{
+			if (_size > 0 && _values[_size - 1] == value)
+			{
+				return;
+			}
+
+			if (_size == _values.length)
+			{
+				_values = Arrays.copyOf(_values, _size * 2);
+			}
+			_values[_size++] = value;
+		}
+
+		int[] toArray()
+		{
+			return Arrays.copyOf(_values, _size);
+		}
+	}
+}
@@ -1,5 +1,6 @@
 package com.crawljax.plugins.cret.transformation.matcher;
 
+import java.nio.ByteBuffer;
 import java.util.*;
 
 import com.crawljax.plugins.cret.LogHandler;
@@ -16,9 +17,12 @@ import se.fishtank.css.selectors.parser.ParserException;
 
 public class ElementSelectorMatcher
 {
+	// index returned for a selector that matches the document itself
+	private static final int DOCUMENT = -1;
+
 	/**
 	 * Match a given set of CSS files and their rules to the DOM state they are included in
-	 * Uses fishtank css selector library to match W3C selectors to W3C nodes
+	 * Uses an index over the DOM and compiled selectors to match W3C selectors to W3C nodes
 	 * @param stateName name of given state, used in marking unique DOM nodes
 	 * @param dom the document CSS files are included in
 	 * @param cssRules the CSS files
@@ -27,6 +31,53 @@ public class ElementSelectorMatcher
 	 */
 	public static void matchElementsToDocument(String stateName, Document dom, Map<String, MCssFile> cssRules, LinkedHashMap<String, Integer> stateFileOrder, MatchedElements matchedElements)
 	{
+		matchElementsToDocument(stateName, dom, cssRules, stateFileOrder, matchedElements, true);
+	}
+
+
+	/**
+	 * Match a given set of CSS files and their rules to the DOM state they are included in
+	 * @param stateName name of given state, used in marking unique DOM nodes
+	 * @param dom the document CSS files are included in
+	 * @param cssRules the CSS files
+	 * @param stateFileOrder the order by which CSS files where included
+	 * @param matchedElements the total set of matched elements (static)
+	 * @param indexed true to use the DOM index and compiled selectors, false to query the whole DOM with fishtank for every selector
+	 */
+	public static void matchElementsToDocument(String stateName, Document dom, Map<String, MCssFile> cssRules, LinkedHashMap<String, Integer> stateFileOrder, MatchedElements matchedElements, boolean indexed)
+	{
+		matchElementsToDocument(stateName, dom, cssRules, stateFileOrder, matchedElements, indexed, null);
+	}
+
+
+	/**
+	 * Match a given set of CSS files and their rules to the DOM state they are included in
+	 * @param stateName name of given state, used in marking unique DOM nodes
+	 * @param dom the document CSS files are included in
+	 * @param cssRules the CSS files
+	 * @param stateFileOrder the order by which CSS files where included
+	 * @param matchedElements the total set of matched elements (static)
+	 * @param indexed true to use the DOM index and compiled selectors, false to query the whole DOM with fishtank for every selector
+	 * @param reuseCache match results of earlier states to reuse for elements in an equal context, or NULL to match every element,
+	 *                   only used for indexed matching
+	 */
+	public static void matchElementsToDocument(String stateName, Document dom, Map<String, MCssFile> cssRules, LinkedHashMap<String, Integer> stateFileOrder, MatchedElements matchedElements, boolean indexed, MatchReuseCache reuseCache)
+	{
+		// walk the DOM only once for all selectors in all files, the index also provides the pre-order element keys
+		DomElementIndex index = new DomElementIndex(dom);
+
+		// contexts of all elements, computed once for all files in this state
+		ByteBuffer[] contexts = null;
+		if (indexed && reuseCache != null)
+		{
+			Set<String> selectorAttributes = new HashSet<>();
+			for (String fileName : stateFileOrder.keySet())
+			{
+				selectorAttributes.addAll(reuseCache.getFileResults(cssRules.get(fileName)).getSelectorAttributes());
+			}
+			contexts = MatchReuseCache.computeContexts(index, selectorAttributes);
+		}
+
 		for (String fileName : stateFileOrder.keySet())
 		{
 			LogHandler.info("[ElementSelectorMatcher] Matching DOM elements for css file '%s'...", fileName);
@@ -34,11 +85,46 @@ public class ElementSelectorMatcher
 
 			int order = stateFileOrder.get(fileName);
 
+			// elements for which the matching selectors are known from an earlier state, per selector position in this file
+			MatchReuseCache.FileResults fileResults = null;
+			boolean[] known = null;
+			Map<Integer, List<Integer>> knownMatches = null;
+			List<DomElementIndex.IntList> newMatches = null;
+			if (contexts != null)
+			{
+				fileResults = reuseCache.getFileResults(cssRules.get(fileName));
+				known = new boolean[index.size()];
+				knownMatches = new HashMap<>();
+				newMatches = new ArrayList<>(index.size());
+
+				int reused = 0;
+				for (int i = 0; i < index.size(); i++)
+				{
+					int[] selectors = fileResults.get(contexts[i]);
+					newMatches.add(selectors == null ? new DomElementIndex.IntList() : null);
+					if (selectors != null)
+					{
+						known[i] = true;
+						reused++;
+						for (int selector : selectors)
+						{
+							knownMatches.computeIfAbsent(selector, key -> new ArrayList<>()).add(i);
+						}
+					}
+				}
+
+				reuseCache.countElements(reused, index.size() - reused);
+				LogHandler.debug("[ElementSelectorMatcher] Reuse matches for %d of %d elements", reused, index.size());
+			}
+
+			int position = -1;
 			for (MCssRule mRule : cssRules.get(fileName).getRules())
 			{
 				List<MSelector> mSelectors = mRule.getSelectors();
 				for (MSelector mSelector : mSelectors)
 				{
+					position++;
+
 					if (mSelector.isIgnored())
 					{
 						continue;
@@ -46,12 +132,27 @@ public class ElementSelectorMatcher
 
 					String cssSelector = mSelector.getFilteredSelectorText();
 
-					Selectors seSelectors = new Selectors(new W3CNode(dom));
-
-					List<Node> result;
+					List<Integer> result;
 					try
 					{
-						result = seSelectors.querySelectorAll(cssSelector);
+						if (known != null)
+						{
+							List<Integer> evaluated = queryIndex(index, SelectorCompiler.compile(cssSelector), known);
+							for (int elementIndex : evaluated)
+							{
+								newMatches.get(elementIndex).addIfLast(position);
+							}
+							result = merge(knownMatches.getOrDefault(position, Collections.emptyList()), evaluated);
+						}
+						else if (indexed)
+						{
+							result = queryIndex(index, SelectorCompiler.compile(cssSelector), null);
+						}
+						else
+						{
+							Selectors seSelectors = new Selectors(new W3CNode(dom));
+							result = toIndices(index, seSelectors.querySelectorAll(cssSelector));
+						}
 					}
 					catch (ParserException ex)
 					{
@@ -60,34 +161,46 @@ public class ElementSelectorMatcher
 					}
 					catch (Exception ex)
 					{
-						LogHandler.error("[ElementSelectorMatcher] Could not query DOM tree with selector '%s' from rule '%s' from file '%s'" + cssSelector, mRule, fileName);
+						LogHandler.error(ex, "[ElementSelectorMatcher] Could not query DOM tree with selector '%s' from rule '%s' from file '%s'", cssSelector, mRule, fileName);
 						continue;
 					}
 
-					for (Node node : result)
+					for (int elementIndex : result)
 					{
+						if (elementIndex == DOCUMENT)
+						{
+							LogHandler.warn("[ElementSelectorMatcher] CSS rule returns the whole document, rule '%s", mRule);
+							mSelector.setMatched(true);
+							matchCount++;
+							continue;
+						}
+
+						Element element = index.getElement(elementIndex);
+
 						//compare any selector containing non-structural pseudo classes on their compatibility with the node they matched
 						if (mSelector.isNonStructuralPseudo())
 						{
-							if (!mSelector.checkPseudoCompatibility(node.getNodeName(), node.getAttributes()))
+							if (!mSelector.checkPseudoCompatibility(element.getNodeName(), element.getAttributes()))
 							{
 								continue;
 							}
 						}
 
-						if (node instanceof Document)
-						{
-							LogHandler.warn("[ElementSelectorMatcher] CSS rule returns the whole document, rule '%s", mRule);
-							mSelector.setMatched(true);
-							matchCount++;
-						}
-						else
-						{
-							ElementWrapper ew = new ElementWrapper(stateName, (Element) node);
-							mSelector.addMatchedElement(ew);
-							matchedElements.setMatchedElement(ew, mSelector, order);
-							matchCount++;
-						}
+						ElementWrapper ew = new ElementWrapper(matchedElements.getStateRegistry(), stateName, element, elementIndex);
+						mSelector.addMatchedElement(ew);
+						matchedElements.setMatchedElement(ew, mSelector, order);
+						matchCount++;
+					}
+				}
+			}
+
+			if (fileResults != null)
+			{
+				for (int i = 0; i < index.size(); i++)
+				{
+					if (!known[i])
+					{
+						fileResults.put(contexts[i], newMatches.get(i).toArray());
 					}
 				}
 			}
@@ -95,4 +208,115 @@ public class ElementSelectorMatcher
 			LogHandler.info("[ElementSelectorMatcher] Matched '%d' elements in DOM to CSS selectors", matchCount);
 		}
 	}
-}
\ No newline at end of file
+
+
+	/**
+	 * Merge two lists of element indices in ascending document order
+	 */
+	private static List<Integer> merge(List<Integer> first, List<Integer> second)
+	{
+		if (first.isEmpty())
+		{
+			return second;
+		}
+
+		List<Integer> result = new ArrayList<>(first.size() + second.size());
+		int i = 0;
+		int j = 0;
+		while (i < first.size() || j < second.size())
+		{
+			if (j == second.size() || (i < first.size() && first.get(i) < second.get(j)))
+			{
+				result.add(first.get(i++));
+			}
+			else
+			{
+				result.add(second.get(j++));
+			}
+		}
+		return result;
+	}
+
+
+	/**
+	 * Map the nodes returned by fishtank to their pre-order index, the whole document is mapped to DOCUMENT
+	 */
+	private static List<Integer> toIndices(DomElementIndex index, List<Node> nodes)
+	{
+		List<Integer> result = new ArrayList<>(nodes.size());
+		for (Node node : nodes)
+		{
+			result.add(node instanceof Element ? index.indexOf((Element) node) : DOCUMENT);
+		}
+		return result;
+	}
+
+
+	/**
+	 * Query the indexed DOM with the given compiled selectors
+	 * Only the candidates found via the key selector are verified, the result holds element indices in document order
+	 * @param skip elements that are not verified, or NULL to verify all candidates
+	 */
+	private static List<Integer> queryIndex(DomElementIndex index, List<CompiledSelector> selectors, boolean[] skip)
+	{
+		List<Integer> result = new ArrayList<>();
+
+		if (selectors.size() == 1)
+		{
+			CompiledSelector selector = selectors.get(0);
+			int[] candidates = selector.getCandidates(index);
+
+			if (candidates == null)
+			{
+				for (int i = 0; i < index.size(); i++)
+				{
+					if (skip != null && skip[i])
+					{
+						continue;
+					}
+
+					Element element = index.getElement(i);
+					if (selector.matches(element))
+					{
+						result.add(i);
+					}
+				}
+			}
+			else
+			{
+				for (int candidate : candidates)
+				{
+					if (skip != null && skip[candidate])
+					{
+						continue;
+					}
+
+					Element element = index.getElement(candidate);
+					if (selector.matches(element))
+					{
+						result.add(candidate);
+					}
+				}
+			}
+		}
+		else
+		{
+			// selector group, an element is matched if any of the selectors in the group matches
+			for (int i = 0; i < index.size(); i++)
+			{
+				if (skip != null && skip[i])
+				{
+					continue;
+				}
+
+				Element element = index.getElement(i);
+				if (selectors.stream().anyMatch(selector -> selector.matches(element)))
+				{
+					result.add(i);
+				}
+			}
+		}
+
+		return result;
+	}
+}
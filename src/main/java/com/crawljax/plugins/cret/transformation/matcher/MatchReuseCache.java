@@ -0,0 +1,218 @@
+package com.crawljax.plugins.cret.transformation.matcher;
+
+import com.crawljax.plugins.cret.cssmodel.MCssFile;
+import com.crawljax.plugins.cret.cssmodel.MCssRule;
+import com.crawljax.plugins.cret.cssmodel.MSelector;
+import com.crawljax.plugins.cret.dommodel.DomFingerprint;
+import com.crawljax.plugins.cret.util.Hashing;
+import org.w3c.dom.Attr;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.*;
+
+/**
+ * Match results per element context, reused across DOM states
+ * The context of an element is a Merkle hash over its ancestor chain: the hash of an element combines the hash of its parent,
+ * a hash over all element children of that parent (tag, attributes and emptiness of every sibling) and the position of the element
+ * Everything a selector can inspect (ancestors, siblings of the element and of its ancestors, the element itself and whether it is :empty)
+ * is part of that hash, so that elements with equal contexts are matched by exactly the same selectors, also for combinators and
+ * structural pseudo-classes
+ * Unchanged subtrees under an unchanged ancestor chain, such as headers, navigation and footers, therefore only need to be matched once
+ *
+ * Results are kept per CSS file (instance), for at most a given number of contexts per file
+ * Not thread-safe, all states must be matched by the same thread or one at a time
+ */
+public class MatchReuseCache
+{
+	private static final Set<String> VALUE_ATTRIBUTES = new HashSet<>(Arrays.asList("id", "class", "lang", "dir"));
+
+	private static final int[] NONE = new int[0];
+	private static final byte[] DOCUMENT_CONTEXT = new byte[0];
+
+	private final Map<MCssFile, FileResults> _files = new IdentityHashMap<>();
+	private final int _maxContexts;
+
+	private long _reusedElements;
+	private long _evaluatedElements;
+
+	/**
+	 * @param maxContexts maximum number of element contexts to keep per CSS file
+	 */
+	public MatchReuseCache(int maxContexts)
+	{
+		_maxContexts = Math.max(0, maxContexts);
+	}
+
+
+	/** Getter */
+	public long getReusedElements() { return _reusedElements; }
+
+	/** Getter */
+	public long getEvaluatedElements() { return _evaluatedElements; }
+
+
+	FileResults getFileResults(MCssFile file)
+	{
+		return _files.computeIfAbsent(file, FileResults::new);
+	}
+
+
+	void countElements(int reused, int evaluated)
+	{
+		_reusedElements += reused;
+		_evaluatedElements += evaluated;
+	}
+
+
+	/**
+	 * Compute the context of every element in the given index
+	 * @param selectorAttributes names of attributes used in attribute selectors, the values of other attributes (except id, class, lang and dir) are ignored
+	 * @return the context per pre-order element index
+	 */
+	static ByteBuffer[] computeContexts(DomElementIndex index, Set<String> selectorAttributes)
+	{
+		MessageDigest digest = Hashing.newSha256();
+		ByteBuffer[] contexts = new ByteBuffer[index.size()];
+
+		// hash over the element children of a parent, and the position of every element among its siblings
+		Map<Node, byte[]> childrenHashes = new IdentityHashMap<>();
+		Map<Element, Integer> positions = new IdentityHashMap<>();
+
+		StringBuilder buffer = new StringBuilder();
+		for (int i = 0; i < index.size(); i++)
+		{
+			Element element = index.getElement(i);
+			Node parent = element.getParentNode();
+
+			byte[] childrenHash = childrenHashes.get(parent);
+			if (childrenHash == null)
+			{
+				buffer.setLength(0);
+				int position = 0;
+				for (Node child = parent.getFirstChild(); child != null; child = child.getNextSibling())
+				{
+					if (child.getNodeType() == Node.ELEMENT_NODE)
+					{
+						appendLocal(buffer, (Element) child, selectorAttributes);
+						positions.put((Element) child, position++);
+					}
+				}
+
+				childrenHash = digest.digest(buffer.toString().getBytes(StandardCharsets.UTF_8));
+				childrenHashes.put(parent, childrenHash);
+			}
+
+			// pre-order, the context of the parent is always computed before the contexts of its children
+			byte[] parentContext = parent.getNodeType() == Node.ELEMENT_NODE ? contexts[index.indexOf((Element) parent)].array() : DOCUMENT_CONTEXT;
+
+			digest.update(parentContext);
+			digest.update(childrenHash);
+			digest.update(ByteBuffer.allocate(4).putInt(positions.get(element)).array());
+			contexts[i] = ByteBuffer.wrap(digest.digest());
+		}
+
+		return contexts;
+	}
+
+
+	/**
+	 * Append tag, attributes and emptiness of a single element
+	 */
+	private static void appendLocal(StringBuilder buffer, Element element, Set<String> selectorAttributes)
+	{
+		buffer.append('<').append(element.getNodeName());
+
+		// attributes in a fixed order, the DOM does not guarantee one
+		NamedNodeMap attributes = element.getAttributes();
+		List<String> names = new ArrayList<>(attributes.getLength());
+		Map<String, String> values = new HashMap<>();
+		for (int i = 0; i < attributes.getLength(); i++)
+		{
+			Attr attribute = (Attr) attributes.item(i);
+			names.add(attribute.getName());
+			values.put(attribute.getName(), attribute.getValue());
+		}
+		Collections.sort(names);
+
+		for (String name : names)
+		{
+			buffer.append(' ').append(name);
+			String lowerName = name.toLowerCase(Locale.ROOT);
+			if (VALUE_ATTRIBUTES.contains(lowerName) || selectorAttributes.contains(lowerName))
+			{
+				// length-prefixed, so that no value can be mistaken for other attributes
+				String value = values.get(name);
+				buffer.append('=').append(value.length()).append(':').append(value);
+			}
+		}
+
+		buffer.append('/').append(isEmpty(element) ? '0' : '1').append('>');
+	}
+
+
+	/**
+	 * @return true if the given element is matched by :empty, it has no element children and no non-empty text children
+	 */
+	private static boolean isEmpty(Element element)
+	{
+		for (Node child = element.getFirstChild(); child != null; child = child.getNextSibling())
+		{
+			if (child.getNodeType() == Node.ELEMENT_NODE)
+			{
+				return false;
+			}
+
+			if (child.getNodeType() == Node.TEXT_NODE && child.getNodeValue() != null && !child.getNodeValue().isEmpty())
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+
+
+	/**
+	 * Matched selectors per element context, for a single CSS file
+	 * Selectors are identified by their position among all selectors of all rules in the file
+	 */
+	class FileResults
+	{
+		private final Set<String> _selectorAttributes = new HashSet<>();
+		private final Map<ByteBuffer, int[]> _matches = new HashMap<>();
+
+		private FileResults(MCssFile file)
+		{
+			for (MCssRule rule : file.getRules())
+			{
+				for (MSelector selector : rule.getSelectors())
+				{
+					_selectorAttributes.addAll(DomFingerprint.getSelectorAttributes(selector.getFilteredSelectorText()));
+				}
+			}
+		}
+
+		/** Getter */
+		Set<String> getSelectorAttributes() { return _selectorAttributes; }
+
+		/**
+		 * @return the positions of the selectors that match an element in the given context, in ascending order, or NULL if unknown
+		 */
+		int[] get(ByteBuffer context)
+		{
+			return _matches.get(context);
+		}
+
+		void put(ByteBuffer context, int[] selectors)
+		{
+			if (_matches.size() < _maxContexts)
+			{
+				_matches.put(context, selectors.length == 0 ? NONE : selectors);
+			}
+		}
+	}
+}
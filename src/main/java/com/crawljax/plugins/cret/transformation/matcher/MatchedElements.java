@@ -1,29 +1,68 @@
 package com.crawljax.plugins.cret.transformation.matcher;
 
+import com.crawljax.plugins.cret.dommodel.ElementKey;
 import com.crawljax.plugins.cret.dommodel.ElementWrapper;
 import com.crawljax.plugins.cret.cssmodel.MSelector;
+import com.crawljax.plugins.cret.util.LongHashMap;
 import com.crawljax.plugins.cret.util.specificity.SpecificitySelector;
 
-import com.google.common.collect.ArrayListMultimap;
-import com.google.common.collect.ListMultimap;
-
 import java.util.*;
 import java.util.stream.Collectors;
 
+/**
+ * Selectors matched per DOM element, elements are identified by their ElementKey
+ * Matches are stored in a long-keyed map, with the selectors of an element as int ids and their file orders in int arrays
+ * Elements matched by the same set of selectors are grouped into CascadeSignatures
+ */
 public class MatchedElements
 {
-	private final Map<String, ListMultimap<Integer, MSelector>> _elementSelectors;
+	private final LongHashMap<ElementMatches> _elementSelectors;
+	private final ElementKey.StateRegistry _stateRegistry;
+
+	// selector ids, in order of first match
+	private final List<MSelector> _selectors;
+	private final Map<MSelector, Integer> _selectorIds;
+
+	// distinct cascades, computed on demand and reset by every new match
+	private List<CascadeSignature> _signatures;
 
 	public MatchedElements()
 	{
-		_elementSelectors = new HashMap<>();
+		this(new ElementKey.StateRegistry());
+	}
+
+
+	/**
+	 * @param stateRegistry registry for the state ids in element keys, shared with other matches whose keys must be comparable to these
+	 */
+	public MatchedElements(ElementKey.StateRegistry stateRegistry)
+	{
+		_elementSelectors = new LongHashMap<>();
+		_stateRegistry = stateRegistry;
+		_selectors = new ArrayList<>();
+		_selectorIds = new IdentityHashMap<>();
 	}
 
 
 	/** Getter */
-	public Set<String> getMatchedElements()
+	public ElementKey.StateRegistry getStateRegistry() { return _stateRegistry; }
+
+
+	/**
+	 * @return the keys of all matched elements, in order of their first match
+	 */
+	public long[] getMatchedElements()
 	{
-		return _elementSelectors.keySet();
+		return _elementSelectors.keys();
+	}
+
+
+	/**
+	 * @return the number of matched elements
+	 */
+	public int getMatchedElementCount()
+	{
+		return _elementSelectors.size();
 	}
 
 
@@ -32,53 +71,109 @@ public class MatchedElements
 	 */
 	public void setMatchedElement(ElementWrapper element, MSelector selector, int order)
 	{
-		String key = element.getKey();
+		long key = element.getKey();
 
-		if(!_elementSelectors.containsKey(key))
+		ElementMatches matches = _elementSelectors.get(key);
+		if(matches == null)
 		{
-			_elementSelectors.put(key, ArrayListMultimap.create());
+			matches = new ElementMatches(element);
+			_elementSelectors.put(key, matches);
 		}
 
-		_elementSelectors.get(key).put(order, selector);
+		Integer selectorId = _selectorIds.get(selector);
+		if(selectorId == null)
+		{
+			selectorId = _selectors.size();
+			_selectors.add(selector);
+			_selectorIds.put(selector, selectorId);
+		}
+
+		matches.add(selectorId, order);
+		_signatures = null;
 	}
 
 
 	/**
-	 * Transform all selectors that match a given element into a list of SpecificitySelector instances
-	 * Use that list to sort the selectors in place, and then return the MSelectors contained by the SpecificitySelectors instances in the sorted list
-	 * @param cssFileOrders we need a list of selectors first by their 'file' order and then by their specificity
-	 * @param orderSelectorMap
-	 * @return all selectors that were matched to the given element, sorted by their specificity and cascading rules
+	 * @return the state name and XPath expression of the given matched element, built on demand for logging and verification output
 	 */
-	public List<MSelector> sortSelectorsForMatchedElem(List<Integer> cssFileOrders, ListMultimap orderSelectorMap)
+	public String getXPath(long element)
 	{
-		// we know that cssFilesOrder is ordered (by using LinkedHashMap and ListMultiMap implementations),
-		// just need to reverse it (so we get highest order first)
-		Collections.reverse(cssFileOrders);
+		return _elementSelectors.get(element).getElement().getXPath();
+	}
 
-		List<SpecificitySelector> selectorsToSort = new ArrayList<>();
-		for(int order : cssFileOrders)
-		{
-			List<MSelector> selectorsForFile = orderSelectorMap.get(order);
 
-			//wrap MSelector in SpecificitySelector
-			selectorsToSort.addAll(selectorsForFile.stream().map(selector -> new SpecificitySelector(selector, order)).collect(Collectors.toList()));
+	/**
+	 * Group all matched elements by the set of selectors they are matched by, each distinct set is sorted only once
+	 * @return the distinct cascade signatures, in order of the first element they match
+	 */
+	public List<CascadeSignature> getCascadeSignatures()
+	{
+		if(_signatures != null)
+		{
+			return _signatures;
 		}
 
-		sortBySpecificity(selectorsToSort);
+		List<CascadeSignature> signatures = new ArrayList<>();
+		LongHashMap<CascadeSignature> byHash = new LongHashMap<>();
 
-		// extract the MSelectors from the list of sorted SpecificitySelectors and return
-		return selectorsToSort.stream().map((ss) -> ss.getSelector()).collect(Collectors.toList());
+		for(long element : _elementSelectors.keys())
+		{
+			int[] selectorIds = _elementSelectors.get(element).getSortedSelectors();
+			long hash = CascadeSignature.hash(selectorIds);
+
+			CascadeSignature head = byHash.get(hash);
+			CascadeSignature signature = head;
+			while(signature != null && !signature.hasSelectorIds(selectorIds))
+			{
+				signature = signature.getNext();
+			}
+
+			if(signature != null)
+			{
+				signature.addElement();
+				continue;
+			}
+
+			signature = new CascadeSignature(selectorIds, element, Collections.unmodifiableList(sortSelectorsForMatchedElem(element)));
+			signature.setNext(head);
+			byHash.put(hash, signature);
+			signatures.add(signature);
+		}
+
+		_signatures = Collections.unmodifiableList(signatures);
+		return _signatures;
 	}
 
 
 	/**
 	 * Transform all selectors that match a given element into a list of SpecificitySelector instances
 	 * Use that list to sort the selectors in place, and then return the MSelectors contained by the SpecificitySelectors instances in the sorted list
+	 * @return all selectors that were matched to the given element, sorted by their specificity and cascading rules
 	 */
-	public List<MSelector> sortSelectorsForMatchedElem(String element)
+	public List<MSelector> sortSelectorsForMatchedElem(long element)
 	{
-		return sortSelectorsForMatchedElem(new ArrayList<>(_elementSelectors.get(element).keySet()), _elementSelectors.get(element));
+		ElementMatches matches = _elementSelectors.get(element);
+
+		// we need a list of selectors first by their 'file' order (highest order first) and then by their specificity
+		List<SpecificitySelector> selectorsToSort = new ArrayList<>(matches.size());
+		int[] orders = matches.getDistinctOrders();
+		for(int i = orders.length - 1; i >= 0; i--)
+		{
+			int order = orders[i];
+			for(int j = 0; j < matches.size(); j++)
+			{
+				if(matches.getOrder(j) == order)
+				{
+					//wrap MSelector in SpecificitySelector
+					selectorsToSort.add(new SpecificitySelector(_selectors.get(matches.getSelector(j)), order));
+				}
+			}
+		}
+
+		sortBySpecificity(selectorsToSort);
+
+		// extract the MSelectors from the list of sorted SpecificitySelectors and return
+		return selectorsToSort.stream().map((ss) -> ss.getSelector()).collect(Collectors.toList());
 	}
 
 
@@ -89,8 +184,8 @@ public class MatchedElements
 	{
 		Collections.sort(selectors, (s1, s2) ->
 		{
-			int value1 = s1.getSpecificity();
-			int value2 = s2.getSpecificity();
+			long value1 = s1.getSpecificity();
+			long value2 = s2.getSpecificity();
 
 			//if two selectors have the same _specificity, we need to verify the position in the file or the position of the file in the DOM document
 			if (value1 == value2)
@@ -120,7 +215,96 @@ public class MatchedElements
 				}
 			}
 
-			return Integer.compare(value2, value1);
+			return Long.compare(value2, value1);
 		});
 	}
-}
\ No newline at end of file
+
+
+	/**
+	 * Selectors matched to a single element, as selector ids and the order of the file they are contained in
+	 */
+	private static class ElementMatches
+	{
+		private final ElementWrapper _element;
+		private int[] _selectors;
+		private int[] _orders;
+		private int _size;
+
+		public ElementMatches(ElementWrapper element)
+		{
+			_element = element;
+			_selectors = new int[4];
+			_orders = new int[4];
+		}
+
+		public void add(int selector, int order)
+		{
+			if(_size == _selectors.length)
+			{
+				_selectors = Arrays.copyOf(_selectors, _size * 2);
+				_orders = Arrays.copyOf(_orders, _size * 2);
+			}
+
+			_selectors[_size] = selector;
+			_orders[_size] = order;
+			_size++;
+		}
+
+		/**
+		 * @return the distinct selector ids of this element, in ascending order
+		 */
+		public int[] getSortedSelectors()
+		{
+			int[] result = Arrays.copyOf(_selectors, _size);
+			Arrays.sort(result);
+
+			int count = 0;
+			for(int i = 0; i < result.length; i++)
+			{
+				if(count == 0 || result[count - 1] != result[i])
+				{
+					result[count++] = result[i];
+				}
+			}
+
+			return count == result.length ? result : Arrays.copyOf(result, count);
+		}
+
+		/**
+		 * @return the distinct file orders, in order of their first match
+		 */
+		public int[] getDistinctOrders()
+		{
+			int[] result = new int[_size];
+			int count = 0;
+
+			for(int i = 0; i < _size; i++)
+			{
+				boolean known = false;
+				for(int j = 0; j < count && !known; j++)
+				{
+					known = result[j] == _orders[i];
+				}
+
+				if(!known)
+				{
+					result[count++] = _orders[i];
+				}
+			}
+
+			return Arrays.copyOf(result, count);
+		}
+
+		/** Getter */
+		public ElementWrapper getElement() { return _element; }
+
+		/** Getter */
+		public int size() { return _size; }
+
+		/** Getter */
+		public int getSelector(int i) { return _selectors[i]; }
+
+		/** Getter */
+		public int getOrder(int i) { return _orders[i]; }
+	}
+}
@@ -0,0 +1,44 @@
+package com.crawljax.plugins.cret.transformation.matcher;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import se.fishtank.css.selectors.Selectors;
+import se.fishtank.css.selectors.parser.ParserException;
+import se.fishtank.css.selectors.selector.Selector;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Compiles selector text into CompiledSelectors, each distinct selector text is only parsed and compiled once
+ * and re-used for every DOM state it is matched against
+ * The cache is shared by all runs in this JVM and holds a bounded number of selector texts, least recently used ones are evicted first
+ */
+public class SelectorCompiler
+{
+	private static final int MAX_SELECTORS = 100000;
+	private static final Cache<String, List<CompiledSelector>> CACHE = CacheBuilder.newBuilder().maximumSize(MAX_SELECTORS).build();
+
+	/**
+	 * @return the compiled selectors for the given selector text (more than one if the text holds a selector group)
+	 * @throws ParserException if the selector text cannot be parsed by the fishtank parser
+	 */
+	public static List<CompiledSelector> compile(String selectorText) throws ParserException
+	{
+		List<CompiledSelector> compiled = CACHE.getIfPresent(selectorText);
+		if (compiled == null)
+		{
+			List<CompiledSelector> result = new ArrayList<>();
+			for (Selector selector : Selectors.parse(selectorText))
+			{
+				result.add(new CompiledSelector(selector));
+			}
+
+			compiled = Collections.unmodifiableList(result);
+			CACHE.put(selectorText, compiled);
+		}
+
+		return compiled;
+	}
+}
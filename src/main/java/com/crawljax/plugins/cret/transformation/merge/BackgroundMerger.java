@@ -1,6 +1,7 @@
 package com.crawljax.plugins.cret.transformation.merge;
 
 import com.crawljax.plugins.cret.cssmodel.declarations.MDeclaration;
+import com.crawljax.plugins.cret.util.CssValue;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -34,33 +35,33 @@ public class BackgroundMerger extends MergerBase
     }
 
 
-    protected boolean parseSingleDeclaration(String name, String value)
+    protected boolean parseSingleDeclaration(String name, CssValue value)
     {
         switch (name.split("-")[1])
         {
             case "color":
-                _color = value;
+                _color = value.getText();
                 break;
             case "image":
-                _image = value;
+                _image = value.getText();
                 break;
             case "position":
-                _position = value;
+                _position = value.getText();
                 break;
             case "size":
-                _size = value;
+                _size = value.getText();
                 break;
             case "origin":
-                _origin = value;
+                _origin = value.getText();
                 break;
             case "clip":
-                _clip = value;
+                _clip = value.getText();
                 break;
             case "repeat":
-                _repeat = value;
+                _repeat = value.getText();
                 break;
             case "attachment":
-                _attachment = value;
+                _attachment = value.getText();
                 break;
             default:
                 return false;
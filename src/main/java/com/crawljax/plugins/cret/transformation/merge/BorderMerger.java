@@ -1,6 +1,7 @@
 package com.crawljax.plugins.cret.transformation.merge;
 
 import com.crawljax.plugins.cret.cssmodel.declarations.MDeclaration;
+import com.crawljax.plugins.cret.util.CssValue;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -23,18 +24,18 @@ public class BorderMerger extends MergerBase
         _color = "";
     }
 
-    protected boolean parseSingleDeclaration(String name, String value)
+    protected boolean parseSingleDeclaration(String name, CssValue value)
     {
         switch (name.split("-")[1])
         {
             case "width":
-                _width = value;
+                _width = value.getText();
                 break;
             case "style":
-                _style = value;
+                _style = value.getText();
                 break;
             case "color":
-                _color = value;
+                _color = value.getText();
                 break;
             default:
                return false;
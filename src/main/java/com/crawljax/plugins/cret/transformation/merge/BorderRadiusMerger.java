@@ -1,6 +1,7 @@
 package com.crawljax.plugins.cret.transformation.merge;
 
 import com.crawljax.plugins.cret.cssmodel.declarations.MDeclaration;
+import com.crawljax.plugins.cret.util.CssValue;
 
 import java.util.Arrays;
 import java.util.List;
@@ -10,24 +11,26 @@ import java.util.List;
  */
 public class BorderRadiusMerger extends MergerBase
 {
-    private String _topLeft;
-    private String _topRight;
-    private String _bottomRight;
-    private String _bottomLeft;
+    private static final CssValue EMPTY = CssValue.parse("");
+
+    private CssValue _topLeft;
+    private CssValue _topRight;
+    private CssValue _bottomRight;
+    private CssValue _bottomLeft;
 
     public BorderRadiusMerger(String name)
     {
         super(name);
 
-        _topLeft = "";
-        _topRight = "";
-        _bottomRight = "";
-        _bottomLeft = "";
+        _topLeft = EMPTY;
+        _topRight = EMPTY;
+        _bottomRight = EMPTY;
+        _bottomLeft = EMPTY;
     }
 
 
     @Override
-    protected boolean parseSingleDeclaration(String name, String value)
+    protected boolean parseSingleDeclaration(String name, CssValue value)
     {
         String[] parts = name.split("-");
         String vert = parts[1];
@@ -70,24 +73,15 @@ public class BorderRadiusMerger extends MergerBase
     {
         String value;
 
-        String[] tl = _topLeft.split("\\s");
-        String[] tr = _topRight.split("\\s");
-        String[] br = _bottomRight.split("\\s");
-        String[] bl = _bottomLeft.split("\\s");
-
-        String tl2 = "";
-        String tr2 = "";
-        String br2 = "";
-        String bl2 = "";
-
-        if(tl.length == 2)
-            tl2 = tl[1];
-        if(tr.length == 2)
-            tr2 = tr[1];
-        if(br.length == 2)
-            br2 = br[1];
-        if(bl.length == 2)
-            bl2 = bl[1];
+        List<String> tl = _topLeft.getWords();
+        List<String> tr = _topRight.getWords();
+        List<String> br = _bottomRight.getWords();
+        List<String> bl = _bottomLeft.getWords();
+
+        String tl2 = getSecondRadius(tl);
+        String tr2 = getSecondRadius(tr);
+        String br2 = getSecondRadius(br);
+        String bl2 = getSecondRadius(bl);
 
         String part1 = "";
         String part2 = "";
@@ -97,7 +91,7 @@ public class BorderRadiusMerger extends MergerBase
             part2 = buildPart(tl2, tr2, br2, bl2);
         }
 
-        part1 = buildPart(tl[0], tr[0], br[0], bl[0]);
+        part1 = buildPart(getFirstRadius(tl), getFirstRadius(tr), getFirstRadius(br), getFirstRadius(bl));
 
         if(!part2.isEmpty())
             value = String.format("%s / %s", part1, part2);
@@ -107,6 +101,16 @@ public class BorderRadiusMerger extends MergerBase
         return Arrays.asList(new MDeclaration("border-radius", value, _isImportant, true, _order));
     }
 
+    private static String getFirstRadius(List<String> radii)
+    {
+        return radii.isEmpty() ? "" : radii.get(0);
+    }
+
+    private static String getSecondRadius(List<String> radii)
+    {
+        return radii.size() == 2 ? radii.get(1) : "";
+    }
+
     private static String buildPart(String tl, String tr, String br, String bl)
     {
         String value;
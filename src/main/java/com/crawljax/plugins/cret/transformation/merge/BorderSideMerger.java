@@ -1,5 +1,7 @@
 package com.crawljax.plugins.cret.transformation.merge;
 
+import com.crawljax.plugins.cret.util.CssValue;
+
 /**
  * Created by axel on 5/27/2015.
  */
@@ -11,18 +13,18 @@ public class BorderSideMerger extends BorderMerger
     }
 
     @Override
-    protected boolean parseSingleDeclaration(String name, String value)
+    protected boolean parseSingleDeclaration(String name, CssValue value)
     {
         switch (name.split("-")[2])
         {
             case "width":
-                _width = value;
+                _width = value.getText();
                 break;
             case "style":
-                _style = value;
+                _style = value.getText();
                 break;
             case "color":
-                _color = value;
+                _color = value.getText();
                 break;
             default:
                 return false;
@@ -1,6 +1,7 @@
 package com.crawljax.plugins.cret.transformation.merge;
 
 import com.crawljax.plugins.cret.cssmodel.declarations.MDeclaration;
+import com.crawljax.plugins.cret.util.CssValue;
 
 import java.util.Arrays;
 import java.util.List;
@@ -26,21 +27,21 @@ public class BoxMerger extends MergerBase
     }
 
 
-    protected boolean parseSingleDeclaration(String name, String value)
+    protected boolean parseSingleDeclaration(String name, CssValue value)
     {
         switch (name.split("-")[1])
         {
             case "top":
-                _top = value;
+                _top = value.getText();
                 break;
             case "right":
-                _right = value;
+                _right = value.getText();
                 break;
             case "bottom":
-                _bottom = value;
+                _bottom = value.getText();
                 break;
             case "left":
-                _left = value;
+                _left = value.getText();
                 break;
             default:
                 return false;
@@ -2,6 +2,7 @@ package com.crawljax.plugins.cret.transformation.merge;
 
 import com.crawljax.plugins.cret.CssSuiteException;
 import com.crawljax.plugins.cret.cssmodel.declarations.MDeclaration;
+import com.crawljax.plugins.cret.util.CssValue;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -28,9 +29,10 @@ public abstract class MergerBase
 
     /**
      * Parse single declaration in for this merge instance
+     * @param value the parsed value, shared with the declaration
      * @return false if parse was unsuccesful
      */
-    protected abstract boolean parseSingleDeclaration(String name, String value);
+    protected abstract boolean parseSingleDeclaration(String name, CssValue value);
 
     /**
      * Merge some or all parsed declarations into a shorthand declaration
@@ -47,11 +49,16 @@ public abstract class MergerBase
 
 
     /**
-     * parse given name, value, !important and order if possible
+     * parse name, value, !important and order of the given declaration if possible
      * @throws CssSuiteException
      */
-    public final void parse(String name, String value, boolean isImportant, int order) throws CssSuiteException
+    public final void parse(MDeclaration declaration) throws CssSuiteException
     {
+        final String name = declaration.getName();
+        final CssValue value = declaration.getParsedValue();
+        final boolean isImportant = declaration.isImportant();
+        final int order = declaration.getOrder();
+
         if(!_isSet)
         {
             _isImportant = isImportant;
@@ -67,7 +74,7 @@ public abstract class MergerBase
         _order = Math.min(order, _order);
         if(!parseSingleDeclaration(name, value))
         {
-            _otherDeclarations.add(new MDeclaration(name, value, isImportant, order));
+            _otherDeclarations.add(new MDeclaration(name, value.getText(), isImportant, order));
         }
         _isSet = true;
     }
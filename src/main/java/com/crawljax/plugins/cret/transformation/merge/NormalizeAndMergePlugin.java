@@ -7,6 +7,7 @@ import com.crawljax.plugins.cret.cssmodel.MCssRule;
 import com.crawljax.plugins.cret.cssmodel.MSelector;
 import com.crawljax.plugins.cret.cssmodel.declarations.MDeclaration;
 import com.crawljax.plugins.cret.interfaces.ICssTransformer;
+import com.crawljax.plugins.cret.interfaces.TransformerScope;
 import com.crawljax.plugins.cret.transformation.matcher.MatchedElements;
 import com.crawljax.plugins.cret.util.CretStringBuilder;
 
@@ -19,13 +20,17 @@ import java.util.*;
  */
 public class NormalizeAndMergePlugin implements ICssTransformer
 {
-    private Map<MDeclaration, MSelector> _propSelMap = new HashMap<>();
-
     @Override
     public void getStatistics(CretStringBuilder builder, String prefix)
     {
     }
 
+    @Override
+    public TransformerScope getScope()
+    {
+        return TransformerScope.PER_FILE;
+    }
+
     @Override
     public Map<String, MCssFile> transform(Map<String, MCssFile> cssRules, MatchedElements matchedElements)
     {
@@ -37,16 +42,10 @@ public class NormalizeAndMergePlugin implements ICssTransformer
             {
                 for(MSelector mSelector : mRule.getSelectors())
                 {
-                    _propSelMap.clear();
-                    for(MDeclaration mDeclaration : mSelector.getDeclarations())
-                    {
-                        _propSelMap.put(mDeclaration, mSelector);
-                    }
-
                     mergeDeclarationsToShorthand(mSelector);
 
                     //sort properties again
-                    mSelector.getDeclarations().sort((p1, p2) -> Integer.compare(p1.getOrder(), p2.getOrder()));
+                    mSelector.getMutableDeclarations().sort((p1, p2) -> Integer.compare(p1.getOrder(), p2.getOrder()));
                 }
             }
         }
@@ -167,33 +166,33 @@ public class NormalizeAndMergePlugin implements ICssTransformer
             }
         }
 
-        newDeclarations.addAll(mergeBoxDeclarations(margins, new BoxMerger("margin")));
-        newDeclarations.addAll(mergeBoxDeclarations(paddings, new BoxMerger("padding")));
-        newDeclarations.addAll(mergeBorderDeclarations(border, new BorderMerger("border")));
+        newDeclarations.addAll(mergeBoxDeclarations(margins, new BoxMerger("margin"), mSelector));
+        newDeclarations.addAll(mergeBoxDeclarations(paddings, new BoxMerger("padding"), mSelector));
+        newDeclarations.addAll(mergeBorderDeclarations(border, new BorderMerger("border"), mSelector));
 
         if(borderWidths.size() == (borderTop.size() + borderBottom.size() + borderLeft.size() + borderRight.size()))
         {
-            newDeclarations.addAll(mergeBoxDeclarations(new ArrayList<>(borderWidths), new BoxMerger("border-width")));
+            newDeclarations.addAll(mergeBoxDeclarations(new ArrayList<>(borderWidths), new BoxMerger("border-width"), mSelector));
         }
         else if (borderStyles.size() == (borderTop.size() + borderBottom.size() + borderLeft.size() + borderRight.size()))
         {
-            newDeclarations.addAll(mergeBoxDeclarations(new ArrayList<>(borderStyles), new BoxMerger("border-style")));
+            newDeclarations.addAll(mergeBoxDeclarations(new ArrayList<>(borderStyles), new BoxMerger("border-style"), mSelector));
         }
         else if (borderColors.size() == (borderTop.size() + borderBottom.size() + borderLeft.size() + borderRight.size()))
         {
-            newDeclarations.addAll(mergeBoxDeclarations(new ArrayList<>(borderColors), new BoxMerger("border-color")));
+            newDeclarations.addAll(mergeBoxDeclarations(new ArrayList<>(borderColors), new BoxMerger("border-color"), mSelector));
         }
         else
         {
-            newDeclarations.addAll(mergeBorderDeclarations(borderTop, new BorderSideMerger("border-top")));
-            newDeclarations.addAll(mergeBorderDeclarations(borderRight, new BorderSideMerger("border-right")));
-            newDeclarations.addAll(mergeBorderDeclarations(borderBottom, new BorderSideMerger("border-bottom")));
-            newDeclarations.addAll(mergeBorderDeclarations(borderLeft, new BorderSideMerger("border-left")));
+            newDeclarations.addAll(mergeBorderDeclarations(borderTop, new BorderSideMerger("border-top"), mSelector));
+            newDeclarations.addAll(mergeBorderDeclarations(borderRight, new BorderSideMerger("border-right"), mSelector));
+            newDeclarations.addAll(mergeBorderDeclarations(borderBottom, new BorderSideMerger("border-bottom"), mSelector));
+            newDeclarations.addAll(mergeBorderDeclarations(borderLeft, new BorderSideMerger("border-left"), mSelector));
         }
 
-        newDeclarations.addAll(mergeBoxDeclarations(borderRadii, new BorderRadiusMerger("border-radius")));
-        newDeclarations.addAll(mergeBorderDeclarations(outline, new OutlineMerger("outline")));
-        newDeclarations.addAll(mergeBorderDeclarations(background, new BackgroundMerger("background")));
+        newDeclarations.addAll(mergeBoxDeclarations(borderRadii, new BorderRadiusMerger("border-radius"), mSelector));
+        newDeclarations.addAll(mergeBorderDeclarations(outline, new OutlineMerger("outline"), mSelector));
+        newDeclarations.addAll(mergeBorderDeclarations(background, new BackgroundMerger("background"), mSelector));
 
         mSelector.setNewDeclarations(newDeclarations);
     }
@@ -202,7 +201,7 @@ public class NormalizeAndMergePlugin implements ICssTransformer
     /**
      * merge box (top, right, left, bottom) declarations
      */
-    private List<MDeclaration> mergeBoxDeclarations(List<MDeclaration> declarations, MergerBase merger)
+    private List<MDeclaration> mergeBoxDeclarations(List<MDeclaration> declarations, MergerBase merger, MSelector mSelector)
     {
         if(declarations.size() == 0)
         {
@@ -216,19 +215,19 @@ public class NormalizeAndMergePlugin implements ICssTransformer
             {
                 try
                 {
-                    merger.parse(mDeclaration.getName(), mDeclaration.getValue(), mDeclaration.isImportant(), mDeclaration.getOrder());
+                    merger.parse(mDeclaration);
                 }
                 catch (CssSuiteException e)
                 {
                     result.add(mDeclaration);
                     LogHandler.debug("[NormalizeAndMerge] Cannot parse single declaration %s in selector %s into its shorthand equivalent -\n%s",
-                            mDeclaration, _propSelMap.get(mDeclaration), e.getMessage());
+                            mDeclaration, mSelector, e.getMessage());
                 }
                 catch(Exception e)
                 {
                     result.add(mDeclaration);
                     LogHandler.error(e, "[NormalizeAndMerge] Cannot parse single declaration %s in selector %s into its shorthand equivalent",
-                            mDeclaration, _propSelMap.get(mDeclaration));
+                            mDeclaration, mSelector);
                 }
             }
 
@@ -243,7 +242,7 @@ public class NormalizeAndMergePlugin implements ICssTransformer
     /**
      * merge border (color, style, width) declarations
      */
-    private List<MDeclaration> mergeBorderDeclarations(List<MDeclaration> declarations, MergerBase merger)
+    private List<MDeclaration> mergeBorderDeclarations(List<MDeclaration> declarations, MergerBase merger, MSelector mSelector)
     {
         if (declarations.size() == 0)
         {
@@ -256,19 +255,19 @@ public class NormalizeAndMergePlugin implements ICssTransformer
         {
             try
             {
-                merger.parse(mDeclaration.getName(), mDeclaration.getValue(), mDeclaration.isImportant(), mDeclaration.getOrder());
+                merger.parse(mDeclaration);
             }
             catch (CssSuiteException e)
             {
                 result.add(mDeclaration);
                 LogHandler.debug("[NormalizeAndMerge] Cannot parse single declaration %s in selector %s into its shorthand equivalent -\n%s",
-                        mDeclaration, _propSelMap.get(mDeclaration), e.getMessage());
+                        mDeclaration, mSelector, e.getMessage());
             }
             catch(Exception e)
             {
                 result.add(mDeclaration);
                 LogHandler.error(e, "[NormalizeAndMerge] Cannot parse single declaration %s in selector %s into its shorthand equivalent",
-                        mDeclaration, _propSelMap.get(mDeclaration));
+                        mDeclaration, mSelector);
             }
         }
 
@@ -1,6 +1,7 @@
 package com.crawljax.plugins.cret.transformation.merge;
 
 import com.crawljax.plugins.cret.cssmodel.declarations.MDeclaration;
+import com.crawljax.plugins.cret.util.CssValue;
 
 import java.util.List;
 
@@ -18,11 +19,11 @@ public class OutlineMerger extends BorderMerger
     }
 
     @Override
-    protected boolean parseSingleDeclaration(String name, String value)
+    protected boolean parseSingleDeclaration(String name, CssValue value)
     {
         if (name.contains("offset"))
         {
-            _offset = value;
+            _offset = value.getText();
             _isSet = true;
             return true;
         }
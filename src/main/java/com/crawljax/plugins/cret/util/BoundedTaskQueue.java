@@ -0,0 +1,164 @@
+package com.crawljax.plugins.cret.util;
+
+import com.crawljax.plugins.cret.LogHandler;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Bounded queue of tasks, executed in order by a single background thread
+ * Submitting blocks while the queue is full, so that a fast producer is slowed down to the pace of the worker instead of
+ * buffering an unbounded amount of work (and memory)
+ * A task that throws an exception is logged, later tasks are still executed
+ * A task that throws an error (e.g. OutOfMemoryError) fails the queue: later tasks are discarded, and submit and drain
+ * throw an IllegalStateException with the error as cause, so that the producer fails instead of waiting forever
+ */
+public class BoundedTaskQueue implements AutoCloseable
+{
+    private static final Runnable STOP = () -> { };
+
+    private final BlockingQueue<Runnable> _queue;
+    private final Thread _worker;
+
+    // number of submitted tasks that did not complete yet, guarded by 'this'
+    private int _pending;
+    // first error thrown by a task, guarded by 'this'
+    private Throwable _failure;
+
+    public BoundedTaskQueue(String name, int capacity)
+    {
+        _queue = new ArrayBlockingQueue<>(Math.max(1, capacity));
+        _worker = new Thread(this::work, name);
+        _worker.setDaemon(true);
+        _worker.start();
+    }
+
+
+    /**
+     * Enqueue the given task, waits while the queue is full
+     * @throws IllegalStateException when an earlier task failed with an error
+     */
+    public void submit(Runnable task) throws InterruptedException
+    {
+        synchronized (this)
+        {
+            checkFailure();
+            _pending++;
+        }
+
+        try
+        {
+            _queue.put(task);
+        }
+        catch (InterruptedException e)
+        {
+            completed();
+            throw e;
+        }
+    }
+
+
+    /**
+     * Wait until all submitted tasks are executed
+     * @throws IllegalStateException when a task failed with an error
+     */
+    public synchronized void drain() throws InterruptedException
+    {
+        while (_pending > 0)
+        {
+            wait();
+        }
+
+        checkFailure();
+    }
+
+
+    private synchronized void checkFailure()
+    {
+        if (_failure != null)
+        {
+            throw new IllegalStateException(String.format("Task failed with an error on %s", _worker.getName()), _failure);
+        }
+    }
+
+
+    /** Getter */
+    public synchronized int getPending() { return _pending; }
+
+
+    private void work()
+    {
+        while (true)
+        {
+            Runnable task;
+            try
+            {
+                task = _queue.take();
+            }
+            catch (InterruptedException e)
+            {
+                return;
+            }
+
+            if (task == STOP)
+            {
+                return;
+            }
+
+            try
+            {
+                // after an error, tasks are only taken from the queue to release waiting producers
+                if (!hasFailed())
+                {
+                    task.run();
+                }
+            }
+            catch (Exception e)
+            {
+                LogHandler.error(e, "[BoundedTaskQueue] Error occurred in task on %s", _worker.getName());
+            }
+            catch (Throwable e)
+            {
+                LogHandler.error("[BoundedTaskQueue] Fatal error '%s' occurred in task on %s, discarding remaining tasks", e, _worker.getName());
+                failed(e);
+            }
+            finally
+            {
+                completed();
+            }
+        }
+    }
+
+
+    private synchronized boolean hasFailed()
+    {
+        return _failure != null;
+    }
+
+
+    private synchronized void failed(Throwable failure)
+    {
+        if (_failure == null)
+        {
+            _failure = failure;
+        }
+    }
+
+
+    private synchronized void completed()
+    {
+        _pending--;
+        notifyAll();
+    }
+
+
+    /**
+     * Execute the remaining tasks and stop the worker
+     */
+    @Override
+    public void close() throws InterruptedException
+    {
+        _queue.put(STOP);
+        _worker.join();
+    }
+}
@@ -0,0 +1,146 @@
+package com.crawljax.plugins.cret.util;
+
+import com.crawljax.plugins.cret.LogHandler;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.Properties;
+
+/**
+ * Content-addressed on-disk cache for fetched stylesheets
+ * The content of every stylesheet is stored once under its SHA-256 hash (objects/), so that equal stylesheets found at
+ * different URLs share a single file, every URL has an index entry (index/) with the hash of its content and the ETag and
+ * Last-Modified validators the server sent with it
+ * Files are written to a temporary file first and then moved into place, so that concurrent fetches never read half-written entries
+ */
+public class CssResourceCache
+{
+    private static final String URL = "url";
+    private static final String CONTENT = "content";
+    private static final String ETAG = "etag";
+    private static final String LAST_MODIFIED = "last-modified";
+
+    private final Path _objects;
+    private final Path _index;
+
+    public CssResourceCache(String root) throws IOException
+    {
+        _objects = Paths.get(root, "objects");
+        _index = Paths.get(root, "index");
+
+        Files.createDirectories(_objects);
+        Files.createDirectories(_index);
+    }
+
+
+    /**
+     * @return the cache entry for the given url, or null if the url was not cached before or its content is missing
+     */
+    public Entry get(String url)
+    {
+        Path indexFile = _index.resolve(Hashing.sha256Hex(url) + ".properties");
+        if (!Files.exists(indexFile))
+        {
+            return null;
+        }
+
+        try (InputStream stream = Files.newInputStream(indexFile))
+        {
+            Properties properties = new Properties();
+            properties.load(stream);
+
+            // hash collision on the url, or index written by another version
+            if (!url.equals(properties.getProperty(URL)))
+            {
+                return null;
+            }
+
+            Path contentFile = _objects.resolve(properties.getProperty(CONTENT, "") + ".css");
+            if (!Files.exists(contentFile))
+            {
+                return null;
+            }
+
+            return new Entry(properties.getProperty(ETAG), properties.getProperty(LAST_MODIFIED), contentFile);
+        }
+        catch (IOException e)
+        {
+            LogHandler.warn(e, "[CssResourceCache] Error while reading cache entry for '%s'", url);
+            return null;
+        }
+    }
+
+
+    /**
+     * Store the given content for the given url, together with the validators the server sent with it
+     * @param etag the ETag header value, or null
+     * @param lastModified the Last-Modified header value, or null
+     */
+    public void put(String url, String etag, String lastModified, String content)
+    {
+        try
+        {
+            byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+            String contentHash = Hashing.sha256Hex(bytes);
+
+            Path contentFile = _objects.resolve(contentHash + ".css");
+            if (!Files.exists(contentFile))
+            {
+                FileHelper.writeAtomically(contentFile, bytes);
+            }
+
+            Properties properties = new Properties();
+            properties.setProperty(URL, url);
+            properties.setProperty(CONTENT, contentHash);
+            if (etag != null)
+            {
+                properties.setProperty(ETAG, etag);
+            }
+            if (lastModified != null)
+            {
+                properties.setProperty(LAST_MODIFIED, lastModified);
+            }
+
+            ByteArrayOutputStream indexBytes = new ByteArrayOutputStream();
+            properties.store(indexBytes, null);
+            FileHelper.writeAtomically(_index.resolve(Hashing.sha256Hex(url) + ".properties"), indexBytes.toByteArray());
+        }
+        catch (IOException e)
+        {
+            LogHandler.warn(e, "[CssResourceCache] Error while writing cache entry for '%s'", url);
+        }
+    }
+
+
+    /**
+     * A cached stylesheet with its validators
+     */
+    public static class Entry
+    {
+        private final String _etag;
+        private final String _lastModified;
+        private final Path _contentFile;
+
+        private Entry(String etag, String lastModified, Path contentFile)
+        {
+            _etag = etag;
+            _lastModified = lastModified;
+            _contentFile = contentFile;
+        }
+
+        /** Getter */
+        public String getEtag() { return _etag; }
+
+        /** Getter */
+        public String getLastModified() { return _lastModified; }
+
+        /**
+         * @return the cached content of the stylesheet
+         */
+        public String readContent() throws IOException
+        {
+            return new String(Files.readAllBytes(_contentFile), StandardCharsets.UTF_8);
+        }
+    }
+}
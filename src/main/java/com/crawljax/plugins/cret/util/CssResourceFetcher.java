@@ -0,0 +1,201 @@
+package com.crawljax.plugins.cret.util;
+
+import com.crawljax.plugins.cret.LogHandler;
+import org.apache.commons.httpclient.Header;
+import org.apache.commons.httpclient.HttpClient;
+import org.apache.commons.httpclient.HttpStatus;
+import org.apache.commons.httpclient.MultiThreadedHttpConnectionManager;
+import org.apache.commons.httpclient.methods.GetMethod;
+import org.apache.commons.httpclient.params.HttpConnectionManagerParams;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Downloads stylesheets concurrently over a single pooled HTTP client, with connect and read timeouts
+ * If a cache is given, previously fetched stylesheets are revalidated with If-None-Match and If-Modified-Since,
+ * a 304 response is served from the cache, or fetched again without conditions if the cached copy cannot be read
+ * Same contract as CSSDOMHelper.getUrlContent: a stylesheet that cannot be fetched results in an empty string
+ */
+public class CssResourceFetcher implements AutoCloseable
+{
+    private final MultiThreadedHttpConnectionManager _connectionManager;
+    private final HttpClient _client;
+    private final ExecutorService _pool;
+    private final CssResourceCache _cache;
+
+    /**
+     * @param threads maximum number of concurrent downloads
+     * @param timeout connect and read timeout in milliseconds
+     * @param cache on-disk cache for fetched stylesheets, or null to always download
+     */
+    public CssResourceFetcher(int threads, int timeout, CssResourceCache cache)
+    {
+        threads = Math.max(1, threads);
+
+        _connectionManager = new MultiThreadedHttpConnectionManager();
+        HttpConnectionManagerParams params = _connectionManager.getParams();
+        params.setDefaultMaxConnectionsPerHost(threads);
+        params.setMaxTotalConnections(threads);
+        params.setConnectionTimeout(timeout);
+        params.setSoTimeout(timeout);
+
+        _client = new HttpClient(_connectionManager);
+        _client.getParams().setConnectionManagerTimeout(timeout);
+
+        _pool = Executors.newFixedThreadPool(threads, runnable ->
+        {
+            Thread thread = new Thread(runnable, "cret-css-fetch");
+            thread.setDaemon(true);
+            return thread;
+        });
+        _cache = cache;
+    }
+
+
+    /**
+     * Fetch all given stylesheets concurrently
+     * @return the content per url, in the order of the given urls
+     */
+    public Map<String, String> fetchAll(Collection<String> urls)
+    {
+        Map<String, Future<String>> tasks = new LinkedHashMap<>();
+        for (String url : urls)
+        {
+            if (!tasks.containsKey(url))
+            {
+                tasks.put(url, _pool.submit(() -> fetch(url)));
+            }
+        }
+
+        Map<String, String> result = new LinkedHashMap<>();
+        for (String url : tasks.keySet())
+        {
+            try
+            {
+                result.put(url, tasks.get(url).get());
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+                LogHandler.warn(e, "[CssResourceFetcher] Interrupted while fetching '%s'", url);
+                result.put(url, "");
+            }
+            catch (ExecutionException e)
+            {
+                LogHandler.error(e, "[CssResourceFetcher] Error while fetching '%s'", url);
+                result.put(url, "");
+            }
+        }
+
+        return result;
+    }
+
+
+    /**
+     * Fetch a single stylesheet, revalidating a cached copy if there is one
+     * @return the content of the stylesheet, or an empty string if it could not be fetched
+     */
+    public String fetch(String url)
+    {
+        return fetch(url, _cache == null ? null : _cache.get(url));
+    }
+
+
+    /**
+     * Fetch a single stylesheet, conditionally if a cached copy is given
+     * If the cached copy is not modified but cannot be read, the stylesheet is fetched again without conditions
+     */
+    private String fetch(String url, CssResourceCache.Entry cached)
+    {
+        boolean cachedCopyUnreadable = false;
+
+        GetMethod method = null;
+        try
+        {
+            method = new GetMethod(url);
+            if (cached != null)
+            {
+                if (cached.getEtag() != null)
+                {
+                    method.setRequestHeader("If-None-Match", cached.getEtag());
+                }
+                if (cached.getLastModified() != null)
+                {
+                    method.setRequestHeader("If-Modified-Since", cached.getLastModified());
+                }
+            }
+
+            int returnCode = _client.executeMethod(method);
+            if (returnCode == HttpStatus.SC_NOT_MODIFIED && cached != null)
+            {
+                LogHandler.debug("[CssResourceFetcher] '%s' not modified, use cached copy", url);
+                try
+                {
+                    return cached.readContent();
+                }
+                catch (IOException e)
+                {
+                    LogHandler.warn(e, "[CssResourceFetcher] Cannot read cached copy of '%s', fetch it again", url);
+                    cachedCopyUnreadable = true;
+                }
+            }
+            else if (returnCode == HttpStatus.SC_OK)
+            {
+                String content = method.getResponseBodyAsString();
+                if (content == null)
+                {
+                    content = "";
+                }
+
+                if (_cache != null)
+                {
+                    _cache.put(url, headerValue(method, "ETag"), headerValue(method, "Last-Modified"), content);
+                }
+                return content;
+            }
+            else
+            {
+                LogHandler.warn("[CssResourceFetcher] Unexpected status %d for '%s'", returnCode, url);
+            }
+        }
+        catch (Exception e)
+        {
+            LogHandler.error(e, "[CssResourceFetcher] Error while fetching '%s'", url);
+        }
+        finally
+        {
+            if (method != null)
+            {
+                method.releaseConnection();
+            }
+        }
+
+        // the connection of the conditional request is released first
+        return cachedCopyUnreadable ? fetch(url, null) : "";
+    }
+
+
+    private static String headerValue(GetMethod method, String name)
+    {
+        Header header = method.getResponseHeader(name);
+        return header == null ? null : header.getValue();
+    }
+
+
+    /**
+     * Stop the download threads and close all pooled connections
+     */
+    @Override
+    public void close()
+    {
+        _pool.shutdownNow();
+        _connectionManager.shutdown();
+    }
+}
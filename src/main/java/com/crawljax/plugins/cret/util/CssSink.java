@@ -0,0 +1,200 @@
+package com.crawljax.plugins.cret.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Buffered character sink for streaming generated code into a Writer or an NIO channel (UTF-8 encoded)
+ * The buffers are allocated once, a sink may be opened on a new target after it has been closed
+ */
+public class CssSink implements Closeable
+{
+    private static final int DEFAULT_CAPACITY = 64 * 1024;
+
+    private final char[] _chars;
+    private final CharBuffer _charBuffer;
+    private final ByteBuffer _byteBuffer;
+    private final CharsetEncoder _encoder;
+
+    private int _position;
+    private Writer _writer;
+    private WritableByteChannel _channel;
+
+    public CssSink()
+    {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public CssSink(int capacity)
+    {
+        _chars = new char[capacity];
+        _charBuffer = CharBuffer.wrap(_chars);
+        _byteBuffer = ByteBuffer.allocate(capacity * 3);
+        _encoder = StandardCharsets.UTF_8.newEncoder();
+    }
+
+
+    /**
+     * Direct all output to the given Writer
+     */
+    public CssSink open(Writer writer)
+    {
+        checkClosed();
+        _writer = writer;
+        return this;
+    }
+
+
+    /**
+     * Direct all output to the given channel, encoded as UTF-8
+     */
+    public CssSink open(WritableByteChannel channel)
+    {
+        checkClosed();
+        _channel = channel;
+        _encoder.reset();
+        return this;
+    }
+
+
+    public CssSink append(String string) throws IOException
+    {
+        int length = string.length();
+        int offset = 0;
+        while (offset < length)
+        {
+            if (_position == _chars.length)
+            {
+                drain(false);
+            }
+
+            int count = Math.min(length - offset, _chars.length - _position);
+            string.getChars(offset, offset + count, _chars, _position);
+            _position += count;
+            offset += count;
+        }
+        return this;
+    }
+
+
+    public CssSink append(char c) throws IOException
+    {
+        if (_position == _chars.length)
+        {
+            drain(false);
+        }
+        _chars[_position++] = c;
+        return this;
+    }
+
+
+    /**
+     * Write all buffered characters to the target
+     */
+    public void flush() throws IOException
+    {
+        drain(false);
+        if (_writer != null)
+        {
+            _writer.flush();
+        }
+    }
+
+
+    /**
+     * Flush all buffered characters and close the target, after which the sink can be re-opened
+     */
+    @Override
+    public void close() throws IOException
+    {
+        try
+        {
+            drain(true);
+            if (_writer != null)
+            {
+                _writer.close();
+            }
+            else if (_channel != null)
+            {
+                _channel.close();
+            }
+        }
+        finally
+        {
+            _writer = null;
+            _channel = null;
+            _position = 0;
+        }
+    }
+
+
+    private void drain(boolean endOfInput) throws IOException
+    {
+        if (_writer != null)
+        {
+            _writer.write(_chars, 0, _position);
+            _position = 0;
+        }
+        else if (_channel != null)
+        {
+            _charBuffer.clear().limit(_position);
+            while (true)
+            {
+                CoderResult result = _encoder.encode(_charBuffer, _byteBuffer, endOfInput);
+                if (result.isError())
+                {
+                    result.throwException();
+                }
+
+                writeBytes();
+
+                if (result.isUnderflow())
+                {
+                    break;
+                }
+            }
+
+            if (endOfInput)
+            {
+                _encoder.flush(_byteBuffer);
+                writeBytes();
+            }
+
+            // a surrogate pair may be split over two drains, keep the high surrogate for the next one
+            int remaining = _charBuffer.remaining();
+            System.arraycopy(_chars, _charBuffer.position(), _chars, 0, remaining);
+            _position = remaining;
+        }
+        else if (_position > 0)
+        {
+            throw new IOException("CssSink is not opened on a target");
+        }
+    }
+
+
+    private void writeBytes() throws IOException
+    {
+        _byteBuffer.flip();
+        while (_byteBuffer.hasRemaining())
+        {
+            _channel.write(_byteBuffer);
+        }
+        _byteBuffer.clear();
+    }
+
+
+    private void checkClosed()
+    {
+        if (_writer != null || _channel != null)
+        {
+            throw new IllegalStateException("CssSink is still opened on another target");
+        }
+    }
+}
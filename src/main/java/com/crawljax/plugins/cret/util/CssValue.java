@@ -0,0 +1,105 @@
+package com.crawljax.plugins.cret.util;
+
+import com.crawljax.plugins.cret.util.CssValueTokenizer.Token;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Parsed representation of a declaration value, tokenized once and shared by all transformations that inspect the value
+ * Instances are immutable, a changed value results in a new CssValue
+ */
+public class CssValue
+{
+    private final String _text;
+    private final List<Token> _tokens;
+    private List<String> _words;
+    private List<Token> _wordTokens;
+
+    private CssValue(String text)
+    {
+        _text = text;
+        _tokens = Collections.unmodifiableList(CssValueTokenizer.tokenize(text));
+    }
+
+
+    /**
+     * @return the parsed representation of the given value
+     */
+    public static CssValue parse(String text)
+    {
+        return new CssValue(text);
+    }
+
+
+    /** Getter */
+    public String getText() { return _text; }
+
+    /** Getter */
+    public List<Token> getTokens() { return _tokens; }
+
+
+    /**
+     * @return the whitespace-separated words in this value, whitespace inside functions and strings does not separate words
+     */
+    public List<String> getWords()
+    {
+        // benign race, every thread computes the same words
+        if (_words == null)
+        {
+            _words = Collections.unmodifiableList(CssValueTokenizer.splitWords(_tokens));
+        }
+        return _words;
+    }
+
+
+    /**
+     * @return for each word in getWords, its only token, or null if the word consists of multiple tokens
+     */
+    public List<Token> getWordTokens()
+    {
+        // benign race, every thread computes the same tokens
+        if (_wordTokens == null)
+        {
+            _wordTokens = Collections.unmodifiableList(CssValueTokenizer.splitWordTokens(_tokens));
+        }
+        return _wordTokens;
+    }
+
+
+    /**
+     * @return the parts of this value separated by the given delimiter, delimiters inside functions and strings do not separate parts
+     */
+    public List<String> split(char delimiter)
+    {
+        return CssValueTokenizer.split(_text, _tokens, delimiter);
+    }
+
+
+    /**
+     * @return the only token in this value besides whitespace, or null if there are none or more
+     */
+    public Token getSingleToken()
+    {
+        Token result = null;
+        for (Token token : _tokens)
+        {
+            if (token.getType() != CssValueTokenizer.TokenType.WHITESPACE)
+            {
+                if (result != null)
+                {
+                    return null;
+                }
+                result = token;
+            }
+        }
+        return result;
+    }
+
+
+    @Override
+    public String toString()
+    {
+        return _text;
+    }
+}
@@ -0,0 +1,497 @@
+package com.crawljax.plugins.cret.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Single-pass tokenizer for CSS declaration values
+ * Splits a value into whitespace, identifiers, functions (including their arguments), url(), strings, hashes,
+ * numbers (with an optional unit or percentage) and single-character delimiters
+ * The tokenizer is lossless, concatenating the text of all tokens results in the original value
+ */
+public class CssValueTokenizer
+{
+    public enum TokenType
+    {
+        WHITESPACE,
+        IDENT,
+        FUNCTION,
+        URL,
+        STRING,
+        HASH,
+        NUMBER,
+        PERCENTAGE,
+        DIMENSION,
+        DELIM
+    }
+
+
+    /**
+     * @return all tokens in the given value, in order
+     */
+    public static List<Token> tokenize(String value)
+    {
+        List<Token> tokens = new ArrayList<>();
+
+        final int length = value.length();
+        int i = 0;
+        while (i < length)
+        {
+            final int start = i;
+            final char c = value.charAt(i);
+
+            if (Character.isWhitespace(c))
+            {
+                while (i < length && Character.isWhitespace(value.charAt(i)))
+                {
+                    i++;
+                }
+                tokens.add(new Token(TokenType.WHITESPACE, value, start, i, i));
+            }
+            else if (c == '"' || c == '\'')
+            {
+                i = skipString(value, i);
+                tokens.add(new Token(TokenType.STRING, value, start, i, i));
+            }
+            else if (c == '#' && i + 1 < length && isNameChar(value.charAt(i + 1)))
+            {
+                i = skipName(value, i + 1);
+                tokens.add(new Token(TokenType.HASH, value, start, i, i));
+            }
+            else if (isNumberStart(value, i))
+            {
+                i = skipNumber(value, i);
+                int numberEnd = i;
+
+                if (i < length && value.charAt(i) == '%')
+                {
+                    i++;
+                    tokens.add(new Token(TokenType.PERCENTAGE, value, start, i, numberEnd));
+                }
+                else if (i < length && isNameStart(value, i))
+                {
+                    i = skipName(value, i);
+                    tokens.add(new Token(TokenType.DIMENSION, value, start, i, numberEnd));
+                }
+                else
+                {
+                    tokens.add(new Token(TokenType.NUMBER, value, start, i, numberEnd));
+                }
+            }
+            else if (isNameStart(value, i))
+            {
+                i = skipName(value, i);
+                int nameEnd = i;
+
+                if (i < length && value.charAt(i) == '(')
+                {
+                    i = skipBlock(value, i);
+                    boolean url = nameEnd - start == 3 && value.regionMatches(true, start, "url", 0, 3);
+                    tokens.add(new Token(url ? TokenType.URL : TokenType.FUNCTION, value, start, i, nameEnd));
+                }
+                else
+                {
+                    tokens.add(new Token(TokenType.IDENT, value, start, i, i));
+                }
+            }
+            else
+            {
+                i++;
+                tokens.add(new Token(TokenType.DELIM, value, start, i, i));
+            }
+        }
+
+        return tokens;
+    }
+
+
+    /**
+     * @return the whitespace-separated words in the given value, whitespace inside functions and strings does not separate words
+     */
+    public static List<String> splitWords(String value)
+    {
+        return splitWords(tokenize(value));
+    }
+
+
+    /**
+     * @return the whitespace-separated words in the given tokens
+     */
+    public static List<String> splitWords(List<Token> tokens)
+    {
+        List<String> words = new ArrayList<>();
+
+        StringBuilder word = new StringBuilder();
+        for (Token token : tokens)
+        {
+            if (token.getType() == TokenType.WHITESPACE)
+            {
+                if (word.length() > 0)
+                {
+                    words.add(word.toString());
+                    word.setLength(0);
+                }
+            }
+            else
+            {
+                word.append(token.getText());
+            }
+        }
+
+        if (word.length() > 0)
+        {
+            words.add(word.toString());
+        }
+
+        return words;
+    }
+
+
+    /**
+     * @return for each whitespace-separated word in the given tokens its only token, or null if the word consists of multiple tokens
+     */
+    public static List<Token> splitWordTokens(List<Token> tokens)
+    {
+        List<Token> words = new ArrayList<>();
+
+        Token word = null;
+        int count = 0;
+        for (Token token : tokens)
+        {
+            if (token.getType() == TokenType.WHITESPACE)
+            {
+                if (count > 0)
+                {
+                    words.add(count == 1 ? word : null);
+                    count = 0;
+                }
+            }
+            else
+            {
+                word = token;
+                count++;
+            }
+        }
+
+        if (count > 0)
+        {
+            words.add(count == 1 ? word : null);
+        }
+
+        return words;
+    }
+
+
+    /**
+     * @return the parts of the given value separated by the given delimiter, delimiters inside functions and strings do not separate parts
+     */
+    public static List<String> split(String value, char delimiter)
+    {
+        return split(value, tokenize(value), delimiter);
+    }
+
+
+    /**
+     * @return the parts of the given value separated by the given delimiter, using the tokens of that value
+     */
+    public static List<String> split(String value, List<Token> tokens, char delimiter)
+    {
+        List<String> parts = new ArrayList<>();
+
+        int start = 0;
+        for (Token token : tokens)
+        {
+            if (token.getType() == TokenType.DELIM && token.getText().charAt(0) == delimiter)
+            {
+                parts.add(value.substring(start, token._start));
+                start = token._end;
+            }
+        }
+        parts.add(value.substring(start));
+
+        return parts;
+    }
+
+
+    /**
+     * @return the given text, without any occurrence of the given (literal) part
+     */
+    public static String removeAll(String text, String part)
+    {
+        int index = text.indexOf(part);
+        if (index < 0)
+        {
+            return text;
+        }
+
+        StringBuilder builder = new StringBuilder(text.length());
+        int start = 0;
+        while (index >= 0)
+        {
+            builder.append(text, start, index);
+            start = index + part.length();
+            index = text.indexOf(part, start);
+        }
+        builder.append(text, start, text.length());
+
+        return builder.toString();
+    }
+
+
+    /**
+     * @return true if the given unit is an absolute or relative length unit
+     */
+    public static boolean isLengthUnit(String unit)
+    {
+        switch (unit)
+        {
+            case "px": case "pt": case "pc": case "in": case "mm": case "cm": //absolute
+            case "em": case "rem": case "ex": case "ch": case "vw": case "vh": case "vmin": case "vmax": //relative
+                return true;
+            default:
+                return false;
+        }
+    }
+
+
+    private static boolean isNameChar(char c)
+    {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '-' || c == '_' || c == '\\' || c >= 0x80;
+    }
+
+
+    private static boolean isNameStart(String value, int i)
+    {
+        char c = value.charAt(i);
+        if (c == '-')
+        {
+            // -webkit-..., --custom, but not a lone minus
+            return i + 1 < value.length() && (value.charAt(i + 1) == '-' || (isNameChar(value.charAt(i + 1)) && !Character.isDigit(value.charAt(i + 1))));
+        }
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_' || c == '\\' || c >= 0x80;
+    }
+
+
+    private static boolean isNumberStart(String value, int i)
+    {
+        final int length = value.length();
+        char c = value.charAt(i);
+
+        if (c == '+' || c == '-')
+        {
+            i++;
+            if (i >= length)
+            {
+                return false;
+            }
+            c = value.charAt(i);
+        }
+
+        if (Character.isDigit(c))
+        {
+            return true;
+        }
+        return c == '.' && i + 1 < length && Character.isDigit(value.charAt(i + 1));
+    }
+
+
+    private static int skipNumber(String value, int i)
+    {
+        final int length = value.length();
+
+        if (value.charAt(i) == '+' || value.charAt(i) == '-')
+        {
+            i++;
+        }
+        while (i < length && Character.isDigit(value.charAt(i)))
+        {
+            i++;
+        }
+        if (i + 1 < length && value.charAt(i) == '.' && Character.isDigit(value.charAt(i + 1)))
+        {
+            i++;
+            while (i < length && Character.isDigit(value.charAt(i)))
+            {
+                i++;
+            }
+        }
+        return i;
+    }
+
+
+    private static int skipName(String value, int i)
+    {
+        final int length = value.length();
+        while (i < length && isNameChar(value.charAt(i)))
+        {
+            // an escape includes the next character
+            if (value.charAt(i) == '\\' && i + 1 < length)
+            {
+                i++;
+            }
+            i++;
+        }
+        return i;
+    }
+
+
+    private static int skipString(String value, int i)
+    {
+        final int length = value.length();
+        final char quote = value.charAt(i++);
+        while (i < length)
+        {
+            char c = value.charAt(i++);
+            if (c == '\\')
+            {
+                i++;
+            }
+            else if (c == quote)
+            {
+                break;
+            }
+        }
+        return Math.min(i, length);
+    }
+
+
+    /**
+     * @return the index after the parenthesis that closes the parenthesis at i, or the end of the value
+     */
+    private static int skipBlock(String value, int i)
+    {
+        final int length = value.length();
+        int depth = 0;
+        while (i < length)
+        {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\'')
+            {
+                i = skipString(value, i);
+                continue;
+            }
+
+            i++;
+            if (c == '(')
+            {
+                depth++;
+            }
+            else if (c == ')' && --depth == 0)
+            {
+                break;
+            }
+        }
+        return i;
+    }
+
+
+    /**
+     * A single token in a CSS value
+     */
+    public static final class Token
+    {
+        private final TokenType _type;
+        private final String _value;
+        private final int _start;
+        private final int _end;
+        // end of the function name or numeric part
+        private final int _mark;
+
+        private Token(TokenType type, String value, int start, int end, int mark)
+        {
+            _type = type;
+            _value = value;
+            _start = start;
+            _end = end;
+            _mark = mark;
+        }
+
+        /** Getter */
+        public TokenType getType() { return _type; }
+
+        /** Getter */
+        public String getText() { return _value.substring(_start, _end); }
+
+        /**
+         * @return the name of a function or url token
+         */
+        public String getName()
+        {
+            return _value.substring(_start, _mark);
+        }
+
+        /**
+         * @return the text between the parentheses of a function or url token
+         */
+        public String getArguments()
+        {
+            int end = _end > _mark + 1 && _value.charAt(_end - 1) == ')' ? _end - 1 : _end;
+            return _value.substring(Math.min(_mark + 1, end), end);
+        }
+
+        /**
+         * @return the numeric part of a number, percentage or dimension token
+         */
+        public String getNumber()
+        {
+            return _value.substring(_start, _mark);
+        }
+
+        /**
+         * @return the unit of a percentage or dimension token
+         */
+        public String getUnit()
+        {
+            return _value.substring(_mark, _end);
+        }
+
+        /**
+         * @return true if this token is a length, or a unitless zero
+         */
+        public boolean isLength()
+        {
+            return (_type == TokenType.DIMENSION && isLengthUnit(getUnit())) || (_type == TokenType.NUMBER && getNumber().equals("0"));
+        }
+
+        /**
+         * @return true if this token is a hexadecimal or functional color
+         */
+        public boolean isColor()
+        {
+            if (_type == TokenType.HASH)
+            {
+                return true;
+            }
+
+            if (_type == TokenType.FUNCTION)
+            {
+                String name = getName();
+                return name.equals("rgb") || name.equals("rgba") || name.equals("hsl") || name.equals("hsla");
+            }
+
+            return false;
+        }
+
+        /**
+         * @return true if this token is a keyword, which may also be a browser color name
+         */
+        public boolean isKeyword()
+        {
+            return _type == TokenType.IDENT;
+        }
+
+        /**
+         * @return true if this token is a function, including url()
+         */
+        public boolean isFunction()
+        {
+            return _type == TokenType.FUNCTION || _type == TokenType.URL;
+        }
+
+        @Override
+        public String toString()
+        {
+            return String.format("%s '%s'", _type, getText());
+        }
+    }
+}
@@ -4,6 +4,9 @@ import com.crawljax.plugins.cret.LogHandler;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 
 /**
  * Created by axel on 6/11/2015.
@@ -39,4 +42,23 @@ public class FileHelper
 
         return file;
     }
-}
\ No newline at end of file
+
+
+    /**
+     * Write the given bytes to a temporary file next to the target first and then move it into place,
+     * so that concurrent readers never see a half-written file
+     */
+    public static void writeAtomically(Path target, byte[] bytes) throws IOException
+    {
+        Path temp = Files.createTempFile(target.getParent(), "tmp", ".part");
+        try
+        {
+            Files.write(temp, bytes);
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        finally
+        {
+            Files.deleteIfExists(temp);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.crawljax.plugins.cret.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * SHA-256 hashing, used for content-addressed caches and DOM fingerprints
+ */
+public class Hashing
+{
+    /**
+     * @return a new SHA-256 message digest
+     */
+    public static MessageDigest newSha256()
+    {
+        try
+        {
+            return MessageDigest.getInstance("SHA-256");
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            // every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+
+    /**
+     * @return the hexadecimal SHA-256 hash of the UTF-8 bytes of the given text
+     */
+    public static String sha256Hex(String text)
+    {
+        return sha256Hex(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+
+    /**
+     * @return the hexadecimal SHA-256 hash of the given bytes
+     */
+    public static String sha256Hex(byte[] bytes)
+    {
+        return toHex(newSha256().digest(bytes));
+    }
+
+
+    /**
+     * @return the given bytes as lower-case hexadecimal string
+     */
+    public static String toHex(byte[] bytes)
+    {
+        StringBuilder builder = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes)
+        {
+            builder.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return builder.toString();
+    }
+}
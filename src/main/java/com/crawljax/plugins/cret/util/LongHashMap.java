@@ -0,0 +1,133 @@
+package com.crawljax.plugins.cret.util;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash map with primitive long keys, avoiding a boxed Long and a map entry per key
+ * Keys are iterated in insertion order, null values are not supported
+ */
+public class LongHashMap<V>
+{
+    private long[] _keys;
+    private Object[] _values;
+    private long[] _order;
+    private int _size;
+
+    public LongHashMap()
+    {
+        this(16);
+    }
+
+    public LongHashMap(int expectedSize)
+    {
+        int capacity = Integer.highestOneBit(Math.max(4, expectedSize) * 2 - 1) << 1;
+        _keys = new long[capacity];
+        _values = new Object[capacity];
+        _order = new long[Math.max(4, expectedSize)];
+    }
+
+
+    /**
+     * @return the value for the given key, or null if the key is not present
+     */
+    @SuppressWarnings("unchecked")
+    public V get(long key)
+    {
+        int slot = slot(_keys, _values, key);
+        return (V) _values[slot];
+    }
+
+
+    public boolean containsKey(long key)
+    {
+        return get(key) != null;
+    }
+
+
+    /**
+     * Associate the given value with the given key, replacing any previous value
+     */
+    public void put(long key, V value)
+    {
+        if (value == null)
+        {
+            throw new IllegalArgumentException("LongHashMap does not support null values");
+        }
+
+        int slot = slot(_keys, _values, key);
+        if (_values[slot] == null)
+        {
+            if (_size == _order.length)
+            {
+                _order = Arrays.copyOf(_order, _size * 2);
+            }
+            _order[_size++] = key;
+
+            _keys[slot] = key;
+            _values[slot] = value;
+
+            // keep the load factor below 0.5
+            if (_size * 2 > _keys.length)
+            {
+                rehash();
+            }
+        }
+        else
+        {
+            _values[slot] = value;
+        }
+    }
+
+
+    /** Getter */
+    public int size()
+    {
+        return _size;
+    }
+
+    /**
+     * @return all keys, in insertion order
+     */
+    public long[] keys()
+    {
+        return Arrays.copyOf(_order, _size);
+    }
+
+
+    private void rehash()
+    {
+        long[] keys = new long[_keys.length * 2];
+        Object[] values = new Object[_values.length * 2];
+
+        for (int i = 0; i < _keys.length; i++)
+        {
+            if (_values[i] != null)
+            {
+                int slot = slot(keys, values, _keys[i]);
+                keys[slot] = _keys[i];
+                values[slot] = _values[i];
+            }
+        }
+
+        _keys = keys;
+        _values = values;
+    }
+
+
+    /**
+     * Linear probing, the slot holds either the given key or is empty
+     */
+    private static int slot(long[] keys, Object[] values, long key)
+    {
+        int mask = keys.length - 1;
+        long hash = key * 0x9E3779B97F4A7C15L;
+        int slot = (int) (hash ^ (hash >>> 32)) & mask;
+
+        while (values[slot] != null && keys[slot] != key)
+        {
+            slot = (slot + 1) & mask;
+        }
+
+        return slot;
+    }
+}
@@ -0,0 +1,160 @@
+package com.crawljax.plugins.cret.util;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Intern pool that maps equal strings onto a single canonical instance with an int id
+ * Declarations share their property names and values through these pools, so that equal declarations in different
+ * selectors do not keep their own copies, and names and values can be compared by id or identity
+ *
+ * Entries are weakly referenced, an entry is only kept as long as a declaration (or another entry) holds it, so that the pools
+ * never grow beyond the live CSS model, also across states, runs and the sites of a batch
+ * Ids are never reused, strings that are equal share the same id as long as their entry is held
+ * Ids are non-negative, a pool that runs out of ids fails instead of wrapping around and handing out ids twice
+ */
+public class StringPool
+{
+    /** Pool for declaration property names */
+    public static final StringPool PROPERTY_NAMES = new StringPool();
+
+    /** Pool for declaration values */
+    public static final StringPool VALUES = new StringPool();
+
+    private final ConcurrentHashMap<String, EntryReference> _entries;
+    private final ReferenceQueue<Entry> _collected;
+    private final AtomicInteger _nextId;
+
+    public StringPool()
+    {
+        _entries = new ConcurrentHashMap<>();
+        _collected = new ReferenceQueue<>();
+        _nextId = new AtomicInteger();
+    }
+
+
+    /**
+     * @return the pool entry holding the canonical instance and id of the given string, the caller must hold on to the entry
+     *         for as long as it relies on its id
+     */
+    public Entry intern(String string)
+    {
+        expungeCollected();
+
+        while (true)
+        {
+            EntryReference reference = _entries.get(string);
+            Entry entry = reference == null ? null : reference.get();
+            if (entry != null)
+            {
+                return entry;
+            }
+
+            entry = new Entry(this, string, nextId());
+            EntryReference newReference = new EntryReference(entry, _collected);
+
+            boolean stored = reference == null ? _entries.putIfAbsent(string, newReference) == null : _entries.replace(string, reference, newReference);
+            if (stored)
+            {
+                return entry;
+            }
+            // lost a race with another thread interning the same string, use its entry
+        }
+    }
+
+
+    /**
+     * @return a new, never used id
+     * @throws IllegalStateException when all non-negative ids have been used
+     */
+    private int nextId()
+    {
+        return _nextId.getAndUpdate(id ->
+        {
+            if (id == Integer.MAX_VALUE)
+            {
+                throw new IllegalStateException("String pool ran out of ids");
+            }
+            return id + 1;
+        });
+    }
+
+
+    /**
+     * @return the number of distinct strings in this pool, including entries that are collected but not removed yet
+     */
+    public int size()
+    {
+        expungeCollected();
+        return _entries.size();
+    }
+
+
+    /**
+     * Remove the map entries of collected pool entries
+     */
+    private void expungeCollected()
+    {
+        EntryReference reference;
+        while ((reference = (EntryReference) _collected.poll()) != null)
+        {
+            _entries.remove(reference._string, reference);
+        }
+    }
+
+
+    private static final class EntryReference extends WeakReference<Entry>
+    {
+        private final String _string;
+
+        private EntryReference(Entry entry, ReferenceQueue<Entry> queue)
+        {
+            super(entry, queue);
+            _string = entry._string;
+        }
+    }
+
+
+    /**
+     * A canonical string in a pool
+     */
+    public static final class Entry
+    {
+        private final StringPool _pool;
+        private final String _string;
+        private final int _id;
+        private volatile Entry _folded;
+
+        private Entry(StringPool pool, String string, int id)
+        {
+            _pool = pool;
+            _string = string;
+            _id = id;
+        }
+
+        /** Getter */
+        public String getString() { return _string; }
+
+        /** Getter */
+        public int getId() { return _id; }
+
+        /**
+         * @return the id of the lower-case variant of this string, equal for strings that are equal ignoring case
+         */
+        public int getFoldedId()
+        {
+            // benign race, every thread finds the same entry while this entry holds it
+            Entry folded = _folded;
+            if (folded == null)
+            {
+                String lowerCase = _string.toLowerCase(Locale.ROOT);
+                folded = lowerCase.equals(_string) ? this : _pool.intern(lowerCase);
+                _folded = folded;
+            }
+            return folded._id;
+        }
+    }
+}
@@ -1,18 +1,52 @@
 package com.crawljax.plugins.cret.util.specificity;
 
+/**
+ * Specificity of a selector, packed into a single long as (a, b, c)
+ * a = number of IDs, b = number of classes, attributes and pseudo-classes, c = number of element names and pseudo-elements
+ * Every component is stored in 21 bits, so packed values can be compared directly
+ */
 public class Specificity
 {
-	private final int value;
+	private static final int BITS = 21;
+	private static final long MASK = (1L << BITS) - 1;
 
-	public Specificity(int value)
+	private final long packed;
+
+	public Specificity(int ids, int classes, int elements)
+	{
+		this.packed = (Math.min(ids, MASK) << (2 * BITS)) | (Math.min(classes, MASK) << BITS) | Math.min(elements, MASK);
+	}
+
+	/** Getter */
+	public long getPacked()
 	{
-		this.value = value;
+		return packed;
 	}
 
 	/** Getter */
+	public int getIds()
+	{
+		return (int)(packed >>> (2 * BITS));
+	}
+
+	/** Getter */
+	public int getClasses()
+	{
+		return (int)((packed >>> BITS) & MASK);
+	}
+
+	/** Getter */
+	public int getElements()
+	{
+		return (int)(packed & MASK);
+	}
+
+	/**
+	 * @return the specificity in base 100, as used for reporting; only unambiguous for components up to 99
+	 */
 	public int getValue()
 	{
-		return value;
+		return getIds() * 10000 + getClasses() * 100 + getElements();
 	}
 
 	@Override
@@ -22,28 +56,16 @@ public class Specificity
 		}
 
 		Specificity other = (Specificity) object;
-		return value == other.getValue();
+		return packed == other.getPacked();
 	}
 
 	@Override
 	public int hashCode() {
-		return value;
+		return Long.hashCode(packed);
 	}
 
 	@Override
 	public String toString() {
-		int v = value;
-		final int base = 100;
-
-
-		int d = v % base;
-		v = v / base;
-		int c = v % base;
-		v = v / base;
-		int b = v % base;
-		v = v / base;
-		int a = v % base;
-
-		return "{" + a + ", " + b + ", " + c + ", " + d + "}";
+		return "{0, " + getIds() + ", " + getClasses() + ", " + getElements() + "}";
 	}
-}
\ No newline at end of file
+}
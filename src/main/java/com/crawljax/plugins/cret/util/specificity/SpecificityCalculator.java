@@ -1,168 +1,153 @@
 package com.crawljax.plugins.cret.util.specificity;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.w3c.css.sac.*;
+
 /**
  * Represents the Specificity Calculation according to http://www.w3.org/TR/css3-selectors/#specificity
  * 
- * B. # count the number of ID attributes in the selector (= b)
+ * A. # count the number of ID attributes in the selector (= a)
  * 
- * C. # count the number of classes, attributes and pseudo-classes in the selector (= c)
+ * B. # count the number of classes, attributes and pseudo-classes in the selector (= b)
  * 
- * D. # count the number of element names and pseudo-elements in the selector (= d)
+ * C. # count the number of element names and pseudo-elements in the selector (= c)
  *
+ * The specificity is computed in a single walk over the SAC selector tree,
+ * and cached per selector text, so that copies of the same selector do not compute it again
+ * The cache holds a bounded number of selector texts, least recently used ones are evicted first
  */
 public class SpecificityCalculator
 {
-	//holds the current specificity
-	private int value;
-
-	//allow for up to 99 IDs, 99 classes, 99 element-types
-	private final int BASE = 100;
+	private static final int MAX_SELECTORS = 100000;
+	private static final Cache<String, Specificity> CACHE = CacheBuilder.newBuilder().maximumSize(MAX_SELECTORS).build();
 
-	/**
-	 * The number of units representing a single Element Count. This unit represents (d) in the 4
-	 * rules used to calculate com.crawljax.plugins.csssuite.util.specificity.
-	 */
-	private final int ELEMENT_NAMES_AND_PSEUDO_ELEMENT_UNITS = 1;
+	private int _ids;
+	private int _classes;
+	private int _elements;
 
-	/**
-	 * The number of units representing a single Class Count. This unit represents (c) in the 4
-	 * rules used to calculate com.crawljax.plugins.csssuite.util.specificity.
-	 */
-	private final int CLASSES_ATTRIBUTES_AND_PSEUDO_CLASS_UNITS =
-	        ELEMENT_NAMES_AND_PSEUDO_ELEMENT_UNITS * BASE;
+	private SpecificityCalculator()
+	{}
 
-	/**
-	 * The number of units representing a single ID Count. This unit represents (b) in the 4 rules
-	 * used to calculate com.crawljax.plugins.csssuite.util.specificity.
-	 */
-	private final int ID_ATTRIBUTE_UNITS = CLASSES_ATTRIBUTES_AND_PSEUDO_CLASS_UNITS * BASE;
 
 	/**
-	 * applies to element types and pseudo-elements
+	 * @return the (cached) specificity of the given selector
 	 */
-	private void addElementSelector() {
-		value += ELEMENT_NAMES_AND_PSEUDO_ELEMENT_UNITS;
-	}
+	public static Specificity computeSpecificity(Selector selector)
+	{
+		String key = selector.toString();
 
+		Specificity specificity = CACHE.getIfPresent(key);
+		if(specificity == null)
+		{
+			SpecificityCalculator calculator = new SpecificityCalculator();
+			calculator.walkSelector(selector);
 
-	/**
-	 * applies to classes, attributes and pseudo-classes
-	 */
-	private void addClassSelector() {
-		value += CLASSES_ATTRIBUTES_AND_PSEUDO_CLASS_UNITS;
-	}
+			specificity = new Specificity(calculator._ids, calculator._classes, calculator._elements);
+			CACHE.put(key, specificity);
+		}
 
-	/**
-	 * applies to IDs only
-	 */
-	private void addIDSelector() {
-		value += ID_ATTRIBUTE_UNITS;
+		return specificity;
 	}
 
 
-	/**
-	 * Recursively parse all CSS attributes in given part
-	 */
-	private void recursiveParseAttribute(String part)
+	private void walkSelector(Selector selector)
 	{
-		//first split on first closing brace
-		String[] temp = part.split("\\]", 2);
-
-		if(temp.length > 1 && !temp[1].isEmpty())
+		if(selector instanceof ConditionalSelector)
+		{
+			ConditionalSelector cSelector = (ConditionalSelector)selector;
+			walkSelector(cSelector.getSimpleSelector());
+			walkCondition(cSelector.getCondition());
+		}
+		else if (selector instanceof DescendantSelector)
 		{
-			recursiveParseAttribute(temp[0] + "]");
-			recursiveParseAttribute(temp[1]);
+			DescendantSelector dSelector = (DescendantSelector)selector;
+			walkSelector(dSelector.getAncestorSelector());
+			walkSelector(dSelector.getSimpleSelector());
 		}
-		else
+		else if (selector instanceof SiblingSelector)
 		{
-			temp = part.split("\\[");
-			if(temp.length > 1 && !temp[0].isEmpty()&& !temp[0].equals("*"))
+			SiblingSelector sSelector = (SiblingSelector)selector;
+			walkSelector(sSelector.getSelector());
+			walkSelector(sSelector.getSiblingSelector());
+		}
+		else if (selector.getSelectorType() == Selector.SAC_PSEUDO_ELEMENT_SELECTOR)
+		{
+			_elements++;
+		}
+		else if (selector instanceof ElementSelector)
+		{
+			// universal selector does not count
+			String name = ((ElementSelector)selector).getLocalName();
+			if(name != null && !name.equals("*"))
 			{
-				this.addElementSelector();
+				_elements++;
 			}
-			this.addClassSelector();
 		}
 	}
 
 
-	/**
-	 * @return true if part should be ignored because it is a combinator or universal selector
-	 */
-	private static boolean ignorePart(String part)
+	private void walkCondition(Condition condition)
 	{
-		return part.isEmpty() || part.equals("+") || part.equals(">") || part.equals("~") || part.equals("*");
+		switch (condition.getConditionType())
+		{
+			case Condition.SAC_AND_CONDITION:
+			case Condition.SAC_OR_CONDITION:
+				CombinatorCondition cCondition = (CombinatorCondition)condition;
+				walkCondition(cCondition.getFirstCondition());
+				walkCondition(cCondition.getSecondCondition());
+				break;
+
+			case Condition.SAC_ID_CONDITION:
+				_ids++;
+				break;
+
+			case Condition.SAC_PSEUDO_CLASS_CONDITION:
+				String value = ((AttributeCondition)condition).getValue();
+				if(value != null && value.startsWith("not("))
+				{
+					// the negation pseudo-class does not count, its argument does
+					walkNegation(value.substring(4, value.length() - 1).trim());
+				}
+				else
+				{
+					_classes++;
+				}
+				break;
+
+			default:
+				// classes, attributes and :lang()
+				_classes++;
+				break;
+		}
 	}
 
 
 	/**
-	 * Compute specificity for given selector (text)
-	 * Also use amount of pseudo classes and pseudo-element presence
-	 * @return
+	 * The argument of :not is a single simple selector
 	 */
-	public Specificity computeSpecificity(String selector, int pseudoClassCount, boolean isPseudoElement)
+	private void walkNegation(String argument)
 	{
-		for(int i = 0; i < pseudoClassCount; i++)
-		{
-			this.addClassSelector();
-		}
-
-		if(isPseudoElement)
+		if(argument.isEmpty() || argument.equals("*"))
 		{
-			this.addElementSelector();
+			return;
 		}
 
-		// replace every :not with a whitespace char,
-		// in order to analyze the contents of the :not
-		if(selector.contains(":not"))
+		switch (argument.charAt(0))
 		{
-			selector = selector.replaceAll(":not\\(", " ");
-			selector = selector.replaceAll("\\)", "");
-		}
-
-		// get every selector in the sequence
-		// we can split on whitespace, because we know the cssparser library
-		// automatically spaces other combinators, like +, ~ and >
-		// we check for those in the IgnorePart() call below
-		String[] parts = selector.split(" ");
-
-		for (String part : parts)
-		{
-			if(ignorePart(part))
-				continue;
-
-			if (part.contains(".")) {
-				String[] temp = part.split("\\.");
-
-				if(!temp[0].isEmpty() && !temp[0].equals("*"))
-				{
-					this.addElementSelector();
-				}
-
-				for(int i = 0; i < temp.length - 1; i++)
-				{
-					this.addClassSelector();
-				}
-			}
-			else if (part.contains("#"))
-			{
-				String[] temp = part.split("\\#");
-				if (temp.length > 1 && !temp[0].isEmpty() && !temp[0].equals("*"))
-				{
-					this.addElementSelector();
-				}
-
-				this.addIDSelector();
-			}
-			else if (part.contains("["))
-			{
-				recursiveParseAttribute(part);
-			}
-			else
-			{
-				this.addElementSelector();
-			}
+			case '#':
+				_ids++;
+				break;
+
+			case '.':
+			case '[':
+			case ':':
+				_classes++;
+				break;
+
+			default:
+				_elements++;
+				break;
 		}
-
-		return new Specificity(value);
 	}
-}
\ No newline at end of file
+}
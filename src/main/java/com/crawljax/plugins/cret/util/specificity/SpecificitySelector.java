@@ -20,9 +20,9 @@ public class SpecificitySelector
     }
 
     /** Getter */
-    public int getSpecificity()
+    public long getSpecificity()
     {
-        return _mSelector.getSpecificity().getValue();
+        return _mSelector.getSpecificity().getPacked();
     }
 
     /** Getter */
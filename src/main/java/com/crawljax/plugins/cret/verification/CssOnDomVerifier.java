@@ -1,12 +1,13 @@
 package com.crawljax.plugins.cret.verification;
 
-import com.crawljax.core.state.StateVertex;
 import com.crawljax.plugins.cret.LogHandler;
 import com.crawljax.plugins.cret.colors.BrowserColorParser;
 import com.crawljax.plugins.cret.cssmodel.MCssFile;
 import com.crawljax.plugins.cret.cssmodel.MCssRule;
 import com.crawljax.plugins.cret.cssmodel.MSelector;
 import com.crawljax.plugins.cret.cssmodel.declarations.MDeclaration;
+import com.crawljax.plugins.cret.dommodel.DomState;
+import com.crawljax.plugins.cret.dommodel.ElementKey;
 import com.crawljax.plugins.cret.transformation.ClonedDeclarationsPlugin;
 import com.crawljax.plugins.cret.transformation.effectiveness.EffectivenessAnalysis;
 import com.crawljax.plugins.cret.transformation.NormalizeAndSplitPlugin;
@@ -30,13 +31,13 @@ public class CssOnDomVerifier
     private Map<MDeclaration, MSelector> _declSelMapOrig = new HashMap<>();
     private Map<MDeclaration, MSelector> _declSelMapGnr = new HashMap<>();
 
-    private Set<String> _matchedElementsOrig = new HashSet<>();
-    private Set<String> _matchedAndEffectiveOrig = new HashSet<>();
+    private Set<Long> _matchedElementsOrig = new HashSet<>();
+    private Set<Long> _matchedAndEffectiveOrig = new HashSet<>();
 
-    private Set<String> _matchedElementsGnr = new HashSet<>();
-    private Set<String> _equallyMatchedElems = new HashSet<>();
-    private Set<String> _additionalMatchedElems = new HashSet<>();
-    private Set<String> _missedMatchedElements = new HashSet<>();
+    private Set<Long> _matchedElementsGnr = new HashSet<>();
+    private Set<Long> _equallyMatchedElems = new HashSet<>();
+    private Set<Long> _additionalMatchedElems = new HashSet<>();
+    private Set<Long> _missedMatchedElements = new HashSet<>();
 
     private Set<MDeclaration> _totalEffectiveDeclsOrig = new HashSet<>();
     private Set<MDeclaration> _totalEquallyEffectiveDecls = new HashSet<>();
@@ -47,6 +48,17 @@ public class CssOnDomVerifier
 
     private final Map<String, String> _defaultStyles = DefaultStylesHelper.createDefaultStyles();
 
+    private static Set<Long> toSet(long[] elements)
+    {
+        Set<Long> result = new HashSet<>(elements.length * 2);
+        for(long element : elements)
+        {
+            result.add(element);
+        }
+        return result;
+    }
+
+
     private Map<MSelector, String> generateSelectorFileMap(Map<String, MCssFile> mcssFiles)
     {
         Map<MSelector, String> result = new HashMap<>();
@@ -71,7 +83,7 @@ public class CssOnDomVerifier
         Map<MDeclaration, MSelector> result = new HashMap<>();
 
         selectors.forEach((s) -> {
-            List<MDeclaration> mDeclarations = s.getDeclarations().stream().filter(p -> p.isIgnored() || p.isEffective()).collect(Collectors.toList());
+            List<MDeclaration> mDeclarations = s.getMutableDeclarations().stream().filter(p -> p.isIgnored() || p.isEffective()).collect(Collectors.toList());
             mDeclarations.forEach(p -> result.put(p, s));
         });
 
@@ -82,7 +94,7 @@ public class CssOnDomVerifier
     private List<MDeclaration> FindEffectiveDeclarationsForElement(List<MSelector> selectors)
     {
         // first reset all previously deemed effective declarations to non-effective
-        selectors.forEach(s -> s.getDeclarations().forEach(p -> p.setEffective(false)));
+        selectors.forEach(s -> s.getMutableDeclarations().forEach(p -> p.setEffective(false)));
 
         String overridden = "overridden-" + new Random().nextInt();
 
@@ -145,13 +157,15 @@ public class CssOnDomVerifier
      * Compare on DOM elements selected by CSS selectors and CSS declaration styles applied on those DOM elements
      * @throws IOException
      */
-    public void verify(Map<StateVertex, LinkedHashMap<String, Integer>> states, Map<String, MCssFile> originalStyles, Map<String, MCssFile> generatedStyles) throws IOException
+    public void verify(Map<DomState, LinkedHashMap<String, Integer>> states, Map<String, MCssFile> originalStyles, Map<String, MCssFile> generatedStyles) throws IOException
     {
         _selFileMapOrig = generateSelectorFileMap(originalStyles);
         _selFileMapGnr = generateSelectorFileMap(generatedStyles);
 
-        MatchedElements matchedElementsOrig = new MatchedElements();
-        MatchedElements matchedElementsGnr = new MatchedElements();
+        // element keys of both styles are compared, so they must share state ids
+        ElementKey.StateRegistry stateRegistry = new ElementKey.StateRegistry();
+        MatchedElements matchedElementsOrig = new MatchedElements(stateRegistry);
+        MatchedElements matchedElementsGnr = new MatchedElements(stateRegistry);
 
         NormalizeAndSplitPlugin normalizer = new NormalizeAndSplitPlugin();
         originalStyles = normalizer.transform(originalStyles, matchedElementsOrig);
@@ -162,7 +176,7 @@ public class CssOnDomVerifier
         generatedStyles = clonedProps.transform(generatedStyles, matchedElementsGnr);
 
         // perform matched element analysis
-        for(StateVertex state : states.keySet())
+        for(DomState state : states.keySet())
         {
             LogHandler.info("[VERIFICATION] Match selectors from original and generated styles to DOM for state %s...", state.getUrl());
             LinkedHashMap<String, Integer> stateFileOrder = states.get(state);
@@ -171,17 +185,17 @@ public class CssOnDomVerifier
             ElementSelectorMatcher.matchElementsToDocument(state.getName(), state.getDocument(), generatedStyles, stateFileOrder, matchedElementsGnr);
         }
 
-        _matchedElementsOrig = matchedElementsOrig.getMatchedElements();
-        _matchedElementsGnr = matchedElementsGnr.getMatchedElements();
+        _matchedElementsOrig = toSet(matchedElementsOrig.getMatchedElements());
+        _matchedElementsGnr = toSet(matchedElementsGnr.getMatchedElements());
 
         // effectiveness analysis
         LogHandler.info("[VERIFICATION] Start effectiveness analysis for matched elements of original and generated styles...");
 
         int count = 0;
         int total = _matchedElementsOrig.size();
-        BrowserColorParser bcp = new BrowserColorParser();
+        BrowserColorParser bcp = BrowserColorParser.getInstance();
 
-        for(String matchedElement : _matchedElementsOrig)
+        for(long matchedElement : _matchedElementsOrig)
         {
             count++;
             LogHandler.debug("[VERIFICATION] Find out if original matches are effective (i.e. at least 1 effective declaration) for element %d of %d...", count, total);
@@ -204,7 +218,7 @@ public class CssOnDomVerifier
         count = 0;
         total = _matchedAndEffectiveOrig.size();
 
-        for(String matchedElement : _matchedAndEffectiveOrig)
+        for(long matchedElement : _matchedAndEffectiveOrig)
         {
             count++;
             LogHandler.debug("[VERIFICATION] Start effectiveness analysis and comparison for element %d of %d...", count, total);
@@ -332,7 +346,7 @@ public class CssOnDomVerifier
 
 
         // all unmatched elements
-        for(String unmatchedElement : _missedMatchedElements)
+        for(long unmatchedElement : _missedMatchedElements)
         {
             List<MSelector> selectors = matchedElementsOrig.sortSelectorsForMatchedElem(unmatchedElement);
 
@@ -342,12 +356,12 @@ public class CssOnDomVerifier
                 selectorsText += String.format("%s in file: %s\n", mSelector, _selFileMapOrig.get(mSelector));
             }
 
-            LogHandler.info("[VERIFICATION] Unmatched element detected: '%s'\nwith selectors from original stylesheets: %s", unmatchedElement, selectorsText);
+            LogHandler.info("[VERIFICATION] Unmatched element detected: '%s'\nwith selectors from original stylesheets: %s", matchedElementsOrig.getXPath(unmatchedElement), selectorsText);
         }
 
 
         // all additionally matched elements
-        for(String extraElement : _additionalMatchedElems)
+        for(long extraElement : _additionalMatchedElems)
         {
             List<MSelector> selectors = matchedElementsGnr.sortSelectorsForMatchedElem(extraElement);
 
@@ -357,7 +371,7 @@ public class CssOnDomVerifier
                 selectorsText += String.format("%s in file: %s\n", mSelector, _selFileMapGnr.get(mSelector));
             }
 
-            LogHandler.info("[VERIFICATION] Additionally matched element detected: %s\nwith selectors from generated stylesheets", selectorsText);
+            LogHandler.info("[VERIFICATION] Additionally matched element detected: '%s'\nwith selectors from generated stylesheets: %s", matchedElementsGnr.getXPath(extraElement), selectorsText);
         }
 
 
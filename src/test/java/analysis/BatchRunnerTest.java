@@ -0,0 +1,75 @@
+package analysis;
+
+import com.crawljax.plugins.cret.runners.BatchRunner;
+import org.apache.log4j.xml.DOMConfigurator;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Verifies that sites are processed concurrently and that per-site output is merged in site order
+ */
+public class BatchRunnerTest
+{
+	public BatchRunnerTest()
+	{
+		DOMConfigurator.configure("log4j.xml");
+	}
+
+
+	@Test
+	public void TestRunSitesConcurrently() throws IOException
+	{
+		Path output = Files.createTempDirectory("cret-batch");
+		List<BatchRunner.Site> sites = BatchRunner.createSites(Arrays.asList("http://www.a.com", "http://www.b.com/index.html", "http://www.c.com", "http://www.d.com"));
+		Assert.assertEquals("www.b.com", sites.get(1).getName());
+
+		// the first three sites only complete when they run at the same time, later sites complete first
+		CountDownLatch running = new CountDownLatch(3);
+
+		List<BatchRunner.Site> completed = new BatchRunner(3).run(sites, site ->
+		{
+			if (site.getIndex() < 3)
+			{
+				running.countDown();
+				Assert.assertTrue(running.await(10, TimeUnit.SECONDS));
+				Thread.sleep(50 * (3 - site.getIndex()));
+			}
+
+			if (site.getName().equals("www.c.com"))
+			{
+				throw new IllegalStateException("crawl failed");
+			}
+
+			Files.write(site.getOutputFile(output.toString(), ".xml").toPath(), String.format("<site>%s</site>", site.getName()).getBytes(StandardCharsets.UTF_8));
+		});
+
+		Assert.assertEquals(Arrays.asList("www.a.com", "www.b.com", "www.d.com"), completed.stream().map(BatchRunner.Site::getName).collect(Collectors.toList()));
+
+		File summary = output.resolve("summary.xml").toFile();
+		BatchRunner.mergeXml(sites.stream().map(site -> site.getOutputFile(output.toString(), ".xml")).collect(Collectors.toList()), summary, "sites");
+
+		Assert.assertEquals("<sites>\n<site>www.a.com</site><site>www.b.com</site><site>www.d.com</site>\n</sites>", new String(Files.readAllBytes(summary.toPath()), StandardCharsets.UTF_8));
+
+		// a later batch is merged into the existing summary
+		BatchRunner.mergeXml(Arrays.asList(sites.get(1).getOutputFile(output.toString(), ".xml")), summary, "sites");
+		Assert.assertEquals("<sites>\n<site>www.a.com</site><site>www.b.com</site><site>www.d.com</site>\n<site>www.b.com</site>\n</sites>",
+				new String(Files.readAllBytes(summary.toPath()), StandardCharsets.UTF_8));
+
+		// existing content without root element is wrapped
+		File statistics = output.resolve("statistics.xml").toFile();
+		Files.write(statistics.toPath(), "<site>www.e.com</site>\n".getBytes(StandardCharsets.UTF_8));
+		BatchRunner.mergeXml(Arrays.asList(sites.get(0).getOutputFile(output.toString(), ".xml")), statistics, "sites");
+		Assert.assertEquals("<sites>\n<site>www.e.com</site>\n<site>www.a.com</site>\n</sites>", new String(Files.readAllBytes(statistics.toPath()), StandardCharsets.UTF_8));
+	}
+}
@@ -0,0 +1,159 @@
+package analysis;
+
+import com.crawljax.plugins.cret.util.BoundedTaskQueue;
+import org.apache.log4j.xml.DOMConfigurator;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Verifies ordering, backpressure, draining and failing of the queue used for asynchronous state matching
+ */
+public class BoundedTaskQueueTest
+{
+	public BoundedTaskQueueTest()
+	{
+		DOMConfigurator.configure("log4j.xml");
+	}
+
+
+	@Test
+	public void TestOrderAndDrain() throws InterruptedException
+	{
+		List<Integer> executed = Collections.synchronizedList(new ArrayList<>());
+
+		BoundedTaskQueue queue = new BoundedTaskQueue("test-queue", 4);
+		for (int i = 0; i < 100; i++)
+		{
+			final int task = i;
+			queue.submit(() ->
+			{
+				if (task == 50)
+				{
+					throw new IllegalStateException("failing task");
+				}
+				executed.add(task);
+			});
+		}
+
+		queue.drain();
+		Assert.assertEquals(0, queue.getPending());
+		Assert.assertEquals(99, executed.size());
+		for (int i = 1; i < executed.size(); i++)
+		{
+			Assert.assertTrue(executed.get(i - 1) < executed.get(i));
+		}
+
+		queue.close();
+	}
+
+
+	@Test
+	public void TestErrorFailsQueue() throws InterruptedException
+	{
+		List<Integer> executed = Collections.synchronizedList(new ArrayList<>());
+
+		BoundedTaskQueue queue = new BoundedTaskQueue("test-queue", 2);
+		for (int i = 0; i < 10; i++)
+		{
+			final int task = i;
+			try
+			{
+				queue.submit(() ->
+				{
+					if (task == 2)
+					{
+						throw new StackOverflowError("failing task");
+					}
+					executed.add(task);
+				});
+			}
+			catch (IllegalStateException e)
+			{
+				// the error may already have failed the queue
+				Assert.assertTrue(e.getCause() instanceof StackOverflowError);
+			}
+		}
+
+		// tasks after the error are discarded, the producer is never blocked and drain returns with the failure
+		try
+		{
+			queue.drain();
+			Assert.fail("drain must fail after an error in a task");
+		}
+		catch (IllegalStateException e)
+		{
+			Assert.assertTrue(e.getCause() instanceof StackOverflowError);
+		}
+		Assert.assertEquals(0, queue.getPending());
+		Assert.assertEquals(2, executed.size());
+
+		try
+		{
+			queue.submit(() -> { });
+			Assert.fail("submit must fail after an error in a task");
+		}
+		catch (IllegalStateException e)
+		{
+			Assert.assertTrue(e.getCause() instanceof StackOverflowError);
+		}
+
+		queue.close();
+	}
+
+
+	@Test
+	public void TestBackpressure() throws InterruptedException
+	{
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		BoundedTaskQueue queue = new BoundedTaskQueue("test-queue", 2);
+
+		// the worker blocks on the first task, the next two fill the queue
+		queue.submit(() ->
+		{
+			started.countDown();
+			try
+			{
+				release.await();
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+			}
+		});
+		Assert.assertTrue(started.await(10, TimeUnit.SECONDS));
+		queue.submit(() -> { });
+		queue.submit(() -> { });
+
+		CountDownLatch submitted = new CountDownLatch(1);
+		Thread producer = new Thread(() ->
+		{
+			try
+			{
+				queue.submit(() -> { });
+				submitted.countDown();
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+			}
+		});
+		producer.start();
+
+		// the producer waits while the queue is full
+		Assert.assertFalse(submitted.await(200, TimeUnit.MILLISECONDS));
+
+		release.countDown();
+		Assert.assertTrue(submitted.await(10, TimeUnit.SECONDS));
+
+		queue.drain();
+		Assert.assertEquals(0, queue.getPending());
+		queue.close();
+	}
+}
@@ -0,0 +1,67 @@
+package analysis;
+
+import com.crawljax.plugins.cret.cssmodel.MCssFile;
+import com.crawljax.plugins.cret.interfaces.ICssTransformer;
+import com.crawljax.plugins.cret.metrics.CretMetrics;
+import com.crawljax.plugins.cret.metrics.PhaseMetrics;
+import com.crawljax.plugins.cret.transformation.ChildCombinatorPlugin;
+import com.crawljax.plugins.cret.transformation.NormalizeAndSplitPlugin;
+import com.crawljax.plugins.cret.transformation.TransformationPipeline;
+import com.crawljax.plugins.cret.transformation.matcher.MatchedElements;
+import com.crawljax.plugins.cret.transformation.merge.NormalizeAndMergePlugin;
+import com.crawljax.plugins.cret.util.CretStringBuilder;
+import helpers.TestHelper;
+import org.apache.log4j.xml.DOMConfigurator;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.*;
+
+/**
+ * Verifies that every transformer in the pipeline is recorded as a phase in the run metrics
+ */
+public class CretMetricsTest
+{
+	public CretMetricsTest()
+	{
+		DOMConfigurator.configure("log4j.xml");
+	}
+
+
+	@Test
+	public void TestPipelineMetrics()
+	{
+		for(int threads : Arrays.asList(1, 4))
+		{
+			Map<String, MCssFile> files = new HashMap<>();
+			files.put("styles", TestHelper.GetCssFileFromFile("./src/test/resources/cssanalyzer_test_styles.css"));
+			files.put("media", TestHelper.GetCssFileFromFile("./src/test/resources/cssanalyzer_test_media.css"));
+
+			List<ICssTransformer> plugins = Arrays.asList(new NormalizeAndSplitPlugin(), new ChildCombinatorPlugin(), new NormalizeAndMergePlugin());
+
+			CretMetrics metrics = new CretMetrics();
+			Map<String, MCssFile> result = new TransformationPipeline(plugins, threads, metrics).execute(files, new MatchedElements());
+			int rules = result.values().stream().mapToInt(file -> file.getRules().size()).sum();
+
+			List<PhaseMetrics> phases = metrics.getPhases();
+			Assert.assertEquals(3, phases.size());
+			Assert.assertEquals("transform.NormalizeAndSplitPlugin", phases.get(0).getName());
+			Assert.assertEquals("transform.NormalizeAndMergePlugin", phases.get(2).getName());
+
+			for(PhaseMetrics phase : phases)
+			{
+				Assert.assertTrue(phase.getInvocations() > 0);
+				Assert.assertTrue(phase.getWallNanos() > 0);
+				Assert.assertTrue(phase.getCpuNanos() >= 0);
+				Assert.assertTrue(phase.getAllocatedBytes() >= 0);
+			}
+
+			// the last transformer yields the resulting rules
+			Assert.assertEquals(rules, phases.get(2).getItems());
+
+			CretStringBuilder builder = new CretStringBuilder();
+			metrics.generateXml(builder, "");
+			Assert.assertTrue(builder.toString().contains("<phase name=\"transform.ChildCombinatorPlugin\">"));
+		}
+	}
+}
@@ -53,12 +53,12 @@ public class DescendantToChildTest
         ElementSelectorMatcher.matchElementsToDocument("", dom, files, order, matchedElements);
 
         // for later verification
-        Set<String> matches = new HashSet<>();
-        for(String s : matchedElements.getMatchedElements())
+        Set<Long> matches = new HashSet<>();
+        for(long s : matchedElements.getMatchedElements())
                 matches.add(s);
 
         List<MDeclaration> matchedDeclarations = new ArrayList<>();
-        for(String s : matches)
+        for(long s : matches)
         {
             for(MSelector m : matchedElements.sortSelectorsForMatchedElem(s))
                 matchedDeclarations.addAll(m.getDeclarations());
@@ -84,11 +84,13 @@ public class DescendantToChildTest
         MatchedElements matchedElements2 = new MatchedElements();
         ElementSelectorMatcher.matchElementsToDocument("", dom, postResult, order, matchedElements2);
 
-        Set<String> matches2 = matchedElements2.getMatchedElements();
+        Set<Long> matches2 = new HashSet<>();
+        for(long s : matchedElements2.getMatchedElements())
+                matches2.add(s);
         Assert.assertArrayEquals(matches.toArray(), matches2.toArray());
 
         List<MDeclaration> matchedDeclarations2 = new ArrayList<>();
-        for(String s : matches2)
+        for(long s : matches2)
         {
             for(MSelector m : matchedElements2.sortSelectorsForMatchedElem(s))
                 matchedDeclarations2.addAll(m.getDeclarations());
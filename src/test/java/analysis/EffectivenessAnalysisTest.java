@@ -0,0 +1,185 @@
+package analysis;
+
+import com.crawljax.plugins.cret.cssmodel.MCssFile;
+import com.crawljax.plugins.cret.cssmodel.MCssRule;
+import com.crawljax.plugins.cret.cssmodel.MSelector;
+import com.crawljax.plugins.cret.cssmodel.declarations.MDeclaration;
+import com.crawljax.plugins.cret.transformation.effectiveness.EffectivenessAnalysis;
+import com.crawljax.plugins.cret.transformation.matcher.ElementSelectorMatcher;
+import com.crawljax.plugins.cret.transformation.matcher.MatchedElements;
+import com.crawljax.plugins.cret.util.CSSDOMHelper;
+import helpers.TestHelper;
+import org.apache.log4j.xml.DOMConfigurator;
+import org.junit.Assert;
+import org.junit.Test;
+import org.w3c.dom.Document;
+
+import java.util.*;
+
+/**
+ * Differential test, the indexed CascadeResolver must give exactly the same result as the pairwise effectiveness analysis
+ */
+public class EffectivenessAnalysisTest
+{
+	private static final String[] SELECTORS = { "div", "div p", "#main", ".item", "a:hover", "a:focus", "a:visited", "p::before", "p::after", "li:first-child", "*" };
+	private static final String[] PROPERTIES = { "color", "COLOR", "margin", "margin-top", "display", "font-size" };
+	private static final String[] VALUES = { "red", "RED", "blue", "0", "1px", "none", "block" };
+	private static final String[] MEDIA = { "screen", "print", "screen and (max-width: 600px)", "screen and (min-width: 100px)" };
+
+	public EffectivenessAnalysisTest()
+	{
+		DOMConfigurator.configure("log4j.xml");
+	}
+
+
+	@Test
+	public void TestResolverEqualsPairwiseOnDocument()
+	{
+		List<MSelector> pairwise = matchAndAnalyse(false);
+		List<MSelector> indexed = matchAndAnalyse(true);
+
+		Assert.assertFalse(pairwise.isEmpty());
+		Assert.assertEquals(printState(pairwise), printState(indexed));
+	}
+
+
+	@Test
+	public void TestResolverEqualsPairwiseOnRandomCascades()
+	{
+		for (int seed = 0; seed < 200; seed++)
+		{
+			String css = generateCss(new Random(seed));
+
+			List<MSelector> pairwise = getSelectors(TestHelper.GetCssFromString("random", css));
+			List<MSelector> indexed = getSelectors(TestHelper.GetCssFromString("random", css));
+
+			// every 'element' is matched by a random subset of the selectors, in a random order
+			Random pairwiseRandom = new Random(seed);
+			Random indexedRandom = new Random(seed);
+			for (int element = 0; element < 5; element++)
+			{
+				EffectivenessAnalysis.computeEffectivenessPairwise(randomCascade(pairwise, pairwiseRandom), "overridden-" + element);
+				EffectivenessAnalysis.computeEffectiveness(randomCascade(indexed, indexedRandom), "overridden-" + element);
+			}
+
+			Assert.assertEquals(css, printState(pairwise), printState(indexed));
+		}
+	}
+
+
+	private static List<MSelector> matchAndAnalyse(boolean indexed)
+	{
+		Document dom = TestHelper.GetDocumentFromFile("./src/test/resources/cssanalyzer_test_index.html");
+		Assert.assertNotNull(dom);
+
+		Map<String, MCssFile> files = new HashMap<>();
+		files.put("external", TestHelper.GetCssFileFromFile("./src/test/resources/cssanalyzer_test_styles.css"));
+		files.put("media", TestHelper.GetCssFileFromFile("./src/test/resources/cssanalyzer_test_media.css"));
+		files.put("internal", TestHelper.GetCssFromString("internal", CSSDOMHelper.parseEmbeddedStyles(dom)));
+
+		LinkedHashMap<String, Integer> order = new LinkedHashMap<>();
+		order.put("external", 0);
+		order.put("media", 1);
+		order.put("internal", 2);
+
+		MatchedElements matchedElements = new MatchedElements();
+		ElementSelectorMatcher.matchElementsToDocument("", dom, files, order, matchedElements);
+
+		int count = 0;
+		for (long element : matchedElements.getMatchedElements())
+		{
+			List<MSelector> selectors = matchedElements.sortSelectorsForMatchedElem(element);
+			if (indexed)
+			{
+				EffectivenessAnalysis.computeEffectiveness(selectors, "overridden-" + count);
+			}
+			else
+			{
+				EffectivenessAnalysis.computeEffectivenessPairwise(selectors, "overridden-" + count);
+			}
+			count++;
+		}
+
+		List<MSelector> result = new ArrayList<>();
+		for (String fileName : order.keySet())
+		{
+			result.addAll(getSelectors(files.get(fileName)));
+		}
+		return result;
+	}
+
+
+	private static String generateCss(Random random)
+	{
+		StringBuilder builder = new StringBuilder();
+		for (int i = 0; i < 12; i++)
+		{
+			boolean media = random.nextInt(3) == 0;
+			if (media)
+			{
+				builder.append("@media ").append(MEDIA[random.nextInt(MEDIA.length)]).append(" { ");
+			}
+
+			builder.append(SELECTORS[random.nextInt(SELECTORS.length)]).append(" { ");
+			int declarations = 1 + random.nextInt(4);
+			for (int j = 0; j < declarations; j++)
+			{
+				builder.append(PROPERTIES[random.nextInt(PROPERTIES.length)]).append(": ").append(VALUES[random.nextInt(VALUES.length)]);
+				if (random.nextInt(4) == 0)
+				{
+					builder.append(" !important");
+				}
+				builder.append("; ");
+			}
+			builder.append("} ");
+
+			if (media)
+			{
+				builder.append("} ");
+			}
+		}
+		return builder.toString();
+	}
+
+
+	private static List<MSelector> randomCascade(List<MSelector> selectors, Random random)
+	{
+		List<MSelector> result = new ArrayList<>();
+		for (MSelector selector : selectors)
+		{
+			if (random.nextInt(4) != 0)
+			{
+				result.add(selector);
+			}
+		}
+		Collections.shuffle(result, random);
+		return result;
+	}
+
+
+	private static List<MSelector> getSelectors(MCssFile file)
+	{
+		Assert.assertNotNull(file);
+
+		List<MSelector> result = new ArrayList<>();
+		for (MCssRule rule : file.getRules())
+		{
+			result.addAll(rule.getSelectors());
+		}
+		return result;
+	}
+
+
+	private static List<String> printState(List<MSelector> selectors)
+	{
+		List<String> result = new ArrayList<>();
+		for (MSelector selector : selectors)
+		{
+			for (MDeclaration declaration : selector.getDeclarations())
+			{
+				result.add(String.format("%s { %s } effective: %s, status: %s", selector, declaration, declaration.isEffective(), declaration.getStatus()));
+			}
+		}
+		return result;
+	}
+}
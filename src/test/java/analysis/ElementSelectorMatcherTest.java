@@ -0,0 +1,140 @@
+package analysis;
+
+import com.crawljax.plugins.cret.cssmodel.MCssFile;
+import com.crawljax.plugins.cret.cssmodel.MCssRule;
+import com.crawljax.plugins.cret.cssmodel.MSelector;
+import com.crawljax.plugins.cret.transformation.matcher.ElementSelectorMatcher;
+import com.crawljax.plugins.cret.transformation.matcher.MatchReuseCache;
+import com.crawljax.plugins.cret.transformation.matcher.MatchedElements;
+import com.crawljax.util.DomUtils;
+import helpers.TestHelper;
+import org.apache.log4j.xml.DOMConfigurator;
+import org.junit.Assert;
+import org.junit.Test;
+import org.w3c.dom.Document;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Verifies that the indexed matcher (compiled selectors) matches exactly the same elements as fishtank
+ */
+public class ElementSelectorMatcherTest
+{
+	public ElementSelectorMatcherTest()
+	{
+		DOMConfigurator.configure("log4j.xml");
+	}
+
+
+	@Test
+	public void TestIndexedMatchingEqualsFishtank()
+	{
+		String css = "div#footer { color: red; } #footer { margin: 0; } .input-content { display: block; } div.input-content.other { display: none; }" +
+				"ul li a { color: blue; } ul > li { color: green; } li + li { color: black; } li ~ li a { color: white; } " +
+				"#wishlist2 li:first-child { color: red; } #wishlist2 li:last-child { color: red; } li:nth-child(2n+1) { color: red; }" +
+				"#wishlist3 li a:hover { border: 0; } #wishlist3 li a:link { border: 0; } [type=\"text\"] { color: red; } a[href^=\"http\"] { color: red; }" +
+				"body .extra-content { color: red; } * { margin: 0; } p::before { content: 'x'; } html body div { padding: 0; }";
+
+		for (String cssFile : Arrays.asList("./src/test/resources/cssanalyzer_test_styles.css", "./src/test/resources/cssanalyzer_test_media.css", null))
+		{
+			List<String> fishtank = match(cssFile, css, false);
+			List<String> indexed = match(cssFile, css, true);
+
+			Assert.assertFalse(fishtank.isEmpty());
+			Assert.assertEquals(fishtank, indexed);
+		}
+	}
+
+
+	@Test
+	public void TestReuseMatchesAcrossStates() throws IOException
+	{
+		String css = "ul li a { color: blue; } ul > li { color: green; } li + li { color: black; } li ~ li a { color: white; } " +
+				"#wishlist2 li:first-child { color: red; } #wishlist2 li:last-child { color: red; } li:nth-child(2n+1) { color: red; }" +
+				"h3 + ul li { color: red; } #leftPanel ~ h3 { color: red; } p:empty { margin: 0; } div > p:only-child { margin: 0; }" +
+				"a[href$=\"B.html\"] { color: red; } #wishlist3 li a:link { border: 0; } * { margin: 0; } html body div { padding: 0; }";
+
+		String html = TestHelper.GetStringFromFile("./src/test/resources/cssanalyzer_test_index.html");
+
+		// states that share most of their DOM, but differ in siblings, ancestors, attribute values and emptiness
+		List<String> states = Arrays.asList(
+				html,
+				html.replace("Wish List Nicole</a>\n\t\t</li>", "Wish List Nicole</a>\n\t\t</li>\n\t\t<li class=\"added\"><a href=\"content/C.html\">Wish List Kim</a></li>"),
+				html.replace("<p></p>", "<p>not empty</p>"),
+				html.replace("<h3>Wish Lists 3</h3>", "<div><h3>Wish Lists 3</h3></div>"),
+				html.replace("content/A.html\">Wish List Laura", "content/B.html\">Wish List Laura"),
+				html);
+
+		MCssFile reusedFile = TestHelper.GetCssFromString("generated", css);
+		MCssFile file = TestHelper.GetCssFromString("generated", css);
+		MatchReuseCache cache = new MatchReuseCache(100000);
+
+		for (int i = 0; i < states.size(); i++)
+		{
+			Assert.assertTrue(i == 0 || i == states.size() - 1 || !states.get(i).equals(html));
+
+			matchState("state" + i, DomUtils.asDocument(states.get(i)), reusedFile, cache);
+			matchState("state" + i, DomUtils.asDocument(states.get(i)), file, null);
+		}
+
+		Assert.assertEquals(getMatches(file), getMatches(reusedFile));
+		Assert.assertTrue(cache.getReusedElements() > cache.getEvaluatedElements());
+	}
+
+
+	private static void matchState(String stateName, Document dom, MCssFile file, MatchReuseCache cache)
+	{
+		HashMap<String, MCssFile> files = new HashMap<>();
+		files.put("file", file);
+
+		LinkedHashMap<String, Integer> order = new LinkedHashMap<>();
+		order.put("file", 0);
+
+		ElementSelectorMatcher.matchElementsToDocument(stateName, dom, files, order, new MatchedElements(), true, cache);
+	}
+
+
+	private static List<String> getMatches(MCssFile file)
+	{
+		List<String> result = new ArrayList<>();
+		for (MCssRule rule : file.getRules())
+		{
+			for (MSelector selector : rule.getSelectors())
+			{
+				result.add(selector + " -> " + selector.getMatchedElements().stream().map(e -> e.getXPath()).collect(Collectors.joining(", ")));
+			}
+		}
+		return result;
+	}
+
+
+	private static List<String> match(String cssFile, String css, boolean indexed)
+	{
+		Document dom = TestHelper.GetDocumentFromFile("./src/test/resources/cssanalyzer_test_index.html");
+		Assert.assertNotNull(dom);
+
+		MCssFile file = cssFile != null ? TestHelper.GetCssFileFromFile(cssFile) : TestHelper.GetCssFromString("generated", css);
+		Assert.assertNotNull(file);
+
+		HashMap<String, MCssFile> files = new HashMap<>();
+		files.put("file", file);
+
+		LinkedHashMap<String, Integer> order = new LinkedHashMap<>();
+		order.put("file", 0);
+
+		ElementSelectorMatcher.matchElementsToDocument("", dom, files, order, new MatchedElements(), indexed);
+
+		List<String> result = new ArrayList<>();
+		for (MCssRule rule : file.getRules())
+		{
+			for (MSelector selector : rule.getSelectors())
+			{
+				result.add(selector + " -> " + selector.getMatchedElements().stream().map(e -> e.getXPath()).collect(Collectors.joining(", ")));
+			}
+		}
+
+		return result;
+	}
+}
@@ -1,7 +1,7 @@
 package analysis;
 
 import java.io.IOException;
-import java.util.List;
+import java.util.*;
 
 import helpers.TestHelper;
 import org.apache.log4j.xml.DOMConfigurator;
@@ -15,7 +15,11 @@ import se.fishtank.css.selectors.Selectors;
 import se.fishtank.css.selectors.dom.W3CNode;
 import se.fishtank.css.selectors.parser.ParserException;
 
+import com.crawljax.plugins.cret.cssmodel.MCssFile;
 import com.crawljax.plugins.cret.cssmodel.MSelector;
+import com.crawljax.plugins.cret.transformation.matcher.CascadeSignature;
+import com.crawljax.plugins.cret.transformation.matcher.ElementSelectorMatcher;
+import com.crawljax.plugins.cret.transformation.matcher.MatchedElements;
 import com.crawljax.util.DomUtils;
 
 public class MatchedElementsTest
@@ -128,4 +132,39 @@ public class MatchedElementsTest
 			Assert.fail(ex.getMessage());
 		}
 	}
+
+
+	@Test
+	public void TestCascadeSignatures()
+	{
+		Document dom = TestHelper.GetDocumentFromFile("./src/test/resources/cssanalyzer_test_index.html");
+		Assert.assertNotNull(dom);
+
+		HashMap<String, MCssFile> files = new HashMap<>();
+		files.put("external", TestHelper.GetCssFileFromFile("./src/test/resources/cssanalyzer_test_styles.css"));
+
+		LinkedHashMap<String, Integer> order = new LinkedHashMap<>();
+		order.put("external", 0);
+
+		MatchedElements matchedElements = new MatchedElements();
+		ElementSelectorMatcher.matchElementsToDocument("", dom, files, order, matchedElements);
+
+		List<CascadeSignature> signatures = matchedElements.getCascadeSignatures();
+		Assert.assertTrue(signatures.size() < matchedElements.getMatchedElementCount());
+		Assert.assertSame(signatures, matchedElements.getCascadeSignatures());
+
+		// every element is counted by exactly the signature holding its set of selectors, in its sorted order
+		Map<Set<MSelector>, Integer> counts = new HashMap<>();
+		for(long element : matchedElements.getMatchedElements())
+		{
+			counts.merge(new HashSet<>(matchedElements.sortSelectorsForMatchedElem(element)), 1, Integer::sum);
+		}
+
+		Assert.assertEquals(counts.size(), signatures.size());
+		for(CascadeSignature signature : signatures)
+		{
+			Assert.assertEquals(matchedElements.sortSelectorsForMatchedElem(signature.getElement()), signature.getSelectors());
+			Assert.assertEquals(counts.get(new HashSet<>(signature.getSelectors())), (Integer)signature.getElementCount());
+		}
+	}
 }
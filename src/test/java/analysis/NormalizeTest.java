@@ -7,12 +7,14 @@ import com.crawljax.plugins.cret.cssmodel.MSelector;
 import com.crawljax.plugins.cret.transformation.NormalizeAndSplitPlugin;
 import com.crawljax.plugins.cret.transformation.matcher.MatchedElements;
 import com.crawljax.plugins.cret.transformation.merge.NormalizeAndMergePlugin;
+import com.crawljax.plugins.cret.util.CssValue;
 import helpers.TestHelper;
 import org.apache.log4j.xml.DOMConfigurator;
 import org.junit.Assert;
 import org.junit.Test;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -391,4 +393,66 @@ public class NormalizeTest
         Assert.assertEquals("border", props.get(0).getName());
         Assert.assertEquals("border-bottom", props.get(1).getName());
     }
+
+
+    @Test
+    public void TestNormalizeValueTokens()
+    {
+        MCssFile file = TestHelper.GetCssFromString("tokens", ".a { filter: drop-shadow(0 0 0.5em rgba(0, 0, 0, 0.5)) drop-shadow(0 0 2px rgb(0, 0, 0)); }\n" +
+                ".b { width: 10.5px; } \n" +
+                ".c { background-image: url(http://www.google.nl/img0.5.png); }\n" +
+                ".d { border-radius: 10px 5px / 3px; }\n" +
+                ".e { color: redish; }");
+        Assert.assertNotNull(file);
+
+        Map<String, MCssFile> files = new HashMap<>();
+        files.put("tokens", file);
+
+        NormalizeAndSplitPlugin cssNormalizer = new NormalizeAndSplitPlugin();
+        cssNormalizer.transform(files, new MatchedElements());
+
+        List<MSelector> selectors = new ArrayList<>();
+        for(MCssRule rule : files.get("tokens").getRules())
+        {
+            selectors.addAll(rule.getSelectors());
+        }
+
+        // colors and zeroes inside function arguments
+        Assert.assertEquals("drop-shadow(0 0 .5em rgba(0,0,0,.5)) drop-shadow(0 0 2px #000000)", selectors.get(0).getDeclarations().get(0).getValue());
+
+        // only leading zeroes are stripped, not those in other numbers or in urls
+        Assert.assertEquals("10.5px", selectors.get(1).getDeclarations().get(0).getValue());
+        Assert.assertEquals("url(www.google.nl/img0.5.png)", selectors.get(2).getDeclarations().get(0).getValue());
+
+        List<MDeclaration> mDeclarations = selectors.get(3).getDeclarations();
+        Assert.assertEquals(4, mDeclarations.size());
+        Assert.assertEquals("border-top-left-radius", mDeclarations.get(0).getName());
+        Assert.assertEquals("10px 3px", mDeclarations.get(0).getValue());
+        Assert.assertEquals("border-top-right-radius", mDeclarations.get(1).getName());
+        Assert.assertEquals("5px 3px", mDeclarations.get(1).getValue());
+
+        // color names only as complete words
+        Assert.assertEquals("redish", selectors.get(4).getDeclarations().get(0).getValue());
+    }
+
+
+    @Test
+    public void TestParsedValueCache()
+    {
+        MDeclaration mDeclaration = new MDeclaration("border-radius", "10px 5px / 3px", false, 1);
+
+        CssValue value = mDeclaration.getParsedValue();
+        Assert.assertSame(value, mDeclaration.getParsedValue());
+        Assert.assertEquals(Arrays.asList("10px", "5px", "/", "3px"), value.getWords());
+        Assert.assertEquals(Arrays.asList("10px 5px ", " 3px"), value.split('/'));
+        Assert.assertTrue(value.getTokens().get(0).isLength());
+
+        // a changed value is parsed again
+        mDeclaration.setNormalizedValue("#fff");
+        Assert.assertNotSame(value, mDeclaration.getParsedValue());
+        Assert.assertTrue(mDeclaration.getParsedValue().getSingleToken().isColor());
+
+        // copies share the parsed value
+        Assert.assertSame(mDeclaration.getParsedValue(), new MDeclaration(mDeclaration).getParsedValue());
+    }
 }
@@ -0,0 +1,119 @@
+package analysis;
+
+import com.crawljax.plugins.cret.CRET;
+import com.crawljax.plugins.cret.metrics.CretMetrics;
+import com.crawljax.plugins.cret.runners.OfflineRunner;
+import org.apache.log4j.xml.DOMConfigurator;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Verifies that stored states are processed without a browser, with every CSS file parsed once
+ */
+public class OfflineRunnerTest
+{
+	public OfflineRunnerTest()
+	{
+		DOMConfigurator.configure("log4j.xml");
+	}
+
+
+	private static void write(Path file, String content) throws IOException
+	{
+		Files.createDirectories(file.getParent());
+		Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+	}
+
+
+	@Test
+	public void TestProcessStoredStates() throws IOException
+	{
+		Path site = Files.createTempDirectory("cret-offline");
+
+		write(site.resolve("css/main.css"), "div { color: red; } .news { margin: 0; }");
+		write(site.resolve("css/extra.css"), "p { color: blue; }");
+
+		// stylesheets taken from the DOM, relative and site-absolute links to the same file
+		write(site.resolve("states/index.html"), "<html><head><link href='../css/main.css?v=2' rel='stylesheet' type='text/css'><style>span { color: green; }</style></head>"
+				+ "<body><div class='news'><p>text</p></div></body></html>");
+		write(site.resolve("states/state1.html"), "<html><head><link href='/css/main.css' rel='stylesheet' type='text/css'></head>"
+				+ "<body><div><p>text</p><span>text</span></div></body></html>");
+
+		// stylesheets taken from a list
+		write(site.resolve("states/state2.html"), "<html><head></head><body><p>text</p></body></html>");
+		write(site.resolve("states/state2.stylesheets"), "css/main.css\ncss/extra.css\n");
+
+		CRET cret = new CRET("offline", site.toUri().toString());
+		cret._cssParseCacheRoot = site.resolve("cache").toString();
+		Assert.assertEquals(3, OfflineRunner.processStates(cret, site, 2));
+
+		CretMetrics metrics = cret.getMetrics();
+		Assert.assertEquals(3, metrics.getPhase(CretMetrics.MATCH).getInvocations());
+
+		// main.css, extra.css and the embedded styles of every state
+		Assert.assertEquals(5, metrics.getPhase(CretMetrics.PARSE).getInvocations());
+
+		// index: div, .news, span; state1: div, .news; state2: div, .news, p
+		Assert.assertEquals(8, metrics.getPhase(CretMetrics.MATCH).getItems());
+	}
+
+
+	@Test
+	public void TestDeduplicateStates() throws IOException
+	{
+		Path site = Files.createTempDirectory("cret-offline");
+
+		write(site.resolve("css/main.css"), "div { color: red; } a[href$='.pdf'] { color: blue; } p:empty { display: none; }");
+
+		String head = "<html><head><link href='../css/main.css' rel='stylesheet' type='text/css'></head>";
+		write(site.resolve("states/a.html"), head + "<body><div class='news' title='first'><a href='/doc.html'>first</a><p>text</p></div></body></html>");
+		// only text and the value of an attribute that is not used in selectors differ
+		write(site.resolve("states/b.html"), head + "<body><div class='news' title='second'><a href='/doc.html'>second news</a><p>other text</p></div></body></html>");
+		// the value of an attribute that is used in a selector differs
+		write(site.resolve("states/c.html"), head + "<body><div class='news' title='third'><a href='/doc.pdf'>third</a><p>text</p></div></body></html>");
+		// an empty element
+		write(site.resolve("states/d.html"), head + "<body><div class='news' title='fourth'><a href='/doc.html'>fourth</a><p></p></div></body></html>");
+		// a different class
+		write(site.resolve("states/e.html"), head + "<body><div class='old' title='fifth'><a href='/doc.html'>fifth</a><p>text</p></div></body></html>");
+
+		CRET cret = new CRET("offline", site.toUri().toString());
+		cret._cssParseCacheRoot = site.resolve("cache").toString();
+		Assert.assertEquals(5, OfflineRunner.processStates(cret, site, 2));
+
+		Assert.assertEquals(1, cret.getDeduplicatedStates());
+		Assert.assertEquals(4, cret.getMetrics().getPhase(CretMetrics.MATCH).getInvocations());
+
+		CRET withoutDeduplication = new CRET("offline", site.toUri().toString());
+		withoutDeduplication._enableStateDeduplication = false;
+		withoutDeduplication._cssParseCacheRoot = site.resolve("cache").toString();
+		OfflineRunner.processStates(withoutDeduplication, site, 2);
+
+		Assert.assertEquals(0, withoutDeduplication.getDeduplicatedStates());
+		Assert.assertEquals(5, withoutDeduplication.getMetrics().getPhase(CretMetrics.MATCH).getInvocations());
+	}
+
+
+	@Test
+	public void TestDeduplicateStatesByInputType() throws IOException
+	{
+		Path site = Files.createTempDirectory("cret-offline");
+
+		write(site.resolve("css/main.css"), "input:checked { color: red; } input:focus { color: blue; }");
+
+		// only the type of the input differs, which decides whether :checked or :focus is compatible
+		String head = "<html><head><link href='../css/main.css' rel='stylesheet' type='text/css'></head>";
+		write(site.resolve("states/a.html"), head + "<body><form><input type='checkbox' name='field'></form></body></html>");
+		write(site.resolve("states/b.html"), head + "<body><form><input type='text' name='field'></form></body></html>");
+
+		CRET cret = new CRET("offline", site.toUri().toString());
+		Assert.assertEquals(2, OfflineRunner.processStates(cret, site, 2));
+
+		Assert.assertEquals(0, cret.getDeduplicatedStates());
+		Assert.assertEquals(2, cret.getMetrics().getPhase(CretMetrics.MATCH).getInvocations());
+	}
+}
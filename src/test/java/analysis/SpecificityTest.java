@@ -76,12 +76,35 @@ public class SpecificityTest
 		AssertSpecificity("div:hover + span:focus", 202);
 
 
-		// complex selector
-		AssertSpecificity("#test:hover div.class:first-child span[attr=\"test\"]::first-line", 10503);
+		// complex selector (a pseudo-element counts as element name only, also when it follows an attribute)
+		AssertSpecificity("#test:hover div.class:first-child span[attr=\"test\"]::first-line", 10403);
 
 		System.out.println("[TestSpecificity] Individual specificity computations passed!");
 	}
 
+	@Test
+	public void TestSpecificityNoOverflow() throws IOException
+	{
+		StringBuilder selector = new StringBuilder("div");
+		for(int i = 0; i < 120; i++)
+		{
+			selector.append(".c").append(i);
+		}
+
+		Specificity classes = TestHelper.CreateEmptySelector(selector.toString()).getSpecificity();
+		Specificity id = TestHelper.CreateEmptySelector("#id").getSpecificity();
+
+		Assert.assertEquals(0, classes.getIds());
+		Assert.assertEquals(120, classes.getClasses());
+		Assert.assertEquals(1, classes.getElements());
+
+		// a single id outweighs any number of classes
+		Assert.assertTrue(id.getPacked() > classes.getPacked());
+
+		// copies of a selector share the cached specificity
+		Assert.assertSame(classes, new MSelector(TestHelper.CreateEmptySelector(selector.toString())).getSpecificity());
+	}
+
 	@Test
 	public void TestOrderSpecificity() throws IOException
 	{
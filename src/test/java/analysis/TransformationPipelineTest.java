@@ -0,0 +1,77 @@
+package analysis;
+
+import com.crawljax.plugins.cret.cssmodel.MCssFile;
+import com.crawljax.plugins.cret.cssmodel.MCssRule;
+import com.crawljax.plugins.cret.interfaces.ICssTransformer;
+import com.crawljax.plugins.cret.transformation.*;
+import com.crawljax.plugins.cret.transformation.effectiveness.EffectivenessPlugin;
+import com.crawljax.plugins.cret.transformation.matcher.ElementSelectorMatcher;
+import com.crawljax.plugins.cret.transformation.matcher.MatchedElements;
+import com.crawljax.plugins.cret.transformation.merge.NormalizeAndMergePlugin;
+import com.crawljax.plugins.cret.util.CSSDOMHelper;
+import helpers.TestHelper;
+import org.apache.log4j.xml.DOMConfigurator;
+import org.junit.Assert;
+import org.junit.Test;
+import org.w3c.dom.Document;
+
+import java.util.*;
+
+/**
+ * Verifies that the parallel transformation pipeline yields the same result as the sequential pipeline
+ */
+public class TransformationPipelineTest
+{
+	public TransformationPipelineTest()
+	{
+		DOMConfigurator.configure("log4j.xml");
+	}
+
+
+	@Test
+	public void TestParallelEqualsSequential()
+	{
+		List<String> sequential = transform(1);
+		List<String> parallel = transform(4);
+
+		Assert.assertFalse(sequential.isEmpty());
+		Assert.assertEquals(sequential, parallel);
+	}
+
+
+	private static List<String> transform(int threads)
+	{
+		Document dom = TestHelper.GetDocumentFromFile("./src/test/resources/cssanalyzer_test_index.html");
+		Assert.assertNotNull(dom);
+
+		Map<String, MCssFile> files = new HashMap<>();
+		files.put("external", TestHelper.GetCssFileFromFile("./src/test/resources/cssanalyzer_test_styles.css"));
+		files.put("media", TestHelper.GetCssFileFromFile("./src/test/resources/cssanalyzer_test_media.css"));
+		files.put("internal", TestHelper.GetCssFromString("internal", CSSDOMHelper.parseEmbeddedStyles(dom)));
+
+		LinkedHashMap<String, Integer> order = new LinkedHashMap<>();
+		order.put("external", 0);
+		order.put("media", 1);
+		order.put("internal", 2);
+
+		MatchedElements matchedElements = new MatchedElements();
+		ElementSelectorMatcher.matchElementsToDocument("", dom, files, order, matchedElements);
+
+		List<ICssTransformer> plugins = Arrays.asList(new NormalizeAndSplitPlugin(), new ClonedDeclarationsPlugin(), new EffectivenessPlugin(),
+				new DefaultStylesPlugin(), new ChildCombinatorPlugin(), new NormalizeAndMergePlugin());
+
+		Map<String, MCssFile> result = new TransformationPipeline(plugins, threads).execute(files, matchedElements);
+
+		List<String> printed = new ArrayList<>();
+		for(String fileName : result.keySet())
+		{
+			printed.add(fileName);
+			for(MCssRule rule : result.get(fileName).getRules())
+			{
+				printed.add(rule.print());
+			}
+		}
+
+		return printed;
+	}
+}
@@ -0,0 +1,178 @@
+package cssparser;
+
+import com.crawljax.plugins.cret.cssmodel.MCssFile;
+import com.crawljax.plugins.cret.cssmodel.MCssRuleBase;
+import com.crawljax.plugins.cret.parser.CssParseCache;
+import com.crawljax.plugins.cret.parser.CssParser;
+import helpers.TestHelper;
+import org.apache.log4j.xml.DOMConfigurator;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Verifies that stylesheets loaded from the parse cache equal freshly parsed stylesheets, and LRU eviction of cache entries
+ */
+public class CssParseCacheTest
+{
+	private Path _root;
+
+	public CssParseCacheTest()
+	{
+		DOMConfigurator.configure("log4j.xml");
+	}
+
+
+	@Before
+	public void createRoot() throws IOException
+	{
+		_root = Files.createTempDirectory("cret-cssom");
+	}
+
+
+	@After
+	public void deleteRoot() throws IOException
+	{
+		try (Stream<Path> files = Files.walk(_root))
+		{
+			for (Path file : files.sorted(Comparator.reverseOrder()).collect(Collectors.toList()))
+			{
+				Files.deleteIfExists(file);
+			}
+		}
+	}
+
+
+	@Test
+	public void TestLoadParsedStylesheetFromCache() throws IOException
+	{
+		String styles = TestHelper.GetStringFromFile("./src/test/resources/cssanalyzer_test_styles.css");
+		String incorrect = "div { color: red; } p { color: ; margin: 0 } a:hover { color: blue; ";
+
+		CssParseCache cache = new CssParseCache(_root.toString(), Long.MAX_VALUE);
+
+		for (String code : new String[] { styles, incorrect })
+		{
+			CssParser plain = new CssParser(false);
+			MCssFile expected = plain.parseCssIntoMCssRules("file", code);
+
+			CssParser first = new CssParser(false, cache);
+			MCssFile parsed = first.parseCssIntoMCssRules("file", code);
+
+			CssParser second = new CssParser(false, cache);
+			MCssFile loaded = second.parseCssIntoMCssRules("file", code);
+
+			Assert.assertFalse(expected.getRules().isEmpty());
+			Assert.assertEquals(print(expected), print(parsed));
+			Assert.assertEquals(print(expected), print(loaded));
+			Assert.assertEquals(plain.getParseErrors().getParseErrors(), second.getParseErrors().getParseErrors());
+
+			// every load yields its own model
+			Assert.assertNotSame(parsed.getRules().get(0).getAbstractRule(), loaded.getRules().get(0).getAbstractRule());
+		}
+
+		Assert.assertEquals(2, cache.getHits());
+		Assert.assertEquals(2, cache.getMisses());
+	}
+
+
+	@Test
+	public void TestEvictLeastRecentlyUsed() throws IOException
+	{
+		String[] codes = { "a { color: red; }", "b { color: green; }", "i { color: blue; }", "u { color: white; }" };
+
+		CssParseCache unbounded = new CssParseCache(_root.toString(), Long.MAX_VALUE);
+		List<Path> entries = new ArrayList<>();
+		for (int i = 0; i < 3; i++)
+		{
+			new CssParser(false, unbounded).parseCssIntoMCssRules("file", codes[i]);
+
+			Path entry = newestEntry(entries);
+			Files.setLastModifiedTime(entry, FileTime.fromMillis(1000L * (i + 1)));
+			entries.add(entry);
+		}
+
+		long size = 0;
+		for (Path entry : entries)
+		{
+			size += Files.size(entry);
+		}
+
+		// use the first entry, the second entry becomes the least recently used one
+		CssParseCache cache = new CssParseCache(_root.toString(), size);
+		Assert.assertNotNull(cache.get(codes[0]));
+
+		new CssParser(false, cache).parseCssIntoMCssRules("file", codes[3]);
+
+		Assert.assertTrue(Files.exists(entries.get(0)));
+		Assert.assertFalse(Files.exists(entries.get(1)));
+		Assert.assertNotNull(cache.get(codes[3]));
+		Assert.assertNull(cache.get(codes[1]));
+	}
+
+
+	@Test
+	public void TestRejectEntryWithUnknownClass() throws IOException
+	{
+		String code = "a { color: red; }";
+
+		CssParseCache cache = new CssParseCache(_root.toString(), Long.MAX_VALUE);
+		new CssParser(false, cache).parseCssIntoMCssRules("file", code);
+		Path entry = newestEntry(new ArrayList<>());
+
+		// replace the entry with an object of a class that does not belong in a parsed stylesheet
+		try (ObjectOutputStream stream = new ObjectOutputStream(new GZIPOutputStream(Files.newOutputStream(entry))))
+		{
+			stream.writeInt(1);
+			stream.writeObject(new Date());
+		}
+
+		Assert.assertNull(cache.get(code));
+		Assert.assertFalse(Files.exists(entry));
+		Assert.assertEquals(2, cache.getMisses());
+
+		// a fresh parse stores a valid entry again
+		CssParser parser = new CssParser(false, cache);
+		Assert.assertEquals(1, parser.parseCssIntoMCssRules("file", code).getRules().size());
+		Assert.assertNotNull(cache.get(code));
+	}
+
+
+	/**
+	 * @return the only cache entry that is not in the given list
+	 */
+	private Path newestEntry(List<Path> known) throws IOException
+	{
+		try (Stream<Path> files = Files.list(_root))
+		{
+			List<Path> result = files.filter(file -> !known.contains(file)).collect(Collectors.toList());
+			Assert.assertEquals(1, result.size());
+			return result.get(0);
+		}
+	}
+
+
+	private static List<String> print(MCssFile file)
+	{
+		List<String> result = new ArrayList<>();
+		for (MCssRuleBase rule : file.getAllRules())
+		{
+			result.add(rule.getLineNumber() + ":" + rule.getColumnNumber() + " " + rule.print());
+		}
+		return result;
+	}
+}
@@ -1,10 +1,12 @@
 package cssparser;
 
+import java.util.Collections;
 import java.util.List;
 
 import com.crawljax.plugins.cret.cssmodel.MCssFile;
 import com.crawljax.plugins.cret.cssmodel.declarations.MDeclaration;
 import com.crawljax.plugins.cret.cssmodel.MSelector;
+import com.crawljax.plugins.cret.sass.SassSelector;
 
 import org.apache.log4j.xml.DOMConfigurator;
 import org.junit.Assert;
@@ -351,4 +353,97 @@ public class CssParserTest
 		Assert.assertTrue(mRule.getSelectors().get(1).getW3CError().isEmpty());
 		Assert.assertFalse(mRule.getSelectors().get(2).getW3CError().isEmpty());
 	}
+
+	@Test
+	public void TestParseInternedDeclarations()
+	{
+		CssParser parser = new CssParser(false);
+		MCssFile mCssFile = parser.parseCssIntoMCssRules("test", "div { color: red; margin: 0 !important; } a { color: red; } span { COLOR: red; }");
+
+		List<MCssRule> mRules = mCssFile.getRules();
+		MDeclaration divColor = mRules.get(0).getSelectors().get(0).getDeclarations().get(0);
+		MDeclaration aColor = mRules.get(1).getSelectors().get(0).getDeclarations().get(0);
+		MDeclaration spanColor = mRules.get(2).getSelectors().get(0).getDeclarations().get(0);
+
+		// every rule has its own declarations, sharing interned names and values
+		Assert.assertNotSame(divColor, aColor);
+		Assert.assertSame(divColor.getName(), aColor.getName());
+		Assert.assertSame(divColor.getValue(), aColor.getValue());
+		Assert.assertEquals(divColor.getNameId(), aColor.getNameId());
+		Assert.assertEquals(divColor.getValueId(), aColor.getValueId());
+		Assert.assertEquals(2, mRules.get(0).getSelectors().get(0).getDeclarations().get(1).getOrder());
+
+		// names only differing in case share the folded id
+		Assert.assertEquals(divColor.getValueId(), spanColor.getValueId());
+		Assert.assertEquals(divColor.getFoldedNameId(), spanColor.getFoldedNameId());
+
+		// a normalized value is only interned once its id is needed, equal values still share the id
+		String normalized = new String("red");
+		aColor.setNormalizedValue(normalized);
+		Assert.assertSame(normalized, aColor.getValue());
+		Assert.assertEquals(divColor.getValueId(), aColor.getValueId());
+	}
+
+
+	@Test
+	public void TestParseSharedDeclarationBlocks()
+	{
+		CssParser parser = new CssParser(false);
+		MCssFile mCssFile = parser.parseCssIntoMCssRules("test", "div, a, span { color: red; margin: 0; }");
+
+		List<MSelector> mSelectors = mCssFile.getRules().get(0).getSelectors();
+		MSelector div = mSelectors.get(0);
+		MSelector a = mSelectors.get(1);
+		MSelector span = mSelectors.get(2);
+
+		// all selectors of a rule share the same declarations
+		Assert.assertSame(div.getDeclarations().get(0), a.getDeclarations().get(0));
+		Assert.assertSame(div.getDeclarations().get(0), span.getDeclarations().get(0));
+
+		// changing the declarations of one selector does not affect the others
+		a.getMutableDeclarations().get(0).setNormalizedValue("blue");
+		a.removeDeclarations(Collections.singletonList(a.getDeclarations().get(1)));
+		Assert.assertEquals(1, a.getDeclarations().size());
+		Assert.assertEquals("blue", a.getDeclarations().get(0).getValue());
+		Assert.assertEquals(2, div.getDeclarations().size());
+		Assert.assertEquals("red", div.getDeclarations().get(0).getValue());
+		Assert.assertSame(div.getDeclarations().get(0), span.getDeclarations().get(0));
+
+		// copies share declarations as well, until changed
+		MSelector copy = new MSelector(div);
+		Assert.assertSame(div.getDeclarations().get(0), copy.getDeclarations().get(0));
+		copy.removeIneffectiveDeclarations();
+		Assert.assertTrue(copy.getDeclarations().isEmpty());
+		Assert.assertEquals(2, div.getDeclarations().size());
+		Assert.assertEquals(2, span.getDeclarations().size());
+
+		// a selector with a private block shares it again with its copies
+		MSelector aCopy = new MSelector(a);
+		a.getMutableDeclarations().get(0).setNormalizedValue("green");
+		Assert.assertEquals("green", a.getDeclarations().get(0).getValue());
+		Assert.assertEquals("blue", aCopy.getDeclarations().get(0).getValue());
+
+		// SASS selectors and sorting by order do not copy declarations that are not changed
+		MSelector spanCopy = new MSelector(span);
+		spanCopy.sortDeclarations();
+		SassSelector sassSelector = new SassSelector(spanCopy);
+		Assert.assertSame(span.getDeclarations().get(0), sassSelector.getDeclarations().get(0));
+		sassSelector.removeDeclarations(Collections.singletonList(sassSelector.getDeclarations().get(0)));
+		Assert.assertEquals(1, sassSelector.getDeclarations().size());
+		Assert.assertEquals(2, span.getDeclarations().size());
+	}
+
+
+	@Test
+	public void TestParseOwnedDeclarationBlocks()
+	{
+		CssParser parser = new CssParser(false);
+		MCssFile mCssFile = parser.parseCssIntoMCssRules("test", "div:not(.class) { color: red; }");
+
+		// an ignored selector with its own declarations keeps them when changed, they are not copied
+		MSelector div = mCssFile.getRules().get(0).getSelectors().get(0);
+		MDeclaration color = div.getDeclarations().get(0);
+		Assert.assertTrue(color.isEffective());
+		Assert.assertSame(color, div.getMutableDeclarations().get(0));
+	}
 }
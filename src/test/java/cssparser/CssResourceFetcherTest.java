@@ -0,0 +1,201 @@
+package cssparser;
+
+import com.crawljax.plugins.cret.util.CssResourceCache;
+import com.crawljax.plugins.cret.util.CssResourceFetcher;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.log4j.xml.DOMConfigurator;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Verifies concurrent fetching and ETag/Last-Modified revalidation against a local HTTP stub
+ */
+public class CssResourceFetcherTest
+{
+	private HttpServer _server;
+	private String _root;
+
+	private final AtomicInteger _fullResponses = new AtomicInteger();
+	private final AtomicInteger _notModifiedResponses = new AtomicInteger();
+	private final CountDownLatch _parallelRequests = new CountDownLatch(3);
+
+	public CssResourceFetcherTest()
+	{
+		DOMConfigurator.configure("log4j.xml");
+	}
+
+
+	@Before
+	public void startServer() throws IOException
+	{
+		_server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		_server.setExecutor(Executors.newCachedThreadPool());
+
+		_server.createContext("/etag.css", exchange ->
+		{
+			if ("\"v1\"".equals(exchange.getRequestHeaders().getFirst("If-None-Match")))
+			{
+				respond(exchange, 304, null, null);
+			}
+			else
+			{
+				respond(exchange, 200, "ETag", "\"v1\"");
+			}
+		});
+
+		_server.createContext("/modified.css", exchange ->
+		{
+			String lastModified = "Sat, 17 Oct 2026 10:00:00 GMT";
+			if (lastModified.equals(exchange.getRequestHeaders().getFirst("If-Modified-Since")))
+			{
+				respond(exchange, 304, null, null);
+			}
+			else
+			{
+				respond(exchange, 200, "Last-Modified", lastModified);
+			}
+		});
+
+		// only responds once all parallel requests have arrived
+		_server.createContext("/parallel", exchange ->
+		{
+			_parallelRequests.countDown();
+			try
+			{
+				_parallelRequests.await(10, TimeUnit.SECONDS);
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+			}
+			respond(exchange, _parallelRequests.getCount() == 0 ? 200 : 500, null, null);
+		});
+
+		_server.start();
+		_root = String.format("http://127.0.0.1:%d", _server.getAddress().getPort());
+	}
+
+
+	@After
+	public void stopServer()
+	{
+		_server.stop(0);
+	}
+
+
+	private void respond(HttpExchange exchange, int status, String header, String value) throws IOException
+	{
+		if (header != null)
+		{
+			exchange.getResponseHeaders().add(header, value);
+		}
+
+		if (status == 304)
+		{
+			_notModifiedResponses.incrementAndGet();
+			exchange.sendResponseHeaders(304, -1);
+			exchange.close();
+			return;
+		}
+
+		_fullResponses.incrementAndGet();
+		byte[] body = String.format("/* %s */ a { color: red; }", exchange.getRequestURI().getPath().startsWith("/parallel") ? "shared" : exchange.getRequestURI().getPath()).getBytes(StandardCharsets.UTF_8);
+		exchange.sendResponseHeaders(status, body.length);
+		try (OutputStream stream = exchange.getResponseBody())
+		{
+			stream.write(body);
+		}
+	}
+
+
+	@Test
+	public void TestFetchAllConcurrently()
+	{
+		try (CssResourceFetcher fetcher = new CssResourceFetcher(4, 5000, null))
+		{
+			Map<String, String> result = fetcher.fetchAll(Arrays.asList(_root + "/parallel/c.css", _root + "/parallel/a.css", _root + "/missing.css", _root + "/parallel/b.css"));
+
+			// in order of the given urls, a failed fetch results in empty code
+			Assert.assertEquals(Arrays.asList(_root + "/parallel/c.css", _root + "/parallel/a.css", _root + "/missing.css", _root + "/parallel/b.css"), Arrays.asList(result.keySet().toArray()));
+			Assert.assertEquals("/* shared */ a { color: red; }", result.get(_root + "/parallel/a.css"));
+			Assert.assertEquals("/* shared */ a { color: red; }", result.get(_root + "/parallel/b.css"));
+			Assert.assertEquals("/* shared */ a { color: red; }", result.get(_root + "/parallel/c.css"));
+			Assert.assertEquals("", result.get(_root + "/missing.css"));
+		}
+	}
+
+
+	@Test
+	public void TestRevalidateCachedFiles() throws IOException
+	{
+		Path cacheRoot = Files.createTempDirectory("cret-css-cache");
+		CssResourceCache cache = new CssResourceCache(cacheRoot.toString());
+
+		for (int run = 0; run < 2; run++)
+		{
+			// a new fetcher per run, like a new CRET run on the same cache
+			try (CssResourceFetcher fetcher = new CssResourceFetcher(2, 5000, cache))
+			{
+				Map<String, String> result = fetcher.fetchAll(Arrays.asList(_root + "/etag.css", _root + "/modified.css"));
+				Assert.assertEquals("/* /etag.css */ a { color: red; }", result.get(_root + "/etag.css"));
+				Assert.assertEquals("/* /modified.css */ a { color: red; }", result.get(_root + "/modified.css"));
+			}
+		}
+
+		Assert.assertEquals(2, _fullResponses.get());
+		Assert.assertEquals(2, _notModifiedResponses.get());
+
+		// equal content is stored once
+		cache.put("http://example.com/other.css", null, null, "/* /etag.css */ a { color: red; }");
+		try (Stream<Path> objects = Files.list(cacheRoot.resolve("objects")))
+		{
+			Assert.assertEquals(2, objects.count());
+		}
+		Assert.assertEquals("/* /etag.css */ a { color: red; }", cache.get("http://example.com/other.css").readContent());
+		Assert.assertNull(cache.get("http://example.com/unknown.css"));
+	}
+
+
+	@Test
+	public void TestRefetchUnreadableCachedFile() throws IOException
+	{
+		Path cacheRoot = Files.createTempDirectory("cret-css-cache");
+		CssResourceCache cache = new CssResourceCache(cacheRoot.toString());
+
+		try (CssResourceFetcher fetcher = new CssResourceFetcher(1, 5000, cache))
+		{
+			Assert.assertEquals("/* /etag.css */ a { color: red; }", fetcher.fetch(_root + "/etag.css"));
+
+			// the cached copy still exists, but can no longer be read
+			Path object;
+			try (Stream<Path> objects = Files.list(cacheRoot.resolve("objects")))
+			{
+				object = objects.findFirst().get();
+			}
+			Files.delete(object);
+			Files.createDirectory(object);
+
+			Assert.assertEquals("/* /etag.css */ a { color: red; }", fetcher.fetch(_root + "/etag.css"));
+		}
+
+		Assert.assertEquals(2, _fullResponses.get());
+		Assert.assertEquals(1, _notModifiedResponses.get());
+	}
+}
@@ -0,0 +1,159 @@
+package cssparser;
+
+import com.crawljax.plugins.cret.cssmodel.MCssFile;
+import com.crawljax.plugins.cret.cssmodel.MCssRule;
+import com.crawljax.plugins.cret.cssmodel.MCssRuleBase;
+import com.crawljax.plugins.cret.cssmodel.MSelector;
+import com.crawljax.plugins.cret.generation.CssWriter;
+import com.crawljax.plugins.cret.util.CssSink;
+import com.steadystate.css.parser.media.MediaQuery;
+import helpers.TestHelper;
+import org.apache.log4j.xml.DOMConfigurator;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Verifies that the streaming CssWriter generates the same CSS code as printing rule by rule
+ */
+public class CssWriterTest
+{
+	private static final List<String> FILES = Arrays.asList("./src/test/resources/cssanalyzer_test_styles.css", "./src/test/resources/cssanalyzer_test_media.css",
+			"./src/test/resources/sass_mixin_test.css", "./src/test/resources/clonedetector_3_test.css");
+
+	public CssWriterTest()
+	{
+		DOMConfigurator.configure("log4j.xml");
+	}
+
+
+	@Test
+	public void TestStreamingEqualsPrint() throws Exception
+	{
+		for(String file : FILES)
+		{
+			MCssFile mCssFile = TestHelper.GetCssFileFromFile(file);
+			Assert.assertNotNull(mCssFile);
+
+			StringWriter writer = new StringWriter();
+			new CssWriter().generateCssCode(writer, mCssFile);
+
+			Assert.assertEquals(print(mCssFile), writer.toString());
+
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			new CssWriter().generateCssCode(Channels.newChannel(bytes), mCssFile);
+
+			Assert.assertEquals(writer.toString(), new String(bytes.toByteArray(), StandardCharsets.UTF_8));
+		}
+	}
+
+
+	@Test
+	public void TestMinified() throws Exception
+	{
+		for(String file : FILES)
+		{
+			MCssFile mCssFile = TestHelper.GetCssFileFromFile(file);
+
+			StringWriter writer = new StringWriter();
+			new CssWriter(true).generateCssCode(writer, mCssFile);
+
+			String minified = writer.toString();
+			Assert.assertFalse(minified.contains("\n"));
+
+			MCssFile reparsed = TestHelper.GetCssFromString("minified", minified);
+			Assert.assertNotNull(reparsed);
+			Assert.assertEquals(declarations(mCssFile), declarations(reparsed));
+		}
+	}
+
+
+	@Test
+	public void TestSinkEncoding() throws Exception
+	{
+		String text = "a::before { content: 'é😀中'; }\n";
+
+		// small capacity, so that characters and surrogate pairs are split over multiple drains
+		CssSink sink = new CssSink(5);
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+		sink.open(Channels.newChannel(bytes));
+		for(int i = 0; i < 10; i++)
+		{
+			sink.append(text);
+		}
+		sink.close();
+
+		StringBuilder expected = new StringBuilder();
+		for(int i = 0; i < 10; i++)
+		{
+			expected.append(text);
+		}
+
+		Assert.assertEquals(expected.toString(), new String(bytes.toByteArray(), StandardCharsets.UTF_8));
+
+		// the sink can be re-used for another target
+		StringWriter writer = new StringWriter();
+		sink.open(writer);
+		sink.append(text).append('x');
+		sink.close();
+
+		Assert.assertEquals(text + "x", writer.toString());
+	}
+
+
+	/**
+	 * Print the rules of the file one by one, the way CssWriter did before streaming
+	 */
+	private static String print(MCssFile mCssFile)
+	{
+		List<MCssRuleBase> rules = mCssFile.getAllRules().stream().filter(r -> !r.isEmpty()).collect(Collectors.toList());
+		rules.sort(Comparator.comparing(MCssRuleBase::getLineNumber).thenComparing(MCssRuleBase::getColumnNumber));
+
+		StringBuilder builder = new StringBuilder();
+		List<MediaQuery> currentMedia = new ArrayList<>();
+
+		for(MCssRuleBase rule : rules)
+		{
+			List<MediaQuery> media = rule.getMediaQueries();
+			if(!(currentMedia.containsAll(media) && media.containsAll(currentMedia)))
+			{
+				if(!currentMedia.isEmpty())
+					builder.append("\n}\n");
+
+				currentMedia = new ArrayList<>(media);
+
+				if(!media.isEmpty())
+					builder.append("@media ").append(media.stream().map(MediaQuery::toString).collect(Collectors.joining(" "))).append("{\n");
+			}
+
+			builder.append(rule.print());
+		}
+
+		if(!currentMedia.isEmpty())
+			builder.append("\n}\n");
+
+		return builder.toString();
+	}
+
+
+	private static List<String> declarations(MCssFile mCssFile)
+	{
+		List<String> result = new ArrayList<>();
+		for(MCssRule rule : mCssFile.getRules())
+		{
+			for(MSelector selector : rule.getSelectors())
+			{
+				result.add(selector.getSelectorText() + " " + selector.getDeclarations().stream().map(d -> d.toString()).collect(Collectors.joining()));
+			}
+		}
+		Collections.sort(result);
+		return result;
+	}
+}
@@ -86,7 +86,7 @@ public class TestHelper
     }
 
 
-    private static String GetStringFromFile(String path)
+    public static String GetStringFromFile(String path)
     {
         try
         {
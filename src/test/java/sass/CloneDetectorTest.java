@@ -1,6 +1,14 @@
 package sass;
 
 import com.crawljax.plugins.cret.cssmodel.MCssFile;
+import com.crawljax.plugins.cret.cssmodel.MCssRule;
+import com.crawljax.plugins.cret.cssmodel.MSelector;
+import com.crawljax.plugins.cret.cssmodel.declarations.MDeclaration;
+import com.crawljax.plugins.cret.sass.clonedetection.ClonedDeclaration;
+import com.crawljax.plugins.cret.sass.clonedetection.CloneDetector;
+import com.crawljax.plugins.cret.sass.clonedetection.TypeOneDuplicationInstance;
+import com.crawljax.plugins.cret.sass.clonedetection.items.Item;
+import com.crawljax.plugins.cret.sass.mixins.SassCloneMixin;
 import com.crawljax.plugins.cret.transformation.matcher.MatchedElements;
 import com.crawljax.plugins.cret.transformation.merge.NormalizeAndMergePlugin;
 
@@ -11,8 +19,16 @@ import org.apache.log4j.xml.DOMConfigurator;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
 
 /**
  * Created by axel on 6/5/2015.
@@ -50,4 +66,170 @@ public class CloneDetectorTest
 //        SassBuilder gen = new SassBuilder();
 //        gen.CssToSass(files);
     }
+
+
+    @Test
+    public void TestIncrementalEqualsFullDetection()
+    {
+        for (String cssFile : new String[]{ "./src/test/resources/clonedetector_test.css", "./src/test/resources/clonedetector_2_test.css",
+                "./src/test/resources/clonedetector_3_test.css", "./src/test/resources/sass_mixin_test.css" })
+        {
+            List<String> full = detectMixins(cssFile, false);
+            List<String> incremental = detectMixins(cssFile, true);
+
+            Assert.assertFalse(full.isEmpty());
+            Assert.assertEquals(full, incremental);
+        }
+    }
+
+
+    @Test
+    public void TestTypeOneGroupingEqualsPairwiseComparison()
+    {
+        MCssFile file = TestHelper.GetCssFileFromFile("./src/test/resources/clonedetector_typeone_test.css");
+        Assert.assertNotNull(file);
+
+        List<MSelector> selectors = new ArrayList<>();
+        for (MCssRule rule : file.getRules())
+        {
+            selectors.addAll(rule.getSelectors());
+        }
+
+        // identify every declaration by its selector and position, the detector wraps them in its own ClonedDeclarations
+        Map<MDeclaration, String> positions = new IdentityHashMap<>();
+        Map<MDeclaration, MSelector> parents = new IdentityHashMap<>();
+        List<MDeclaration> declarations = new ArrayList<>();
+        for (int s = 0; s < selectors.size(); s++)
+        {
+            List<MDeclaration> selectorDeclarations = selectors.get(s).getDeclarations();
+            for (int d = 0; d < selectorDeclarations.size(); d++)
+            {
+                MDeclaration declaration = selectorDeclarations.get(d);
+                positions.put(declaration, s + ":" + d);
+                parents.put(declaration, selectors.get(s));
+                declarations.add(declaration);
+            }
+        }
+
+        // pairwise grouping: compare the text of every declaration with the text of every later declaration
+        List<List<MDeclaration>> groups = new ArrayList<>();
+        Set<MDeclaration> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (int i = 0; i < declarations.size(); i++)
+        {
+            if (visited.contains(declarations.get(i)))
+            {
+                continue;
+            }
+
+            List<MDeclaration> group = new ArrayList<>();
+            group.add(declarations.get(i));
+            for (int j = i + 1; j < declarations.size(); j++)
+            {
+                if (declarations.get(i).toString().equals(declarations.get(j).toString()))
+                {
+                    group.add(declarations.get(j));
+                    visited.add(declarations.get(j));
+                }
+            }
+            groups.add(group);
+        }
+
+        // consecutive duplications in the same selectors form a single instance
+        List<List<List<String>>> expectedInstances = new ArrayList<>();
+        List<MSelector> instanceSelectors = new ArrayList<>();
+        for (List<MDeclaration> group : groups)
+        {
+            if (group.size() < 2)
+            {
+                continue;
+            }
+
+            List<MSelector> groupSelectors = group.stream().map(parents::get).collect(Collectors.toList());
+            if (expectedInstances.isEmpty() || groupSelectors.size() != new HashSet<>(instanceSelectors).size() || !instanceSelectors.containsAll(groupSelectors))
+            {
+                expectedInstances.add(new ArrayList<>());
+                instanceSelectors = new ArrayList<>();
+            }
+            instanceSelectors.addAll(groupSelectors);
+            expectedInstances.get(expectedInstances.size() - 1).add(group.stream().map(positions::get).collect(Collectors.toList()));
+        }
+
+        // a transaction holds the groups of a selector that occur in at least one other selector
+        List<Set<List<String>>> expectedTransactions = new ArrayList<>();
+        for (MSelector selector : selectors)
+        {
+            Set<List<String>> transaction = new HashSet<>();
+            for (List<MDeclaration> group : groups)
+            {
+                Set<MSelector> support = group.stream().map(parents::get).collect(Collectors.toSet());
+                if (support.contains(selector) && support.size() >= 2)
+                {
+                    transaction.add(group.stream().map(positions::get).collect(Collectors.toList()));
+                }
+            }
+            if (!transaction.isEmpty())
+            {
+                expectedTransactions.add(transaction);
+            }
+        }
+
+        List<TreeSet<Item>> transactions = new ArrayList<>();
+        List<TypeOneDuplicationInstance> instances = CloneDetector.findTypeOneDuplications(selectors, transactions);
+
+        List<List<List<String>>> actualInstances = new ArrayList<>();
+        for (TypeOneDuplicationInstance instance : instances)
+        {
+            List<List<String>> instanceDeclarations = new ArrayList<>();
+            for (List<ClonedDeclaration> duplicates : instance.getDeclarations())
+            {
+                instanceDeclarations.add(duplicates.stream().map(d -> positions.get(d.getProperty())).collect(Collectors.toList()));
+            }
+            actualInstances.add(instanceDeclarations);
+        }
+
+        List<Set<List<String>>> actualTransactions = new ArrayList<>();
+        for (TreeSet<Item> transaction : transactions)
+        {
+            Set<List<String>> items = new HashSet<>();
+            for (Item item : transaction)
+            {
+                items.add(item.stream().map(d -> positions.get(d.getProperty())).collect(Collectors.toList()));
+            }
+            actualTransactions.add(items);
+        }
+
+        Assert.assertFalse(expectedInstances.isEmpty());
+        Assert.assertEquals(expectedInstances, actualInstances);
+        Assert.assertEquals(expectedTransactions, actualTransactions);
+    }
+
+
+    private static List<String> detectMixins(String cssFile, boolean incremental)
+    {
+        MCssFile file = TestHelper.GetCssFileFromFile(cssFile);
+        Assert.assertNotNull(file);
+
+        // work on copies, like SassBuilder does
+        List<MSelector> selectors = new ArrayList<>();
+        for (MCssRule rule : file.getRules())
+        {
+            for (MSelector mSelector : rule.getSelectors())
+            {
+                selectors.add(new MSelector(mSelector));
+            }
+        }
+
+        // incremental detection only promises the same set of mixins as full detection, not the same order:
+        // declarations within a mixin, mixins extracted from the same itemset and itemsets of equal size follow hash ordering, so compare sorted
+        List<String> result = new ArrayList<>();
+        for (SassCloneMixin mixin : new CloneDetector(true, incremental).generateMixinsFromClones(selectors))
+        {
+            List<String> declarations = mixin.getDeclarations().stream().map(d -> d.toString()).sorted().collect(Collectors.toList());
+            List<String> related = mixin.getRelatedSelectors().stream().map(s -> s.toString()).sorted().collect(Collectors.toList());
+            result.add(declarations + " : " + related);
+        }
+
+        Collections.sort(result);
+        return result;
+    }
 }
@@ -0,0 +1,82 @@
+package sass;
+
+import com.crawljax.plugins.cret.CssSuiteException;
+import com.crawljax.plugins.cret.colors.BrowserColorParser;
+import com.crawljax.plugins.cret.colors.ColorNameFinder;
+import org.apache.log4j.xml.DOMConfigurator;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+
+/**
+ * Verifies that the indexed nearest-color search finds exactly the same names as a linear scan over the color table
+ */
+public class ColorNameFinderTest
+{
+    public ColorNameFinderTest()
+    {
+        DOMConfigurator.configure("log4j.xml");
+    }
+
+
+    @Test
+    public void TestIndexedEqualsLinear() throws CssSuiteException
+    {
+        ColorNameFinder finder = ColorNameFinder.getInstance();
+
+        // coarse grid over the whole rgb cube
+        for (int r = 0; r < 256; r += 15)
+        {
+            for (int g = 0; g < 256; g += 15)
+            {
+                for (int b = 0; b < 256; b += 15)
+                {
+                    Assert.assertEquals(String.format("rgb(%d, %d, %d)", r, g, b), finder.findNearestNameLinear(r, g, b), finder.tryGetNameForRgb(r, g, b));
+                }
+            }
+        }
+
+        Random random = new Random(0);
+        for (int i = 0; i < 20000; i++)
+        {
+            int r = random.nextInt(256);
+            int g = random.nextInt(256);
+            int b = random.nextInt(256);
+            Assert.assertEquals(String.format("rgb(%d, %d, %d)", r, g, b), finder.findNearestNameLinear(r, g, b), finder.tryGetNameForRgb(r, g, b));
+        }
+    }
+
+
+    @Test
+    public void TestExactAndCachedNames() throws CssSuiteException
+    {
+        ColorNameFinder finder = ColorNameFinder.getInstance();
+
+        Assert.assertEquals("black", finder.tryGetNameForHex("#000000"));
+        Assert.assertEquals("navy_blue", finder.tryGetNameForRgb(0, 0, 128));
+
+        // repeated lookups return the cached name
+        String name = finder.tryGetNameForHex("#123457");
+        Assert.assertSame(name, finder.tryGetNameForHex("#123457"));
+    }
+
+
+    @Test(expected = CssSuiteException.class)
+    public void TestInvalidColor() throws CssSuiteException
+    {
+        ColorNameFinder.getInstance().tryGetNameForRgb(256, 0, 0);
+    }
+
+
+    @Test
+    public void TestSharedColorTables()
+    {
+        // both tables are read from the classpath once
+        Assert.assertSame(ColorNameFinder.getInstance(), ColorNameFinder.getInstance());
+        Assert.assertSame(BrowserColorParser.getInstance(), BrowserColorParser.getInstance());
+
+        Assert.assertEquals("#ff0000", BrowserColorParser.getInstance().tryParseColorToHex("red"));
+        Assert.assertEquals("redish", BrowserColorParser.getInstance().tryParseColorToHex("redish"));
+    }
+}
@@ -0,0 +1,100 @@
+package sass;
+
+import com.crawljax.plugins.cret.cssmodel.MCssFile;
+import com.crawljax.plugins.cret.cssmodel.MCssRule;
+import com.crawljax.plugins.cret.cssmodel.MSelector;
+import com.crawljax.plugins.cret.cssmodel.declarations.MDeclaration;
+import com.crawljax.plugins.cret.sass.clonedetection.ClonedDeclaration;
+import com.crawljax.plugins.cret.sass.clonedetection.fpgrowth.FPGrowth;
+import com.crawljax.plugins.cret.sass.clonedetection.fpgrowth.PrimitiveFPGrowth;
+import com.crawljax.plugins.cret.sass.clonedetection.items.Item;
+import com.crawljax.plugins.cret.sass.clonedetection.items.ItemSet;
+import com.crawljax.plugins.cret.sass.clonedetection.items.ItemSetList;
+import helpers.TestHelper;
+import org.apache.log4j.xml.DOMConfigurator;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.*;
+
+/**
+ * Verifies that the PrimitiveFPGrowth engine mines exactly the same itemsets as FPGrowth
+ */
+public class FPGrowthTest
+{
+    public FPGrowthTest()
+    {
+        DOMConfigurator.configure("log4j.xml");
+    }
+
+
+    @Test
+    public void TestPrimitiveEqualsFPGrowth()
+    {
+        for (String cssFile : Arrays.asList("./src/test/resources/clonedetector_test.css", "./src/test/resources/clonedetector_2_test.css",
+                "./src/test/resources/clonedetector_3_test.css", "./src/test/resources/cssanalyzer_test_styles.css"))
+        {
+            List<TreeSet<Item>> transactions = buildTransactions(cssFile);
+
+            List<Set<ItemSet>> fpGrowth = toSets(new FPGrowth(false).mine(transactions, 2));
+            List<Set<ItemSet>> primitive = toSets(new PrimitiveFPGrowth(false).mine(transactions, 2));
+
+            Assert.assertFalse(fpGrowth.isEmpty());
+            Assert.assertEquals(fpGrowth, primitive);
+        }
+    }
+
+
+    /**
+     * Group declarations with equal text into items, one transaction per selector, like CloneDetector does
+     */
+    private static List<TreeSet<Item>> buildTransactions(String cssFile)
+    {
+        MCssFile file = TestHelper.GetCssFileFromFile(cssFile);
+        Assert.assertNotNull(file);
+
+        List<MSelector> selectors = new ArrayList<>();
+        for (MCssRule rule : file.getRules())
+        {
+            selectors.addAll(rule.getSelectors());
+        }
+
+        Map<String, Item> items = new HashMap<>();
+        Map<MSelector, List<Item>> selectorItems = new LinkedHashMap<>();
+        for (MSelector selector : selectors)
+        {
+            List<Item> current = new ArrayList<>();
+            for (MDeclaration declaration : selector.getDeclarations())
+            {
+                Item item = items.computeIfAbsent(declaration.toString(), k -> new Item());
+                item.add(new ClonedDeclaration(declaration, selector));
+                current.add(item);
+            }
+            selectorItems.put(selector, current);
+        }
+
+        List<TreeSet<Item>> transactions = new ArrayList<>();
+        for (List<Item> current : selectorItems.values())
+        {
+            TreeSet<Item> transaction = new TreeSet<>();
+            current.stream().filter(i -> i.getSupportSize() >= 2).forEach(transaction::add);
+            if (!transaction.isEmpty())
+            {
+                transactions.add(transaction);
+            }
+        }
+
+        return transactions;
+    }
+
+
+    private static List<Set<ItemSet>> toSets(List<ItemSetList> itemSetLists)
+    {
+        List<Set<ItemSet>> result = new ArrayList<>();
+        for (ItemSetList isl : itemSetLists)
+        {
+            result.add(new HashSet<>(isl));
+        }
+        return result;
+    }
+}
@@ -5,6 +5,7 @@ import com.cathive.sass.SassContext;
 import com.cathive.sass.SassFileContext;
 import com.cathive.sass.SassOutputStyle;
 
+import com.crawljax.plugins.cret.CRET;
 import com.crawljax.plugins.cret.LogHandler;
 import com.crawljax.plugins.cret.cssmodel.MCssFile;
 import com.crawljax.plugins.cret.cssmodel.MCssRule;
@@ -22,7 +23,15 @@ import org.junit.Test;
 
 import java.io.File;
 import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 
 /**
@@ -102,4 +111,31 @@ public class JavaLibSassTest
             }
         }
     }
+
+
+    @Test
+    public void TestCompileSassInMemory() throws IOException
+    {
+        Path output = Files.createTempDirectory("cret-sass");
+
+        Map<String, String> scssCode = new LinkedHashMap<>();
+        scssCode.put("valid.css", "$color: red;\n.outer { .inner { color: $color; } }\n");
+        scssCode.put("invalid.css", ".outer { color: $undefined; }\n");
+
+        Map<String, File> targets = new LinkedHashMap<>();
+        for (String fileName : scssCode.keySet())
+        {
+            targets.put(fileName, output.resolve(fileName).toFile());
+        }
+
+        CRET cret = new CRET("sass", "http://localhost/");
+        Set<String> inError = cret.compileSassInMemory(scssCode, targets);
+
+        // only the invalid file is reported, the valid file is still compiled
+        Assert.assertEquals(Collections.singleton("invalid.css"), inError);
+
+        String css = new String(Files.readAllBytes(targets.get("valid.css").toPath()), StandardCharsets.UTF_8);
+        Assert.assertTrue(css.contains(".outer .inner"));
+        Assert.assertTrue(css.contains("color: red"));
+    }
 }